@@ -64,11 +64,6 @@ const ControlFinanciero = () => {
     }
   }, [fechaInicio, fechaFin]);
 
-  // Calcular resumen cuando cambian los datos
-  useEffect(() => {
-    calcularResumen();
-  }, [gastos, ingresos]);
-
   const cargarDatos = async (fechaInicioParam = fechaInicio, fechaFinParam = fechaFin) => {
     if (!fechaInicioParam || !fechaFinParam) return;
     
@@ -77,6 +72,7 @@ const ControlFinanciero = () => {
       await Promise.all([
         cargarGastos(fechaInicioParam, fechaFinParam),
         cargarIngresos(fechaInicioParam, fechaFinParam),
+        cargarResumen(fechaInicioParam, fechaFinParam),
         cargarCategorias()
       ]);
     } catch (error) {
@@ -112,23 +108,19 @@ const ControlFinanciero = () => {
     }
   };
 
-  const calcularResumen = () => {
-    const totalGastos = gastos.reduce((sum, gasto) => sum + parseFloat(gasto.total || 0), 0);
-    const totalIngresos = ingresos.reduce((sum, presupuesto) => {
-      return sum + presupuesto.tratamientos.reduce((sumTrat, tratamiento) => 
-        sumTrat + parseFloat(tratamiento.abonado || 0), 0);
-    }, 0);
-    const totalPendientes = ingresos.reduce((sum, presupuesto) => {
-      return sum + presupuesto.tratamientos.reduce((sumTrat, tratamiento) => 
-        sumTrat + (parseFloat(tratamiento.precio || 0) - parseFloat(tratamiento.abonado || 0)), 0);
-    }, 0);
-
-    setResumen({
-      totalIngresos,
-      totalGastos,
-      totalPendientes,
-      balance: totalIngresos - totalGastos
-    });
+  // Los totales los calcula el backend desde el resumen diario de ingresos y gastos
+  const cargarResumen = async (fechaInicioParam, fechaFinParam) => {
+    try {
+      const response = await axios.get(buildApiUrl(`finanzas/resumen?fechaInicio=${fechaInicioParam}&fechaFin=${fechaFinParam}`));
+      setResumen({
+        totalIngresos: parseFloat(response.data.totalIngresos || 0),
+        totalGastos: parseFloat(response.data.totalGastos || 0),
+        totalPendientes: parseFloat(response.data.totalPendientes || 0),
+        balance: parseFloat(response.data.balance || 0)
+      });
+    } catch (error) {
+      setResumen({ totalIngresos: 0, totalGastos: 0, totalPendientes: 0, balance: 0 });
+    }
   };
 
   const handleCrearGasto = async () => {
@@ -474,7 +474,7 @@ const Periodontograma = () => {
       } else {
         // Intentar buscar si ya existe un periodontograma para este paciente
         try {
-          const existingResponse = await axios.get(buildApiUrl(`periodontograma/paciente/${paciente.id}/reciente`));
+          const existingResponse = await axios.get(buildApiUrl(`periodontograma/paciente/${paciente.id}/ultimo`));
           if (existingResponse.data && existingResponse.data.id) {
             response = await axios.put(buildApiUrl(`periodontograma/${existingResponse.data.id}`), periodontogramaData);
             // Actualizar el ID del periodontograma
@@ -18,6 +18,8 @@ const Presupuesto = () => {
   const [loading, setLoading] = useState(false);
   const [message, setMessage] = useState(null);
   const [presupuestoActual, setPresupuestoActual] = useState(null);
+  // Tratamientos y fecha que el usuario no pudo guardar porque otra terminal modificó el presupuesto
+  const [cambiosSinGuardar, setCambiosSinGuardar] = useState(null);
 
   // Estados para tratamientos
   const [tratamientos, setTratamientos] = useState([]);
@@ -75,14 +77,14 @@ const Presupuesto = () => {
     }
   }, [selectedPaciente]);
 
-  const cargarPresupuestos = async () => {
+  const cargarPresupuestos = async (seleccionarPrimero = true) => {
     try {
       setLoading(true);
       const response = await axios.get(buildApiUrl(`presupuesto/paciente/${selectedPaciente}`));
       setPresupuestos(response.data);
       
       // Si hay presupuestos, cargar automáticamente el primero
-      if (response.data && response.data.length > 0) {
+      if (seleccionarPrimero && response.data && response.data.length > 0) {
         const primerPresupuesto = response.data[0];
         setPresupuestoActual(primerPresupuesto);
         setTratamientos(primerPresupuesto.tratamientos || []);
@@ -107,6 +109,7 @@ const Presupuesto = () => {
     setShowCustomTreatment(false);
     setCustomTreatment('');
     setExpandedTratamientos(new Set());
+    setCambiosSinGuardar(null);
   };
 
   const handlePacienteChange = (pacienteId) => {
@@ -118,6 +121,7 @@ const Presupuesto = () => {
     setPresupuestoActual(presupuesto);
     setTratamientos(presupuesto.tratamientos || []);
     setFechaPresupuesto(presupuesto.fechaRegistro);
+    setCambiosSinGuardar(null);
   };
 
   const handleAgregarTratamiento = () => {
@@ -250,7 +254,11 @@ const Presupuesto = () => {
       
       // Si hay un presupuesto actual (modo modificación)
       if (presupuestoActual) {
-        response = await axios.put(buildApiUrl(`presupuesto/${presupuestoActual.id}`), presupuestoData);
+        // La versión leída permite al backend rechazar cambios hechos desde otra terminal (409)
+        response = await axios.put(buildApiUrl(`presupuesto/${presupuestoActual.id}`), {
+          ...presupuestoData,
+          version: presupuestoActual.version
+        });
         setMessage('Presupuesto actualizado exitosamente');
       } else {
         // Si no hay presupuesto actual (modo creación)
@@ -259,11 +267,16 @@ const Presupuesto = () => {
       }
       
       setTimeout(() => setMessage(null), 3000);
+      setCambiosSinGuardar(null);
       
       // Recargar presupuestos
       await cargarPresupuestos();
       
     } catch (error) {
+      if (error.response?.status === 409 && presupuestoActual) {
+        await recargarPorConflicto();
+        return;
+      }
       setMessage('Error al guardar: ' + (error.response?.data?.error || error.message));
     } finally {
       setLoading(false);
@@ -274,6 +287,30 @@ const Presupuesto = () => {
 
 
 
+  // Otra terminal guardó este presupuesto: se muestra la versión guardada (sigue seleccionado)
+  // y los cambios locales quedan aparte para que el usuario los vuelva a aplicar
+  const recargarPorConflicto = async () => {
+    setCambiosSinGuardar({ tratamientos, fechaRegistro: fechaPresupuesto });
+    try {
+      const response = await axios.get(buildApiUrl(`presupuesto/${presupuestoActual.id}`));
+      setPresupuestoActual(response.data);
+      setTratamientos(response.data.tratamientos || []);
+      setFechaPresupuesto(response.data.fechaRegistro);
+      setMessage('Error: otra persona modificó este presupuesto y sus cambios no se guardaron. '
+        + 'Se muestra la versión guardada; puede reaplicar sus cambios y volver a guardar.');
+    } catch (error) {
+      setMessage('Error: el presupuesto fue modificado o eliminado desde otra terminal y sus cambios no se guardaron.');
+    }
+    await cargarPresupuestos(false);
+  };
+
+  const reaplicarCambios = () => {
+    setTratamientos(cambiosSinGuardar.tratamientos);
+    setFechaPresupuesto(cambiosSinGuardar.fechaRegistro);
+    setCambiosSinGuardar(null);
+    setMessage(null);
+  };
+
   return (
     <div className="presupuesto-container">
       <div className="presupuesto-header">
@@ -493,6 +530,17 @@ const Presupuesto = () => {
                 {message}
               </div>
             )}
+
+            {cambiosSinGuardar && (
+              <div className="botones-container conflicto-acciones">
+                <button className="btn-modificar" onClick={reaplicarCambios}>
+                  Reaplicar mis cambios
+                </button>
+                <button className="btn-volver" onClick={() => setCambiosSinGuardar(null)}>
+                  Descartar mis cambios
+                </button>
+              </div>
+            )}
             
             <div className="botones-container">
               <button 
@@ -0,0 +1,65 @@
+package com.consultorio.odontologia.benchmark;
+
+import com.consultorio.odontologia.entity.Paciente;
+import com.consultorio.odontologia.service.util.IndiceTrigramas;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compara el filtro por streams original de PacienteService.buscarPacientes
+ * con la búsqueda top-k sobre el índice de trigramas
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BusquedaPacientesBenchmark {
+
+    @Param({"10000", "100000"})
+    private int pacientes;
+
+    @Param({"gonzales", "martines rodrigo", "4512"})
+    private String consulta;
+
+    private List<Paciente> todos;
+    private IndiceTrigramas indice;
+
+    @Setup
+    public void preparar() {
+        Random random = new Random(42);
+        todos = new ArrayList<>(pacientes);
+        indice = new IndiceTrigramas();
+        for (int i = 0; i < pacientes; i++) {
+            Paciente paciente = new Paciente();
+            paciente.setId((long) i + 1);
+            paciente.setName(DatosSinteticos.elegir(DatosSinteticos.NOMBRES, random));
+            paciente.setLastname(DatosSinteticos.elegir(DatosSinteticos.APELLIDOS, random) + " " + DatosSinteticos.elegir(DatosSinteticos.APELLIDOS, random));
+            paciente.setCI(10_000_000L + random.nextInt(50_000_000));
+            todos.add(paciente);
+            indice.agregar(paciente.getId(), paciente.getName(), paciente.getLastname(), paciente.getCI().toString());
+        }
+    }
+
+    @Benchmark
+    public List<Paciente> filtroStream() {
+        // Mismo criterio que la implementación original: contains sin ranking sobre toda la tabla
+        return todos.stream()
+            .filter(paciente ->
+                (paciente.getName() != null && paciente.getName().toLowerCase().contains(consulta.toLowerCase())) ||
+                (paciente.getLastname() != null && paciente.getLastname().toLowerCase().contains(consulta.toLowerCase())) ||
+                (paciente.getCI() != null && paciente.getCI().toString().contains(consulta)))
+            .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<IndiceTrigramas.Resultado> indiceTrigramas() {
+        return indice.buscar(consulta, 10, 0.4);
+    }
+}
@@ -0,0 +1,61 @@
+package com.consultorio.odontologia.benchmark;
+
+import com.consultorio.odontologia.dto.CitaDTO;
+import com.consultorio.odontologia.entity.Cita;
+import com.consultorio.odontologia.entity.Paciente;
+import com.consultorio.odontologia.entity.Usuario;
+import com.consultorio.odontologia.service.util.DTOConverter;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo de DTOConverter.convertirCitaADTO sobre la agenda completa, como la arma CitaService al listar citas
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ConversionCitasBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int citas;
+
+    private List<Cita> agenda;
+
+    @Setup
+    public void preparar() {
+        Random random = new Random(42);
+        // Un paciente cada diez citas y unos pocos odontólogos
+        List<Paciente> pacientes = DatosSinteticos.pacientes(Math.max(1, citas / 10), random);
+        List<Usuario> usuarios = DatosSinteticos.usuarios(5);
+        LocalDate inicio = LocalDate.of(2024, 1, 1);
+        agenda = new ArrayList<>(citas);
+        for (int i = 0; i < citas; i++) {
+            Cita cita = new Cita();
+            cita.setId((long) i + 1);
+            cita.setPaciente(DatosSinteticos.elegir(pacientes, random));
+            cita.setUsuario(DatosSinteticos.elegir(usuarios, random));
+            cita.setFecha(inicio.plusDays(random.nextInt(730)));
+            cita.setHora(LocalTime.of(8 + random.nextInt(11), random.nextBoolean() ? 0 : 30));
+            cita.setMotivo(DatosSinteticos.elegir(DatosSinteticos.MOTIVOS, random));
+            agenda.add(cita);
+        }
+    }
+
+    @Benchmark
+    public List<CitaDTO> convertirAgenda() {
+        List<CitaDTO> dtos = new ArrayList<>(agenda.size());
+        for (Cita cita : agenda) {
+            dtos.add(DTOConverter.convertirCitaADTO(cita));
+        }
+        return dtos;
+    }
+}
@@ -0,0 +1,63 @@
+package com.consultorio.odontologia.benchmark;
+
+import com.consultorio.odontologia.entity.Paciente;
+import com.consultorio.odontologia.entity.Usuario;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Datos de prueba para los benchmarks sin base de datos. Los textos salen de listas fijas para que un millón
+ * de entidades quepa en memoria sin que el recolector domine la medición.
+ */
+final class DatosSinteticos {
+
+    static final String[] NOMBRES = {"María", "José", "Juan", "Ana", "Lucía", "Martín", "Sofía", "Diego", "Valentina", "Andrés", "Camila", "Nicolás"};
+    static final String[] APELLIDOS = {"González", "Rodríguez", "Fernández", "López", "Martínez", "Pérez", "García", "Sánchez", "Romero", "Álvarez", "Núñez", "Silva"};
+    static final String[] MOTIVOS = {"Control", "Dolor en molar inferior", "Limpieza", "Sangrado de encías", "Extracción", "Urgencia", "Blanqueamiento"};
+    static final String[] MEDICAMENTOS = {"", "Ibuprofeno 400 mg", "Enalapril 10 mg", "Metformina 850 mg", "Levotiroxina 50 mcg"};
+    static final String[] ANTECEDENTES = {"", "Ortodoncia en la adolescencia", "Endodoncia en pieza 36", "Sin antecedentes de relevancia"};
+
+    private DatosSinteticos() {
+    }
+
+    static List<Paciente> pacientes(int cantidad, Random random) {
+        List<Paciente> pacientes = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            Paciente paciente = new Paciente();
+            paciente.setId((long) i + 1);
+            paciente.setName(elegir(NOMBRES, random));
+            paciente.setLastname(elegir(APELLIDOS, random) + " " + elegir(APELLIDOS, random));
+            paciente.setCI(10_000_000L + random.nextInt(50_000_000));
+            paciente.setGender(random.nextBoolean() ? "F" : "M");
+            paciente.setTelephone(90_000_000 + random.nextInt(10_000_000));
+            paciente.setEmail("paciente" + i + "@correo.com");
+            paciente.setMedication(elegir(MEDICAMENTOS, random));
+            paciente.setDentalHistory(elegir(ANTECEDENTES, random));
+            paciente.setEdad(5 + random.nextInt(85));
+            pacientes.add(paciente);
+        }
+        return pacientes;
+    }
+
+    static List<Usuario> usuarios(int cantidad) {
+        List<Usuario> usuarios = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            Usuario usuario = new Usuario();
+            usuario.setId((long) i + 1);
+            usuario.setName("Odontólogo " + (i + 1));
+            usuario.setEmail("odontologo" + (i + 1) + "@aqua.com");
+            usuarios.add(usuario);
+        }
+        return usuarios;
+    }
+
+    static <T> T elegir(T[] valores, Random random) {
+        return valores[random.nextInt(valores.length)];
+    }
+
+    static <T> T elegir(List<T> valores, Random random) {
+        return valores.get(random.nextInt(valores.size()));
+    }
+}
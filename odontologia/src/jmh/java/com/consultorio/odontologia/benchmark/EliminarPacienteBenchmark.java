@@ -0,0 +1,198 @@
+package com.consultorio.odontologia.benchmark;
+
+import com.consultorio.odontologia.ConsultorioOdontologicoAquaApplication;
+import com.consultorio.odontologia.entity.Cita;
+import com.consultorio.odontologia.entity.Diagnostico;
+import com.consultorio.odontologia.entity.HistoriaClinica;
+import com.consultorio.odontologia.entity.Odontograma;
+import com.consultorio.odontologia.entity.Paciente;
+import com.consultorio.odontologia.entity.Periodoncia;
+import com.consultorio.odontologia.entity.Periodontograma;
+import com.consultorio.odontologia.entity.Presupuesto;
+import com.consultorio.odontologia.entity.Tratamiento;
+import com.consultorio.odontologia.entity.TratamientoPresupuesto;
+import com.consultorio.odontologia.entity.Usuario;
+import com.consultorio.odontologia.repository.CitaRepository;
+import com.consultorio.odontologia.repository.DiagnosticoRepository;
+import com.consultorio.odontologia.repository.HistoriaClinicaRepository;
+import com.consultorio.odontologia.repository.OdontogramaRepository;
+import com.consultorio.odontologia.repository.PacienteRepository;
+import com.consultorio.odontologia.repository.PeriodonciaRepository;
+import com.consultorio.odontologia.repository.PeriodontogramaRepository;
+import com.consultorio.odontologia.repository.PresupuestoRepository;
+import com.consultorio.odontologia.repository.TratamientoRepository;
+import com.consultorio.odontologia.repository.UsuarioRepository;
+import com.consultorio.odontologia.service.PacienteService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara el borrado de un paciente con años de historial por cascada JPA
+ * (una carga y un DELETE por fila hija) contra el borrado en bloque de PacienteService.
+ * Levanta la aplicación sin servidor web sobre H2 en modo MySQL.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 15)
+@Fork(1)
+public class EliminarPacienteBenchmark {
+
+    @Param({"1", "10"})
+    private int anios;
+
+    private ConfigurableApplicationContext contexto;
+    private PacienteService pacienteService;
+    private PacienteRepository pacienteRepository;
+    private TransactionTemplate transaccion;
+    private Usuario usuario;
+    private Long pacienteId;
+
+    @Setup(Level.Trial)
+    public void iniciar() {
+        SpringApplication aplicacion = new SpringApplication(ConsultorioOdontologicoAquaApplication.class);
+        aplicacion.setWebApplicationType(WebApplicationType.NONE);
+        // Como argumentos para que tengan prioridad sobre application.properties
+        contexto = aplicacion.run(
+            "--spring.datasource.url=jdbc:h2:mem:benchmark;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+            "--spring.datasource.username=sa",
+            "--spring.datasource.password=",
+            "--spring.datasource.driver-class-name=org.h2.Driver",
+            "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+            "--spring.jpa.hibernate.ddl-auto=create-drop",
+            "--logging.level.root=WARN");
+
+        pacienteService = contexto.getBean(PacienteService.class);
+        pacienteRepository = contexto.getBean(PacienteRepository.class);
+        transaccion = contexto.getBean(TransactionTemplate.class);
+
+        Usuario nuevo = new Usuario();
+        nuevo.setEmail("benchmark@consultorio.com");
+        nuevo.setPassword("benchmark");
+        nuevo.setName("Benchmark");
+        usuario = contexto.getBean(UsuarioRepository.class).save(nuevo);
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        contexto.close();
+    }
+
+    /**
+     * Cada invocación borra un paciente recién cargado con el historial de varios años
+     */
+    @Setup(Level.Invocation)
+    public void cargarPaciente() {
+        Paciente paciente = new Paciente();
+        paciente.setName("Paciente");
+        paciente.setLastname("Benchmark");
+        paciente.setCI(System.nanoTime() % 100_000_000L);
+        paciente = pacienteRepository.save(paciente);
+        pacienteId = paciente.getId();
+
+        LocalDate inicio = LocalDate.now().minusYears(anios);
+        List<Cita> citas = new ArrayList<>();
+        List<HistoriaClinica> historias = new ArrayList<>();
+        List<Odontograma> odontogramas = new ArrayList<>();
+        List<Periodoncia> periodoncias = new ArrayList<>();
+        List<Periodontograma> periodontogramas = new ArrayList<>();
+        List<Presupuesto> presupuestos = new ArrayList<>();
+        List<Tratamiento> tratamientos = new ArrayList<>();
+        List<Diagnostico> diagnosticos = new ArrayList<>();
+
+        // Por año: dos citas por mes, controles trimestrales, fichas semestrales y presupuestos con cuatro líneas
+        for (int mes = 0; mes < anios * 12; mes++) {
+            LocalDate fecha = inicio.plusMonths(mes);
+            for (int i = 0; i < 2; i++) {
+                Cita cita = new Cita();
+                cita.setPaciente(paciente);
+                cita.setUsuario(usuario);
+                cita.setFecha(fecha.plusDays(i * 14L));
+                cita.setHora(LocalTime.of(9 + i, 0));
+                cita.setMotivo("Control");
+                citas.add(cita);
+            }
+            if (mes % 3 == 0) {
+                HistoriaClinica historia = new HistoriaClinica();
+                historia.setPaciente(paciente);
+                historia.setUsuario(usuario);
+                historia.setMotivoConsulta("Control trimestral");
+                historias.add(historia);
+
+                Odontograma odontograma = new Odontograma();
+                odontograma.setPaciente(paciente);
+                odontograma.setFechaCreacion(fecha.atStartOfDay());
+                odontograma.setTipoDenticion("permanente");
+                odontograma.setDatosDientes("{}");
+                odontogramas.add(odontograma);
+
+                Presupuesto presupuesto = new Presupuesto();
+                presupuesto.setPaciente(paciente);
+                presupuesto.setFechaRegistro(fecha);
+                List<TratamientoPresupuesto> lineas = new ArrayList<>();
+                for (int i = 0; i < 4; i++) {
+                    TratamientoPresupuesto linea = new TratamientoPresupuesto();
+                    linea.setNombre("Tratamiento " + i);
+                    linea.setPrecio(new BigDecimal("1500.00"));
+                    linea.setAbonado(BigDecimal.ZERO);
+                    linea.setPagado(false);
+                    linea.setFechaCreacion(LocalDateTime.now());
+                    linea.setPresupuesto(presupuesto);
+                    lineas.add(linea);
+                }
+                presupuesto.setTratamientos(lineas);
+                presupuestos.add(presupuesto);
+
+                diagnosticos.add(new Diagnostico("Caries", "Favorable", null, fecha, paciente, usuario));
+            }
+            if (mes % 6 == 0) {
+                Periodoncia periodoncia = new Periodoncia();
+                periodoncia.setPaciente(paciente);
+                periodoncia.setFechaRegistro(fecha);
+                periodoncia.setTipoFicha(Periodoncia.TipoFicha.CONTROL_PERIODICO);
+                periodoncias.add(periodoncia);
+
+                Periodontograma periodontograma = new Periodontograma();
+                periodontograma.setPaciente(paciente);
+                periodontograma.setFechaRegistro(fecha.toString());
+                periodontograma.setDatosPeriodontograma("{}");
+                periodontogramas.add(periodontograma);
+
+                tratamientos.add(new Tratamiento("Limpieza", null, "1 mes", fecha, fecha.plusMonths(1), null, false, paciente));
+            }
+        }
+
+        contexto.getBean(CitaRepository.class).saveAll(citas);
+        contexto.getBean(HistoriaClinicaRepository.class).saveAll(historias);
+        contexto.getBean(OdontogramaRepository.class).saveAll(odontogramas);
+        contexto.getBean(PeriodonciaRepository.class).saveAll(periodoncias);
+        contexto.getBean(PeriodontogramaRepository.class).saveAll(periodontogramas);
+        contexto.getBean(PresupuestoRepository.class).saveAll(presupuestos);
+        contexto.getBean(TratamientoRepository.class).saveAll(tratamientos);
+        contexto.getBean(DiagnosticoRepository.class).saveAll(diagnosticos);
+    }
+
+    @Benchmark
+    public void cascadaJpa() {
+        // Implementación anterior: cargar el paciente y dejar que cascade/orphanRemoval borre fila por fila
+        transaccion.executeWithoutResult(estado ->
+            pacienteRepository.findById(pacienteId).ifPresent(pacienteRepository::delete));
+    }
+
+    @Benchmark
+    public void borradoEnBloque() {
+        pacienteService.eliminarPaciente(pacienteId);
+    }
+}
@@ -0,0 +1,85 @@
+package com.consultorio.odontologia.benchmark;
+
+import com.consultorio.odontologia.dto.HistoriaClinicaDTO;
+import com.consultorio.odontologia.entity.HistoriaClinica;
+import com.consultorio.odontologia.entity.Paciente;
+import com.consultorio.odontologia.entity.Usuario;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara armar HistoriaClinicaDTO completo (constructor) con solo el encabezado, como se hace para
+ * el listado de historias de un paciente. Las entidades no pasan por Hibernate: se mide solo la copia.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class HistoriaClinicaDTOBenchmark {
+
+    private static final String[] CEPILLADO = {"1 vez al día", "2 veces al día", "3 veces al día", "Ocasional"};
+    private static final String[] ALERGIAS = {null, "Ninguna", "Penicilina", "Látex", "AINEs"};
+    private static final String[] EXAMEN = {"Sin particularidades", "Ganglios no palpables", "Mucosa normocoloreada",
+            "Lesión blanca en borde lateral de lengua"};
+
+    @Param({"10000", "100000", "1000000"})
+    private int historias;
+
+    private List<HistoriaClinica> lista;
+
+    @Setup
+    public void preparar() {
+        Random random = new Random(42);
+        List<Paciente> pacientes = DatosSinteticos.pacientes(Math.max(1, historias / 3), random);
+        List<Usuario> usuarios = DatosSinteticos.usuarios(5);
+        LocalDateTime inicio = LocalDateTime.of(2024, 1, 1, 8, 0);
+        lista = new ArrayList<>(historias);
+        for (int i = 0; i < historias; i++) {
+            HistoriaClinica historia = new HistoriaClinica();
+            historia.setId((long) i + 1);
+            historia.setPaciente(DatosSinteticos.elegir(pacientes, random));
+            historia.setUsuario(DatosSinteticos.elegir(usuarios, random));
+            historia.setFechaCreacion(inicio.plusMinutes(random.nextInt(1_000_000)));
+            historia.setFechaActualizacion(historia.getFechaCreacion());
+            historia.setMotivoConsulta(DatosSinteticos.elegir(DatosSinteticos.MOTIVOS, random));
+            historia.setCepilladoDental(DatosSinteticos.elegir(CEPILLADO, random));
+            historia.setCepilladoEncias(DatosSinteticos.elegir(CEPILLADO, random));
+            historia.setUsaHiloDental(random.nextBoolean());
+            historia.setFumador(random.nextInt(5) == 0);
+            historia.setConsumeMate(random.nextBoolean());
+            historia.setMedicamentos(DatosSinteticos.elegir(DatosSinteticos.MEDICAMENTOS, random));
+            historia.setAlergias(DatosSinteticos.elegir(ALERGIAS, random));
+            historia.setAntecedentesFamiliares(DatosSinteticos.elegir(DatosSinteticos.ANTECEDENTES, random));
+            historia.setEnTratamiento(random.nextBoolean());
+            historia.setApreciacionGeneral(DatosSinteticos.elegir(EXAMEN, random));
+            historia.setExamenRegional(DatosSinteticos.elegir(EXAMEN, random));
+            historia.setExamenLocal(DatosSinteticos.elegir(EXAMEN, random));
+            lista.add(historia);
+        }
+    }
+
+    @Benchmark
+    public List<HistoriaClinicaDTO> completas() {
+        List<HistoriaClinicaDTO> dtos = new ArrayList<>(lista.size());
+        for (HistoriaClinica historia : lista) {
+            dtos.add(new HistoriaClinicaDTO(historia));
+        }
+        return dtos;
+    }
+
+    @Benchmark
+    public List<HistoriaClinicaDTO> encabezados() {
+        List<HistoriaClinicaDTO> dtos = new ArrayList<>(lista.size());
+        for (HistoriaClinica historia : lista) {
+            dtos.add(HistoriaClinicaDTO.soloEncabezado(historia));
+        }
+        return dtos;
+    }
+}
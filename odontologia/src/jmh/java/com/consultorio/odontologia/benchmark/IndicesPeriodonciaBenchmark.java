@@ -0,0 +1,161 @@
+package com.consultorio.odontologia.benchmark;
+
+import com.consultorio.odontologia.dto.PromedioIndicesMesDTO;
+import com.consultorio.odontologia.service.util.IndicesPeriodoncia;
+import com.consultorio.odontologia.service.util.PanelIndicesPeriodoncia;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara el cálculo de porcentajes recorriendo los Map de los índices (implementación anterior
+ * de PeriodonciaService) con los bitsets de IndicesPeriodoncia, por ficha y como promedio mensual
+ * de toda la clínica
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IndicesPeriodonciaBenchmark {
+
+    @Param({"1000", "100000"})
+    private int fichas;
+
+    private List<Map<String, Object>> placas;
+    private List<Map<String, Object>> sarros;
+    private List<LocalDate> fechas;
+    private List<IndicesPeriodoncia> indices;
+    private LocalDate[] fechasPanel;
+    private long[] placaSuperior;
+    private long[] placaInferior;
+    private long[] sarro;
+
+    @Setup
+    public void preparar() {
+        Random random = new Random(42);
+        LocalDate inicio = LocalDate.of(2024, 1, 1);
+        placas = new ArrayList<>(fichas);
+        sarros = new ArrayList<>(fichas);
+        fechas = new ArrayList<>(fichas);
+        indices = new ArrayList<>(fichas);
+        fechasPanel = new LocalDate[fichas];
+        placaSuperior = new long[fichas];
+        placaInferior = new long[fichas];
+        sarro = new long[fichas];
+
+        for (int i = 0; i < fichas; i++) {
+            // Como los guarda el frontend: el sector desmarcado queda en false
+            Map<String, Object> placa = new LinkedHashMap<>();
+            Map<String, Object> sarroPorDiente = new LinkedHashMap<>();
+            for (int diente : IndicesPeriodoncia.DIENTES) {
+                for (IndicesPeriodoncia.SectorPlaca sector : IndicesPeriodoncia.SectorPlaca.values()) {
+                    int sorteo = random.nextInt(10);
+                    if (sorteo < 4) {
+                        placa.put(diente + "-" + sector.getClave(), sorteo < 3);
+                    }
+                }
+                if (random.nextInt(4) == 0) {
+                    Map<String, Object> sectores = new LinkedHashMap<>();
+                    sectores.put("superior", random.nextBoolean());
+                    sectores.put("inferior", random.nextBoolean());
+                    sarroPorDiente.put(String.valueOf(diente), sectores);
+                }
+            }
+            LocalDate fecha = inicio.plusDays(random.nextInt(730));
+            placas.add(placa);
+            sarros.add(sarroPorDiente);
+            fechas.add(fecha);
+
+            IndicesPeriodoncia ficha = IndicesPeriodoncia.desdeMapas(placa, sarroPorDiente);
+            indices.add(ficha);
+            fechasPanel[i] = fecha;
+            placaSuperior[i] = ficha.getPlacaSuperior();
+            placaInferior[i] = ficha.getPlacaInferior();
+            sarro[i] = ficha.getSarro();
+        }
+    }
+
+    @Benchmark
+    public long porcentajesMapa() {
+        long suma = 0;
+        for (int i = 0; i < fichas; i++) {
+            suma += porcentajePlacaMapa(placas.get(i)) + porcentajeSarroMapa(sarros.get(i));
+        }
+        return suma;
+    }
+
+    @Benchmark
+    public long porcentajesBits() {
+        long suma = 0;
+        for (int i = 0; i < fichas; i++) {
+            IndicesPeriodoncia ficha = indices.get(i);
+            suma += ficha.porcentajePlaca() + ficha.porcentajeSarro();
+        }
+        return suma;
+    }
+
+    @Benchmark
+    public Map<YearMonth, Double> promedioMensualMapa() {
+        // Agrupar por mes y promediar los porcentajes calculados sobre cada Map
+        Map<YearMonth, double[]> acumulado = new TreeMap<>();
+        for (int i = 0; i < fichas; i++) {
+            double[] mes = acumulado.computeIfAbsent(YearMonth.from(fechas.get(i)), k -> new double[2]);
+            mes[0] += porcentajePlacaMapa(placas.get(i));
+            mes[1]++;
+        }
+        Map<YearMonth, Double> promedios = new LinkedHashMap<>();
+        acumulado.forEach((mes, valores) -> promedios.put(mes, valores[0] / valores[1]));
+        return promedios;
+    }
+
+    @Benchmark
+    public List<PromedioIndicesMesDTO> promedioMensualBits() {
+        // Incluye armar el panel, como hace PeriodonciaService con las filas de la consulta
+        PanelIndicesPeriodoncia panel = new PanelIndicesPeriodoncia();
+        for (int i = 0; i < fichas; i++) {
+            panel.agregar(fechasPanel[i], placaSuperior[i], placaInferior[i], sarro[i]);
+        }
+        return panel.promediosPorMes();
+    }
+
+    // Implementación anterior de PeriodonciaService.calcularPorcentajePlaca
+    private static Integer porcentajePlacaMapa(Map<String, Object> indicePlaca) {
+        if (indicePlaca == null || indicePlaca.isEmpty()) {
+            return 0;
+        }
+        int totalSectores = indicePlaca.size();
+        long sectoresSeleccionados = indicePlaca.values().stream()
+                .filter(value -> Boolean.TRUE.equals(value))
+                .count();
+        return totalSectores > 0 ? (int) Math.round((double) sectoresSeleccionados / totalSectores * 100) : 0;
+    }
+
+    // Implementación anterior de PeriodonciaService.calcularPorcentajeSarro
+    private static Integer porcentajeSarroMapa(Map<String, Object> indiceSarro) {
+        if (indiceSarro == null || indiceSarro.isEmpty()) {
+            return 0;
+        }
+        int totalSectores = 0;
+        int sectoresConSarro = 0;
+        for (Object value : indiceSarro.values()) {
+            if (value instanceof Map) {
+                Map<?, ?> dienteSarro = (Map<?, ?>) value;
+                totalSectores += dienteSarro.size();
+                sectoresConSarro += dienteSarro.values().stream()
+                        .filter(v -> Boolean.TRUE.equals(v))
+                        .count();
+            }
+        }
+        return totalSectores > 0 ? (int) Math.round((double) sectoresConSarro / totalSectores * 100) : 0;
+    }
+}
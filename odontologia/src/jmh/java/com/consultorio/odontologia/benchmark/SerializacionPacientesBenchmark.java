@@ -0,0 +1,73 @@
+package com.consultorio.odontologia.benchmark;
+
+import com.consultorio.odontologia.entity.Paciente;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialización con Jackson de la lista de pacientes que devuelve GET /api/pacientes.
+ * Se escribe a un flujo que solo cuenta bytes para no medir la copia a un arreglo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class SerializacionPacientesBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int pacientes;
+
+    private List<Paciente> lista;
+    private ObjectWriter escritorLista;
+    private ObjectWriter escritorPaciente;
+
+    @Setup
+    public void preparar() {
+        lista = DatosSinteticos.pacientes(pacientes, new Random(42));
+        // Mismo constructor de ObjectMapper que usa Spring Boot, con los módulos registrados
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        escritorLista = objectMapper.writerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, Paciente.class));
+        escritorPaciente = objectMapper.writerFor(Paciente.class);
+    }
+
+    @Benchmark
+    public long lista() throws IOException {
+        ContadorBytes salida = new ContadorBytes();
+        escritorLista.writeValue(salida, lista);
+        return salida.bytes;
+    }
+
+    @Benchmark
+    public long unoPorUno() throws IOException {
+        // Una respuesta por paciente, como GET /api/pacientes/{id}
+        long bytes = 0;
+        for (Paciente paciente : lista) {
+            bytes += escritorPaciente.writeValueAsBytes(paciente).length;
+        }
+        return bytes;
+    }
+
+    private static final class ContadorBytes extends OutputStream {
+        private long bytes;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int desde, int largo) {
+            bytes += largo;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.consultorio.odontologia.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Pools de hilos propios de la aplicación, separados del pool de requests de Tomcat
+ */
+@Configuration
+public class EjecutoresConfig {
+
+    /**
+     * Ejecuta en paralelo las secciones del resumen clínico de un paciente.
+     * Conviene que no supere el tamaño del pool de conexiones (Hikari usa 10 por defecto).
+     */
+    @Bean(name = "ejecutorResumenPaciente")
+    public ThreadPoolTaskExecutor ejecutorResumenPaciente(
+            @Value("${resumen.paciente.hilos:8}") int hilos,
+            @Value("${resumen.paciente.cola:200}") int cola) {
+        ThreadPoolTaskExecutor ejecutor = new ThreadPoolTaskExecutor();
+        ejecutor.setCorePoolSize(hilos);
+        ejecutor.setMaxPoolSize(hilos);
+        ejecutor.setQueueCapacity(cola);
+        ejecutor.setThreadNamePrefix("resumen-paciente-");
+        ejecutor.setWaitForTasksToCompleteOnShutdown(true);
+        ejecutor.initialize();
+        return ejecutor;
+    }
+}
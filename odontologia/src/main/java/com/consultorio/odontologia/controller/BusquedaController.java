@@ -0,0 +1,67 @@
+package com.consultorio.odontologia.controller;
+
+import com.consultorio.odontologia.dto.ResultadoBusquedaClinicaDTO;
+import com.consultorio.odontologia.service.IndiceClinicoService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/busqueda")
+@CrossOrigin(origins = "*")
+public class BusquedaController {
+
+    @Autowired
+    private IndiceClinicoService indiceClinicoService;
+
+    // Búsqueda de texto completo en diagnósticos, historias clínicas y tratamientos de todos los pacientes.
+    // Ej.: q=penicilina&campo=alergias&porPaciente=true, q=bifosfonatos, q=caries&tipo=diagnostico&pacienteId=3
+    @GetMapping("/clinica")
+    public ResponseEntity<?> buscar(
+            @RequestParam String q,
+            @RequestParam(required = false) List<String> tipo,
+            @RequestParam(required = false) Set<String> campo,
+            @RequestParam(required = false) Long pacienteId,
+            @RequestParam(required = false) Integer limite,
+            @RequestParam(defaultValue = "false") boolean porPaciente) {
+        try {
+            List<ResultadoBusquedaClinicaDTO> resultados =
+                    indiceClinicoService.buscar(q, tipo, campo, pacienteId, limite, porPaciente);
+            return ResponseEntity.ok(resultados);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(error(e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    // Reconstruye el índice clínico (descarta los registros eliminados que quedaron marcados)
+    @PostMapping("/clinica/reconstruir")
+    public ResponseEntity<Map<String, Object>> reconstruirIndice() {
+        try {
+            indiceClinicoService.reconstruir();
+            return ResponseEntity.ok(indiceClinicoService.obtenerEstadisticas());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @GetMapping("/clinica/estadisticas")
+    public ResponseEntity<Map<String, Object>> obtenerEstadisticasIndice() {
+        return ResponseEntity.ok(indiceClinicoService.obtenerEstadisticas());
+    }
+
+    private static Map<String, String> error(String mensaje) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", mensaje);
+        return error;
+    }
+}
@@ -0,0 +1,38 @@
+package com.consultorio.odontologia.controller;
+
+import com.consultorio.odontologia.service.EstadisticasCacheService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/cache")
+@CrossOrigin(origins = "*")
+public class CacheController {
+
+    @Autowired
+    private EstadisticasCacheService estadisticasCacheService;
+
+    // Aciertos/fallos de la caché de segundo nivel y de consultas
+    @GetMapping("/estadisticas")
+    public ResponseEntity<Map<String, Object>> obtenerEstadisticas() {
+        try {
+            return ResponseEntity.ok(estadisticasCacheService.obtenerEstadisticas());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    // Reinicia los contadores (no vacía la caché)
+    @PostMapping("/estadisticas/reiniciar")
+    public ResponseEntity<Map<String, Object>> reiniciarEstadisticas() {
+        try {
+            estadisticasCacheService.reiniciarEstadisticas();
+            return ResponseEntity.ok(estadisticasCacheService.obtenerEstadisticas());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+}
@@ -1,13 +1,23 @@
 package com.consultorio.odontologia.controller;
 
 import com.consultorio.odontologia.dto.CitaDTO;
+import com.consultorio.odontologia.dto.PaginaDTO;
 import com.consultorio.odontologia.entity.Cita;
 import com.consultorio.odontologia.service.CitaService;
+import com.consultorio.odontologia.service.util.NdjsonEscritor;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/citas")
@@ -16,11 +26,16 @@ public class CitaController {
     @Autowired
     private CitaService citaService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @PostMapping
     public ResponseEntity<Cita> crearCita(@RequestBody CitaDTO citaDTO) {
         try {
             Cita cita = citaService.crearCita(citaDTO);
             return ResponseEntity.ok(cita);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
@@ -36,6 +51,63 @@ public class CitaController {
         }
     }
 
+    @GetMapping("/rango")
+    public ResponseEntity<List<CitaDTO>> obtenerCitasPorRango(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @RequestParam(required = false) Long usuarioId) {
+        try {
+            return ResponseEntity.ok(citaService.obtenerCitasPorRango(desde, hasta, usuarioId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    // Horarios libres de un odontólogo para un día
+    @GetMapping("/disponibilidad")
+    public ResponseEntity<List<String>> obtenerHorariosLibres(
+            @RequestParam Long usuarioId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha) {
+        try {
+            return ResponseEntity.ok(citaService.obtenerHorariosLibres(usuarioId, fecha));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/disponible")
+    public ResponseEntity<Map<String, Boolean>> estaDisponible(
+            @RequestParam Long usuarioId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime hora) {
+        try {
+            return ResponseEntity.ok(Map.of("disponible", citaService.estaDisponible(usuarioId, fecha, hora)));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/pagina")
+    public ResponseEntity<PaginaDTO<CitaDTO>> obtenerPagina(
+            @RequestParam(required = false) Long despuesDeId,
+            @RequestParam(required = false) Integer tamano) {
+        try {
+            return ResponseEntity.ok(citaService.obtenerPaginaCitas(despuesDeId, tamano));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @GetMapping(value = "/stream", produces = NdjsonEscritor.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> exportar() {
+        StreamingResponseBody cuerpo = salida -> citaService.exportarCitas(NdjsonEscritor.lineas(salida, objectMapper));
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NdjsonEscritor.MEDIA_TYPE))
+                .body(cuerpo);
+    }
+
     @GetMapping("/fecha/{fecha}")
     public ResponseEntity<List<CitaDTO>> obtenerCitasPorFecha(@PathVariable String fecha) {
         try {
@@ -51,6 +123,8 @@ public class CitaController {
         try {
             Cita cita = citaService.actualizarCita(id, citaDTO);
             return ResponseEntity.ok(cita);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().build();
         }
@@ -1,12 +1,17 @@
 package com.consultorio.odontologia.controller;
 
 import com.consultorio.odontologia.dto.DiagnosticoDTO;
+import com.consultorio.odontologia.dto.DiagnosticoResumenDTO;
+import com.consultorio.odontologia.dto.PaginaDTO;
 import com.consultorio.odontologia.entity.Diagnostico;
 import com.consultorio.odontologia.service.DiagnosticoService;
+import com.consultorio.odontologia.service.ResumenDiagnosticosService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -19,6 +24,9 @@ public class DiagnosticoController {
     @Autowired
     private DiagnosticoService diagnosticoService;
 
+    @Autowired
+    private ResumenDiagnosticosService resumenDiagnosticosService;
+
     // Crear nuevo diagnóstico
     @PostMapping
     public ResponseEntity<?> crearDiagnostico(@RequestBody DiagnosticoDTO diagnosticoDTO) {
@@ -171,4 +179,40 @@ public class DiagnosticoController {
             return ResponseEntity.badRequest().body(error);
         }
     }
-} 
\ No newline at end of file
+
+    // Diagnósticos de toda la clínica, paginados por cursor; el texto completo solo con detalle=true
+    @GetMapping("/buscar")
+    public ResponseEntity<?> buscarEnClinica(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @RequestParam(required = false) Long usuarioId,
+            @RequestParam(required = false) Long pacienteId,
+            @RequestParam(required = false) String texto,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamano,
+            @RequestParam(defaultValue = "false") boolean detalle) {
+        try {
+            PaginaDTO<DiagnosticoResumenDTO> pagina = resumenDiagnosticosService.buscar(desde, hasta, usuarioId, pacienteId,
+                    texto, cursor, tamano, detalle);
+            return ResponseEntity.ok(pagina);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
+    // Estadísticas de toda la clínica: total y cantidad por odontólogo
+    @GetMapping("/estadisticas")
+    public ResponseEntity<?> obtenerEstadisticasClinica(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+        try {
+            return ResponseEntity.ok(resumenDiagnosticosService.estadisticas(desde, hasta));
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+}
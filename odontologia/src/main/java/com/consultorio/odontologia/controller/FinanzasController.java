@@ -0,0 +1,49 @@
+package com.consultorio.odontologia.controller;
+
+import com.consultorio.odontologia.dto.ReporteFinancieroDTO;
+import com.consultorio.odontologia.service.ReporteFinancieroService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/finanzas")
+@CrossOrigin(origins = "*")
+public class FinanzasController {
+
+    @Autowired
+    private ReporteFinancieroService reporteFinancieroService;
+
+    // Ingresos, pendientes, gastos y balance de un rango de fechas, con detalle por mes
+    @GetMapping("/resumen")
+    public ResponseEntity<?> obtenerResumen(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaInicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin) {
+        try {
+            ReporteFinancieroDTO reporte = reporteFinancieroService.obtenerReporte(fechaInicio, fechaFin);
+            return ResponseEntity.ok(reporte);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
+    // Ingresos contra gastos de un año, mes por mes
+    @GetMapping("/anual/{anio}")
+    public ResponseEntity<?> obtenerReporteAnual(@PathVariable int anio) {
+        try {
+            ReporteFinancieroDTO reporte = reporteFinancieroService.obtenerReporteAnual(anio);
+            return ResponseEntity.ok(reporte);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+}
@@ -1,15 +1,33 @@
 package com.consultorio.odontologia.controller;
 
+import com.consultorio.odontologia.dto.GastoAgregadoDTO;
 import com.consultorio.odontologia.dto.GastoDTO;
+import com.consultorio.odontologia.dto.PaginaDTO;
+import com.consultorio.odontologia.dto.ResultadoImportacionDTO;
 import com.consultorio.odontologia.service.GastoService;
+import com.consultorio.odontologia.service.ImportacionGastosService;
+import com.consultorio.odontologia.service.util.NdjsonEscritor;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/gastos")
@@ -19,6 +37,12 @@ public class GastoController {
     @Autowired
     private GastoService gastoService;
 
+    @Autowired
+    private ImportacionGastosService importacionGastosService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     // Crear un nuevo gasto
     @PostMapping
     public ResponseEntity<GastoDTO> crearGasto(@RequestBody GastoDTO gastoDTO) {
@@ -30,6 +54,21 @@ public class GastoController {
         }
     }
 
+    // Importar gastos desde un CSV (UTF-8, separado por comas o por punto y coma como lo guarda Excel)
+    @PostMapping(value = "/importar", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> importarGastos(@RequestParam("archivo") MultipartFile archivo) {
+        try (Reader reader = new BufferedReader(new InputStreamReader(archivo.getInputStream(), StandardCharsets.UTF_8))) {
+            ResultadoImportacionDTO resultado = importacionGastosService.importarCsv(reader);
+            return ResponseEntity.ok(resultado);
+        } catch (IllegalArgumentException | IOException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
     // Obtener todos los gastos
     @GetMapping
     public ResponseEntity<List<GastoDTO>> obtenerTodosLosGastos() {
@@ -41,6 +80,27 @@ public class GastoController {
         }
     }
 
+    // Obtener gastos paginados por cursor
+    @GetMapping("/pagina")
+    public ResponseEntity<PaginaDTO<GastoDTO>> obtenerPagina(
+            @RequestParam(required = false) Long despuesDeId,
+            @RequestParam(required = false) Integer tamano) {
+        try {
+            return ResponseEntity.ok(gastoService.obtenerPaginaGastos(despuesDeId, tamano));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    // Exportar gastos en NDJSON, una fila por línea, sin cargar la tabla en memoria
+    @GetMapping(value = "/stream", produces = NdjsonEscritor.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> exportar() {
+        StreamingResponseBody cuerpo = salida -> gastoService.exportarGastos(NdjsonEscritor.lineas(salida, objectMapper));
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NdjsonEscritor.MEDIA_TYPE))
+                .body(cuerpo);
+    }
+
     // Obtener gastos por rango de fechas
     @GetMapping("/por-fecha")
     public ResponseEntity<List<GastoDTO>> obtenerGastosPorFecha(
@@ -92,6 +152,29 @@ public class GastoController {
         }
     }
 
+    // Totales agregados por categoría, proveedor y/o mes desde el cubo en memoria.
+    // Ej.: agrupar=proveedor&limite=5 (proveedores con más gasto), agrupar=categoria,mes&orden=dimensiones (mes a mes)
+    @GetMapping("/cubo")
+    public ResponseEntity<?> consultarCubo(
+            @RequestParam(required = false) List<String> agrupar,
+            @RequestParam(required = false) Set<String> categoria,
+            @RequestParam(required = false) Set<String> proveedor,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth desde,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth hasta,
+            @RequestParam(required = false) String orden,
+            @RequestParam(required = false) Integer limite) {
+        try {
+            List<GastoAgregadoDTO> filas = gastoService.consultarCubo(agrupar, categoria, proveedor, desde, hasta, orden, limite);
+            return ResponseEntity.ok(filas);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
     // Obtener todas las categorías
     @GetMapping("/categorias")
     public ResponseEntity<List<String>> obtenerTodasLasCategorias() {
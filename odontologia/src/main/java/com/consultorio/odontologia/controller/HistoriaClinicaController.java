@@ -1,17 +1,23 @@
 package com.consultorio.odontologia.controller;
 
+import com.consultorio.odontologia.dto.HistoriaClinicaDTO;
+import com.consultorio.odontologia.dto.PaginaDTO;
 import com.consultorio.odontologia.entity.HistoriaClinica;
+import com.consultorio.odontologia.service.HistoriaClinicaHistorialService;
 import com.consultorio.odontologia.service.HistoriaClinicaService;
+import com.consultorio.odontologia.service.util.NdjsonEscritor;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import com.consultorio.odontologia.dto.HistoriaClinicaDTO;
 import java.util.stream.Collectors;
 
 @RestController
@@ -22,6 +28,12 @@ public class HistoriaClinicaController {
     @Autowired
     private HistoriaClinicaService historiaClinicaService;
 
+    @Autowired
+    private HistoriaClinicaHistorialService historialService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     // Obtener todas las historias clínicas
     @GetMapping
     public ResponseEntity<List<HistoriaClinicaDTO>> obtenerTodas() {
@@ -36,6 +48,27 @@ public class HistoriaClinicaController {
         }
     }
 
+    // Obtener historias clínicas paginadas por cursor
+    @GetMapping("/pagina")
+    public ResponseEntity<PaginaDTO<HistoriaClinicaDTO>> obtenerPagina(
+            @RequestParam(required = false) Long despuesDeId,
+            @RequestParam(required = false) Integer tamano) {
+        try {
+            return ResponseEntity.ok(historiaClinicaService.obtenerPagina(despuesDeId, tamano));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    // Exportar historias clínicas en NDJSON, una fila por línea, sin cargar la tabla en memoria
+    @GetMapping(value = "/stream", produces = NdjsonEscritor.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> exportar() {
+        StreamingResponseBody cuerpo = salida -> historiaClinicaService.exportar(NdjsonEscritor.lineas(salida, objectMapper));
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NdjsonEscritor.MEDIA_TYPE))
+                .body(cuerpo);
+    }
+
     // Obtener historia clínica por ID
     @GetMapping("/{id}")
     public ResponseEntity<?> obtenerPorId(@PathVariable Long id) {
@@ -50,6 +83,72 @@ public class HistoriaClinicaController {
         }
     }
 
+    // Obtener una sola sección de una historia clínica: habitos, antecedentes o examen
+    @GetMapping("/{id}/seccion/{seccion}")
+    public ResponseEntity<?> obtenerSeccion(@PathVariable Long id, @PathVariable String seccion) {
+        try {
+            return historiaClinicaService.obtenerSeccion(id, seccion)
+                    .map(historia -> ResponseEntity.ok(historia))
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Error al obtener la sección: " + e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
+    // Listar las actualizaciones de una historia clínica con los campos que cambió cada una
+    @GetMapping("/{id}/versiones")
+    public ResponseEntity<?> obtenerVersiones(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(historialService.obtenerVersiones(id));
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Error al obtener las versiones: " + e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
+    // Obtener la historia clínica como quedó en una versión (0 es como se creó)
+    @GetMapping("/{id}/versiones/{numero}")
+    public ResponseEntity<?> obtenerVersion(@PathVariable Long id, @PathVariable int numero) {
+        try {
+            return historialService.obtenerVersion(id, numero)
+                    .map(historia -> ResponseEntity.ok(historia))
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Error al obtener la versión: " + e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
+    // Línea de tiempo de un campo, por ejemplo cuándo cambiaron las alergias
+    @GetMapping("/{id}/historial/{campo}")
+    public ResponseEntity<?> obtenerHistorialCampo(@PathVariable Long id, @PathVariable String campo) {
+        try {
+            return historialService.obtenerHistorialCampo(id, campo)
+                    .map(historial -> ResponseEntity.ok(historial))
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Error al obtener el historial del campo: " + e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
+    // Obtener los encabezados de las historias clínicas de un paciente (sin secciones)
+    @GetMapping("/paciente/{pacienteId}/encabezados")
+    public ResponseEntity<?> obtenerEncabezados(@PathVariable Long pacienteId) {
+        try {
+            return ResponseEntity.ok(historiaClinicaService.obtenerEncabezados(pacienteId));
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Error al obtener historias clínicas: " + e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
     // Obtener todas las historias clínicas de un paciente
     @GetMapping("/paciente/{pacienteId}/todas")
     public ResponseEntity<?> obtenerPorPaciente(@PathVariable Long pacienteId) {
@@ -1,16 +1,19 @@
 package com.consultorio.odontologia.controller;
 
+import com.consultorio.odontologia.dto.DiferenciaDienteDTO;
+import com.consultorio.odontologia.entity.MapaDental;
 import com.consultorio.odontologia.entity.Odontograma;
 import com.consultorio.odontologia.entity.Paciente;
 import com.consultorio.odontologia.repository.PacienteRepository;
 import com.consultorio.odontologia.service.OdontogramaService;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 
@@ -24,9 +27,6 @@ public class OdontogramaController {
     @Autowired
     private PacienteRepository pacienteRepository;
     
-    @Autowired
-    private ObjectMapper objectMapper;
-    
     /**
      * Guardar un nuevo odontograma
      */
@@ -44,14 +44,14 @@ public class OdontogramaController {
                 return ResponseEntity.badRequest().body("Paciente no encontrado");
             }
             
-            // Convertir datosDientes a JSON string
-            String datosDientesJson = objectMapper.writeValueAsString(datosDientes);
+            // Se valida y convierte al formato binario al recibirlo
+            MapaDental mapaDental = MapaDental.desdeMapa(datosDientes);
             
             // Crear el odontograma
             Odontograma odontograma = new Odontograma();
             odontograma.setPaciente(paciente.get());
             odontograma.setTipoDenticion(tipoDenticion);
-            odontograma.setDatosDientes(datosDientesJson);
+            odontograma.setMapaDental(mapaDental);
             odontograma.setObservaciones(observaciones);
             
             Odontograma guardado = odontogramaService.guardarOdontograma(odontograma);
@@ -106,6 +106,39 @@ public class OdontogramaController {
         }
     }
     
+    /**
+     * Estado del odontograma de un paciente al final de una fecha, reconstruido desde el historial de cambios
+     */
+    @GetMapping("/paciente/{pacienteId}/estado")
+    public ResponseEntity<?> obtenerEstadoAl(
+            @PathVariable Long pacienteId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha) {
+        try {
+            MapaDental mapa = odontogramaService.obtenerEstadoAl(pacienteId, fecha);
+            return ResponseEntity.ok(Map.of("fecha", fecha, "datosDientes", mapa.aMapa()));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body("Error al obtener el estado del odontograma");
+        }
+    }
+    
+    /**
+     * Caras que cambiaron entre dos fechas en el odontograma de un paciente
+     */
+    @GetMapping("/paciente/{pacienteId}/diferencias")
+    public ResponseEntity<?> obtenerDiferenciasEntreFechas(
+            @PathVariable Long pacienteId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+        try {
+            List<DiferenciaDienteDTO> diferencias = odontogramaService.obtenerDiferenciasEntreFechas(pacienteId, desde, hasta);
+            return ResponseEntity.ok(diferencias);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body("Error al comparar odontogramas");
+        }
+    }
+    
     /**
      * Actualizar un odontograma existente
      */
@@ -144,4 +177,49 @@ public class OdontogramaController {
             return ResponseEntity.internalServerError().body("Error al contar odontogramas");
         }
     }
-} 
\ No newline at end of file
+    
+    /**
+     * Dientes de un odontograma con al menos una cara en el estado indicado (ej: caries)
+     */
+    @GetMapping("/{id}/dientes")
+    public ResponseEntity<?> obtenerDientesConEstado(@PathVariable Long id, @RequestParam String estado) {
+        try {
+            List<Integer> dientes = odontogramaService.obtenerDientesConEstado(id, estado.toLowerCase(Locale.ROOT));
+            return ResponseEntity.ok(dientes);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
+    /**
+     * Caras que cambiaron entre dos odontogramas
+     */
+    @GetMapping("/{id}/diferencias/{otroId}")
+    public ResponseEntity<?> obtenerDiferencias(@PathVariable Long id, @PathVariable Long otroId) {
+        try {
+            List<DiferenciaDienteDTO> diferencias = odontogramaService.obtenerDiferencias(id, otroId);
+            return ResponseEntity.ok(diferencias);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
+    /**
+     * Cantidad de pacientes por diente con el estado indicado en su odontograma más reciente
+     */
+    @GetMapping("/estadisticas/dientes")
+    public ResponseEntity<?> contarPacientesPorDiente(@RequestParam(defaultValue = "caries") String estado) {
+        try {
+            Map<Integer, Long> pacientesPorDiente = odontogramaService.contarPacientesPorDiente(estado.toLowerCase(Locale.ROOT));
+            return ResponseEntity.ok(pacientesPorDiente);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body("Error al contar dientes");
+        }
+    }
+}
\ No newline at end of file
@@ -1,13 +1,26 @@
 package com.consultorio.odontologia.controller;
 
 import com.consultorio.odontologia.dto.PacienteDTO;
+import com.consultorio.odontologia.dto.PaginaDTO;
+import com.consultorio.odontologia.dto.ResumenPacienteDTO;
+import com.consultorio.odontologia.dto.SugerenciaPacienteDTO;
 import com.consultorio.odontologia.entity.Paciente;
+import com.consultorio.odontologia.service.IndicePacientesService;
 import com.consultorio.odontologia.service.PacienteService;
+import com.consultorio.odontologia.service.ResumenPacienteService;
+import com.consultorio.odontologia.service.util.NdjsonEscritor;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/pacientes")
@@ -17,6 +30,15 @@ public class PacienteController {
     @Autowired
     private PacienteService pacienteService;
 
+    @Autowired
+    private IndicePacientesService indicePacientesService;
+
+    @Autowired
+    private ResumenPacienteService resumenPacienteService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @PostMapping
     public ResponseEntity<Paciente> registrarPaciente(@RequestBody PacienteDTO pacienteDTO) {
         try {
@@ -37,6 +59,25 @@ public class PacienteController {
         }
     }
 
+    @GetMapping("/pagina")
+    public ResponseEntity<PaginaDTO<Paciente>> obtenerPagina(
+            @RequestParam(required = false) Long despuesDeId,
+            @RequestParam(required = false) Integer tamano) {
+        try {
+            return ResponseEntity.ok(pacienteService.obtenerPaginaPacientes(despuesDeId, tamano));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @GetMapping(value = "/stream", produces = NdjsonEscritor.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> exportar() {
+        StreamingResponseBody cuerpo = salida -> pacienteService.exportarPacientes(NdjsonEscritor.lineas(salida, objectMapper));
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NdjsonEscritor.MEDIA_TYPE))
+                .body(cuerpo);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Paciente> obtenerPacientePorId(@PathVariable Long id) {
         try {
@@ -47,19 +88,67 @@ public class PacienteController {
         }
     }
 
+    /**
+     * Resumen clínico del paciente en una sola llamada; la duración de cada sección va en Server-Timing
+     */
+    @GetMapping("/{id}/resumen")
+    public ResponseEntity<ResumenPacienteDTO> obtenerResumen(@PathVariable Long id) {
+        try {
+            ResumenPacienteDTO resumen = resumenPacienteService.obtenerResumen(id);
+            String serverTiming = resumen.getTiemposMs().entrySet().stream()
+                    .map(tiempo -> String.format(Locale.ROOT, "%s;dur=%.1f", tiempo.getKey(), tiempo.getValue()))
+                    .collect(Collectors.joining(", "));
+            return ResponseEntity.ok()
+                    .header("Server-Timing", serverTiming)
+                    .body(resumen);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
     @GetMapping("/buscar")
     public ResponseEntity<List<Paciente>> buscarPacientes(
             @RequestParam(required = false) String nombre,
             @RequestParam(required = false) String apellido,
-            @RequestParam(required = false) String cedula) {
+            @RequestParam(required = false) String cedula,
+            @RequestParam(required = false) Long despuesDeId,
+            @RequestParam(required = false) Integer limite) {
         try {
-            List<Paciente> pacientes = pacienteService.buscarPacientes(nombre, apellido, cedula);
+            List<Paciente> pacientes = pacienteService.buscarPacientes(nombre, apellido, cedula, despuesDeId, limite);
             return ResponseEntity.ok(pacientes);
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
         }
     }
 
+    @GetMapping("/buscar/sugerencias")
+    public ResponseEntity<List<SugerenciaPacienteDTO>> sugerirPacientes(
+            @RequestParam String q,
+            @RequestParam(required = false) Integer limite) {
+        try {
+            return ResponseEntity.ok(pacienteService.sugerirPacientes(q, limite));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    @PostMapping("/indice/reconstruir")
+    public ResponseEntity<Map<String, Object>> reconstruirIndice() {
+        try {
+            indicePacientesService.reconstruir();
+            return ResponseEntity.ok(indicePacientesService.obtenerEstadisticas());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @GetMapping("/indice/estadisticas")
+    public ResponseEntity<Map<String, Object>> obtenerEstadisticasIndice() {
+        return ResponseEntity.ok(indicePacientesService.obtenerEstadisticas());
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<String> eliminarPaciente(@PathVariable Long id) {
         try {
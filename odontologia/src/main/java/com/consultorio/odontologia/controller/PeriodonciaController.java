@@ -1,8 +1,10 @@
 package com.consultorio.odontologia.controller;
 
 import com.consultorio.odontologia.dto.PeriodonciaDTO;
+import com.consultorio.odontologia.dto.PromedioIndicesMesDTO;
 import com.consultorio.odontologia.service.PeriodonciaService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -93,6 +95,20 @@ public class PeriodonciaController {
         }
     }
     
+    // Id y fechas de la periodoncia más reciente, sin los datos; 404 si el paciente no tiene
+    @GetMapping("/paciente/{pacienteId}/ultimo")
+    public ResponseEntity<?> obtenerUltimoRegistro(@PathVariable Long pacienteId) {
+        try {
+            return periodonciaService.obtenerUltimoRegistro(pacienteId)
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Error al obtener la última periodoncia: " + e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+    
     // Obtener todas las fechas disponibles para un paciente
     @GetMapping("/paciente/{pacienteId}/fechas")
     public ResponseEntity<?> obtenerFechasDisponibles(@PathVariable Long pacienteId) {
@@ -136,4 +152,19 @@ public class PeriodonciaController {
             return ResponseEntity.badRequest().body(error);
         }
     }
-} 
\ No newline at end of file
+    
+    // Promedio mensual de los índices de placa y sarro de todas las fichas (desde y hasta inclusive)
+    @GetMapping("/estadisticas/mensual")
+    public ResponseEntity<?> obtenerPromediosMensuales(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+        try {
+            List<PromedioIndicesMesDTO> promedios = periodonciaService.obtenerPromediosMensuales(desde, hasta);
+            return ResponseEntity.ok(promedios);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Error al calcular promedios: " + e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+}
\ No newline at end of file
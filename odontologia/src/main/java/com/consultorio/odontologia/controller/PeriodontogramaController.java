@@ -1,6 +1,9 @@
 package com.consultorio.odontologia.controller;
 
+import com.consultorio.odontologia.dto.ComparacionPeriodontogramaDTO;
 import com.consultorio.odontologia.dto.PeriodontogramaDTO;
+import com.consultorio.odontologia.dto.ResumenPeriodontogramaDTO;
+import com.consultorio.odontologia.service.AnalisisPeriodontalService;
 import com.consultorio.odontologia.service.PeriodontogramaService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -18,6 +21,9 @@ public class PeriodontogramaController {
     @Autowired
     private PeriodontogramaService periodontogramaService;
     
+    @Autowired
+    private AnalisisPeriodontalService analisisPeriodontalService;
+    
     // Guardar nuevo periodontograma
     @PostMapping
     public ResponseEntity<?> guardarPeriodontograma(@RequestBody PeriodontogramaDTO dto) {
@@ -91,6 +97,20 @@ public class PeriodontogramaController {
         }
     }
     
+    // Id y fechas del periodontograma más reciente, sin los datos; 404 si el paciente no tiene
+    @GetMapping("/paciente/{pacienteId}/ultimo")
+    public ResponseEntity<?> obtenerUltimoRegistro(@PathVariable Long pacienteId) {
+        try {
+            return periodontogramaService.obtenerUltimoRegistro(pacienteId)
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Error al obtener el último periodontograma: " + e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+    
     // Obtener todas las fechas disponibles para un paciente
     @GetMapping("/paciente/{pacienteId}/fechas")
     public ResponseEntity<?> obtenerFechasDisponibles(@PathVariable Long pacienteId) {
@@ -134,6 +154,32 @@ public class PeriodontogramaController {
         }
     }
     
+    // Profundidad media, % de sitios con bolsa, BoP e inserción de cada periodontograma del paciente
+    @GetMapping("/paciente/{pacienteId}/evolucion")
+    public ResponseEntity<?> obtenerEvolucion(@PathVariable Long pacienteId) {
+        try {
+            List<ResumenPeriodontogramaDTO> evolucion = analisisPeriodontalService.obtenerEvolucion(pacienteId);
+            return ResponseEntity.ok(evolucion);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Error al obtener evolución: " + e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+    
+    // Comparar dos periodontogramas sitio por sitio
+    @GetMapping("/{id}/comparar/{otroId}")
+    public ResponseEntity<?> comparar(@PathVariable Long id, @PathVariable Long otroId) {
+        try {
+            ComparacionPeriodontogramaDTO comparacion = analisisPeriodontalService.comparar(id, otroId);
+            return ResponseEntity.ok(comparacion);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Error al comparar periodontogramas: " + e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+    
     // Eliminar periodontograma
     @DeleteMapping("/{id}")
     public ResponseEntity<?> eliminarPeriodontograma(@PathVariable Long id) {
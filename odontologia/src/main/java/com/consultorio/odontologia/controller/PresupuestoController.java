@@ -3,6 +3,7 @@ package com.consultorio.odontologia.controller;
 import com.consultorio.odontologia.dto.PresupuestoDTO;
 import com.consultorio.odontologia.service.PresupuestoService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -49,6 +50,8 @@ public class PresupuestoController {
             response.put("message", "Presupuesto actualizado exitosamente");
             response.put("presupuesto", presupuestoActualizado);
             return ResponseEntity.ok(response);
+        } catch (OptimisticLockingFailureException e) {
+            return conflictoDeVersion();
         } catch (Exception e) {
             Map<String, String> error = new HashMap<>();
             error.put("error", e.getMessage());
@@ -135,6 +138,8 @@ public class PresupuestoController {
             response.put("message", "Pago actualizado exitosamente");
             response.put("presupuesto", presupuestoActualizado);
             return ResponseEntity.ok(response);
+        } catch (OptimisticLockingFailureException e) {
+            return conflictoDeVersion();
         } catch (Exception e) {
             Map<String, String> error = new HashMap<>();
             error.put("error", e.getMessage());
@@ -212,4 +217,11 @@ public class PresupuestoController {
             return ResponseEntity.badRequest().body(error);
         }
     }
-} 
\ No newline at end of file
+
+    // Otra terminal guardó el presupuesto primero: el cliente debe recargarlo antes de volver a guardar
+    private ResponseEntity<Map<String, String>> conflictoDeVersion() {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "El presupuesto fue modificado desde otra terminal. Recargue los datos antes de guardar.");
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+}
@@ -0,0 +1,21 @@
+package com.consultorio.odontologia.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Ingresos, pendientes y gastos de un mes; balance = ingresos - gastos
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BalanceMesDTO {
+    private String mes; // "2026-10"
+    private BigDecimal ingresos;
+    private BigDecimal pendientes;
+    private BigDecimal gastos;
+    private BigDecimal balance;
+}
@@ -0,0 +1,23 @@
+package com.consultorio.odontologia.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Valor que tomó un campo de la historia clínica en una versión (0 es el valor al crearla)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CambioCampoDTO {
+    private int numero;
+
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime fecha;
+
+    private Object valor;
+}
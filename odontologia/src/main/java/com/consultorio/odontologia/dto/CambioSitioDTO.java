@@ -0,0 +1,21 @@
+package com.consultorio.odontologia.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Sitio de sondaje cuya profundidad o nivel de inserción cambió entre dos periodontogramas
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CambioSitioDTO {
+    private Integer diente;
+    private String vista;
+    private String sitio;
+    private int profundidadAntes;
+    private int profundidadDespues;
+    private int insercionAntes;
+    private int insercionDespues;
+}
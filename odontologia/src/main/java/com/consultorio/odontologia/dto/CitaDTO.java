@@ -5,6 +5,9 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDate;
+import java.time.LocalTime;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -18,6 +21,25 @@ public class CitaDTO {
     private String usuarioName;
     private String usuarioEmail;
 
+    // Constructor para la proyección de la agenda: solo las columnas que usa el frontend
+    public CitaDTO(Long id, LocalDate fecha, LocalTime hora, String motivo,
+                   Long pacienteId, String pacienteName, String pacienteLastname, Long pacienteCI,
+                   Long usuarioId, String usuarioName, String usuarioEmail) {
+        Paciente pacienteResumen = new Paciente();
+        pacienteResumen.setId(pacienteId);
+        pacienteResumen.setName(pacienteName);
+        pacienteResumen.setLastname(pacienteLastname);
+        pacienteResumen.setCI(pacienteCI);
+        this.id = id;
+        this.paciente = pacienteResumen;
+        this.fecha = fecha.toString();
+        this.hora = hora.toString();
+        this.motivo = motivo;
+        this.usuarioId = usuarioId;
+        this.usuarioName = usuarioName;
+        this.usuarioEmail = usuarioEmail;
+    }
+
     public Long getId() {
         return id;
     }
@@ -0,0 +1,25 @@
+package com.consultorio.odontologia.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Comparación sitio por sitio entre dos periodontogramas del mismo paciente
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ComparacionPeriodontogramaDTO {
+    private ResumenPeriodontogramaDTO antes;
+    private ResumenPeriodontogramaDTO despues;
+    private int sitiosComparados; // medidos en los dos
+    private int sitiosEmpeorados; // perdieron inserción >= umbral
+    private int sitiosMejorados; // ganaron inserción >= umbral
+    private int sangradoNuevo;
+    private int sangradoResuelto;
+    private List<CambioSitioDTO> cambios = new ArrayList<>();
+}
@@ -0,0 +1,26 @@
+package com.consultorio.odontologia.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Fila del listado de diagnósticos de toda la clínica.
+ * diagnostico, pronostico y observaciones solo se completan cuando se pide el detalle.
+ */
+@Data
+@NoArgsConstructor
+public class DiagnosticoResumenDTO {
+    private Long id;
+    private Long pacienteId;
+    private String pacienteNombre;
+    private String pacienteApellido;
+    private Long usuarioId;
+    private String usuarioNombre;
+    private LocalDate fechaDiagnostico;
+    private String extracto;
+    private String diagnostico;
+    private String pronostico;
+    private String observaciones;
+}
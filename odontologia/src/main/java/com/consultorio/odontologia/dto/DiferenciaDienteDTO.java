@@ -0,0 +1,18 @@
+package com.consultorio.odontologia.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Cara de un diente que cambió entre dos odontogramas; antes/despues son null si no estaba registrada
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DiferenciaDienteDTO {
+    private Integer diente;
+    private String superficie;
+    private String antes;
+    private String despues;
+}
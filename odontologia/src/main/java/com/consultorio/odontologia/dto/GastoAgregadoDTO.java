@@ -0,0 +1,23 @@
+package com.consultorio.odontologia.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Fila del cubo de gastos; categoría, proveedor y mes quedan en null si no se agrupó por ellos
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GastoAgregadoDTO {
+    private String categoria;
+    private String proveedor;
+    private String mes; // "2026-10"
+    private BigDecimal total;
+    private Integer gastos;
+    private BigDecimal totalMesAnterior; // solo si se agrupó por mes
+    private BigDecimal variacion; // total - totalMesAnterior
+}
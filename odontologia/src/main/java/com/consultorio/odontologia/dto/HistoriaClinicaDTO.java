@@ -52,11 +52,51 @@ public class HistoriaClinicaDTO {
     public HistoriaClinicaDTO() {}
 
     public HistoriaClinicaDTO(HistoriaClinica historiaClinica) {
+        copiarEncabezado(historiaClinica);
+        copiarHabitos(historiaClinica);
+        copiarAntecedentes(historiaClinica);
+        copiarExamen(historiaClinica);
+    }
+
+    /**
+     * Encabezado más una sola sección (habitos, antecedentes o examen); las demás quedan en null y no se
+     * serializan. Sobre una entidad cargada con findById lee solo el grupo perezoso de esa sección.
+     */
+    public static HistoriaClinicaDTO conSeccion(HistoriaClinica historiaClinica, String seccion) {
+        HistoriaClinicaDTO dto = soloEncabezado(historiaClinica);
+        switch (seccion) {
+            case HistoriaClinica.HABITOS -> dto.copiarHabitos(historiaClinica);
+            case HistoriaClinica.ANTECEDENTES -> dto.copiarAntecedentes(historiaClinica);
+            case HistoriaClinica.EXAMEN -> dto.copiarExamen(historiaClinica);
+            default -> throw new IllegalArgumentException("Sección desconocida: " + seccion
+                    + " (válidas: habitos, antecedentes, examen)");
+        }
+        return dto;
+    }
+
+    // Solo id, paciente, usuario, fechas y motivo, sin tocar los grupos perezosos
+    public static HistoriaClinicaDTO soloEncabezado(HistoriaClinica historiaClinica) {
+        HistoriaClinicaDTO dto = new HistoriaClinicaDTO();
+        dto.copiarEncabezado(historiaClinica);
+        return dto;
+    }
+
+    // Encabezado
+    private void copiarEncabezado(HistoriaClinica historiaClinica) {
         this.id = historiaClinica.getId();
         this.pacienteId = historiaClinica.getPaciente() != null ? historiaClinica.getPaciente().getId() : null;
         this.pacienteNombre = historiaClinica.getPaciente() != null ? 
             historiaClinica.getPaciente().getName() + " " + historiaClinica.getPaciente().getLastname() : null;
         this.motivoConsulta = historiaClinica.getMotivoConsulta();
+        this.usuarioId = historiaClinica.getUsuario() != null ? historiaClinica.getUsuario().getId() : null;
+        this.usuarioNombre = historiaClinica.getUsuario() != null ? 
+            historiaClinica.getUsuario().getName():"no name";
+        this.fechaCreacion = historiaClinica.getFechaCreacion();
+        this.fechaActualizacion = historiaClinica.getFechaActualizacion();
+    }
+
+    // Hábitos de higiene y consumo
+    private void copiarHabitos(HistoriaClinica historiaClinica) {
         this.cepilladoDental = historiaClinica.getCepilladoDental();
         this.cepilladoEncias = historiaClinica.getCepilladoEncias();
         this.cepilladoLingual = historiaClinica.getCepilladoLingual();
@@ -69,6 +109,10 @@ public class HistoriaClinicaDTO {
         this.consumeMate = historiaClinica.getConsumeMate();
         this.consumeAlcohol = historiaClinica.getConsumeAlcohol();
         this.consumeDrogas = historiaClinica.getConsumeDrogas();
+    }
+
+    // Antecedentes médicos
+    private void copiarAntecedentes(HistoriaClinica historiaClinica) {
         this.enfermedadesActuales = historiaClinica.getEnfermedadesActuales();
         this.medicamentos = historiaClinica.getMedicamentos();
         this.alergias = historiaClinica.getAlergias();
@@ -76,6 +120,10 @@ public class HistoriaClinicaDTO {
         this.antecedentesFamiliares = historiaClinica.getAntecedentesFamiliares();
         this.enTratamiento = historiaClinica.getEnTratamiento();
         this.tomaBifosfonatos = historiaClinica.getTomaBifosfonatos();
+    }
+
+    // Apreciación general y examen regional y local
+    private void copiarExamen(HistoriaClinica historiaClinica) {
         this.apreciacionGeneral = historiaClinica.getApreciacionGeneral();
         this.apreciacionGeneralDetalle = historiaClinica.getApreciacionGeneralDetalle();
         this.examenRegional = historiaClinica.getExamenRegional();
@@ -84,11 +132,6 @@ public class HistoriaClinicaDTO {
         this.examenLocalDetalle = historiaClinica.getExamenLocalDetalle();
         this.examenRegionalDetalles = historiaClinica.getExamenRegionalDetalles();
         this.continenteDetalles = historiaClinica.getContinenteDetalles();
-        this.usuarioId = historiaClinica.getUsuario() != null ? historiaClinica.getUsuario().getId() : null;
-        this.usuarioNombre = historiaClinica.getUsuario() != null ? 
-            historiaClinica.getUsuario().getName():"no name";
-        this.fechaCreacion = historiaClinica.getFechaCreacion();
-        this.fechaActualizacion = historiaClinica.getFechaActualizacion();
     }
 
     // Getters and Setters
@@ -21,6 +21,8 @@ public class PresupuestoDTO {
     private String pacienteApellido;
     private LocalDate fechaRegistro;
     private List<TratamientoPresupuestoDTO> tratamientos;
+    // Versión leída por el cliente; al actualizar debe coincidir con la guardada
+    private Long version;
 
     // Métodos para calcular totales
     public BigDecimal getTotalPresupuesto() {
@@ -89,6 +91,14 @@ public class PresupuestoDTO {
         this.tratamientos = tratamientos;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public BigDecimal getDeudaTotal() {
         return getTotalPresupuesto().subtract(getTotalAbonado());
     }
@@ -0,0 +1,19 @@
+package com.consultorio.odontologia.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Promedio de los índices de placa y sarro de todas las fichas de periodoncia de un mes
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PromedioIndicesMesDTO {
+    private String mes; // "2026-10"
+    private int fichasConPlaca;
+    private Double promedioPlaca; // null si ninguna ficha del mes tiene índice de placa
+    private int fichasConSarro;
+    private Double promedioSarro;
+}
@@ -0,0 +1,26 @@
+package com.consultorio.odontologia.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ingresos contra gastos de un rango de fechas, con el detalle por mes
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReporteFinancieroDTO {
+    private LocalDate fechaInicio;
+    private LocalDate fechaFin;
+    private BigDecimal totalIngresos;
+    private BigDecimal totalPendientes;
+    private BigDecimal totalGastos;
+    private BigDecimal balance;
+    private List<BalanceMesDTO> meses = new ArrayList<>();
+}
@@ -0,0 +1,23 @@
+package com.consultorio.odontologia.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Registro clínico encontrado por la búsqueda de texto completo
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultadoBusquedaClinicaDTO {
+    private String tipo; // diagnostico, historia o tratamiento
+    private Long id;
+    private Long pacienteId;
+    private String pacienteNombre;
+    private String pacienteApellido;
+    private String fecha;
+    private double puntaje;
+    private String campo; // campo del fragmento, por ejemplo "alergias"
+    private String fragmento; // texto escapado para HTML, coincidencias entre <mark> y </mark>
+}
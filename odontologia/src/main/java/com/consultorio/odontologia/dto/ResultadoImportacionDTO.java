@@ -0,0 +1,29 @@
+package com.consultorio.odontologia.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resultado de una importación masiva: las filas válidas se guardan y las demás se informan con su número
+ */
+@Data
+@NoArgsConstructor
+public class ResultadoImportacionDTO {
+    private long filasLeidas;
+    private long gastosImportados;
+    private long filasConError;
+    private List<ErrorFila> errores = new ArrayList<>(); // a lo sumo los primeros MAX_ERRORES
+    private long duracionMs;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ErrorFila {
+        private long fila; // registro del archivo, contando el encabezado como 1
+        private String mensaje;
+    }
+}
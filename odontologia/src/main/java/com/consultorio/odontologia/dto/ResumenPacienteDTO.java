@@ -0,0 +1,48 @@
+package com.consultorio.odontologia.dto;
+
+import com.consultorio.odontologia.entity.Diagnostico;
+import com.consultorio.odontologia.entity.Odontograma;
+import com.consultorio.odontologia.entity.Paciente;
+import com.consultorio.odontologia.entity.Tratamiento;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resumen clínico de un paciente: lo que la ficha pedía en una docena de llamadas separadas.
+ * Cada sección es null (o vacía) si el paciente no tiene registros; las secciones
+ * que fallaron o no llegaron a tiempo quedan en "errores" con el motivo.
+ */
+@Data
+@NoArgsConstructor
+public class ResumenPacienteDTO {
+    private Paciente paciente;
+
+    private Odontograma odontogramaReciente;
+
+    private HistoriaClinicaDTO historiaClinicaReciente;
+    private List<String> fechasHistoriaClinica;
+
+    private PeriodontogramaDTO periodontogramaReciente;
+    private List<String> fechasPeriodontograma;
+
+    private PeriodonciaDTO periodonciaReciente;
+    private List<LocalDate> fechasPeriodoncia;
+
+    private List<Diagnostico> diagnosticos;
+    private List<Tratamiento> tratamientos;
+
+    private List<PresupuestoDTO> presupuestos;
+    private List<LocalDate> fechasPresupuesto;
+
+    private Map<String, String> errores = new LinkedHashMap<>();
+
+    // Duración de cada sección en milisegundos; se envía en el header Server-Timing
+    @JsonIgnore
+    private Map<String, Double> tiemposMs = new LinkedHashMap<>();
+}
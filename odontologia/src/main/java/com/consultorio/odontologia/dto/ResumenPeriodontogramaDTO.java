@@ -0,0 +1,22 @@
+package com.consultorio.odontologia.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Indicadores de un periodontograma; los de sondaje son null si no hay sitios medidos
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResumenPeriodontogramaDTO {
+    private Long id;
+    private String fechaRegistro;
+    private int dientesPresentes;
+    private int sitiosMedidos;
+    private Double profundidadMedia; // mm
+    private Double porcentajeSitiosBolsa; // sitios con profundidad >= umbral
+    private Double porcentajeSangrado; // BoP, sobre los sitios de los dientes presentes
+    private Double insercionMedia; // nivel de inserción clínica, mm
+}
@@ -0,0 +1,16 @@
+package com.consultorio.odontologia.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SugerenciaPacienteDTO {
+    private Long id;
+    private String name;
+    private String lastname;
+    private String ci;
+    private double puntaje;
+}
@@ -0,0 +1,29 @@
+package com.consultorio.odontologia.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Id y fechas del registro más reciente de un paciente, sin leer las columnas JSON
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UltimoRegistroDTO {
+    private Long id;
+    private String fechaRegistro;
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime fechaModificacion;
+
+    // Constructor para la proyección de Periodoncia, que guarda las fechas como LocalDate
+    public UltimoRegistroDTO(Long id, LocalDate fechaRegistro, LocalDate fechaModificacion) {
+        this.id = id;
+        this.fechaRegistro = fechaRegistro != null ? fechaRegistro.toString() : null;
+        this.fechaModificacion = fechaModificacion != null ? fechaModificacion.atStartOfDay() : null;
+    }
+}
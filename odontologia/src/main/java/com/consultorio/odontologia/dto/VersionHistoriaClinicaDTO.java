@@ -0,0 +1,24 @@
+package com.consultorio.odontologia.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Una actualización de la historia clínica: qué campos cambiaron y cuándo
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VersionHistoriaClinicaDTO {
+    private int numero;
+
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime fecha;
+
+    private List<String> campos;
+}
@@ -11,7 +11,9 @@ import java.time.LocalDate;
 import java.time.LocalTime;
 
 @Entity
-@Table(name = "citas")
+@Table(name = "citas", indexes = {
+    @Index(name = "idx_citas_fecha_hora_usuario", columnList = "fecha, hora, usuario_id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
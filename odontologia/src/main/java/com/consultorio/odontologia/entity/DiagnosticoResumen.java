@@ -0,0 +1,55 @@
+package com.consultorio.odontologia.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+/**
+ * Copia de lectura de un Diagnostico con el nombre del paciente, para los listados de toda la clínica.
+ * Se mantiene en la misma transacción que el diagnóstico y no incluye las columnas TEXT: solo un extracto
+ * para mostrar y el texto normalizado (recortado) para filtrar. El nombre del odontólogo no se copia:
+ * se lee de Usuario al consultar, así un cambio de nombre se ve sin tocar el resumen.
+ */
+@Entity
+@Table(name = "diagnosticos_resumen", indexes = {
+    @Index(name = "idx_diagnosticos_resumen_fecha", columnList = "fecha_diagnostico, id"),
+    @Index(name = "idx_diagnosticos_resumen_usuario", columnList = "usuario_id, fecha_diagnostico, id"),
+    @Index(name = "idx_diagnosticos_resumen_paciente", columnList = "paciente_id, fecha_diagnostico, id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class DiagnosticoResumen {
+
+    public static final int LARGO_EXTRACTO = 200;
+    public static final int LARGO_TEXTO_BUSQUEDA = 2000;
+
+    @Id
+    private Long id; // el mismo id del diagnóstico
+
+    @Column(name = "paciente_id", nullable = false)
+    private Long pacienteId;
+
+    @Column(name = "paciente_nombre")
+    private String pacienteNombre;
+
+    @Column(name = "paciente_apellido")
+    private String pacienteApellido;
+
+    @Column(name = "usuario_id")
+    private Long usuarioId;
+
+    @Column(name = "fecha_diagnostico", nullable = false)
+    private LocalDate fechaDiagnostico;
+
+    @Column(length = LARGO_EXTRACTO)
+    private String extracto; // comienzo del diagnóstico
+
+    @Column(name = "texto_busqueda", length = LARGO_TEXTO_BUSQUEDA)
+    private String textoBusqueda; // diagnóstico, pronóstico y observaciones sin tildes ni mayúsculas
+}
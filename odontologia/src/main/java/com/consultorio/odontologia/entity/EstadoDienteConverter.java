@@ -0,0 +1,21 @@
+package com.consultorio.odontologia.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Guarda MapaDental.Estado con el mismo código que usa el layout binario
+ */
+@Converter
+public class EstadoDienteConverter implements AttributeConverter<MapaDental.Estado, Integer> {
+
+    @Override
+    public Integer convertToDatabaseColumn(MapaDental.Estado estado) {
+        return estado != null ? estado.getCodigo() : null;
+    }
+
+    @Override
+    public MapaDental.Estado convertToEntityAttribute(Integer codigo) {
+        return codigo != null ? MapaDental.Estado.desdeCodigo(codigo) : null;
+    }
+}
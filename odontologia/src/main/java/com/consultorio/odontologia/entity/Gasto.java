@@ -10,15 +10,24 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "gastos")
+@Table(name = "gastos", indexes = {
+    @Index(name = "idx_gastos_fecha", columnList = "fecha_gasto")
+})
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 public class Gasto {
 
+    public static final String GENERADOR_ID = "gastos";
+    // Ids reservados de a bloques; GastoService alinea el generador con el máximo id al iniciar
+    public static final int IDS_POR_BLOQUE = 100;
+
+    // Ids por tabla (no IDENTITY) para que Hibernate pueda agrupar los INSERT en lotes JDBC al importar
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = GENERADOR_ID)
+    @TableGenerator(name = GENERADOR_ID, table = "generador_ids", pkColumnName = "entidad",
+            valueColumnName = "siguiente", pkColumnValue = GENERADOR_ID, allocationSize = IDS_POR_BLOQUE)
     private Long id;
 
     @Column(name = "descripcion", nullable = false)
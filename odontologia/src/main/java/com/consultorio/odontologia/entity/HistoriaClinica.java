@@ -7,18 +7,66 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.LazyGroup;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
 
+/**
+ * Historia clínica de una visita. El encabezado (paciente, usuario, fechas y motivo) es lo único que se lee
+ * al cargar la entidad; hábitos, antecedentes y examen son grupos perezosos que Hibernate trae con un SELECT
+ * por grupo la primera vez que se accede a uno de sus campos (requiere la mejora de bytecode del pom).
+ * Para leer la historia completa en una sola consulta se usa el grafo GRAFO_COMPLETA.
+ */
 @Entity
-@Table(name = "historia_clinica")
+@Table(name = "historia_clinica", indexes = {
+    // Fechas disponibles, existe y búsqueda por día de un paciente
+    @Index(name = "idx_historia_clinica_paciente_fecha", columnList = "paciente_id, fecha_creacion")
+})
+// Encabezado, las tres secciones, paciente y usuario en un solo SELECT, para convertir a HistoriaClinicaDTO
+@NamedEntityGraph(name = HistoriaClinica.GRAFO_COMPLETA, attributeNodes = {
+    @NamedAttributeNode("paciente"),
+    @NamedAttributeNode("usuario"),
+    @NamedAttributeNode("cepilladoDental"),
+    @NamedAttributeNode("cepilladoEncias"),
+    @NamedAttributeNode("cepilladoLingual"),
+    @NamedAttributeNode("observacionesHigienicas"),
+    @NamedAttributeNode("usaHiloDental"),
+    @NamedAttributeNode("higieneProtesica"),
+    @NamedAttributeNode("fumador"),
+    @NamedAttributeNode("consumeCafe"),
+    @NamedAttributeNode("consumeTe"),
+    @NamedAttributeNode("consumeMate"),
+    @NamedAttributeNode("consumeAlcohol"),
+    @NamedAttributeNode("consumeDrogas"),
+    @NamedAttributeNode("enfermedadesActuales"),
+    @NamedAttributeNode("medicamentos"),
+    @NamedAttributeNode("alergias"),
+    @NamedAttributeNode("posologia"),
+    @NamedAttributeNode("antecedentesFamiliares"),
+    @NamedAttributeNode("enTratamiento"),
+    @NamedAttributeNode("tomaBifosfonatos"),
+    @NamedAttributeNode("apreciacionGeneral"),
+    @NamedAttributeNode("apreciacionGeneralDetalle"),
+    @NamedAttributeNode("examenRegional"),
+    @NamedAttributeNode("examenRegionalDetalle"),
+    @NamedAttributeNode("examenRegionalDetalles"),
+    @NamedAttributeNode("examenLocal"),
+    @NamedAttributeNode("examenLocalDetalle"),
+    @NamedAttributeNode("continenteDetalles")
+})
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 public class HistoriaClinica {
 
+    public static final String GRAFO_COMPLETA = "HistoriaClinica.completa";
+
+    public static final String HABITOS = "habitos";
+    public static final String ANTECEDENTES = "antecedentes";
+    public static final String EXAMEN = "examen";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -29,89 +77,143 @@ public class HistoriaClinica {
 
     // Hábitos de higiene
     @Column(nullable = true)
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup(HABITOS)
     private String cepilladoDental;
 
     @Column(nullable = true)
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup(HABITOS)
     private String cepilladoEncias;
 
     @Column(nullable = true)
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup(HABITOS)
     private String cepilladoLingual;
 
     @Column(nullable = true)
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup(HABITOS)
     private String observacionesHigienicas;
 
     @Column(nullable = true)
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup(HABITOS)
     private Boolean usaHiloDental;
 
     @Column(nullable = true)
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup(HABITOS)
     private Boolean higieneProtesica;
 
     // Hábitos y consumo
     @Column(nullable = true)
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup(HABITOS)
     private Boolean fumador;
 
     @Column(nullable = true)
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup(HABITOS)
     private Boolean consumeCafe;
 
     @Column(nullable = true)
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup(HABITOS)
     private Boolean consumeTe;
 
     @Column(nullable = true)
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup(HABITOS)
     private Boolean consumeMate;
 
     @Column(nullable = true)
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup(HABITOS)
     private Boolean consumeAlcohol;
 
     @Column(nullable = true)
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup(HABITOS)
     private Boolean consumeDrogas;
 
     // Antecedentes médicos
     @Column(nullable = true)
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup(ANTECEDENTES)
     private String enfermedadesActuales;
 
     @Column(nullable = true)
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup(ANTECEDENTES)
     private String medicamentos;
 
     @Column(nullable = true)
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup(ANTECEDENTES)
     private String alergias;
 
     @Column(nullable = true)
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup(ANTECEDENTES)
     private String posologia;
 
     @Column(nullable = true)
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup(ANTECEDENTES)
     private String antecedentesFamiliares;
 
     @Column(nullable = true)
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup(ANTECEDENTES)
     private Boolean enTratamiento;
 
     @Column(nullable = true)
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup(ANTECEDENTES)
     private Boolean tomaBifosfonatos;
 
     // Apreciación general
     @Column(nullable = true)
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup(EXAMEN)
     private String apreciacionGeneral;
 
     @Column(nullable = true)
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup(EXAMEN)
     private String apreciacionGeneralDetalle;
 
     // Examen regional
     @Column(nullable = true)
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup(EXAMEN)
     private String examenRegional;
 
     @Column(nullable = true)
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup(EXAMEN)
     private String examenRegionalDetalle;
 
     @Column(nullable = true)
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup(EXAMEN)
     private String examenRegionalDetalles;
 
     // Examen local
     @Column(nullable = true)
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup(EXAMEN)
     private String examenLocal;
 
     @Column(nullable = true)
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup(EXAMEN)
     private String examenLocalDetalle;
 
     @Column(nullable = true)
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup(EXAMEN)
     private String continenteDetalles;
 
     // Timestamps
@@ -124,11 +226,11 @@ public class HistoriaClinica {
     private LocalDateTime fechaActualizacion;
 
     // Relaciones
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "usuario_id", nullable = true)
     private Usuario usuario;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "paciente_id")
     @JsonBackReference
     private Paciente paciente;
@@ -0,0 +1,54 @@
+package com.consultorio.odontologia.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Una actualización de una historia clínica. Guarda solo los campos que cambiaron, con el valor que tenían
+ * antes del cambio (ver DiferenciaHistoriaClinica): la fila de historia_clinica es siempre la versión vigente
+ * y una versión anterior se obtiene deshaciendo las actualizaciones posteriores a ella.
+ */
+@Entity
+@Table(name = "historia_clinica_versiones", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_historia_clinica_versiones_numero", columnNames = {"historia_clinica_id", "numero"})
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class HistoriaClinicaVersion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Sin clave foránea, como OdontogramaCambio; se borran junto con la historia en HistoriaClinicaService
+    @Column(name = "historia_clinica_id", nullable = false)
+    private Long historiaClinicaId;
+
+    // 1 para la primera actualización; la versión 0 es la historia tal como se creó
+    @Column(nullable = false)
+    private Integer numero;
+
+    @Column(nullable = false)
+    private LocalDateTime fecha;
+
+    // Un bit por campo cambiado, en el orden de DiferenciaHistoriaClinica.CAMPOS
+    @Column(name = "campos_cambiados", nullable = false)
+    private Long camposCambiados;
+
+    @Lob
+    @Column(nullable = false)
+    private byte[] datos;
+
+    public HistoriaClinicaVersion(Long historiaClinicaId, Integer numero, LocalDateTime fecha, Long camposCambiados, byte[] datos) {
+        this.historiaClinicaId = historiaClinicaId;
+        this.numero = numero;
+        this.fecha = fecha;
+        this.camposCambiados = camposCambiados;
+        this.datos = datos;
+    }
+}
@@ -0,0 +1,289 @@
+package com.consultorio.odontologia.entity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Estado de cada cara de cada diente (numeración FDI) en un layout binario fijo.
+ * Cada diente ocupa 6 nibbles (uno por cara); un nibble vale 0 si la cara no se registró
+ * o el código del Estado. 52 dientes x 6 caras x 4 bits = 156 bytes.
+ * Es inmutable: los bytes se leen recién cuando se consulta un diente.
+ */
+public final class MapaDental {
+
+    // Mismo orden que las filas del odontograma en el frontend
+    public static final int[] DIENTES = {
+        18, 17, 16, 15, 14, 13, 12, 11, 21, 22, 23, 24, 25, 26, 27, 28,
+        48, 47, 46, 45, 44, 43, 42, 41, 31, 32, 33, 34, 35, 36, 37, 38,
+        55, 54, 53, 52, 51, 61, 62, 63, 64, 65,
+        85, 84, 83, 82, 81, 71, 72, 73, 74, 75
+    };
+
+    public enum Superficie {
+        VESTIBULAR, MESIAL, DISTAL, PALATAL, LINGUAL, OCLUSAL;
+
+        public String getClave() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+
+        public static Superficie desdeClave(String clave) {
+            for (Superficie superficie : values()) {
+                if (superficie.getClave().equals(clave)) {
+                    return superficie;
+                }
+            }
+            throw new IllegalArgumentException("Cara de diente desconocida: " + clave);
+        }
+    }
+
+    // Los códigos se guardan en la base: no reordenar, solo agregar al final (máximo 15)
+    public enum Estado {
+        SANO(1), CARIES(2), OBTURADO(3), CORONA(4), EXTRAIDO(5), IMPLANTE(6), TRATAMIENTO(7);
+
+        private final int codigo;
+
+        Estado(int codigo) {
+            this.codigo = codigo;
+        }
+
+        public int getCodigo() {
+            return codigo;
+        }
+
+        public String getClave() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+
+        public static Estado desdeClave(String clave) {
+            for (Estado estado : values()) {
+                if (estado.getClave().equals(clave)) {
+                    return estado;
+                }
+            }
+            throw new IllegalArgumentException("Estado de diente desconocido: " + clave);
+        }
+
+        static Estado desdeCodigo(int codigo) {
+            for (Estado estado : values()) {
+                if (estado.codigo == codigo) {
+                    return estado;
+                }
+            }
+            throw new IllegalArgumentException("Código de estado desconocido: " + codigo);
+        }
+    }
+
+    private static final int CARAS = Superficie.values().length;
+
+    // Constante literal porque se usa en @Column(length); debe ser DIENTES.length * CARAS / 2
+    public static final int BYTES = 156;
+
+    // Número FDI -> posición en DIENTES, -1 si no existe
+    private static final int[] POSICION = new int[100];
+
+    static {
+        if (DIENTES.length * CARAS / 2 != BYTES) {
+            throw new IllegalStateException("BYTES no coincide con la cantidad de dientes y caras");
+        }
+        Arrays.fill(POSICION, -1);
+        for (int i = 0; i < DIENTES.length; i++) {
+            POSICION[DIENTES[i]] = i;
+        }
+    }
+
+    private final byte[] datos;
+
+    private MapaDental(byte[] datos) {
+        this.datos = datos;
+    }
+
+    public static MapaDental vacio() {
+        return new MapaDental(new byte[BYTES]);
+    }
+
+    public static MapaDental desdeBytes(byte[] bytes) {
+        if (bytes.length != BYTES) {
+            throw new IllegalArgumentException("El mapa dental debe tener " + BYTES + " bytes");
+        }
+        return new MapaDental(bytes.clone());
+    }
+
+    /**
+     * Convierte el formato del frontend: { "16": { "oclusal": "caries", ... }, ... }
+     */
+    public static MapaDental desdeMapa(Map<String, ?> dientes) {
+        byte[] bytes = new byte[BYTES];
+        if (dientes == null) {
+            return new MapaDental(bytes);
+        }
+        for (Map.Entry<String, ?> diente : dientes.entrySet()) {
+            int posicion = posicion(parsearDiente(diente.getKey()));
+            if (!(diente.getValue() instanceof Map<?, ?> caras)) {
+                throw new IllegalArgumentException("El diente " + diente.getKey() + " no tiene caras");
+            }
+            for (Map.Entry<?, ?> cara : caras.entrySet()) {
+                if (cara.getValue() == null) {
+                    continue;
+                }
+                Superficie superficie = Superficie.desdeClave(String.valueOf(cara.getKey()));
+                Estado estado = Estado.desdeClave(String.valueOf(cara.getValue()));
+                escribir(bytes, posicion * CARAS + superficie.ordinal(), estado.codigo);
+            }
+        }
+        return new MapaDental(bytes);
+    }
+
+    public byte[] aBytes() {
+        return datos.clone();
+    }
+
+    /**
+     * Estado de una cara, o null si no se registró
+     */
+    public Estado estado(int diente, Superficie superficie) {
+        int codigo = leer(posicion(diente) * CARAS + superficie.ordinal());
+        return codigo == 0 ? null : Estado.desdeCodigo(codigo);
+    }
+
+    public MapaDental con(int diente, Superficie superficie, Estado estado) {
+        byte[] copia = datos.clone();
+        escribir(copia, posicion(diente) * CARAS + superficie.ordinal(), estado != null ? estado.codigo : 0);
+        return new MapaDental(copia);
+    }
+
+    /**
+     * Aplica los cambios en el orden recibido sobre una sola copia
+     */
+    public MapaDental conCambios(List<OdontogramaCambio> cambios) {
+        if (cambios.isEmpty()) {
+            return this;
+        }
+        byte[] copia = datos.clone();
+        for (OdontogramaCambio cambio : cambios) {
+            Estado estado = cambio.getEstado();
+            escribir(copia, posicion(cambio.getDiente()) * CARAS + cambio.getSuperficie().ordinal(),
+                    estado != null ? estado.codigo : 0);
+        }
+        return new MapaDental(copia);
+    }
+
+    public boolean tieneEstado(int diente, Estado estado) {
+        int base = posicion(diente) * CARAS;
+        for (int cara = 0; cara < CARAS; cara++) {
+            if (leer(base + cara) == estado.codigo) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Dientes (FDI) con al menos una cara en el estado indicado
+     */
+    public List<Integer> dientesCon(Estado estado) {
+        List<Integer> dientes = new ArrayList<>();
+        for (int diente : DIENTES) {
+            if (tieneEstado(diente, estado)) {
+                dientes.add(diente);
+            }
+        }
+        return dientes;
+    }
+
+    /**
+     * Vuelve al formato del frontend; solo incluye dientes con alguna cara registrada
+     */
+    public Map<String, Map<String, String>> aMapa() {
+        Map<String, Map<String, String>> dientes = new LinkedHashMap<>();
+        for (int i = 0; i < DIENTES.length; i++) {
+            Map<String, String> caras = null;
+            for (Superficie superficie : Superficie.values()) {
+                int codigo = leer(i * CARAS + superficie.ordinal());
+                if (codigo != 0) {
+                    if (caras == null) {
+                        caras = new LinkedHashMap<>();
+                    }
+                    caras.put(superficie.getClave(), Estado.desdeCodigo(codigo).getClave());
+                }
+            }
+            if (caras != null) {
+                dientes.put(String.valueOf(DIENTES[i]), caras);
+            }
+        }
+        return dientes;
+    }
+
+    /**
+     * JSON equivalente a aMapa(); las claves salen de los enums, no hace falta escapar
+     */
+    public String aJson() {
+        StringBuilder json = new StringBuilder(1024).append('{');
+        boolean primerDiente = true;
+        for (Map.Entry<String, Map<String, String>> diente : aMapa().entrySet()) {
+            if (!primerDiente) {
+                json.append(',');
+            }
+            primerDiente = false;
+            json.append('"').append(diente.getKey()).append("\":{");
+            boolean primeraCara = true;
+            for (Map.Entry<String, String> cara : diente.getValue().entrySet()) {
+                if (!primeraCara) {
+                    json.append(',');
+                }
+                primeraCara = false;
+                json.append('"').append(cara.getKey()).append("\":\"").append(cara.getValue()).append('"');
+            }
+            json.append('}');
+        }
+        return json.append('}').toString();
+    }
+
+    public static boolean esDienteValido(int diente) {
+        return diente >= 0 && diente < POSICION.length && POSICION[diente] >= 0;
+    }
+
+    private static int parsearDiente(String clave) {
+        try {
+            return Integer.parseInt(clave.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Número de diente inválido: " + clave);
+        }
+    }
+
+    private static int posicion(int diente) {
+        if (!esDienteValido(diente)) {
+            throw new IllegalArgumentException("Número de diente inválido: " + diente);
+        }
+        return POSICION[diente];
+    }
+
+    private int leer(int nibble) {
+        int valor = datos[nibble >>> 1];
+        return (nibble & 1) == 0 ? (valor >>> 4) & 0x0F : valor & 0x0F;
+    }
+
+    private static void escribir(byte[] bytes, int nibble, int codigo) {
+        int indice = nibble >>> 1;
+        if ((nibble & 1) == 0) {
+            bytes[indice] = (byte) ((bytes[indice] & 0x0F) | (codigo << 4));
+        } else {
+            bytes[indice] = (byte) ((bytes[indice] & 0xF0) | codigo);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof MapaDental)) return false;
+        return Arrays.equals(datos, ((MapaDental) o).datos);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(datos);
+    }
+}
@@ -0,0 +1,21 @@
+package com.consultorio.odontologia.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Guarda MapaDental como VARBINARY de largo fijo; al leer solo envuelve los bytes
+ */
+@Converter
+public class MapaDentalConverter implements AttributeConverter<MapaDental, byte[]> {
+
+    @Override
+    public byte[] convertToDatabaseColumn(MapaDental mapa) {
+        return mapa != null ? mapa.aBytes() : null;
+    }
+
+    @Override
+    public MapaDental convertToEntityAttribute(byte[] bytes) {
+        return bytes != null ? MapaDental.desdeBytes(bytes) : null;
+    }
+}
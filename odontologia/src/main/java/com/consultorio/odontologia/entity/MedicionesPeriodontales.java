@@ -0,0 +1,322 @@
+package com.consultorio.odontologia.entity;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Mediciones de un periodontograma extraídas del JSON, una columna short[] por tipo de medición.
+ * Cada diente tiene 8 sitios de sondaje (4 en la vista vestibular y 4 en la palatina) y 4 de sangrado.
+ * Índice de sitio de sondaje: (posición del diente * 2 + vista) * 4 + sitio; de sangrado: posición * 4 + sitio.
+ * Es inmutable; se guarda como binario de largo fijo (ver MedicionesPeriodontalesConverter).
+ */
+public final class MedicionesPeriodontales {
+
+    // Mismo orden que el periodontograma del frontend
+    public static final int[] DIENTES = {
+        18, 17, 16, 15, 14, 13, 12, 11, 21, 22, 23, 24, 25, 26, 27, 28,
+        48, 47, 46, 45, 44, 43, 42, 41, 31, 32, 33, 34, 35, 36, 37, 38
+    };
+
+    public enum Vista {
+        VESTIBULAR, PALATINA;
+
+        public String getClave() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    // El sitio central se llama "vestibular" o "palatino" según la vista; el sangrado usa las claves vestibulares
+    public enum Sitio {
+        MESIAL, CENTRAL, DISTAL, LINGUAL;
+
+        public String getClave(Vista vista) {
+            if (this == CENTRAL) {
+                return vista == Vista.VESTIBULAR ? "vestibular" : "palatino";
+            }
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    public static final short SIN_SANGRADO = 0;
+    public static final short SANGRADO_LEVE = 1; // "amarillo"
+    public static final short SANGRADO_ACTIVO = 2; // "rojo" (o true en registros viejos)
+
+    public static final int SITIOS_SONDAJE = DIENTES.length * 8;
+    public static final int SITIOS_SANGRADO = DIENTES.length * 4;
+
+    // Constante literal porque se usa en @Column(length): 4 columnas de shorts más la máscara de ausentes
+    public static final int BYTES = 1348;
+
+    private static final int[] POSICION = new int[100];
+
+    static {
+        if ((SITIOS_SONDAJE * 2 + SITIOS_SANGRADO + DIENTES.length) * 2 + 4 != BYTES) {
+            throw new IllegalStateException("BYTES no coincide con la cantidad de sitios");
+        }
+        Arrays.fill(POSICION, -1);
+        for (int i = 0; i < DIENTES.length; i++) {
+            POSICION[DIENTES[i]] = i;
+        }
+    }
+
+    private final short[] profundidad;
+    private final short[] margen;
+    private final short[] sangrado;
+    private final short[] movilidad;
+    // Un bit por diente en el orden de DIENTES
+    private final int ausentes;
+
+    private MedicionesPeriodontales(short[] profundidad, short[] margen, short[] sangrado, short[] movilidad, int ausentes) {
+        this.profundidad = profundidad;
+        this.margen = margen;
+        this.sangrado = sangrado;
+        this.movilidad = movilidad;
+        this.ausentes = ausentes;
+    }
+
+    /**
+     * Interpreta datosPeriodontograma del frontend: { "dientes": { "16": { ... } }, "dientesAusentes": [ ... ] }.
+     * Acepta también la estructura vieja con profundidadSondaje/migracionGingival sin vistas,
+     * que el frontend aplica a las dos. Lanza IllegalArgumentException ante dientes o valores inválidos.
+     */
+    public static MedicionesPeriodontales desdeMapa(Map<?, ?> datos) {
+        short[] profundidad = new short[SITIOS_SONDAJE];
+        short[] margen = new short[SITIOS_SONDAJE];
+        short[] sangrado = new short[SITIOS_SANGRADO];
+        short[] movilidad = new short[DIENTES.length];
+        int ausentes = 0;
+        if (datos == null) {
+            return new MedicionesPeriodontales(profundidad, margen, sangrado, movilidad, ausentes);
+        }
+
+        if (datos.get("dientes") instanceof Map<?, ?> dientes) {
+            for (Map.Entry<?, ?> entrada : dientes.entrySet()) {
+                int posicion = posicion(String.valueOf(entrada.getKey()));
+                if (!(entrada.getValue() instanceof Map<?, ?> diente)) {
+                    continue;
+                }
+                leerSondaje(diente.get("profundidadSondaje"), profundidad, posicion);
+                leerSondaje(diente.get("migracionGingival"), margen, posicion);
+                if (diente.get("sangrado") instanceof Map<?, ?> sectores) {
+                    for (Sitio sitio : Sitio.values()) {
+                        sangrado[posicion * 4 + sitio.ordinal()] = codigoSangrado(sectores.get(sitio.getClave(Vista.VESTIBULAR)));
+                    }
+                }
+                movilidad[posicion] = numero(diente.get("movilidad"));
+                if (Boolean.TRUE.equals(diente.get("ausente"))) {
+                    ausentes |= 1 << posicion;
+                }
+            }
+        }
+        if (datos.get("dientesAusentes") instanceof Iterable<?> lista) {
+            for (Object diente : lista) {
+                ausentes |= 1 << posicion(String.valueOf(diente));
+            }
+        }
+        return new MedicionesPeriodontales(profundidad, margen, sangrado, movilidad, ausentes);
+    }
+
+    public static MedicionesPeriodontales desdeBytes(byte[] bytes) {
+        if (bytes.length != BYTES) {
+            throw new IllegalArgumentException("Las mediciones periodontales deben tener " + BYTES + " bytes");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        short[] profundidad = new short[SITIOS_SONDAJE];
+        short[] margen = new short[SITIOS_SONDAJE];
+        short[] sangrado = new short[SITIOS_SANGRADO];
+        short[] movilidad = new short[DIENTES.length];
+        buffer.asShortBuffer().get(profundidad);
+        buffer.position(buffer.position() + profundidad.length * 2);
+        buffer.asShortBuffer().get(margen);
+        buffer.position(buffer.position() + margen.length * 2);
+        buffer.asShortBuffer().get(sangrado);
+        buffer.position(buffer.position() + sangrado.length * 2);
+        buffer.asShortBuffer().get(movilidad);
+        buffer.position(buffer.position() + movilidad.length * 2);
+        return new MedicionesPeriodontales(profundidad, margen, sangrado, movilidad, buffer.getInt());
+    }
+
+    public byte[] aBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(BYTES);
+        for (short[] columna : new short[][] {profundidad, margen, sangrado, movilidad}) {
+            buffer.asShortBuffer().put(columna);
+            buffer.position(buffer.position() + columna.length * 2);
+        }
+        return buffer.putInt(ausentes).array();
+    }
+
+    public static int indiceSondaje(int diente, Vista vista, Sitio sitio) {
+        return (posicion(diente) * 2 + vista.ordinal()) * 4 + sitio.ordinal();
+    }
+
+    public static int dienteDeSondaje(int indice) {
+        return DIENTES[indice >>> 3];
+    }
+
+    public static Vista vistaDeSondaje(int indice) {
+        return Vista.values()[(indice >>> 2) & 1];
+    }
+
+    public static Sitio sitioDeSondaje(int indice) {
+        return Sitio.values()[indice & 3];
+    }
+
+    public short profundidad(int indice) {
+        return profundidad[indice];
+    }
+
+    public short margen(int indice) {
+        return margen[indice];
+    }
+
+    /**
+     * Nivel de inserción clínica: profundidad de sondaje más migración gingival
+     */
+    public int insercion(int indice) {
+        return profundidad[indice] + margen[indice];
+    }
+
+    public short sangrado(int indice) {
+        return sangrado[indice];
+    }
+
+    public short movilidad(int diente) {
+        return movilidad[posicion(diente)];
+    }
+
+    public boolean estaAusente(int diente) {
+        return (ausentes & (1 << posicion(diente))) != 0;
+    }
+
+    /**
+     * Un sitio cuenta si el diente está presente y se sondeó (el frontend deja 0 en los no sondeados)
+     */
+    public boolean sitioMedido(int indice) {
+        return (ausentes & (1 << (indice >>> 3))) == 0 && profundidad[indice] > 0;
+    }
+
+    /**
+     * Indicadores de todo el periodontograma en una sola pasada por las columnas
+     */
+    public Indicadores calcularIndicadores(int umbralBolsa) {
+        int sitiosMedidos = 0;
+        int sitiosConBolsa = 0;
+        long sumaProfundidad = 0;
+        long sumaInsercion = 0;
+        for (int i = 0; i < SITIOS_SONDAJE; i++) {
+            if (!sitioMedido(i)) {
+                continue;
+            }
+            sitiosMedidos++;
+            sumaProfundidad += profundidad[i];
+            sumaInsercion += profundidad[i] + margen[i];
+            if (profundidad[i] >= umbralBolsa) {
+                sitiosConBolsa++;
+            }
+        }
+        int sitiosSangrado = 0;
+        int sitiosConSangrado = 0;
+        for (int i = 0; i < SITIOS_SANGRADO; i++) {
+            if ((ausentes & (1 << (i >>> 2))) != 0) {
+                continue;
+            }
+            sitiosSangrado++;
+            if (sangrado[i] != SIN_SANGRADO) {
+                sitiosConSangrado++;
+            }
+        }
+        return new Indicadores(DIENTES.length - Integer.bitCount(ausentes), sitiosMedidos, sitiosConBolsa,
+                sumaProfundidad, sumaInsercion, sitiosSangrado, sitiosConSangrado);
+    }
+
+    public static final class Indicadores {
+        public final int dientesPresentes;
+        public final int sitiosMedidos;
+        public final int sitiosConBolsa;
+        public final long sumaProfundidad;
+        public final long sumaInsercion;
+        public final int sitiosSangrado;
+        public final int sitiosConSangrado;
+
+        Indicadores(int dientesPresentes, int sitiosMedidos, int sitiosConBolsa, long sumaProfundidad,
+                    long sumaInsercion, int sitiosSangrado, int sitiosConSangrado) {
+            this.dientesPresentes = dientesPresentes;
+            this.sitiosMedidos = sitiosMedidos;
+            this.sitiosConBolsa = sitiosConBolsa;
+            this.sumaProfundidad = sumaProfundidad;
+            this.sumaInsercion = sumaInsercion;
+            this.sitiosSangrado = sitiosSangrado;
+            this.sitiosConSangrado = sitiosConSangrado;
+        }
+    }
+
+    private static void leerSondaje(Object valor, short[] columna, int posicion) {
+        if (!(valor instanceof Map<?, ?> vistas)) {
+            return;
+        }
+        boolean estructuraVieja = !(vistas.get("vestibular") instanceof Map) && !(vistas.get("palatina") instanceof Map);
+        for (Vista vista : Vista.values()) {
+            Object sitios = estructuraVieja ? vistas : vistas.get(vista.getClave());
+            if (!(sitios instanceof Map<?, ?> porSitio)) {
+                continue;
+            }
+            // Como en el frontend, en la estructura vieja la vista palatina no tiene sitio "palatino"
+            for (Sitio sitio : Sitio.values()) {
+                columna[(posicion * 2 + vista.ordinal()) * 4 + sitio.ordinal()] = numero(porSitio.get(sitio.getClave(vista)));
+            }
+        }
+    }
+
+    private static short codigoSangrado(Object valor) {
+        if ("rojo".equals(valor) || Boolean.TRUE.equals(valor)) {
+            return SANGRADO_ACTIVO;
+        }
+        return "amarillo".equals(valor) ? SANGRADO_LEVE : SIN_SANGRADO;
+    }
+
+    private static short numero(Object valor) {
+        if (valor == null || "".equals(valor)) {
+            return 0;
+        }
+        try {
+            int numero = valor instanceof Number n ? n.intValue() : Integer.parseInt(String.valueOf(valor).trim());
+            if (numero < Short.MIN_VALUE || numero > Short.MAX_VALUE) {
+                throw new IllegalArgumentException("Medición fuera de rango: " + valor);
+            }
+            return (short) numero;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Medición inválida: " + valor);
+        }
+    }
+
+    private static int posicion(String diente) {
+        try {
+            return posicion(Integer.parseInt(diente.trim()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Número de diente inválido: " + diente);
+        }
+    }
+
+    private static int posicion(int diente) {
+        if (diente < 0 || diente >= POSICION.length || POSICION[diente] < 0) {
+            throw new IllegalArgumentException("Diente fuera del periodontograma: " + diente);
+        }
+        return POSICION[diente];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof MedicionesPeriodontales otras)) return false;
+        return ausentes == otras.ausentes && Arrays.equals(profundidad, otras.profundidad)
+                && Arrays.equals(margen, otras.margen) && Arrays.equals(sangrado, otras.sangrado)
+                && Arrays.equals(movilidad, otras.movilidad);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(aBytes());
+    }
+}
@@ -0,0 +1,21 @@
+package com.consultorio.odontologia.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Guarda MedicionesPeriodontales como VARBINARY de largo fijo
+ */
+@Converter
+public class MedicionesPeriodontalesConverter implements AttributeConverter<MedicionesPeriodontales, byte[]> {
+
+    @Override
+    public byte[] convertToDatabaseColumn(MedicionesPeriodontales mediciones) {
+        return mediciones != null ? mediciones.aBytes() : null;
+    }
+
+    @Override
+    public MedicionesPeriodontales convertToEntityAttribute(byte[] bytes) {
+        return bytes != null ? MedicionesPeriodontales.desdeBytes(bytes) : null;
+    }
+}
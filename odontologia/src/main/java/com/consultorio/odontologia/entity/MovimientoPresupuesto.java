@@ -0,0 +1,73 @@
+package com.consultorio.odontologia.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Movimiento del libro de ingresos: cuánto cambiaron el precio y lo abonado de un presupuesto.
+ * Es de solo agregado; el total de un día es la suma de sus movimientos (ver ResumenIngresosDia).
+ * Los ids no tienen clave foránea para que el libro sobreviva al presupuesto y al paciente.
+ */
+@Entity
+@Table(name = "movimientos_presupuesto", indexes = {
+    @Index(name = "idx_movimientos_presupuesto_fecha", columnList = "fecha"),
+    @Index(name = "idx_movimientos_presupuesto_presupuesto", columnList = "presupuesto_id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class MovimientoPresupuesto {
+
+    public enum Tipo {
+        APERTURA, ALTA, MODIFICACION, PAGO, BAJA
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "presupuesto_id", nullable = false)
+    private Long presupuestoId;
+
+    // Solo en los pagos de un tratamiento
+    @Column(name = "tratamiento_id")
+    private Long tratamientoId;
+
+    @Column(name = "paciente_id")
+    private Long pacienteId;
+
+    // Fecha del presupuesto, que es la que usan los reportes de ingresos
+    @Column(nullable = false)
+    private LocalDate fecha;
+
+    @Column(name = "fecha_movimiento", nullable = false)
+    private LocalDateTime fechaMovimiento;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Tipo tipo;
+
+    @Column(name = "diferencia_precio", nullable = false, precision = 12, scale = 2)
+    private BigDecimal diferenciaPrecio;
+
+    @Column(name = "diferencia_abonado", nullable = false, precision = 12, scale = 2)
+    private BigDecimal diferenciaAbonado;
+
+    public MovimientoPresupuesto(Long presupuestoId, Long tratamientoId, Long pacienteId, LocalDate fecha, Tipo tipo,
+                                 BigDecimal diferenciaPrecio, BigDecimal diferenciaAbonado) {
+        this.presupuestoId = presupuestoId;
+        this.tratamientoId = tratamientoId;
+        this.pacienteId = pacienteId;
+        this.fecha = fecha;
+        this.fechaMovimiento = LocalDateTime.now();
+        this.tipo = tipo;
+        this.diferenciaPrecio = diferenciaPrecio;
+        this.diferenciaAbonado = diferenciaAbonado;
+    }
+}
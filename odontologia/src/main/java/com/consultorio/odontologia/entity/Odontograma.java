@@ -1,11 +1,14 @@
 package com.consultorio.odontologia.entity;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "odontogramas")
+@Table(name = "odontogramas", indexes = {
+    @Index(name = "idx_odontogramas_paciente_fecha", columnList = "paciente_id, fecha_creacion")
+})
 public class Odontograma {
     
     @Id
@@ -23,8 +26,21 @@ public class Odontograma {
     @Column(name = "tipo_denticion")
     private String tipoDenticion; // "temporaria", "mixta", "permanente"
     
+    // JSON de registros anteriores a mapa_dental; queda en null una vez migrado
     @Column(name = "datos_dientes", columnDefinition = "TEXT")
-    private String datosDientes; // JSON con el estado de cada diente
+    private String datosDientes;
+    
+    // Estado de cada cara de cada diente en binario (ver MapaDental)
+    @Convert(converter = MapaDentalConverter.class)
+    @Column(name = "mapa_dental", length = MapaDental.BYTES)
+    @JsonIgnore
+    private MapaDental mapaDental;
+    
+    // Solo el más reciente de cada paciente guarda mapa_dental; los anteriores se reconstruyen
+    // desde OdontogramaCambio al leerlos
+    @Transient
+    @JsonIgnore
+    private MapaDental mapaReconstruido;
     
     @Column(name = "observaciones")
     private String observaciones;
@@ -73,14 +89,38 @@ public class Odontograma {
         this.tipoDenticion = tipoDenticion;
     }
     
+    // El frontend sigue recibiendo el JSON con el estado de cada diente
     public String getDatosDientes() {
-        return datosDientes;
+        MapaDental mapa = getMapaVigente();
+        return mapa != null ? mapa.aJson() : datosDientes;
     }
     
     public void setDatosDientes(String datosDientes) {
         this.datosDientes = datosDientes;
     }
     
+    public MapaDental getMapaDental() {
+        return mapaDental;
+    }
+    
+    public void setMapaDental(MapaDental mapaDental) {
+        this.mapaDental = mapaDental;
+    }
+    
+    @JsonIgnore
+    public MapaDental getMapaVigente() {
+        return mapaDental != null ? mapaDental : mapaReconstruido;
+    }
+    
+    public void setMapaReconstruido(MapaDental mapaReconstruido) {
+        this.mapaReconstruido = mapaReconstruido;
+    }
+    
+    @JsonIgnore
+    public String getDatosDientesOriginales() {
+        return datosDientes;
+    }
+    
     public String getObservaciones() {
         return observaciones;
     }
@@ -0,0 +1,66 @@
+package com.consultorio.odontologia.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Cambio de estado de una cara de un diente, registrado al guardar un odontograma.
+ * El registro es de solo agregado: el estado en una fecha se reconstruye aplicando
+ * los cambios en orden de id sobre el último OdontogramaCheckpoint anterior.
+ */
+@Entity
+@Table(name = "odontograma_cambios", indexes = {
+    @Index(name = "idx_odontograma_cambios_paciente_fecha", columnList = "paciente_id, fecha")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class OdontogramaCambio {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "paciente_id", nullable = false)
+    @JsonIgnore
+    private Paciente paciente;
+
+    @Column(name = "paciente_id", insertable = false, updatable = false)
+    private Long pacienteId;
+
+    // Odontograma (visita) que registró el cambio; sin clave foránea para que el historial sobreviva a la visita
+    @Column(name = "odontograma_id")
+    private Long odontogramaId;
+
+    @Column(nullable = false)
+    private LocalDateTime fecha;
+
+    @Column(nullable = false)
+    private int diente;
+
+    // Por ordinal, igual que en el layout de MapaDental
+    @Enumerated(EnumType.ORDINAL)
+    @Column(nullable = false)
+    private MapaDental.Superficie superficie;
+
+    // null cuando la cara deja de estar registrada
+    @Convert(converter = EstadoDienteConverter.class)
+    private MapaDental.Estado estado;
+
+    public OdontogramaCambio(Paciente paciente, Long odontogramaId, LocalDateTime fecha,
+                             int diente, MapaDental.Superficie superficie, MapaDental.Estado estado) {
+        this.paciente = paciente;
+        this.pacienteId = paciente.getId();
+        this.odontogramaId = odontogramaId;
+        this.fecha = fecha;
+        this.diente = diente;
+        this.superficie = superficie;
+        this.estado = estado;
+    }
+}
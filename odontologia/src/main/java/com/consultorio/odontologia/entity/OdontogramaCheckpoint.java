@@ -0,0 +1,54 @@
+package com.consultorio.odontologia.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Estado completo del odontograma de un paciente luego de aplicar todos sus cambios
+ * con id menor o igual a hastaCambioId. Acota la cantidad de cambios a recorrer al reconstruir.
+ */
+@Entity
+@Table(name = "odontograma_checkpoints", indexes = {
+    @Index(name = "idx_odontograma_checkpoints_paciente_fecha", columnList = "paciente_id, fecha")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class OdontogramaCheckpoint {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "paciente_id", nullable = false)
+    @JsonIgnore
+    private Paciente paciente;
+
+    @Column(name = "paciente_id", insertable = false, updatable = false)
+    private Long pacienteId;
+
+    // Fecha del último cambio incluido
+    @Column(nullable = false)
+    private LocalDateTime fecha;
+
+    @Column(name = "hasta_cambio_id", nullable = false)
+    private Long hastaCambioId;
+
+    @Convert(converter = MapaDentalConverter.class)
+    @Column(name = "mapa_dental", length = MapaDental.BYTES, nullable = false)
+    private MapaDental mapaDental;
+
+    public OdontogramaCheckpoint(Paciente paciente, LocalDateTime fecha, Long hastaCambioId, MapaDental mapaDental) {
+        this.paciente = paciente;
+        this.pacienteId = paciente.getId();
+        this.fecha = fecha;
+        this.hastaCambioId = hastaCambioId;
+        this.mapaDental = mapaDental;
+    }
+}
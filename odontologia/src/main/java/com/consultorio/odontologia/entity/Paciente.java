@@ -1,5 +1,6 @@
 package com.consultorio.odontologia.entity;
 
+import com.consultorio.odontologia.service.util.TextoNormalizador;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 
@@ -8,11 +9,20 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.List;
 
 @Entity
-@Table(name = "pacientes")
+@Table(name = "pacientes", indexes = {
+    @Index(name = "idx_pacientes_name_normalizado", columnList = "name_normalizado, id"),
+    @Index(name = "idx_pacientes_lastname_normalizado", columnList = "lastname_normalizado, id"),
+    @Index(name = "idx_pacientes_ci_texto", columnList = "ci_texto, id")
+})
+// Caché de segundo nivel: las altas de citas, diagnósticos, tratamientos, etc. buscan el paciente por id
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "pacientes")
 @Getter
 @Setter
 @NoArgsConstructor
@@ -37,6 +47,19 @@ public class Paciente {
     private String releaseSummary;
     private Integer edad;
 
+    // Columnas de búsqueda (minúsculas, sin tildes) mantenidas por normalizarCamposBusqueda()
+    @Column(name = "name_normalizado")
+    @JsonIgnore
+    private String nameNormalizado;
+
+    @Column(name = "lastname_normalizado")
+    @JsonIgnore
+    private String lastnameNormalizado;
+
+    @Column(name = "ci_texto", length = 20)
+    @JsonIgnore
+    private String ciTexto;
+
     // Relaciones con eliminación en cascada
     @OneToMany(mappedBy = "paciente", cascade = CascadeType.ALL, orphanRemoval = true)
     @JsonIgnore
@@ -174,4 +197,12 @@ public class Paciente {
         this.edad = edad;
     }
 
+    @PrePersist
+    @PreUpdate
+    public void normalizarCamposBusqueda() {
+        this.nameNormalizado = TextoNormalizador.normalizar(name);
+        this.lastnameNormalizado = TextoNormalizador.normalizar(lastname);
+        this.ciTexto = CI != null ? CI.toString() : null;
+    }
+
 }
@@ -6,7 +6,9 @@ import java.time.LocalDate;
 import java.util.Map;
 
 @Entity
-@Table(name = "periodoncia")
+@Table(name = "periodoncia", indexes = {
+    @Index(name = "idx_periodoncia_paciente_fecha", columnList = "paciente_id, fecha_registro")
+})
 public class Periodoncia {
     
     @Id
@@ -37,6 +39,20 @@ public class Periodoncia {
     @Column(name = "porcentaje_sarro")
     private Integer porcentajeSarro;
     
+    // Los mismos índices como bits (ver IndicesPeriodoncia), para agregados sin leer el JSON
+    @Column(name = "placa_bits_superior")
+    private Long placaBitsSuperior;
+    
+    @Column(name = "placa_bits_inferior")
+    private Long placaBitsInferior;
+    
+    @Column(name = "sarro_bits")
+    private Long sarroBits;
+
+    // true si los índices tienen dientes o sectores que la ficha no tiene: quedan sin bits y no se reintentan
+    @Column(name = "indices_fuera_de_ficha")
+    private Boolean indicesFueraDeFicha;
+    
     @Column(name = "observaciones", columnDefinition = "TEXT")
     private String observaciones;
     
@@ -127,6 +143,38 @@ public class Periodoncia {
         this.porcentajeSarro = porcentajeSarro;
     }
     
+    public Long getPlacaBitsSuperior() {
+        return placaBitsSuperior;
+    }
+    
+    public void setPlacaBitsSuperior(Long placaBitsSuperior) {
+        this.placaBitsSuperior = placaBitsSuperior;
+    }
+    
+    public Long getPlacaBitsInferior() {
+        return placaBitsInferior;
+    }
+    
+    public void setPlacaBitsInferior(Long placaBitsInferior) {
+        this.placaBitsInferior = placaBitsInferior;
+    }
+    
+    public Long getSarroBits() {
+        return sarroBits;
+    }
+    
+    public void setSarroBits(Long sarroBits) {
+        this.sarroBits = sarroBits;
+    }
+
+    public Boolean getIndicesFueraDeFicha() {
+        return indicesFueraDeFicha;
+    }
+
+    public void setIndicesFueraDeFicha(Boolean indicesFueraDeFicha) {
+        this.indicesFueraDeFicha = indicesFueraDeFicha;
+    }
+    
     public String getObservaciones() {
         return observaciones;
     }
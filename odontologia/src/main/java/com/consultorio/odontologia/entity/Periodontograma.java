@@ -1,11 +1,15 @@
 package com.consultorio.odontologia.entity;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "periodontogramas")
+@Table(name = "periodontogramas", indexes = {
+    @Index(name = "idx_periodontogramas_paciente_fecha", columnList = "paciente_id, fecha_registro"),
+    @Index(name = "idx_periodontogramas_paciente_modificacion", columnList = "paciente_id, fecha_modificacion")
+})
 public class Periodontograma {
     
     @Id
@@ -23,6 +27,12 @@ public class Periodontograma {
     @Column(name = "datos_periodontograma", columnDefinition = "TEXT")
     private String datosPeriodontograma; // JSON con los datos de los dientes
     
+    // Mediciones por sitio extraídas del JSON al guardar (ver MedicionesPeriodontales)
+    @Convert(converter = MedicionesPeriodontalesConverter.class)
+    @Column(name = "mediciones", length = MedicionesPeriodontales.BYTES)
+    @JsonIgnore
+    private MedicionesPeriodontales mediciones;
+    
     @Column(name = "observaciones", columnDefinition = "TEXT")
     private String observaciones;
     
@@ -41,6 +51,7 @@ public class Periodontograma {
         this.datosPeriodontograma = datosPeriodontograma;
         this.observaciones = observaciones;
         this.fechaCreacion = LocalDateTime.now();
+        this.fechaModificacion = this.fechaCreacion;
     }
     
     // Getters and Setters
@@ -76,6 +87,14 @@ public class Periodontograma {
         this.datosPeriodontograma = datosPeriodontograma;
     }
     
+    public MedicionesPeriodontales getMediciones() {
+        return mediciones;
+    }
+    
+    public void setMediciones(MedicionesPeriodontales mediciones) {
+        this.mediciones = mediciones;
+    }
+    
     public String getObservaciones() {
         return observaciones;
     }
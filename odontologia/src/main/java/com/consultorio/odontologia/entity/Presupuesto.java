@@ -8,17 +8,25 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
 @Table(name = "presupuestos")
+// Paciente y tratamientos en la misma consulta: convertirADTO recorre los dos para cada presupuesto
+@NamedEntityGraph(name = Presupuesto.GRAFO_DETALLE, attributeNodes = {
+    @NamedAttributeNode("paciente"),
+    @NamedAttributeNode("tratamientos")
+})
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 public class Presupuesto {
 
+    public static final String GRAFO_DETALLE = "Presupuesto.detalle";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -34,11 +42,20 @@ public class Presupuesto {
     @OneToMany(mappedBy = "presupuesto", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<TratamientoPresupuesto> tratamientos;
 
+    // Se actualiza también cuando solo cambian las líneas, para que suba la versión
+    @Column(name = "fecha_ultima_actualizacion")
+    private LocalDateTime fechaUltimaActualizacion;
+
+    // Bloqueo optimista: dos terminales editando el mismo presupuesto no se pisan
+    @Version
+    private Long version;
+
     // Constructor sin ID para crear nuevos presupuestos
     public Presupuesto(Paciente paciente, LocalDate fechaRegistro) {
         this.paciente = paciente;
         this.fechaRegistro = fechaRegistro;
         this.tratamientos = new ArrayList<>();
+        this.fechaUltimaActualizacion = LocalDateTime.now();
     }
 
     // Métodos helper para la relación bidireccional
@@ -88,4 +105,20 @@ public class Presupuesto {
     public void setTratamientos(List<TratamientoPresupuesto> tratamientos) {
         this.tratamientos = tratamientos;
     }
+
+    public LocalDateTime getFechaUltimaActualizacion() {
+        return fechaUltimaActualizacion;
+    }
+
+    public void setFechaUltimaActualizacion(LocalDateTime fechaUltimaActualizacion) {
+        this.fechaUltimaActualizacion = fechaUltimaActualizacion;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,32 @@
+package com.consultorio.odontologia.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Totales de los presupuestos de un día, mantenidos al registrar cada MovimientoPresupuesto.
+ * Lo pendiente es precio - abonado.
+ */
+@Entity
+@Table(name = "resumen_ingresos_dia")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResumenIngresosDia {
+
+    @Id
+    private LocalDate fecha;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal precio;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal abonado;
+}
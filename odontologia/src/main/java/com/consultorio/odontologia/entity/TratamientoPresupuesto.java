@@ -9,6 +9,7 @@ import lombok.Setter;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Objects;
 
 @Entity
 @Table(name = "tratamientos_presupuesto")
@@ -87,6 +88,28 @@ public class TratamientoPresupuesto {
         actualizarPago(BigDecimal.valueOf(nuevoAbonado));
     }
 
+    /**
+     * Copia los datos editables si difieren; devuelve false sin tocar la línea cuando no cambió nada,
+     * así Hibernate no emite UPDATE ni se pierde la fecha de la última actualización
+     */
+    public boolean actualizarDatos(String nombre, BigDecimal precio, BigDecimal abonado, Boolean pagado) {
+        if (Objects.equals(this.nombre, nombre) && mismoImporte(this.precio, precio)
+                && mismoImporte(this.abonado, abonado) && Objects.equals(this.pagado, pagado)) {
+            return false;
+        }
+        this.nombre = nombre;
+        this.precio = precio;
+        this.abonado = abonado;
+        this.pagado = pagado;
+        this.fechaUltimaActualizacion = LocalDateTime.now();
+        return true;
+    }
+
+    // 1500 y 1500.00 son el mismo importe
+    private static boolean mismoImporte(BigDecimal actual, BigDecimal nuevo) {
+        return actual == null ? nuevo == null : nuevo != null && actual.compareTo(nuevo) == 0;
+    }
+
     public Long getId() {
         return id;
     }
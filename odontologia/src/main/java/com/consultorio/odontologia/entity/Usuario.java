@@ -1,12 +1,17 @@
 package com.consultorio.odontologia.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.List;
 
 @Entity
 @Table(name = "usuarios")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "usuarios")
 @Getter @Setter
 @NoArgsConstructor @AllArgsConstructor
 public class Usuario {
@@ -23,6 +28,7 @@ public class Usuario {
     private String name;
 
     @OneToMany(mappedBy = "usuario")
+    @JsonIgnore
     private List<HistoriaClinica> historiaClinicas;
 
 
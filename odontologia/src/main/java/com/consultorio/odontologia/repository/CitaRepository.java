@@ -1,12 +1,21 @@
 package com.consultorio.odontologia.repository;
 
+import com.consultorio.odontologia.dto.CitaDTO;
 import com.consultorio.odontologia.entity.Cita;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface CitaRepository extends JpaRepository<Cita, Long> {
@@ -18,4 +27,37 @@ public interface CitaRepository extends JpaRepository<Cita, Long> {
     
     @Query("SELECT c FROM Cita c LEFT JOIN FETCH c.paciente LEFT JOIN FETCH c.usuario")
     List<Cita> findAllWithPaciente();
-} 
\ No newline at end of file
+
+    // Agenda por rango de fechas: proyección directa a CitaDTO sobre el índice (fecha, hora, usuario_id)
+    @Query("SELECT new com.consultorio.odontologia.dto.CitaDTO(c.id, c.fecha, c.hora, c.motivo, " +
+           "p.id, p.name, p.lastname, p.CI, u.id, u.name, u.email) " +
+           "FROM Cita c JOIN c.paciente p JOIN c.usuario u " +
+           "WHERE c.fecha BETWEEN :desde AND :hasta AND (:usuarioId IS NULL OR u.id = :usuarioId) " +
+           "ORDER BY c.fecha, c.hora")
+    List<CitaDTO> findAgendaPorRango(@Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta, @Param("usuarioId") Long usuarioId);
+
+    // Horarios ocupados para la agenda en memoria (DisponibilidadService)
+    @Query("SELECT c.id, c.hora FROM Cita c WHERE c.usuario.id = :usuarioId AND c.fecha = :fecha")
+    List<Object[]> findHorariosPorUsuarioYFecha(@Param("usuarioId") Long usuarioId, @Param("fecha") LocalDate fecha);
+
+    @Query("SELECT c.id, c.usuario.id, c.fecha, c.hora FROM Cita c WHERE c.fecha BETWEEN :desde AND :hasta")
+    List<Object[]> findHorariosEntreFechas(@Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta);
+
+    @Query("SELECT c FROM Cita c LEFT JOIN FETCH c.paciente LEFT JOIN FETCH c.usuario WHERE c.id > :despuesDeId ORDER BY c.id")
+    Slice<Cita> findPaginaDespuesDe(@Param("despuesDeId") Long despuesDeId, Pageable pageable);
+
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT c FROM Cita c LEFT JOIN FETCH c.paciente LEFT JOIN FETCH c.usuario ORDER BY c.id")
+    Stream<Cita> streamTodasWithPaciente();
+
+    @Query("SELECT c.id FROM Cita c WHERE c.paciente.id = :pacienteId")
+    List<Long> findIdsByPacienteId(@Param("pacienteId") Long pacienteId);
+
+    // Borrado en bloque usado por PacienteService.eliminarPaciente
+    @Modifying
+    @Query("DELETE FROM Cita c WHERE c.paciente.id = :pacienteId")
+    int eliminarPorPacienteId(@Param("pacienteId") Long pacienteId);
+}
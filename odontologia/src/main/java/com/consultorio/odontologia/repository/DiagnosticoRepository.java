@@ -1,7 +1,9 @@
 package com.consultorio.odontologia.repository;
 
 import com.consultorio.odontologia.entity.Diagnostico;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -43,4 +45,25 @@ public interface DiagnosticoRepository extends JpaRepository<Diagnostico, Long>
      */
     @Query("SELECT d FROM Diagnostico d WHERE d.paciente.id = :pacienteId AND LOWER(d.pronostico) LIKE LOWER(CONCAT('%', :contenido, '%'))")
     List<Diagnostico> findByPacienteIdAndPronosticoContainingIgnoreCase(@Param("pacienteId") Long pacienteId, @Param("contenido") String contenido);
-} 
\ No newline at end of file
+
+    /**
+     * Borra en bloque los registros de un paciente (usado por PacienteService.eliminarPaciente)
+     */
+    @Modifying
+    @Query("DELETE FROM Diagnostico d WHERE d.paciente.id = :pacienteId")
+    int eliminarPorPacienteId(@Param("pacienteId") Long pacienteId);
+
+    /**
+     * Textos que indexa la búsqueda clínica, por lotes ordenados por id
+     */
+    @Query("SELECT d.id, d.pacienteId, d.fechaDiagnostico, d.diagnostico, d.pronostico, d.observaciones " +
+           "FROM Diagnostico d WHERE d.id > :despuesDeId ORDER BY d.id")
+    List<Object[]> findTextosBusqueda(@Param("despuesDeId") Long despuesDeId, Pageable pageable);
+
+    /**
+     * Diagnósticos que todavía no tienen fila en diagnosticos_resumen, por lotes ordenados por id
+     */
+    @Query("SELECT d FROM Diagnostico d JOIN FETCH d.paciente LEFT JOIN FETCH d.usuario " +
+           "WHERE d.id > :despuesDeId AND NOT EXISTS (SELECT 1 FROM DiagnosticoResumen r WHERE r.id = d.id) ORDER BY d.id")
+    List<Diagnostico> findSinResumen(@Param("despuesDeId") Long despuesDeId, Pageable pageable);
+}
@@ -0,0 +1,47 @@
+package com.consultorio.odontologia.repository;
+
+import com.consultorio.odontologia.entity.DiagnosticoResumen;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DiagnosticoResumenRepository extends JpaRepository<DiagnosticoResumen, Long> {
+
+    /**
+     * Listado de toda la clínica, del más reciente al más antiguo, paginado por cursor (fecha, id).
+     * Los filtros nulos no se aplican; texto es un patrón LIKE ya normalizado y escapado con '!'.
+     */
+    @Query("SELECT r FROM DiagnosticoResumen r WHERE " +
+           "(:desde IS NULL OR r.fechaDiagnostico >= :desde) AND (:hasta IS NULL OR r.fechaDiagnostico <= :hasta) " +
+           "AND (:usuarioId IS NULL OR r.usuarioId = :usuarioId) AND (:pacienteId IS NULL OR r.pacienteId = :pacienteId) " +
+           "AND (:texto IS NULL OR r.textoBusqueda LIKE :texto ESCAPE '!') " +
+           "AND (:cursorFecha IS NULL OR r.fechaDiagnostico < :cursorFecha " +
+           "     OR (r.fechaDiagnostico = :cursorFecha AND r.id < :cursorId)) " +
+           "ORDER BY r.fechaDiagnostico DESC, r.id DESC")
+    Slice<DiagnosticoResumen> buscar(@Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta,
+                                     @Param("usuarioId") Long usuarioId, @Param("pacienteId") Long pacienteId,
+                                     @Param("texto") String texto, @Param("cursorFecha") LocalDate cursorFecha,
+                                     @Param("cursorId") Long cursorId, Pageable pageable);
+
+    // Cantidad de diagnósticos por odontólogo en el rango (los nulos no filtran), con su nombre actual
+    @Query("SELECT r.usuarioId, u.name, COUNT(r) FROM DiagnosticoResumen r LEFT JOIN Usuario u ON u.id = r.usuarioId WHERE " +
+           "(:desde IS NULL OR r.fechaDiagnostico >= :desde) AND (:hasta IS NULL OR r.fechaDiagnostico <= :hasta) " +
+           "GROUP BY r.usuarioId, u.name ORDER BY COUNT(r) DESC")
+    List<Object[]> contarPorUsuario(@Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta);
+
+    @Modifying
+    @Query("UPDATE DiagnosticoResumen r SET r.pacienteNombre = :nombre, r.pacienteApellido = :apellido WHERE r.pacienteId = :pacienteId")
+    int actualizarPaciente(@Param("pacienteId") Long pacienteId, @Param("nombre") String nombre, @Param("apellido") String apellido);
+
+    @Modifying
+    @Query("DELETE FROM DiagnosticoResumen r WHERE r.pacienteId = :pacienteId")
+    int eliminarPorPacienteId(@Param("pacienteId") Long pacienteId);
+}
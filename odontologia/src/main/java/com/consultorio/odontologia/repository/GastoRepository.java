@@ -1,14 +1,22 @@
 package com.consultorio.odontologia.repository;
 
 import com.consultorio.odontologia.entity.Gasto;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface GastoRepository extends JpaRepository<Gasto, Long> {
@@ -27,10 +35,48 @@ public interface GastoRepository extends JpaRepository<Gasto, Long> {
     @Query("SELECT COALESCE(SUM(g.precio * g.cantidad), 0) FROM Gasto g WHERE g.categoria = :categoria AND g.fechaGasto BETWEEN :fechaInicio AND :fechaFin")
     BigDecimal calcularTotalGastosPorCategoriaYFecha(@Param("categoria") String categoria, @Param("fechaInicio") LocalDate fechaInicio, @Param("fechaFin") LocalDate fechaFin);
 
+    // Total de gastos de cada día con gastos en el rango, para reportes por mes
+    @Query("SELECT g.fechaGasto, SUM(g.precio * g.cantidad) FROM Gasto g " +
+           "WHERE g.fechaGasto BETWEEN :fechaInicio AND :fechaFin GROUP BY g.fechaGasto")
+    List<Object[]> sumarPorDia(@Param("fechaInicio") LocalDate fechaInicio, @Param("fechaFin") LocalDate fechaFin);
+
+    // Datos que usa el cubo de gastos, por lotes ordenados por id
+    @Query("SELECT g.id, g.categoria, g.proveedor, g.fechaGasto, g.precio, g.cantidad FROM Gasto g " +
+           "WHERE g.id > :despuesDeId ORDER BY g.id")
+    List<Object[]> findDatosCubo(@Param("despuesDeId") Long despuesDeId, Pageable pageable);
+
     // Obtener todas las categorías únicas
     @Query("SELECT DISTINCT g.categoria FROM Gasto g WHERE g.categoria IS NOT NULL")
     List<String> findAllCategorias();
 
     // Buscar gastos por descripción (búsqueda parcial)
     List<Gasto> findByDescripcionContainingIgnoreCaseOrderByFechaGastoDesc(String descripcion);
-} 
\ No newline at end of file
+
+    // Listado paginado por cursor (id)
+    @Query("SELECT g FROM Gasto g WHERE g.id > :despuesDeId ORDER BY g.id")
+    Slice<Gasto> findPaginaDespuesDe(@Param("despuesDeId") Long despuesDeId, Pageable pageable);
+
+    // Exporte completo en streaming, con fetch size acotado
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT g FROM Gasto g ORDER BY g.id")
+    Stream<Gasto> streamTodos();
+
+    // Crea la fila del generador de ids de gastos si falta, por encima del mayor id existente
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO generador_ids (entidad, siguiente) " +
+                   "SELECT 'gastos', COALESCE(MAX(g.id), 0) + :margen FROM gastos g " +
+                   "HAVING NOT EXISTS (SELECT 1 FROM generador_ids WHERE entidad = 'gastos')", nativeQuery = true)
+    int crearGeneradorIds(@Param("margen") long margen);
+
+    // Adelanta el generador si hay ids mayores (gastos cargados con AUTO_INCREMENT)
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE generador_ids SET siguiente = (SELECT COALESCE(MAX(g.id), 0) + :margen FROM gastos g) " +
+                   "WHERE entidad = 'gastos' AND siguiente < (SELECT COALESCE(MAX(g.id), 0) + :margen FROM gastos g)",
+           nativeQuery = true)
+    int alinearGeneradorIds(@Param("margen") long margen);
+}
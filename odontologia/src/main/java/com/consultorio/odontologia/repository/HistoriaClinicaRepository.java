@@ -1,40 +1,107 @@
 package com.consultorio.odontologia.repository;
 
 import com.consultorio.odontologia.entity.HistoriaClinica;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface HistoriaClinicaRepository extends JpaRepository<HistoriaClinica, Long> {
     
+    // Las consultas con GRAFO_COMPLETA traen en un solo SELECT el encabezado, las secciones, el paciente y el usuario
+
+    @EntityGraph(HistoriaClinica.GRAFO_COMPLETA)
+    @Query("SELECT h FROM HistoriaClinica h WHERE h.id = :id")
+    Optional<HistoriaClinica> findCompletaById(@Param("id") Long id);
+
+    @EntityGraph(HistoriaClinica.GRAFO_COMPLETA)
+    @Query("SELECT h FROM HistoriaClinica h")
+    List<HistoriaClinica> findTodasCompletas();
+
     // Obtener todas las historias clínicas de un paciente ordenadas por fecha
-    List<HistoriaClinica> findByPacienteIdOrderByFechaCreacionDesc(Long pacienteId);
-    
-    // Obtener la historia clínica más reciente de un paciente
-    Optional<HistoriaClinica> findFirstByPacienteIdOrderByFechaCreacionDesc(Long pacienteId);
-    
-    // Obtener historia clínica por paciente y fecha específica
-    @Query(value = "SELECT * FROM historia_clinica h WHERE h.paciente_id = :pacienteId AND CAST(h.fecha_creacion AS DATE) = :fecha ORDER BY h.fecha_creacion DESC LIMIT 1", nativeQuery = true)
-    Optional<HistoriaClinica> findByPacienteIdAndFecha(@Param("pacienteId") Long pacienteId, @Param("fecha") LocalDate fecha);
-    
-    // Obtener la historia clínica más reciente de un paciente por fecha
-    @Query(value = "SELECT * FROM historia_clinica h WHERE h.paciente_id = :pacienteId AND CAST(h.fecha_creacion AS DATE) = :fecha ORDER BY h.fecha_creacion DESC LIMIT 1", nativeQuery = true)
-    Optional<HistoriaClinica> findMostRecentByPacienteIdAndFecha(@Param("pacienteId") Long pacienteId, @Param("fecha") LocalDate fecha);
+    @EntityGraph(HistoriaClinica.GRAFO_COMPLETA)
+    @Query("SELECT h FROM HistoriaClinica h WHERE h.paciente.id = :pacienteId ORDER BY h.fechaCreacion DESC")
+    List<HistoriaClinica> findCompletasByPacienteId(@Param("pacienteId") Long pacienteId);
+
+    // Encabezados (sin hábitos, antecedentes ni examen) con paciente y usuario
+    @Query("SELECT h FROM HistoriaClinica h LEFT JOIN FETCH h.paciente LEFT JOIN FETCH h.usuario " +
+           "WHERE h.paciente.id = :pacienteId ORDER BY h.fechaCreacion DESC")
+    List<HistoriaClinica> findEncabezadosByPacienteId(@Param("pacienteId") Long pacienteId);
+
+    @Query("SELECT h FROM HistoriaClinica h LEFT JOIN FETCH h.paciente LEFT JOIN FETCH h.usuario WHERE h.id = :id")
+    Optional<HistoriaClinica> findEncabezadoById(@Param("id") Long id);
+
+    // Id de la historia clínica más reciente de un paciente (solo lee el encabezado)
+    @Query("SELECT h.id FROM HistoriaClinica h WHERE h.paciente.id = :pacienteId ORDER BY h.fechaCreacion DESC, h.id DESC")
+    List<Long> findIdsRecientesByPacienteId(@Param("pacienteId") Long pacienteId, Pageable pageable);
+
+    /*
+     * Consultas por día sobre el índice (paciente_id, fecha_creacion): el día se filtra como rango semiabierto
+     * [inicio, fin) en lugar de CAST(fecha_creacion AS DATE) = :fecha, que obligaba a recorrer todas las filas
+     * del paciente. HistoriaClinicaPlanesTest verifica con EXPLAIN que sigan usando el índice.
+     */
+    String SQL_ID_POR_DIA = "SELECT h.id FROM historia_clinica h WHERE h.paciente_id = :pacienteId " +
+            "AND h.fecha_creacion >= :inicio AND h.fecha_creacion < :fin ORDER BY h.fecha_creacion DESC LIMIT 1";
+
+    String SQL_EXISTE_POR_DIA = "SELECT COUNT(*) > 0 FROM historia_clinica h WHERE h.paciente_id = :pacienteId " +
+            "AND h.fecha_creacion >= :inicio AND h.fecha_creacion < :fin";
+
+    // El CAST queda en el SELECT: el recorrido es solo el tramo del paciente en el índice
+    String SQL_FECHAS = "SELECT DISTINCT CAST(h.fecha_creacion AS DATE) FROM historia_clinica h " +
+            "WHERE h.paciente_id = :pacienteId ORDER BY CAST(h.fecha_creacion AS DATE) DESC";
+
+    // Id de la historia clínica más reciente de un paciente en el día [inicio, fin) (solo lee el encabezado)
+    @Query(value = SQL_ID_POR_DIA, nativeQuery = true)
+    Optional<Long> findIdByPacienteIdAndDia(@Param("pacienteId") Long pacienteId,
+                                            @Param("inicio") LocalDateTime inicio, @Param("fin") LocalDateTime fin);
     
     // Obtener fechas disponibles para un paciente
-    @Query(value = "SELECT DISTINCT CAST(h.fecha_creacion AS DATE) FROM historia_clinica h WHERE h.paciente_id = :pacienteId ORDER BY CAST(h.fecha_creacion AS DATE) DESC", nativeQuery = true)
+    @Query(value = SQL_FECHAS, nativeQuery = true)
     List<String> findFechasDisponiblesByPacienteId(@Param("pacienteId") Long pacienteId);
     
-    // Verificar si existe historia clínica para paciente y fecha
-    @Query(value = "SELECT COUNT(*) > 0 FROM historia_clinica h WHERE h.paciente_id = :pacienteId AND CAST(h.fecha_creacion AS DATE) = :fecha", nativeQuery = true)
-    boolean existsByPacienteIdAndFecha(@Param("pacienteId") Long pacienteId, @Param("fecha") LocalDate fecha);
+    // Verificar si existe historia clínica para paciente en el día [inicio, fin)
+    @Query(value = SQL_EXISTE_POR_DIA, nativeQuery = true)
+    boolean existsByPacienteIdAndDia(@Param("pacienteId") Long pacienteId,
+                                     @Param("inicio") LocalDateTime inicio, @Param("fin") LocalDateTime fin);
     
     // Contar historias clínicas por paciente
     long countByPacienteId(Long pacienteId);
-} 
\ No newline at end of file
+
+    // Listado paginado por cursor (id)
+    @EntityGraph(HistoriaClinica.GRAFO_COMPLETA)
+    @Query("SELECT h FROM HistoriaClinica h WHERE h.id > :despuesDeId ORDER BY h.id")
+    Slice<HistoriaClinica> findPaginaDespuesDe(@Param("despuesDeId") Long despuesDeId, Pageable pageable);
+
+    // Exporte completo en streaming, con fetch size acotado
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @EntityGraph(HistoriaClinica.GRAFO_COMPLETA)
+    @Query("SELECT h FROM HistoriaClinica h ORDER BY h.id")
+    Stream<HistoriaClinica> streamTodas();
+
+    // Borrado en bloque usado por PacienteService.eliminarPaciente
+    @Modifying
+    @Query("DELETE FROM HistoriaClinica h WHERE h.paciente.id = :pacienteId")
+    int eliminarPorPacienteId(@Param("pacienteId") Long pacienteId);
+
+    // Textos que indexa la búsqueda clínica, por lotes ordenados por id
+    @Query("SELECT h.id, p.id, h.fechaCreacion, h.motivoConsulta, h.enfermedadesActuales, h.alergias, " +
+           "h.medicamentos, h.antecedentesFamiliares FROM HistoriaClinica h LEFT JOIN h.paciente p " +
+           "WHERE h.id > :despuesDeId ORDER BY h.id")
+    List<Object[]> findTextosBusqueda(@Param("despuesDeId") Long despuesDeId, Pageable pageable);
+}
@@ -0,0 +1,38 @@
+package com.consultorio.odontologia.repository;
+
+import com.consultorio.odontologia.entity.HistoriaClinicaVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface HistoriaClinicaVersionRepository extends JpaRepository<HistoriaClinicaVersion, Long> {
+
+    @Query("SELECT COALESCE(MAX(v.numero), 0) FROM HistoriaClinicaVersion v WHERE v.historiaClinicaId = :historiaId")
+    int findUltimoNumero(@Param("historiaId") Long historiaId);
+
+    // Número, fecha y campos de cada versión, sin leer los datos
+    @Query("SELECT v.numero, v.fecha, v.camposCambiados FROM HistoriaClinicaVersion v " +
+           "WHERE v.historiaClinicaId = :historiaId ORDER BY v.numero")
+    List<Object[]> findResumenes(@Param("historiaId") Long historiaId);
+
+    // Versiones a deshacer para volver a la versión numero, de la más reciente a la más antigua
+    List<HistoriaClinicaVersion> findByHistoriaClinicaIdAndNumeroGreaterThanOrderByNumeroDesc(Long historiaClinicaId, Integer numero);
+
+    List<HistoriaClinicaVersion> findByHistoriaClinicaIdAndNumeroInOrderByNumero(Long historiaClinicaId, Collection<Integer> numeros);
+
+    @Modifying
+    @Query("DELETE FROM HistoriaClinicaVersion v WHERE v.historiaClinicaId = :historiaId")
+    int eliminarPorHistoriaClinicaId(@Param("historiaId") Long historiaId);
+
+    // Borrado en bloque usado por PacienteService.eliminarPaciente, antes de borrar las historias
+    @Modifying
+    @Query("DELETE FROM HistoriaClinicaVersion v WHERE v.historiaClinicaId IN " +
+           "(SELECT h.id FROM HistoriaClinica h WHERE h.paciente.id = :pacienteId)")
+    int eliminarPorPacienteId(@Param("pacienteId") Long pacienteId);
+}
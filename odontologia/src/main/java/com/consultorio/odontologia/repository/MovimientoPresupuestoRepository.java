@@ -0,0 +1,18 @@
+package com.consultorio.odontologia.repository;
+
+import com.consultorio.odontologia.entity.MovimientoPresupuesto;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface MovimientoPresupuestoRepository extends JpaRepository<MovimientoPresupuesto, Long> {
+
+    boolean existsBy();
+
+    // Fecha, precio y abonado netos de cada día, para reconstruir ResumenIngresosDia
+    @Query("SELECT m.fecha, SUM(m.diferenciaPrecio), SUM(m.diferenciaAbonado) FROM MovimientoPresupuesto m GROUP BY m.fecha")
+    List<Object[]> sumarPorDia();
+}
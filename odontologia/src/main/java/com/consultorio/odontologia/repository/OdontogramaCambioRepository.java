@@ -0,0 +1,44 @@
+package com.consultorio.odontologia.repository;
+
+import com.consultorio.odontologia.entity.OdontogramaCambio;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OdontogramaCambioRepository extends JpaRepository<OdontogramaCambio, Long> {
+
+    // Cambios posteriores a un checkpoint y hasta una fecha, en el orden en que se aplican
+    @Query("SELECT c FROM OdontogramaCambio c WHERE c.pacienteId = :pacienteId AND c.id > :despuesDeId " +
+           "AND c.fecha <= :hasta ORDER BY c.id")
+    List<OdontogramaCambio> findCambiosHasta(@Param("pacienteId") Long pacienteId,
+                                             @Param("despuesDeId") Long despuesDeId,
+                                             @Param("hasta") LocalDateTime hasta);
+
+    // Cambios con fecha en (desde, hasta]
+    @Query("SELECT c FROM OdontogramaCambio c WHERE c.pacienteId = :pacienteId AND c.fecha > :desde " +
+           "AND c.fecha <= :hasta ORDER BY c.id")
+    List<OdontogramaCambio> findCambiosEntre(@Param("pacienteId") Long pacienteId,
+                                             @Param("desde") LocalDateTime desde,
+                                             @Param("hasta") LocalDateTime hasta);
+
+    List<OdontogramaCambio> findByPacienteIdOrderById(Long pacienteId);
+
+    long countByPacienteIdAndIdGreaterThan(Long pacienteId, Long id);
+
+    boolean existsByPacienteId(Long pacienteId);
+
+    @Modifying
+    @Query("DELETE FROM OdontogramaCambio c WHERE c.odontogramaId = :odontogramaId")
+    int eliminarPorOdontogramaId(@Param("odontogramaId") Long odontogramaId);
+
+    // Borrado en bloque usado por PacienteService.eliminarPaciente
+    @Modifying
+    @Query("DELETE FROM OdontogramaCambio c WHERE c.pacienteId = :pacienteId")
+    int eliminarPorPacienteId(@Param("pacienteId") Long pacienteId);
+}
@@ -0,0 +1,31 @@
+package com.consultorio.odontologia.repository;
+
+import com.consultorio.odontologia.entity.OdontogramaCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface OdontogramaCheckpointRepository extends JpaRepository<OdontogramaCheckpoint, Long> {
+
+    // Último checkpoint tomado hasta una fecha
+    Optional<OdontogramaCheckpoint> findFirstByPacienteIdAndFechaLessThanEqualOrderByHastaCambioIdDesc(
+            Long pacienteId, LocalDateTime fecha);
+
+    Optional<OdontogramaCheckpoint> findFirstByPacienteIdOrderByHastaCambioIdDesc(Long pacienteId);
+
+    // Checkpoints que incluyen cambios de una visita que se elimina
+    @Modifying
+    @Query("DELETE FROM OdontogramaCheckpoint c WHERE c.pacienteId = :pacienteId AND c.fecha >= :desde")
+    int eliminarDesde(@Param("pacienteId") Long pacienteId, @Param("desde") LocalDateTime desde);
+
+    // Borrado en bloque usado por PacienteService.eliminarPaciente
+    @Modifying
+    @Query("DELETE FROM OdontogramaCheckpoint c WHERE c.pacienteId = :pacienteId")
+    int eliminarPorPacienteId(@Param("pacienteId") Long pacienteId);
+}
@@ -1,12 +1,20 @@
 package com.consultorio.odontologia.repository;
 
 import com.consultorio.odontologia.entity.Odontograma;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface OdontogramaRepository extends JpaRepository<Odontograma, Long> {
@@ -14,6 +22,12 @@ public interface OdontogramaRepository extends JpaRepository<Odontograma, Long>
     // Buscar todos los odontogramas de un paciente ordenados por fecha (más reciente primero)
     List<Odontograma> findByPacienteIdOrderByFechaCreacionDesc(Long pacienteId);
     
+    // El primero es el que conserva mapa_dental; los demás se reconstruyen desde el historial
+    Optional<Odontograma> findFirstByPacienteIdOrderByFechaCreacionDescIdDesc(Long pacienteId);
+    
+    @Query("SELECT o.paciente.id FROM Odontograma o WHERE o.id = :id")
+    Optional<Long> findPacienteIdById(@Param("id") Long id);
+    
     // Buscar un odontograma específico por paciente y fecha
     Optional<Odontograma> findByPacienteIdAndFechaCreacion(Long pacienteId, LocalDateTime fechaCreacion);
     
@@ -22,4 +36,29 @@ public interface OdontogramaRepository extends JpaRepository<Odontograma, Long>
     
     // Contar odontogramas de un paciente
     long countByPacienteId(Long pacienteId);
-} 
\ No newline at end of file
+
+    // Borrado en bloque usado por PacienteService.eliminarPaciente
+    @Modifying
+    @Query("DELETE FROM Odontograma o WHERE o.paciente.id = :pacienteId")
+    int eliminarPorPacienteId(@Param("pacienteId") Long pacienteId);
+
+    // Odontogramas con el JSON anterior a mapa_dental, para migrarlos por lotes
+    @Query("SELECT o FROM Odontograma o WHERE o.id > :despuesDeId AND o.mapaDental IS NULL AND o.datosDientes IS NOT NULL ORDER BY o.id")
+    List<Odontograma> findPendientesDeMigrar(@Param("despuesDeId") Long despuesDeId, Pageable pageable);
+
+    // Pacientes con odontogramas guardados como foto completa y sin historial de cambios
+    @Query("SELECT DISTINCT o.paciente.id FROM Odontograma o WHERE o.mapaDental IS NOT NULL " +
+           "AND NOT EXISTS (SELECT c.id FROM OdontogramaCambio c WHERE c.pacienteId = o.paciente.id)")
+    List<Long> findPacientesSinHistorial();
+
+    List<Odontograma> findByPacienteIdOrderByFechaCreacionAscIdAsc(Long pacienteId);
+
+    // Id de paciente y mapa dental del odontograma más reciente de cada paciente
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT o.paciente.id, o.mapaDental FROM Odontograma o WHERE o.mapaDental IS NOT NULL " +
+           "AND o.fechaCreacion = (SELECT MAX(o2.fechaCreacion) FROM Odontograma o2 WHERE o2.paciente = o.paciente)")
+    Stream<Object[]> streamMapasMasRecientes();
+}
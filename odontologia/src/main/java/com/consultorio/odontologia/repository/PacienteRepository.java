@@ -1,10 +1,73 @@
 package com.consultorio.odontologia.repository;
 
 import com.consultorio.odontologia.entity.Paciente;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 @Repository
 public interface PacienteRepository extends JpaRepository<Paciente, Long> {
     boolean existsByCI(Long CI);
-} 
\ No newline at end of file
+
+    // Búsqueda por prefijo sobre las columnas normalizadas (usa los índices *_normalizado / ci_texto)
+    @Query("SELECT p FROM Paciente p WHERE p.nameNormalizado LIKE :prefijo ESCAPE '!' AND p.id > :despuesDeId ORDER BY p.id")
+    List<Paciente> buscarPorPrefijoNombre(@Param("prefijo") String prefijo, @Param("despuesDeId") Long despuesDeId, Pageable pageable);
+
+    @Query("SELECT p FROM Paciente p WHERE p.lastnameNormalizado LIKE :prefijo ESCAPE '!' AND p.id > :despuesDeId ORDER BY p.id")
+    List<Paciente> buscarPorPrefijoApellido(@Param("prefijo") String prefijo, @Param("despuesDeId") Long despuesDeId, Pageable pageable);
+
+    @Query("SELECT p FROM Paciente p WHERE p.ciTexto LIKE :prefijo AND p.id > :despuesDeId ORDER BY p.id")
+    List<Paciente> buscarPorPrefijoCedula(@Param("prefijo") String prefijo, @Param("despuesDeId") Long despuesDeId, Pageable pageable);
+
+    List<Paciente> findByIdGreaterThanOrderByIdAsc(Long despuesDeId, Pageable pageable);
+
+    // Listado paginado por cursor (id)
+    @Query("SELECT p FROM Paciente p WHERE p.id > :despuesDeId ORDER BY p.id")
+    Slice<Paciente> findPaginaDespuesDe(@Param("despuesDeId") Long despuesDeId, Pageable pageable);
+
+    // Exporte completo en streaming, con fetch size acotado
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Paciente p ORDER BY p.id")
+    Stream<Paciente> streamTodos();
+
+    // Solo las columnas que necesita el índice de trigramas, recorridas por id
+    @Query("SELECT p.id, p.name, p.lastname, p.CI FROM Paciente p WHERE p.id > :despuesDeId ORDER BY p.id")
+    List<Object[]> findDatosBusqueda(@Param("despuesDeId") Long despuesDeId, Pageable pageable);
+
+    // Pacientes anteriores a las columnas normalizadas, recorridos por id
+    // (solo id, nombre, apellido y cédula; las columnas normalizadas se escriben con actualizarCamposBusqueda)
+    @Query("SELECT p.id, p.name, p.lastname, p.CI FROM Paciente p WHERE p.id > :despuesDeId AND ((p.ciTexto IS NULL AND p.CI IS NOT NULL) " +
+           "OR (p.nameNormalizado IS NULL AND p.name IS NOT NULL) OR (p.lastnameNormalizado IS NULL AND p.lastname IS NOT NULL)) ORDER BY p.id")
+    List<Object[]> findPendientesDeNormalizar(@Param("despuesDeId") Long despuesDeId, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE Paciente p SET p.nameNormalizado = :nombre, p.lastnameNormalizado = :apellido, p.ciTexto = :cedula WHERE p.id = :id")
+    int actualizarCamposBusqueda(@Param("id") Long id, @Param("nombre") String nombre,
+                                 @Param("apellido") String apellido, @Param("cedula") String cedula);
+
+    // SELECT ... FOR UPDATE sobre la fila del paciente: serializa los cambios al historial del odontograma
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Paciente p WHERE p.id = :id")
+    Optional<Paciente> bloquearPorId(@Param("id") Long id);
+
+    // Borra solo la fila del paciente; los registros dependientes se borran antes en bloque
+    @Modifying
+    @Query("DELETE FROM Paciente p WHERE p.id = :id")
+    int eliminarPorId(@Param("id") Long id);
+}
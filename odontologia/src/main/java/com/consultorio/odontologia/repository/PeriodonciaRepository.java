@@ -1,10 +1,14 @@
 package com.consultorio.odontologia.repository;
 
+import com.consultorio.odontologia.dto.UltimoRegistroDTO;
 import com.consultorio.odontologia.entity.Periodoncia;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -19,9 +23,13 @@ public interface PeriodonciaRepository extends JpaRepository<Periodoncia, Long>
     // Buscar periodoncia por paciente y fecha específica
     Optional<Periodoncia> findByPacienteIdAndFechaRegistro(Long pacienteId, LocalDate fechaRegistro);
     
-    // Buscar la periodoncia más reciente de un paciente
-    @Query("SELECT p FROM Periodoncia p WHERE p.paciente.id = :pacienteId ORDER BY p.fechaRegistro DESC")
-    Optional<Periodoncia> findMostRecentByPacienteId(@Param("pacienteId") Long pacienteId);
+    // Buscar la periodoncia más reciente de un paciente (una sola fila, por idx_periodoncia_paciente_fecha)
+    Optional<Periodoncia> findFirstByPacienteIdOrderByFechaRegistroDescIdDesc(Long pacienteId);
+    
+    // Id y fechas de la más reciente, sin los índices en JSON; se pide con PageRequest.of(0, 1)
+    @Query("SELECT new com.consultorio.odontologia.dto.UltimoRegistroDTO(p.id, p.fechaRegistro, p.fechaModificacion) " +
+           "FROM Periodoncia p WHERE p.paciente.id = :pacienteId ORDER BY p.fechaRegistro DESC, p.id DESC")
+    List<UltimoRegistroDTO> findUltimoRegistro(@Param("pacienteId") Long pacienteId, Pageable pageable);
     
     // Verificar si existe una periodoncia para un paciente en una fecha específica
     boolean existsByPacienteIdAndFechaRegistro(Long pacienteId, LocalDate fechaRegistro);
@@ -29,4 +37,36 @@ public interface PeriodonciaRepository extends JpaRepository<Periodoncia, Long>
     // Obtener fechas disponibles para un paciente
     @Query("SELECT p.fechaRegistro FROM Periodoncia p WHERE p.paciente.id = :pacienteId ORDER BY p.fechaRegistro DESC")
     List<LocalDate> findFechasByPacienteId(@Param("pacienteId") Long pacienteId);
-} 
\ No newline at end of file
+
+    // Fichas con índices en JSON que todavía no tienen los bits calculados (sin las ya marcadas como fuera de la ficha)
+    @Query("SELECT p FROM Periodoncia p WHERE p.id > :despuesDeId AND " +
+           "((p.indicePlaca IS NOT NULL AND p.placaBitsSuperior IS NULL) OR (p.indiceSarro IS NOT NULL AND p.sarroBits IS NULL)) " +
+           "AND (p.indicesFueraDeFicha IS NULL OR p.indicesFueraDeFicha = false) " +
+           "ORDER BY p.id")
+    List<Periodoncia> findSinBits(@Param("despuesDeId") Long despuesDeId, Pageable pageable);
+
+    // UPDATE directo para no disparar @PreUpdate (no es una modificación de la ficha); los porcentajes se
+    // recalculan desde los bits para que las fichas anteriores usen el mismo criterio que las nuevas
+    @Transactional
+    @Modifying
+    @Query("UPDATE Periodoncia p SET p.placaBitsSuperior = :placaSuperior, p.placaBitsInferior = :placaInferior, " +
+           "p.sarroBits = :sarro, p.porcentajePlaca = :porcentajePlaca, p.porcentajeSarro = :porcentajeSarro WHERE p.id = :id")
+    int actualizarBits(@Param("id") Long id, @Param("placaSuperior") Long placaSuperior,
+                       @Param("placaInferior") Long placaInferior, @Param("sarro") Long sarro,
+                       @Param("porcentajePlaca") Integer porcentajePlaca, @Param("porcentajeSarro") Integer porcentajeSarro);
+
+    // Fecha y bits de cada ficha en [desde, hasta), para agregados mensuales
+    @Query("SELECT p.fechaRegistro, p.placaBitsSuperior, p.placaBitsInferior, p.sarroBits FROM Periodoncia p " +
+           "WHERE p.fechaRegistro >= :desde AND p.fechaRegistro < :hasta")
+    List<Object[]> findBitsEntreFechas(@Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta);
+
+    // Fichas cuyos índices no se pueden pasar a bits, para que el completado no las vuelva a leer
+    @Modifying
+    @Query("UPDATE Periodoncia p SET p.indicesFueraDeFicha = true WHERE p.id IN :ids")
+    int marcarIndicesFueraDeFicha(@Param("ids") List<Long> ids);
+
+    // Borrado en bloque usado por PacienteService.eliminarPaciente
+    @Modifying
+    @Query("DELETE FROM Periodoncia p WHERE p.paciente.id = :pacienteId")
+    int eliminarPorPacienteId(@Param("pacienteId") Long pacienteId);
+}
@@ -1,10 +1,15 @@
 package com.consultorio.odontologia.repository;
 
+import com.consultorio.odontologia.dto.UltimoRegistroDTO;
+import com.consultorio.odontologia.entity.MedicionesPeriodontales;
 import com.consultorio.odontologia.entity.Periodontograma;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -18,14 +23,50 @@ public interface PeriodontogramaRepository extends JpaRepository<Periodontograma
     // Buscar periodontograma por paciente y fecha específica
     Optional<Periodontograma> findByPacienteIdAndFechaRegistro(Long pacienteId, String fechaRegistro);
     
-    // Buscar el periodontograma más reciente de un paciente (por fecha de modificación)
-    @Query("SELECT p FROM Periodontograma p WHERE p.paciente.id = :pacienteId ORDER BY COALESCE(p.fechaModificacion, p.fechaCreacion) DESC")
-    Optional<Periodontograma> findMostRecentByPacienteId(@Param("pacienteId") Long pacienteId);
+    // Buscar el periodontograma más reciente de un paciente (por fecha de modificación, una sola fila)
+    Optional<Periodontograma> findFirstByPacienteIdOrderByFechaModificacionDescIdDesc(Long pacienteId);
+    
+    // Id y fechas del más reciente, sin los datos en JSON; se pide con PageRequest.of(0, 1)
+    @Query("SELECT new com.consultorio.odontologia.dto.UltimoRegistroDTO(p.id, p.fechaRegistro, p.fechaModificacion) " +
+           "FROM Periodontograma p WHERE p.paciente.id = :pacienteId ORDER BY p.fechaModificacion DESC, p.id DESC")
+    List<UltimoRegistroDTO> findUltimoRegistro(@Param("pacienteId") Long pacienteId, Pageable pageable);
     
     // Verificar si existe un periodontograma para un paciente en una fecha específica
     boolean existsByPacienteIdAndFechaRegistro(Long pacienteId, String fechaRegistro);
     
     // Obtener fechas disponibles para un paciente
-    @Query("SELECT p.fechaRegistro FROM Periodontograma p WHERE p.paciente.id = :pacienteId ORDER BY COALESCE(p.fechaModificacion, p.fechaCreacion) DESC")
+    @Query("SELECT p.fechaRegistro FROM Periodontograma p WHERE p.paciente.id = :pacienteId ORDER BY p.fechaModificacion DESC, p.id DESC")
     List<String> findFechasByPacienteId(@Param("pacienteId") Long pacienteId);
-} 
\ No newline at end of file
+
+    // Los registros viejos solo tenían fecha de creación; así el orden por modificación usa el índice
+    @Transactional
+    @Modifying
+    @Query("UPDATE Periodontograma p SET p.fechaModificacion = p.fechaCreacion " +
+           "WHERE p.fechaModificacion IS NULL AND p.fechaCreacion IS NOT NULL")
+    int completarFechaModificacion();
+
+    // Registros con datos que todavía no tienen las mediciones extraídas
+    @Query("SELECT p FROM Periodontograma p WHERE p.id > :despuesDeId AND p.datosPeriodontograma IS NOT NULL " +
+           "AND p.mediciones IS NULL ORDER BY p.id")
+    List<Periodontograma> findSinMediciones(@Param("despuesDeId") Long despuesDeId, Pageable pageable);
+
+    // UPDATE directo: completar las mediciones no es una modificación del periodontograma
+    @Transactional
+    @Modifying
+    @Query("UPDATE Periodontograma p SET p.mediciones = :mediciones WHERE p.id = :id")
+    int actualizarMediciones(@Param("id") Long id, @Param("mediciones") MedicionesPeriodontales mediciones);
+
+    // Id, fecha y mediciones de cada registro del paciente, sin el JSON, de la fecha más vieja a la más nueva
+    @Query("SELECT p.id, p.fechaRegistro, p.mediciones FROM Periodontograma p " +
+           "WHERE p.paciente.id = :pacienteId AND p.mediciones IS NOT NULL ORDER BY p.fechaRegistro, p.id")
+    List<Object[]> findMedicionesByPacienteId(@Param("pacienteId") Long pacienteId);
+
+    // Paciente, fecha y mediciones de un registro, sin el JSON
+    @Query("SELECT p.paciente.id, p.fechaRegistro, p.mediciones FROM Periodontograma p WHERE p.id = :id")
+    List<Object[]> findMedicionesById(@Param("id") Long id);
+
+    // Borrado en bloque usado por PacienteService.eliminarPaciente
+    @Modifying
+    @Query("DELETE FROM Periodontograma p WHERE p.paciente.id = :pacienteId")
+    int eliminarPorPacienteId(@Param("pacienteId") Long pacienteId);
+}
@@ -1,21 +1,31 @@
 package com.consultorio.odontologia.repository;
 
 import com.consultorio.odontologia.entity.Presupuesto;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface PresupuestoRepository extends JpaRepository<Presupuesto, Long> {
 
+    // Presupuesto con paciente y tratamientos, para devolverlo o modificarlo
+    @EntityGraph(Presupuesto.GRAFO_DETALLE)
+    Optional<Presupuesto> findDetalleById(Long id);
+
     // Buscar presupuestos por paciente
+    @EntityGraph(Presupuesto.GRAFO_DETALLE)
     List<Presupuesto> findByPacienteIdOrderByFechaRegistroDesc(Long pacienteId);
 
     // Buscar presupuesto por paciente y fecha
+    @EntityGraph(Presupuesto.GRAFO_DETALLE)
     @Query("SELECT p FROM Presupuesto p WHERE p.paciente.id = :pacienteId AND p.fechaRegistro = :fecha")
     Presupuesto findByPacienteIdAndFechaRegistro(@Param("pacienteId") Long pacienteId, @Param("fecha") LocalDate fecha);
 
@@ -30,5 +40,33 @@ public interface PresupuestoRepository extends JpaRepository<Presupuesto, Long>
     long countByPacienteId(Long pacienteId);
 
     // Buscar presupuestos por rango de fechas
+    @EntityGraph(Presupuesto.GRAFO_DETALLE)
     List<Presupuesto> findByFechaRegistroBetween(LocalDate fechaInicio, LocalDate fechaFin);
-} 
\ No newline at end of file
+
+    // Id, paciente, fecha, precio y abonado totales de cada presupuesto (para abrir el libro de ingresos)
+    @Query("SELECT p.id, p.paciente.id, p.fechaRegistro, COALESCE(SUM(t.precio), 0), COALESCE(SUM(t.abonado), 0) " +
+           "FROM Presupuesto p LEFT JOIN p.tratamientos t GROUP BY p.id, p.paciente.id, p.fechaRegistro")
+    List<Object[]> sumarTotalesPorPresupuesto();
+
+    // Lo mismo para los presupuestos de un paciente, antes de borrarlos en bloque
+    @Query("SELECT p.id, p.paciente.id, p.fechaRegistro, COALESCE(SUM(t.precio), 0), COALESCE(SUM(t.abonado), 0) " +
+           "FROM Presupuesto p LEFT JOIN p.tratamientos t WHERE p.paciente.id = :pacienteId " +
+           "GROUP BY p.id, p.paciente.id, p.fechaRegistro")
+    List<Object[]> sumarTotalesPorPresupuestoDePaciente(@Param("pacienteId") Long pacienteId);
+
+    // Presupuestos guardados antes de que existiera el bloqueo optimista
+    @Transactional
+    @Modifying
+    @Query("UPDATE Presupuesto p SET p.version = 0 WHERE p.version IS NULL")
+    int completarVersion();
+
+    // Líneas de los presupuestos del paciente; deben borrarse antes que los presupuestos
+    @Modifying
+    @Query("DELETE FROM TratamientoPresupuesto t WHERE t.presupuesto.id IN (SELECT p.id FROM Presupuesto p WHERE p.paciente.id = :pacienteId)")
+    int eliminarTratamientosPorPacienteId(@Param("pacienteId") Long pacienteId);
+
+    // Borrado en bloque usado por PacienteService.eliminarPaciente
+    @Modifying
+    @Query("DELETE FROM Presupuesto p WHERE p.paciente.id = :pacienteId")
+    int eliminarPorPacienteId(@Param("pacienteId") Long pacienteId);
+}
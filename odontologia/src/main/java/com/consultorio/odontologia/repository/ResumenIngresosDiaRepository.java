@@ -0,0 +1,35 @@
+package com.consultorio.odontologia.repository;
+
+import com.consultorio.odontologia.entity.ResumenIngresosDia;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ResumenIngresosDiaRepository extends JpaRepository<ResumenIngresosDia, LocalDate> {
+
+    // Suma en la base en una sola sentencia: crea la fila del día si no existe, y si otra transacción la creó
+    // al mismo tiempo suma sobre ella en lugar de chocar en la clave (H2 lo acepta en modo MySQL)
+    @Modifying
+    @Query(value = "INSERT INTO resumen_ingresos_dia (fecha, precio, abonado) VALUES (:fecha, :precio, :abonado) " +
+                   "ON DUPLICATE KEY UPDATE precio = precio + :precio, abonado = abonado + :abonado", nativeQuery = true)
+    int sumar(@Param("fecha") LocalDate fecha, @Param("precio") BigDecimal precio, @Param("abonado") BigDecimal abonado);
+
+    @Query("SELECT COALESCE(SUM(r.abonado), 0) FROM ResumenIngresosDia r WHERE r.fecha BETWEEN :fechaInicio AND :fechaFin")
+    BigDecimal sumarAbonado(@Param("fechaInicio") LocalDate fechaInicio, @Param("fechaFin") LocalDate fechaFin);
+
+    @Query("SELECT COALESCE(SUM(r.precio - r.abonado), 0) FROM ResumenIngresosDia r WHERE r.fecha BETWEEN :fechaInicio AND :fechaFin")
+    BigDecimal sumarPendiente(@Param("fechaInicio") LocalDate fechaInicio, @Param("fechaFin") LocalDate fechaFin);
+
+    List<ResumenIngresosDia> findByFechaBetweenOrderByFecha(LocalDate fechaInicio, LocalDate fechaFin);
+
+    @Modifying
+    @Query("DELETE FROM ResumenIngresosDia r")
+    int eliminarTodos();
+}
@@ -1,7 +1,9 @@
 package com.consultorio.odontologia.repository;
 
 import com.consultorio.odontologia.entity.Tratamiento;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -47,4 +49,18 @@ public interface TratamientoRepository extends JpaRepository<Tratamiento, Long>
      */
     @Query("SELECT t FROM Tratamiento t WHERE t.paciente.id = :pacienteId AND LOWER(t.nombre) LIKE LOWER(CONCAT('%', :nombre, '%'))")
     List<Tratamiento> findByPacienteIdAndNombreContainingIgnoreCase(@Param("pacienteId") Long pacienteId, @Param("nombre") String nombre);
-} 
\ No newline at end of file
+
+    /**
+     * Borra en bloque los registros de un paciente (usado por PacienteService.eliminarPaciente)
+     */
+    @Modifying
+    @Query("DELETE FROM Tratamiento t WHERE t.paciente.id = :pacienteId")
+    int eliminarPorPacienteId(@Param("pacienteId") Long pacienteId);
+
+    /**
+     * Textos que indexa la búsqueda clínica, por lotes ordenados por id
+     */
+    @Query("SELECT t.id, t.pacienteId, t.fechaInicio, t.nombre, t.descripcion " +
+           "FROM Tratamiento t WHERE t.id > :despuesDeId ORDER BY t.id")
+    List<Object[]> findTextosBusqueda(@Param("despuesDeId") Long despuesDeId, Pageable pageable);
+}
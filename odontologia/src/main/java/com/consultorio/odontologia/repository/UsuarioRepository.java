@@ -1,10 +1,18 @@
 package com.consultorio.odontologia.repository;
 
 import com.consultorio.odontologia.entity.Usuario;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import java.util.Optional;
 
 public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
+    // Se consulta en cada login; el resultado queda en la caché de consultas
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "usuarios-por-email")
+    })
     Optional<Usuario> findByEmail(String email);
 }
@@ -0,0 +1,130 @@
+package com.consultorio.odontologia.service;
+
+import com.consultorio.odontologia.dto.CambioSitioDTO;
+import com.consultorio.odontologia.dto.ComparacionPeriodontogramaDTO;
+import com.consultorio.odontologia.dto.ResumenPeriodontogramaDTO;
+import com.consultorio.odontologia.entity.MedicionesPeriodontales;
+import com.consultorio.odontologia.repository.PeriodontogramaRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Indicadores periodontales calculados sobre las mediciones ya extraídas de cada periodontograma,
+ * sin volver a leer el JSON
+ */
+@Service
+@Transactional(readOnly = true)
+public class AnalisisPeriodontalService {
+
+    // Profundidad desde la que un sitio cuenta como bolsa, en mm
+    public static final int UMBRAL_BOLSA = 5;
+
+    // Cambio de inserción que se considera progresión o mejora, en mm
+    public static final int UMBRAL_CAMBIO = 2;
+
+    @Autowired
+    private PeriodontogramaRepository periodontogramaRepository;
+
+    /**
+     * Indicadores de cada periodontograma del paciente, de la fecha más vieja a la más nueva
+     */
+    public List<ResumenPeriodontogramaDTO> obtenerEvolucion(Long pacienteId) {
+        List<ResumenPeriodontogramaDTO> evolucion = new ArrayList<>();
+        for (Object[] fila : periodontogramaRepository.findMedicionesByPacienteId(pacienteId)) {
+            evolucion.add(resumir((Long) fila[0], (String) fila[1], (MedicionesPeriodontales) fila[2]));
+        }
+        return evolucion;
+    }
+
+    /**
+     * Compara dos periodontogramas del mismo paciente sitio por sitio, en una sola pasada
+     */
+    public ComparacionPeriodontogramaDTO comparar(Long antesId, Long despuesId) {
+        Object[] antes = cargar(antesId);
+        Object[] despues = cargar(despuesId);
+        if (!antes[0].equals(despues[0])) {
+            throw new IllegalArgumentException("Los periodontogramas son de pacientes distintos");
+        }
+        MedicionesPeriodontales medicionesAntes = (MedicionesPeriodontales) antes[2];
+        MedicionesPeriodontales medicionesDespues = (MedicionesPeriodontales) despues[2];
+
+        ComparacionPeriodontogramaDTO comparacion = new ComparacionPeriodontogramaDTO();
+        comparacion.setAntes(resumir(antesId, (String) antes[1], medicionesAntes));
+        comparacion.setDespues(resumir(despuesId, (String) despues[1], medicionesDespues));
+
+        for (int i = 0; i < MedicionesPeriodontales.SITIOS_SONDAJE; i++) {
+            if (!medicionesAntes.sitioMedido(i) || !medicionesDespues.sitioMedido(i)) {
+                continue;
+            }
+            comparacion.setSitiosComparados(comparacion.getSitiosComparados() + 1);
+            int profundidadAntes = medicionesAntes.profundidad(i);
+            int profundidadDespues = medicionesDespues.profundidad(i);
+            int insercionAntes = medicionesAntes.insercion(i);
+            int insercionDespues = medicionesDespues.insercion(i);
+            int perdida = insercionDespues - insercionAntes;
+            if (perdida >= UMBRAL_CAMBIO) {
+                comparacion.setSitiosEmpeorados(comparacion.getSitiosEmpeorados() + 1);
+            } else if (perdida <= -UMBRAL_CAMBIO) {
+                comparacion.setSitiosMejorados(comparacion.getSitiosMejorados() + 1);
+            }
+            if (Math.abs(perdida) >= UMBRAL_CAMBIO || Math.abs(profundidadDespues - profundidadAntes) >= UMBRAL_CAMBIO) {
+                comparacion.getCambios().add(new CambioSitioDTO(MedicionesPeriodontales.dienteDeSondaje(i),
+                        MedicionesPeriodontales.vistaDeSondaje(i).getClave(),
+                        MedicionesPeriodontales.sitioDeSondaje(i).getClave(MedicionesPeriodontales.vistaDeSondaje(i)),
+                        profundidadAntes, profundidadDespues, insercionAntes, insercionDespues));
+            }
+        }
+
+        for (int i = 0; i < MedicionesPeriodontales.SITIOS_SANGRADO; i++) {
+            int diente = MedicionesPeriodontales.DIENTES[i >>> 2];
+            if (medicionesAntes.estaAusente(diente) || medicionesDespues.estaAusente(diente)) {
+                continue;
+            }
+            boolean sangrabaAntes = medicionesAntes.sangrado(i) != MedicionesPeriodontales.SIN_SANGRADO;
+            boolean sangraDespues = medicionesDespues.sangrado(i) != MedicionesPeriodontales.SIN_SANGRADO;
+            if (sangraDespues && !sangrabaAntes) {
+                comparacion.setSangradoNuevo(comparacion.getSangradoNuevo() + 1);
+            } else if (sangrabaAntes && !sangraDespues) {
+                comparacion.setSangradoResuelto(comparacion.getSangradoResuelto() + 1);
+            }
+        }
+        return comparacion;
+    }
+
+    private Object[] cargar(Long id) {
+        List<Object[]> filas = periodontogramaRepository.findMedicionesById(id);
+        if (filas.isEmpty()) {
+            throw new RuntimeException("Periodontograma no encontrado con ID: " + id);
+        }
+        if (filas.get(0)[2] == null) {
+            throw new IllegalArgumentException("El periodontograma " + id + " no tiene mediciones para analizar");
+        }
+        return filas.get(0);
+    }
+
+    private static ResumenPeriodontogramaDTO resumir(Long id, String fechaRegistro, MedicionesPeriodontales mediciones) {
+        MedicionesPeriodontales.Indicadores indicadores = mediciones.calcularIndicadores(UMBRAL_BOLSA);
+        ResumenPeriodontogramaDTO resumen = new ResumenPeriodontogramaDTO();
+        resumen.setId(id);
+        resumen.setFechaRegistro(fechaRegistro);
+        resumen.setDientesPresentes(indicadores.dientesPresentes);
+        resumen.setSitiosMedidos(indicadores.sitiosMedidos);
+        if (indicadores.sitiosMedidos > 0) {
+            resumen.setProfundidadMedia(redondear((double) indicadores.sumaProfundidad / indicadores.sitiosMedidos));
+            resumen.setPorcentajeSitiosBolsa(redondear(indicadores.sitiosConBolsa * 100.0 / indicadores.sitiosMedidos));
+            resumen.setInsercionMedia(redondear((double) indicadores.sumaInsercion / indicadores.sitiosMedidos));
+        }
+        if (indicadores.sitiosSangrado > 0) {
+            resumen.setPorcentajeSangrado(redondear(indicadores.sitiosConSangrado * 100.0 / indicadores.sitiosSangrado));
+        }
+        return resumen;
+    }
+
+    private static double redondear(double valor) {
+        return Math.round(valor * 100) / 100.0;
+    }
+}
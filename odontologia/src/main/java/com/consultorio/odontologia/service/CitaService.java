@@ -1,6 +1,7 @@
 package com.consultorio.odontologia.service;
 
 import com.consultorio.odontologia.dto.CitaDTO;
+import com.consultorio.odontologia.dto.PaginaDTO;
 import com.consultorio.odontologia.entity.Cita;
 import com.consultorio.odontologia.entity.Paciente;
 import com.consultorio.odontologia.entity.Usuario;
@@ -8,17 +9,26 @@ import com.consultorio.odontologia.repository.CitaRepository;
 import com.consultorio.odontologia.repository.PacienteRepository;
 import com.consultorio.odontologia.repository.UsuarioRepository;
 import com.consultorio.odontologia.service.util.DTOConverter;
+import com.consultorio.odontologia.service.util.Paginacion;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
 public class CitaService {
-    
+
+    private static final int MAXIMO_DIAS_RANGO = 366;
+
     @Autowired
     private CitaRepository citaRepository;
 
@@ -28,6 +38,12 @@ public class CitaService {
     @Autowired
     private UsuarioRepository usuarioRepository;
 
+    @Autowired
+    private DisponibilidadService disponibilidadService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     public Cita crearCita(CitaDTO citaDTO) {
         Paciente paciente = pacienteRepository.findById(citaDTO.getPaciente().getId())
                 .orElseThrow(() -> new RuntimeException("Paciente no encontrado"));
@@ -42,7 +58,16 @@ public class CitaService {
         cita.setMotivo(citaDTO.getMotivo());
         cita.setUsuario(usuario);
 
-        return citaRepository.save(cita);
+        // Reserva el horario antes de guardar; si el guardado falla se libera
+        long reserva = disponibilidadService.reservar(usuario.getId(), cita.getFecha(), cita.getHora(), null);
+        try {
+            Cita citaGuardada = citaRepository.save(cita);
+            disponibilidadService.confirmar(reserva, citaGuardada.getId());
+            return citaGuardada;
+        } catch (RuntimeException e) {
+            disponibilidadService.liberar(reserva);
+            throw e;
+        }
     }
 
     public List<CitaDTO> obtenerTodasLasCitas() {
@@ -52,6 +77,27 @@ public class CitaService {
                 .collect(Collectors.toList());
     }
 
+    public List<CitaDTO> obtenerCitasPorRango(LocalDate desde, LocalDate hasta, Long usuarioId) {
+        if (desde == null || hasta == null || hasta.isBefore(desde)) {
+            throw new IllegalArgumentException("El rango de fechas no es válido");
+        }
+        if (ChronoUnit.DAYS.between(desde, hasta) > MAXIMO_DIAS_RANGO) {
+            throw new IllegalArgumentException("El rango no puede superar " + MAXIMO_DIAS_RANGO + " días");
+        }
+        return citaRepository.findAgendaPorRango(desde, hasta, usuarioId);
+    }
+
+    public PaginaDTO<CitaDTO> obtenerPaginaCitas(Long despuesDeId, Integer tamano) {
+        Slice<Cita> slice = citaRepository.findPaginaDespuesDe(Paginacion.cursorInicial(despuesDeId), Paginacion.primeraPagina(tamano));
+        return Paginacion.desdeSlice(slice, DTOConverter::convertirCitaADTO, Cita::getId);
+    }
+
+    @Transactional(readOnly = true)
+    public void exportarCitas(Consumer<CitaDTO> destino) {
+        Paginacion.recorrerEnLotes(citaRepository.streamTodasWithPaciente(), entityManager,
+                cita -> destino.accept(DTOConverter.convertirCitaADTO(cita)));
+    }
+
     public List<CitaDTO> obtenerCitasPorFecha(String fecha) {
         LocalDate fechaLocal = LocalDate.parse(fecha);
         List<Cita> citas = citaRepository.findByFechaWithPaciente(fechaLocal);
@@ -64,6 +110,7 @@ public class CitaService {
         Cita cita = citaRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Cita no encontrada con ID: " + id));
         citaRepository.delete(cita);
+        disponibilidadService.liberar(id);
     }
 
     public Cita actualizarCita(Long id, CitaDTO citaDTO) {
@@ -76,12 +123,34 @@ public class CitaService {
         Usuario usuario = usuarioRepository.findById(citaDTO.getUsuarioId())
                 .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
 
+        LocalDate fecha = LocalDate.parse(citaDTO.getFecha());
+        LocalTime hora = LocalTime.parse(citaDTO.getHora());
+
+        // El horario propio de la cita no cuenta como conflicto al moverla
+        long reserva = disponibilidadService.reservar(usuario.getId(), fecha, hora, id);
+
         cita.setPaciente(paciente);
-        cita.setFecha(LocalDate.parse(citaDTO.getFecha()));
-        cita.setHora(LocalTime.parse(citaDTO.getHora()));
+        cita.setFecha(fecha);
+        cita.setHora(hora);
         cita.setMotivo(citaDTO.getMotivo());
         cita.setUsuario(usuario);
 
-        return citaRepository.save(cita);
+        try {
+            Cita citaActualizada = citaRepository.save(cita);
+            disponibilidadService.liberar(id);
+            disponibilidadService.confirmar(reserva, id);
+            return citaActualizada;
+        } catch (RuntimeException e) {
+            disponibilidadService.liberar(reserva);
+            throw e;
+        }
+    }
+
+    public List<String> obtenerHorariosLibres(Long usuarioId, LocalDate fecha) {
+        return disponibilidadService.obtenerHorariosLibres(usuarioId, fecha);
+    }
+
+    public boolean estaDisponible(Long usuarioId, LocalDate fecha, LocalTime hora) {
+        return disponibilidadService.estaLibre(usuarioId, fecha, hora);
     }
 }
@@ -0,0 +1,179 @@
+package com.consultorio.odontologia.service;
+
+import com.consultorio.odontologia.dto.GastoAgregadoDTO;
+import com.consultorio.odontologia.entity.Gasto;
+import com.consultorio.odontologia.repository.GastoRepository;
+import com.consultorio.odontologia.service.util.CuboGastos;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Mantiene en memoria el cubo de gastos (categoría × proveedor × mes).
+ * Se carga al iniciar y GastoService le aplica cada alta, modificación y baja después del commit,
+ * así los reportes no recorren la tabla de gastos.
+ */
+@Service
+public class CuboGastosService {
+
+    private static final int TAMANO_LOTE_CARGA = 1000;
+
+    @Autowired
+    private GastoRepository gastoRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object reconstruccion = new Object();
+
+    // Protegidos por lock
+    private CuboGastos cubo;
+    private boolean reconstruyendo;
+    private final List<Consumer<CuboGastos>> cambiosDuranteReconstruccion = new ArrayList<>();
+    private long duracionUltimaReconstruccionMs;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void construirAlIniciar() {
+        reconstruir();
+    }
+
+    /**
+     * Recarga el cubo desde la base sin bloquear las consultas en curso.
+     * Los cambios que llegan mientras tanto se guardan y se aplican antes del reemplazo; como cada uno
+     * fija el estado de un gasto, no importa si la carga ya lo había leído.
+     */
+    public void reconstruir() {
+        synchronized (reconstruccion) {
+            long inicio = System.currentTimeMillis();
+            lock.writeLock().lock();
+            try {
+                reconstruyendo = true;
+                cambiosDuranteReconstruccion.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            CuboGastos nuevo = new CuboGastos();
+            long cursor = 0L;
+            List<Object[]> lote;
+            do {
+                lote = gastoRepository.findDatosCubo(cursor, PageRequest.of(0, TAMANO_LOTE_CARGA));
+                for (Object[] fila : lote) {
+                    BigDecimal total = ((BigDecimal) fila[4]).multiply(BigDecimal.valueOf((Integer) fila[5]));
+                    nuevo.actualizar((Long) fila[0], (String) fila[1], (String) fila[2],
+                            YearMonth.from((LocalDate) fila[3]), total);
+                }
+                if (!lote.isEmpty()) {
+                    cursor = (Long) lote.get(lote.size() - 1)[0];
+                }
+            } while (lote.size() == TAMANO_LOTE_CARGA);
+
+            lock.writeLock().lock();
+            try {
+                cambiosDuranteReconstruccion.forEach(cambio -> cambio.accept(nuevo));
+                cubo = nuevo;
+                reconstruyendo = false;
+                cambiosDuranteReconstruccion.clear();
+                duracionUltimaReconstruccionMs = System.currentTimeMillis() - inicio;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    // Alta o modificación; se llama después del commit con el estado guardado
+    public void registrar(Gasto gasto) {
+        long id = gasto.getId();
+        String categoria = gasto.getCategoria();
+        String proveedor = gasto.getProveedor();
+        YearMonth mes = YearMonth.from(gasto.getFechaGasto());
+        BigDecimal total = gasto.getTotal();
+        aplicar(cubo -> cubo.actualizar(id, categoria, proveedor, mes, total));
+    }
+
+    public void eliminar(Long id) {
+        aplicar(cubo -> cubo.eliminar(id));
+    }
+
+    /**
+     * Agrupa por las dimensiones pedidas (ninguna = total general) filtrando por categorías, proveedores
+     * y meses [desde, hasta]. Ordena por total descendente o, con porTotal en false, por dimensiones;
+     * limite acota la cantidad de filas (por ejemplo, los proveedores con más gasto).
+     */
+    public List<GastoAgregadoDTO> consultar(Set<CuboGastos.Dimension> agrupar, Set<String> categorias,
+                                            Set<String> proveedores, YearMonth desde, YearMonth hasta,
+                                            boolean porTotal, Integer limite) {
+        if (desde != null && hasta != null && hasta.isBefore(desde)) {
+            throw new IllegalArgumentException("El mes final no puede ser anterior al inicial");
+        }
+        if (limite != null && limite < 1) {
+            throw new IllegalArgumentException("El límite debe ser mayor que cero");
+        }
+        List<CuboGastos.Fila> filas;
+        lock.readLock().lock();
+        try {
+            if (cubo == null) {
+                throw new IllegalStateException("El cubo de gastos todavía no se construyó");
+            }
+            filas = cubo.consultar(agrupar, categorias, proveedores, desde, hasta);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        filas.sort(porTotal ? CuboGastos.POR_TOTAL : CuboGastos.POR_DIMENSIONES);
+        int cantidad = limite != null ? Math.min(limite, filas.size()) : filas.size();
+        List<GastoAgregadoDTO> resultado = new ArrayList<>(cantidad);
+        for (CuboGastos.Fila fila : filas.subList(0, cantidad)) {
+            BigDecimal anterior = fila.getTotalMesAnterior();
+            resultado.add(new GastoAgregadoDTO(fila.getCategoria(), fila.getProveedor(),
+                    fila.getMes() != null ? fila.getMes().toString() : null,
+                    fila.getTotal(), fila.getGastos(), anterior,
+                    anterior != null ? fila.getTotal().subtract(anterior) : null));
+        }
+        return resultado;
+    }
+
+    public Map<String, Object> obtenerEstadisticas() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> estadisticas = new LinkedHashMap<>();
+            estadisticas.put("disponible", cubo != null);
+            estadisticas.put("reconstruyendo", reconstruyendo);
+            if (cubo != null) {
+                estadisticas.put("gastos", cubo.getTotalGastos());
+                estadisticas.put("celdas", cubo.getTotalCeldas());
+                estadisticas.put("categorias", cubo.getTotalCategorias());
+                estadisticas.put("proveedores", cubo.getTotalProveedores());
+            }
+            estadisticas.put("duracionUltimaReconstruccionMs", duracionUltimaReconstruccionMs);
+            return estadisticas;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void aplicar(Consumer<CuboGastos> cambio) {
+        lock.writeLock().lock();
+        try {
+            if (reconstruyendo) {
+                cambiosDuranteReconstruccion.add(cambio);
+            }
+            if (cubo != null) {
+                cambio.accept(cubo);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -7,6 +7,8 @@ import com.consultorio.odontologia.entity.Usuario;
 import com.consultorio.odontologia.repository.DiagnosticoRepository;
 import com.consultorio.odontologia.repository.PacienteRepository;
 import com.consultorio.odontologia.repository.UsuarioRepository;
+import com.consultorio.odontologia.service.util.IndiceTextoClinico;
+import com.consultorio.odontologia.service.util.TransaccionUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -28,6 +30,12 @@ public class DiagnosticoService {
     @Autowired
     private UsuarioRepository usuarioRepository;
 
+    @Autowired
+    private IndiceClinicoService indiceClinicoService;
+
+    @Autowired
+    private ResumenDiagnosticosService resumenDiagnosticosService;
+
     // Crear nuevo diagnóstico
     public Diagnostico crearDiagnostico(DiagnosticoDTO diagnosticoDTO) {
         // Verificar que el paciente existe
@@ -62,6 +70,8 @@ public class DiagnosticoService {
         // Guardar y retornar
         Diagnostico diagnosticoGuardado = diagnosticoRepository.save(diagnostico);
         System.out.println("Fecha guardada en BD: " + diagnosticoGuardado.getFechaDiagnostico());
+        resumenDiagnosticosService.registrar(diagnosticoGuardado);
+        TransaccionUtil.despuesDelCommit(() -> indiceClinicoService.indexar(diagnosticoGuardado));
         return diagnosticoGuardado;
     }
 
@@ -93,6 +103,8 @@ public class DiagnosticoService {
         // Guardar y retornar
         Diagnostico diagnosticoActualizado = diagnosticoRepository.save(diagnosticoExistente);
         System.out.println("Fecha guardada después de actualización: " + diagnosticoActualizado.getFechaDiagnostico());
+        resumenDiagnosticosService.registrar(diagnosticoActualizado);
+        TransaccionUtil.despuesDelCommit(() -> indiceClinicoService.indexar(diagnosticoActualizado));
         return diagnosticoActualizado;
     }
 
@@ -119,6 +131,8 @@ public class DiagnosticoService {
             throw new RuntimeException("Diagnóstico no encontrado");
         }
         diagnosticoRepository.deleteById(id);
+        resumenDiagnosticosService.eliminar(id);
+        TransaccionUtil.despuesDelCommit(() -> indiceClinicoService.eliminar(IndiceTextoClinico.Tipo.DIAGNOSTICO, id));
     }
 
     // Buscar diagnósticos por contenido
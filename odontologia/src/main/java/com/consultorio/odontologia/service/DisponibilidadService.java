@@ -0,0 +1,324 @@
+package com.consultorio.odontologia.service;
+
+import com.consultorio.odontologia.repository.CitaRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Agenda en memoria por odontólogo (Usuario) y día, en bloques de 5 minutos.
+ * Cada día es un bitset de 288 bloques; reservar y liberar se sincronizan por día,
+ * lo que hace atómica la verificación de solapamiento frente a pedidos concurrentes.
+ * Los días se cargan desde la base la primera vez que se consultan. Los días pasados se descartan
+ * de memoria, salvo mientras algún pedido los esté usando o tengan una reserva provisoria.
+ */
+@Service
+public class DisponibilidadService {
+
+    public static final int MINUTOS_POR_BLOQUE = 5;
+    private static final int BLOQUES_POR_DIA = 24 * 60 / MINUTOS_POR_BLOQUE;
+
+    @Autowired
+    private CitaRepository citaRepository;
+
+    @Value("${agenda.duracion-cita-minutos:30}")
+    private int duracionCitaMinutos;
+
+    @Value("${agenda.hora-inicio:08:00}")
+    private String horaInicio;
+
+    @Value("${agenda.hora-fin:20:00}")
+    private String horaFin;
+
+    @Value("${agenda.ventana-dias:90}")
+    private int ventanaDias;
+
+    private final Map<ClaveDia, DiaAgenda> dias = new ConcurrentHashMap<>();
+
+    // Para liberar una cita sin conocer su día: id de cita -> día donde está reservada
+    private final Map<Long, ClaveDia> diaPorCita = new ConcurrentHashMap<>();
+
+    // Las reservas en curso (todavía sin id de cita) usan ids negativos
+    private final AtomicLong reservasPendientes = new AtomicLong();
+
+    private static final class ClaveDia {
+        private final Long usuarioId;
+        private final LocalDate fecha;
+
+        ClaveDia(Long usuarioId, LocalDate fecha) {
+            this.usuarioId = usuarioId;
+            this.fecha = fecha;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ClaveDia)) return false;
+            ClaveDia otra = (ClaveDia) o;
+            return Objects.equals(usuarioId, otra.usuarioId) && Objects.equals(fecha, otra.fecha);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(usuarioId, fecha);
+        }
+    }
+
+    private static final class DiaAgenda {
+        private final long[] ocupados = new long[(BLOQUES_POR_DIA + 63) / 64];
+        // id de cita -> bloque de inicio; permite recalcular el bitset al liberar
+        private final Map<Long, Integer> inicioPorCita = new HashMap<>();
+        private boolean cargado;
+        // Pedidos en curso y reservas provisorias sobre el día; solo se modifica dentro de dias.compute
+        private int usos;
+
+        boolean libre(int desde, int hasta) {
+            for (int bloque = desde; bloque < hasta; bloque++) {
+                if ((ocupados[bloque >>> 6] & (1L << bloque)) != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void marcar(int desde, int hasta) {
+            for (int bloque = desde; bloque < hasta; bloque++) {
+                ocupados[bloque >>> 6] |= 1L << bloque;
+            }
+        }
+    }
+
+    /**
+     * Carga por adelantado los días de la ventana con una sola consulta
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void precargarVentana() {
+        LocalDate hoy = LocalDate.now();
+        List<Object[]> filas = citaRepository.findHorariosEntreFechas(hoy, hoy.plusDays(ventanaDias));
+        Map<ClaveDia, List<Object[]>> porDia = new HashMap<>();
+        for (Object[] fila : filas) {
+            porDia.computeIfAbsent(new ClaveDia((Long) fila[1], (LocalDate) fila[2]), k -> new ArrayList<>()).add(fila);
+        }
+        porDia.forEach((clave, citasDelDia) -> {
+            DiaAgenda dia = dias.computeIfAbsent(clave, k -> new DiaAgenda());
+            synchronized (dia) {
+                if (!dia.cargado) {
+                    citasDelDia.forEach(fila -> agregar(dia, clave, (Long) fila[0], (LocalTime) fila[3]));
+                    dia.cargado = true;
+                }
+            }
+        });
+    }
+
+    /**
+     * Reserva el horario si está libre; devuelve un id de reserva provisorio
+     * que luego se confirma con el id de la cita o se libera si falla el guardado
+     */
+    public long reservar(Long usuarioId, LocalDate fecha, LocalTime hora, Long ignorarCitaId) {
+        ClaveDia clave = new ClaveDia(usuarioId, fecha);
+        DiaAgenda dia = tomarDia(clave);
+        int desde = bloqueInicio(hora);
+        int hasta = bloqueFin(hora);
+        synchronized (dia) {
+            if (!libreIgnorando(dia, desde, hasta, ignorarCitaId)) {
+                soltarDia(clave);
+                throw new IllegalStateException("El horario " + fecha + " " + hora + " ya está ocupado");
+            }
+            // El día queda tomado hasta confirmar o liberar la reserva, así no se descarta antes de guardar la cita
+            long reserva = -reservasPendientes.incrementAndGet();
+            dia.inicioPorCita.put(reserva, desde);
+            dia.marcar(desde, hasta);
+            diaPorCita.put(reserva, clave);
+            return reserva;
+        }
+    }
+
+    /**
+     * Reemplaza la reserva provisoria por el id definitivo de la cita
+     */
+    public void confirmar(long reserva, Long citaId) {
+        ClaveDia clave = diaPorCita.remove(reserva);
+        if (clave == null) {
+            return;
+        }
+        DiaAgenda dia = dias.get(clave);
+        if (dia == null) {
+            return;
+        }
+        synchronized (dia) {
+            Integer desde = dia.inicioPorCita.remove(reserva);
+            if (desde != null) {
+                dia.inicioPorCita.put(citaId, desde);
+                diaPorCita.put(citaId, clave);
+            }
+        }
+        soltarDia(clave);
+    }
+
+    /**
+     * Libera el horario de una cita (o de una reserva provisoria)
+     */
+    public void liberar(Long citaId) {
+        ClaveDia clave = diaPorCita.remove(citaId);
+        if (clave == null) {
+            return;
+        }
+        DiaAgenda dia = dias.get(clave);
+        if (dia == null) {
+            return;
+        }
+        synchronized (dia) {
+            if (dia.inicioPorCita.remove(citaId) != null) {
+                recalcular(dia);
+            }
+        }
+        if (citaId < 0) {
+            soltarDia(clave);
+        }
+    }
+
+    public boolean estaLibre(Long usuarioId, LocalDate fecha, LocalTime hora) {
+        ClaveDia clave = new ClaveDia(usuarioId, fecha);
+        DiaAgenda dia = tomarDia(clave);
+        try {
+            synchronized (dia) {
+                return dia.libre(bloqueInicio(hora), bloqueFin(hora));
+            }
+        } finally {
+            soltarDia(clave);
+        }
+    }
+
+    /**
+     * Horarios de inicio donde entra una cita completa dentro del horario de atención
+     */
+    public List<String> obtenerHorariosLibres(Long usuarioId, LocalDate fecha) {
+        ClaveDia clave = new ClaveDia(usuarioId, fecha);
+        DiaAgenda dia = tomarDia(clave);
+        int primerBloque = bloqueInicio(LocalTime.parse(horaInicio));
+        int ultimoBloque = bloqueInicio(LocalTime.parse(horaFin));
+        int bloquesPorCita = bloquesPorCita();
+        List<String> libres = new ArrayList<>();
+        try {
+            synchronized (dia) {
+                for (int bloque = primerBloque; bloque + bloquesPorCita <= ultimoBloque; bloque += bloquesPorCita) {
+                    if (dia.libre(bloque, bloque + bloquesPorCita)) {
+                        libres.add(LocalTime.of(0, 0).plusMinutes((long) bloque * MINUTOS_POR_BLOQUE).toString());
+                    }
+                }
+            }
+        } finally {
+            soltarDia(clave);
+        }
+        return libres;
+    }
+
+    /**
+     * Devuelve el día cargado y lo marca en uso; mientras tenga usos no se descarta, así dos pedidos
+     * concurrentes sobre el mismo día (aunque sea pasado) se sincronizan sobre el mismo objeto.
+     * Cada llamada se corresponde con un soltarDia.
+     */
+    private DiaAgenda tomarDia(ClaveDia clave) {
+        if (clave.usuarioId == null || clave.fecha == null) {
+            throw new IllegalArgumentException("Usuario y fecha son obligatorios");
+        }
+        DiaAgenda dia = dias.compute(clave, (k, actual) -> {
+            DiaAgenda d = actual != null ? actual : new DiaAgenda();
+            d.usos++;
+            return d;
+        });
+        boolean cargadoAhora = false;
+        try {
+            synchronized (dia) {
+                if (!dia.cargado) {
+                    for (Object[] fila : citaRepository.findHorariosPorUsuarioYFecha(clave.usuarioId, clave.fecha)) {
+                        agregar(dia, clave, (Long) fila[0], (LocalTime) fila[1]);
+                    }
+                    dia.cargado = true;
+                    cargadoAhora = true;
+                }
+            }
+        } catch (RuntimeException e) {
+            soltarDia(clave);
+            throw e;
+        }
+        if (cargadoAhora) {
+            descartarDiasPasados();
+        }
+        return dia;
+    }
+
+    private void soltarDia(ClaveDia clave) {
+        dias.computeIfPresent(clave, (k, dia) -> {
+            dia.usos--;
+            return dia;
+        });
+    }
+
+    // Los días anteriores a ayer ya no se reservan; se quitan los que nadie está usando para que la memoria quede acotada
+    private void descartarDiasPasados() {
+        LocalDate limite = LocalDate.now().minusDays(1);
+        for (ClaveDia clave : dias.keySet()) {
+            if (clave.fecha.isBefore(limite)) {
+                dias.computeIfPresent(clave, (k, dia) -> dia.usos > 0 ? dia : null);
+            }
+        }
+        diaPorCita.values().removeIf(clave -> clave.fecha.isBefore(limite) && !dias.containsKey(clave));
+    }
+
+    private void agregar(DiaAgenda dia, ClaveDia clave, Long citaId, LocalTime hora) {
+        int desde = bloqueInicio(hora);
+        dia.inicioPorCita.put(citaId, desde);
+        dia.marcar(desde, Math.min(desde + bloquesPorCita(), BLOQUES_POR_DIA));
+        diaPorCita.put(citaId, clave);
+    }
+
+    private boolean libreIgnorando(DiaAgenda dia, int desde, int hasta, Long ignorarCitaId) {
+        if (ignorarCitaId == null || !dia.inicioPorCita.containsKey(ignorarCitaId)) {
+            return dia.libre(desde, hasta);
+        }
+        // Al mover una cita dentro del mismo día su propio horario no cuenta como conflicto
+        for (Map.Entry<Long, Integer> cita : dia.inicioPorCita.entrySet()) {
+            if (cita.getKey().equals(ignorarCitaId)) {
+                continue;
+            }
+            int inicio = cita.getValue();
+            if (inicio < hasta && desde < inicio + bloquesPorCita()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void recalcular(DiaAgenda dia) {
+        Arrays.fill(dia.ocupados, 0L);
+        for (int desde : dia.inicioPorCita.values()) {
+            dia.marcar(desde, Math.min(desde + bloquesPorCita(), BLOQUES_POR_DIA));
+        }
+    }
+
+    private int bloquesPorCita() {
+        return (duracionCitaMinutos + MINUTOS_POR_BLOQUE - 1) / MINUTOS_POR_BLOQUE;
+    }
+
+    private int bloqueInicio(LocalTime hora) {
+        return (hora.getHour() * 60 + hora.getMinute()) / MINUTOS_POR_BLOQUE;
+    }
+
+    private int bloqueFin(LocalTime hora) {
+        return Math.min(bloqueInicio(hora) + bloquesPorCita(), BLOQUES_POR_DIA);
+    }
+}
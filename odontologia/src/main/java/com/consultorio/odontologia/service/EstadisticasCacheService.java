@@ -0,0 +1,88 @@
+package com.consultorio.odontologia.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Aciertos y fallos de la caché de segundo nivel y de la caché de consultas de Hibernate
+ * (requiere hibernate.estadisticas.habilitadas=true), más las cachés propias de la aplicación
+ */
+@Service
+public class EstadisticasCacheService {
+
+    // Regiones declaradas en hibernate-cache.conf
+    private static final String[] REGIONES = {
+        "usuarios", "pacientes", "usuarios-por-email", "default-query-results-region"
+    };
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PeriodonciaService periodonciaService;
+
+    @Autowired
+    private CuboGastosService cuboGastosService;
+
+    public Map<String, Object> obtenerEstadisticas() {
+        Statistics estadisticas = estadisticas();
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("habilitadas", estadisticas.isStatisticsEnabled());
+        resultado.put("segundoNivel", contadores(
+                estadisticas.getSecondLevelCacheHitCount(),
+                estadisticas.getSecondLevelCacheMissCount(),
+                estadisticas.getSecondLevelCachePutCount()));
+        resultado.put("consultas", contadores(
+                estadisticas.getQueryCacheHitCount(),
+                estadisticas.getQueryCacheMissCount(),
+                estadisticas.getQueryCachePutCount()));
+
+        Map<String, Object> regiones = new LinkedHashMap<>();
+        for (String region : REGIONES) {
+            CacheRegionStatistics regionEstadisticas = estadisticas.getCacheRegionStatistics(region);
+            if (regionEstadisticas == null) {
+                continue;
+            }
+            Map<String, Object> datos = contadores(
+                    regionEstadisticas.getHitCount(),
+                    regionEstadisticas.getMissCount(),
+                    regionEstadisticas.getPutCount());
+            // JCache no expone el tamaño de la región; Hibernate devuelve un valor negativo
+            if (regionEstadisticas.getElementCountInMemory() >= 0) {
+                datos.put("elementosEnMemoria", regionEstadisticas.getElementCountInMemory());
+            }
+            regiones.put(region, datos);
+        }
+        resultado.put("regiones", regiones);
+        resultado.put("indicesPeriodoncia", periodonciaService.obtenerEstadisticasCache());
+        resultado.put("cuboGastos", cuboGastosService.obtenerEstadisticas());
+        resultado.put("desde", estadisticas.getStartTime());
+        return resultado;
+    }
+
+    public void reiniciarEstadisticas() {
+        estadisticas().clear();
+        periodonciaService.reiniciarEstadisticasCache();
+    }
+
+    private Statistics estadisticas() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private Map<String, Object> contadores(long aciertos, long fallos, long insertados) {
+        Map<String, Object> datos = new LinkedHashMap<>();
+        datos.put("aciertos", aciertos);
+        datos.put("fallos", fallos);
+        datos.put("insertados", insertados);
+        long total = aciertos + fallos;
+        datos.put("tasaAciertos", total > 0 ? (double) aciertos / total : 0.0);
+        return datos;
+    }
+}
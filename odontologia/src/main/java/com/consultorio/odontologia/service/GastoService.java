@@ -1,15 +1,29 @@
 package com.consultorio.odontologia.service;
 
+import com.consultorio.odontologia.dto.GastoAgregadoDTO;
 import com.consultorio.odontologia.dto.GastoDTO;
+import com.consultorio.odontologia.dto.PaginaDTO;
 import com.consultorio.odontologia.entity.Gasto;
 import com.consultorio.odontologia.repository.GastoRepository;
+import com.consultorio.odontologia.service.util.CuboGastos;
 import com.consultorio.odontologia.service.util.DTOConverter;
+import com.consultorio.odontologia.service.util.Paginacion;
+import com.consultorio.odontologia.service.util.TransaccionUtil;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -18,6 +32,24 @@ public class GastoService {
     @Autowired
     private GastoRepository gastoRepository;
 
+    @Autowired
+    private CuboGastosService cuboGastosService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Deja el generador de ids por encima de los gastos existentes (antes se usaba AUTO_INCREMENT).
+     * El margen cubre un bloque completo, así el primer id del próximo bloque nunca repite uno viejo.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void alinearGeneradorIds() {
+        long margen = Gasto.IDS_POR_BLOQUE + 1L;
+        if (gastoRepository.crearGeneradorIds(margen) == 0) {
+            gastoRepository.alinearGeneradorIds(margen);
+        }
+    }
+
     // Crear nuevo gasto
     public GastoDTO crearGasto(GastoDTO gastoDTO) {
         Gasto gasto = new Gasto(
@@ -31,6 +63,7 @@ public class GastoService {
         );
         
         Gasto gastoGuardado = gastoRepository.save(gasto);
+        TransaccionUtil.despuesDelCommit(() -> cuboGastosService.registrar(gastoGuardado));
         return DTOConverter.convertirGastoADTO(gastoGuardado);
     }
 
@@ -41,6 +74,19 @@ public class GastoService {
             .collect(Collectors.toList());
     }
 
+    // Obtener gastos paginados por cursor
+    public PaginaDTO<GastoDTO> obtenerPaginaGastos(Long despuesDeId, Integer tamano) {
+        Slice<Gasto> slice = gastoRepository.findPaginaDespuesDe(Paginacion.cursorInicial(despuesDeId), Paginacion.primeraPagina(tamano));
+        return Paginacion.desdeSlice(slice, DTOConverter::convertirGastoADTO, Gasto::getId);
+    }
+
+    // Exportar todos los gastos en streaming
+    @Transactional(readOnly = true)
+    public void exportarGastos(Consumer<GastoDTO> destino) {
+        Paginacion.recorrerEnLotes(gastoRepository.streamTodos(), entityManager,
+            gasto -> destino.accept(DTOConverter.convertirGastoADTO(gasto)));
+    }
+
     // Obtener gastos por rango de fechas
     public List<GastoDTO> obtenerGastosPorFecha(LocalDate fechaInicio, LocalDate fechaFin) {
         return gastoRepository.findByFechaGastoBetweenOrderByFechaGastoDesc(fechaInicio, fechaFin)
@@ -62,6 +108,21 @@ public class GastoService {
         return gastoRepository.calcularTotalGastosPorFecha(fechaInicio, fechaFin);
     }
 
+    // Totales del cubo de gastos agrupados por categoría, proveedor y/o mes
+    public List<GastoAgregadoDTO> consultarCubo(List<String> agrupar, Set<String> categorias, Set<String> proveedores,
+                                                YearMonth desde, YearMonth hasta, String orden, Integer limite) {
+        boolean porTotal;
+        if (orden == null || orden.equalsIgnoreCase("total")) {
+            porTotal = true;
+        } else if (orden.equalsIgnoreCase("dimensiones")) {
+            porTotal = false;
+        } else {
+            throw new IllegalArgumentException("Orden desconocido: " + orden + " (total o dimensiones)");
+        }
+        return cuboGastosService.consultar(CuboGastos.dimensiones(agrupar), categorias, proveedores,
+                desde, hasta, porTotal, limite);
+    }
+
     // Calcular total de gastos por categoría en un rango de fechas
     public BigDecimal calcularTotalGastosPorCategoriaYFecha(String categoria, LocalDate fechaInicio, LocalDate fechaFin) {
         return gastoRepository.calcularTotalGastosPorCategoriaYFecha(categoria, fechaInicio, fechaFin);
@@ -94,12 +155,14 @@ public class GastoService {
         gasto.setObservaciones(gastoDTO.getObservaciones());
 
         Gasto gastoActualizado = gastoRepository.save(gasto);
+        TransaccionUtil.despuesDelCommit(() -> cuboGastosService.registrar(gastoActualizado));
         return DTOConverter.convertirGastoADTO(gastoActualizado);
     }
 
     // Eliminar un gasto
     public void eliminarGasto(Long id) {
         gastoRepository.deleteById(id);
+        TransaccionUtil.despuesDelCommit(() -> cuboGastosService.eliminar(id));
     }
 
     // Obtener un gasto por ID
@@ -0,0 +1,145 @@
+package com.consultorio.odontologia.service;
+
+import com.consultorio.odontologia.dto.CambioCampoDTO;
+import com.consultorio.odontologia.dto.HistoriaClinicaDTO;
+import com.consultorio.odontologia.dto.VersionHistoriaClinicaDTO;
+import com.consultorio.odontologia.entity.HistoriaClinica;
+import com.consultorio.odontologia.entity.HistoriaClinicaVersion;
+import com.consultorio.odontologia.repository.HistoriaClinicaRepository;
+import com.consultorio.odontologia.repository.HistoriaClinicaVersionRepository;
+import com.consultorio.odontologia.service.util.DiferenciaHistoriaClinica;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Historial de actualizaciones de cada historia clínica.
+ * Cada actualización guarda solo los campos que cambiaron con su valor anterior, comprimidos (ver
+ * DiferenciaHistoriaClinica); la máscara de campos cambiados permite armar la línea de tiempo de un campo
+ * leyendo solo las versiones que lo tocaron.
+ */
+@Service
+@Transactional
+public class HistoriaClinicaHistorialService {
+
+    @Autowired
+    private HistoriaClinicaVersionRepository versionRepository;
+
+    @Autowired
+    private HistoriaClinicaRepository historiaClinicaRepository;
+
+    /**
+     * Registra una actualización si algún campo cambió; anteriores y nuevos salen de DiferenciaHistoriaClinica.leer
+     */
+    public Optional<HistoriaClinicaVersion> registrar(Long historiaId, Object[] anteriores, Object[] nuevos, LocalDateTime fecha) {
+        long mascara = DiferenciaHistoriaClinica.camposCambiados(anteriores, nuevos);
+        if (mascara == 0L) {
+            return Optional.empty();
+        }
+        // La restricción única (historia, numero) rechaza a la segunda de dos actualizaciones simultáneas
+        int numero = versionRepository.findUltimoNumero(historiaId) + 1;
+        byte[] datos = DiferenciaHistoriaClinica.codificar(anteriores, mascara);
+        return Optional.of(versionRepository.save(new HistoriaClinicaVersion(historiaId, numero, fecha, mascara, datos)));
+    }
+
+    public void eliminar(Long historiaId) {
+        versionRepository.eliminarPorHistoriaClinicaId(historiaId);
+    }
+
+    @Transactional(readOnly = true)
+    public List<VersionHistoriaClinicaDTO> obtenerVersiones(Long historiaId) {
+        List<VersionHistoriaClinicaDTO> versiones = new ArrayList<>();
+        for (Object[] fila : versionRepository.findResumenes(historiaId)) {
+            versiones.add(new VersionHistoriaClinicaDTO((Integer) fila[0], (LocalDateTime) fila[1],
+                    DiferenciaHistoriaClinica.nombres((Long) fila[2])));
+        }
+        return versiones;
+    }
+
+    /**
+     * La historia clínica como quedó después de la actualización numero (0 es como se creó):
+     * se parte del estado vigente y se deshacen, de la más reciente hacia atrás, las actualizaciones posteriores
+     */
+    @Transactional(readOnly = true)
+    public Optional<HistoriaClinicaDTO> obtenerVersion(Long historiaId, int numero) {
+        if (numero < 0) {
+            throw new IllegalArgumentException("El número de versión no puede ser negativo");
+        }
+        Optional<HistoriaClinica> vigente = historiaClinicaRepository.findCompletaById(historiaId);
+        if (vigente.isEmpty()) {
+            return Optional.empty();
+        }
+        HistoriaClinica historia = vigente.get();
+        int ultima = versionRepository.findUltimoNumero(historiaId);
+        if (numero > ultima) {
+            throw new IllegalArgumentException("La historia clínica tiene " + ultima + " actualizaciones; no existe la versión " + numero);
+        }
+
+        Object[] valores = DiferenciaHistoriaClinica.leer(historia);
+        LocalDateTime fecha = historia.getFechaCreacion();
+        for (HistoriaClinicaVersion version : versionRepository.findByHistoriaClinicaIdAndNumeroGreaterThanOrderByNumeroDesc(historiaId, numero - 1)) {
+            if (version.getNumero() == numero) {
+                fecha = version.getFecha();
+                break;
+            }
+            DiferenciaHistoriaClinica.decodificar(version.getDatos()).forEach((posicion, valor) -> valores[posicion] = valor);
+        }
+
+        // Copia sin persistir, solo para armar el DTO con el encabezado vigente y los valores de la versión
+        HistoriaClinica copia = new HistoriaClinica();
+        copia.setId(historia.getId());
+        copia.setPaciente(historia.getPaciente());
+        copia.setUsuario(historia.getUsuario());
+        copia.setFechaCreacion(historia.getFechaCreacion());
+        copia.setFechaActualizacion(fecha);
+        DiferenciaHistoriaClinica.escribir(copia, valores);
+        return Optional.of(new HistoriaClinicaDTO(copia));
+    }
+
+    /**
+     * Valores que tomó un campo: el de la creación (versión 0) y uno por cada actualización que lo cambió.
+     * Solo se descomprimen las versiones cuyo bit del campo está en la máscara.
+     */
+    @Transactional(readOnly = true)
+    public Optional<List<CambioCampoDTO>> obtenerHistorialCampo(Long historiaId, String campo) {
+        int posicion = DiferenciaHistoriaClinica.posicion(campo);
+        Optional<HistoriaClinica> vigente = historiaClinicaRepository.findCompletaById(historiaId);
+        if (vigente.isEmpty()) {
+            return Optional.empty();
+        }
+        HistoriaClinica historia = vigente.get();
+
+        List<Integer> numeros = new ArrayList<>();
+        List<LocalDateTime> fechas = new ArrayList<>();
+        for (Object[] fila : versionRepository.findResumenes(historiaId)) {
+            if (((Long) fila[2] & (1L << posicion)) != 0) {
+                numeros.add((Integer) fila[0]);
+                fechas.add((LocalDateTime) fila[1]);
+            }
+        }
+
+        // Cada versión guarda el valor anterior: el valor nuevo es el anterior de la siguiente, o el vigente
+        Object actual = DiferenciaHistoriaClinica.leer(historia)[posicion];
+        List<Object> anteriores = new ArrayList<>();
+        if (!numeros.isEmpty()) {
+            for (HistoriaClinicaVersion version : versionRepository.findByHistoriaClinicaIdAndNumeroInOrderByNumero(historiaId, numeros)) {
+                Map<Integer, Object> valores = DiferenciaHistoriaClinica.decodificar(version.getDatos());
+                anteriores.add(valores.get(posicion));
+            }
+        }
+
+        List<CambioCampoDTO> historial = new ArrayList<>();
+        historial.add(new CambioCampoDTO(0, historia.getFechaCreacion(), anteriores.isEmpty() ? actual : anteriores.get(0)));
+        for (int i = 0; i < numeros.size(); i++) {
+            Object nuevo = i + 1 < anteriores.size() ? anteriores.get(i + 1) : actual;
+            historial.add(new CambioCampoDTO(numeros.get(i), fechas.get(i), nuevo));
+        }
+        return Optional.of(historial);
+    }
+}
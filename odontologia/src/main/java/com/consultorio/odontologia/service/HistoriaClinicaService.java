@@ -1,12 +1,22 @@
 package com.consultorio.odontologia.service;
 
+import com.consultorio.odontologia.dto.HistoriaClinicaDTO;
+import com.consultorio.odontologia.dto.PaginaDTO;
 import com.consultorio.odontologia.entity.HistoriaClinica;
 import com.consultorio.odontologia.entity.Paciente;
 import com.consultorio.odontologia.entity.Usuario;
 import com.consultorio.odontologia.repository.HistoriaClinicaRepository;
 import com.consultorio.odontologia.repository.PacienteRepository;
 import com.consultorio.odontologia.repository.UsuarioRepository;
+import com.consultorio.odontologia.service.util.DiferenciaHistoriaClinica;
+import com.consultorio.odontologia.service.util.Paginacion;
+import com.consultorio.odontologia.service.util.IndiceTextoClinico;
+import com.consultorio.odontologia.service.util.TransaccionUtil;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -14,6 +24,8 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -28,34 +40,75 @@ public class HistoriaClinicaService {
     @Autowired
     private UsuarioRepository usuarioRepository;
 
+    @Autowired
+    private IndiceClinicoService indiceClinicoService;
+
+    @Autowired
+    private HistoriaClinicaHistorialService historialService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     // Obtener todas las historias clínicas
     public List<HistoriaClinica> obtenerTodas() {
-        return historiaClinicaRepository.findAll();
+        return historiaClinicaRepository.findTodasCompletas();
+    }
+
+    // Obtener historias clínicas paginadas por cursor
+    @Transactional(readOnly = true)
+    public PaginaDTO<HistoriaClinicaDTO> obtenerPagina(Long despuesDeId, Integer tamano) {
+        Slice<HistoriaClinica> slice = historiaClinicaRepository.findPaginaDespuesDe(Paginacion.cursorInicial(despuesDeId), Paginacion.primeraPagina(tamano));
+        return Paginacion.desdeSlice(slice, HistoriaClinicaDTO::new, HistoriaClinica::getId);
     }
 
-    // Obtener historia clínica por ID
+    // Exportar todas las historias clínicas en streaming
+    @Transactional(readOnly = true)
+    public void exportar(Consumer<HistoriaClinicaDTO> destino) {
+        Paginacion.recorrerEnLotes(historiaClinicaRepository.streamTodas(), entityManager,
+            historia -> destino.accept(new HistoriaClinicaDTO(historia)));
+    }
+
+    // Obtener historia clínica por ID (completa, se puede convertir a DTO fuera de la transacción)
     public Optional<HistoriaClinica> obtenerPorId(Long id) {
-        return historiaClinicaRepository.findById(id);
+        return historiaClinicaRepository.findCompletaById(id);
     }
 
     // Obtener todas las historias clínicas de un paciente
     public List<HistoriaClinica> obtenerPorPaciente(Long pacienteId) {
-        return historiaClinicaRepository.findByPacienteIdOrderByFechaCreacionDesc(pacienteId);
+        return historiaClinicaRepository.findCompletasByPacienteId(pacienteId);
     }
 
-    // Obtener la historia clínica más reciente de un paciente
+    // Obtener la historia clínica más reciente de un paciente: se busca el id sobre el encabezado y se carga completa
     public Optional<HistoriaClinica> obtenerMasReciente(Long pacienteId) {
-        return historiaClinicaRepository.findFirstByPacienteIdOrderByFechaCreacionDesc(pacienteId);
+        return historiaClinicaRepository.findIdsRecientesByPacienteId(pacienteId, PageRequest.of(0, 1)).stream()
+                .findFirst()
+                .flatMap(historiaClinicaRepository::findCompletaById);
     }
 
-    // Obtener historia clínica por paciente y fecha
+    // Obtener historia clínica por paciente y fecha (la más reciente del día)
     public Optional<HistoriaClinica> obtenerPorPacienteYFecha(Long pacienteId, LocalDate fecha) {
-        return historiaClinicaRepository.findByPacienteIdAndFecha(pacienteId, fecha);
+        return historiaClinicaRepository.findIdByPacienteIdAndDia(pacienteId, fecha.atStartOfDay(), fecha.plusDays(1).atStartOfDay())
+                .flatMap(historiaClinicaRepository::findCompletaById);
     }
 
     // Obtener la historia clínica más reciente de un paciente por fecha
     public Optional<HistoriaClinica> obtenerMasRecientePorPacienteYFecha(Long pacienteId, LocalDate fecha) {
-        return historiaClinicaRepository.findMostRecentByPacienteIdAndFecha(pacienteId, fecha);
+        return obtenerPorPacienteYFecha(pacienteId, fecha);
+    }
+
+    // Obtener los encabezados de las historias clínicas de un paciente, sin las secciones
+    @Transactional(readOnly = true)
+    public List<HistoriaClinicaDTO> obtenerEncabezados(Long pacienteId) {
+        return historiaClinicaRepository.findEncabezadosByPacienteId(pacienteId).stream()
+                .map(HistoriaClinicaDTO::soloEncabezado)
+                .collect(Collectors.toList());
+    }
+
+    // Obtener una sección (habitos, antecedentes o examen) de una historia clínica
+    @Transactional(readOnly = true)
+    public Optional<HistoriaClinicaDTO> obtenerSeccion(Long id, String seccion) {
+        return historiaClinicaRepository.findEncabezadoById(id)
+                .map(historia -> HistoriaClinicaDTO.conSeccion(historia, seccion));
     }
 
     // Obtener fechas disponibles para un paciente
@@ -65,7 +118,7 @@ public class HistoriaClinicaService {
 
     // Verificar si existe historia clínica para paciente y fecha
     public boolean existeHistoriaClinica(Long pacienteId, LocalDate fecha) {
-        return historiaClinicaRepository.existsByPacienteIdAndFecha(pacienteId, fecha);
+        return historiaClinicaRepository.existsByPacienteIdAndDia(pacienteId, fecha.atStartOfDay(), fecha.plusDays(1).atStartOfDay());
     }
 
     // Contar historias clínicas por paciente
@@ -97,17 +150,20 @@ public class HistoriaClinicaService {
         historiaClinica.setFechaCreacion(LocalDateTime.now());
         historiaClinica.setFechaActualizacion(LocalDateTime.now());
 
-        return historiaClinicaRepository.save(historiaClinica);
+        HistoriaClinica guardada = historiaClinicaRepository.save(historiaClinica);
+        TransaccionUtil.despuesDelCommit(() -> indiceClinicoService.indexar(guardada));
+        return guardada;
     }
 
-    // Actualizar historia clínica existente
+    // Actualizar historia clínica existente; los valores que cambian quedan en el historial de versiones
     public HistoriaClinica actualizar(Long id, HistoriaClinica historiaClinica) {
-        Optional<HistoriaClinica> existente = historiaClinicaRepository.findById(id);
+        Optional<HistoriaClinica> existente = historiaClinicaRepository.findCompletaById(id);
         if (existente.isEmpty()) {
             throw new IllegalArgumentException("Historia clínica no encontrada");
         }
 
         HistoriaClinica actualizada = existente.get();
+        Object[] anteriores = DiferenciaHistoriaClinica.leer(actualizada);
         
         // Actualizar campos
         actualizada.setMotivoConsulta(historiaClinica.getMotivoConsulta());
@@ -140,9 +196,13 @@ public class HistoriaClinicaService {
         actualizada.setContinenteDetalles(historiaClinica.getContinenteDetalles());
         
         // Actualizar timestamp
-        actualizada.setFechaActualizacion(LocalDateTime.now());
+        LocalDateTime ahora = LocalDateTime.now();
+        actualizada.setFechaActualizacion(ahora);
+        historialService.registrar(id, anteriores, DiferenciaHistoriaClinica.leer(actualizada), ahora);
 
-        return historiaClinicaRepository.save(actualizada);
+        HistoriaClinica guardada = historiaClinicaRepository.save(actualizada);
+        TransaccionUtil.despuesDelCommit(() -> indiceClinicoService.indexar(guardada));
+        return guardada;
     }
 
     // Eliminar historia clínica
@@ -150,7 +210,9 @@ public class HistoriaClinicaService {
         if (!historiaClinicaRepository.existsById(id)) {
             throw new IllegalArgumentException("Historia clínica no encontrada");
         }
+        historialService.eliminar(id);
         historiaClinicaRepository.deleteById(id);
+        TransaccionUtil.despuesDelCommit(() -> indiceClinicoService.eliminar(IndiceTextoClinico.Tipo.HISTORIA_CLINICA, id));
     }
 
     // Crear o actualizar historia clínica
@@ -0,0 +1,227 @@
+package com.consultorio.odontologia.service;
+
+import com.consultorio.odontologia.dto.ResultadoImportacionDTO;
+import com.consultorio.odontologia.entity.Gasto;
+import com.consultorio.odontologia.service.util.LectorCsv;
+import com.consultorio.odontologia.service.util.TextoNormalizador;
+import com.consultorio.odontologia.service.util.TransaccionUtil;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Importación masiva de gastos desde CSV (por ejemplo, facturas de proveedores exportadas desde Excel).
+ * Lee el archivo registro por registro, valida cada fila y guarda las válidas en lotes JDBC,
+ * vaciando el contexto de persistencia después de cada lote para que la memoria no crezca con el archivo.
+ */
+@Service
+public class ImportacionGastosService {
+
+    public static final int MAX_ERRORES = 1000;
+
+    private static final int LARGO_MAXIMO_TEXTO = 255;
+    private static final BigDecimal PRECIO_MAXIMO = new BigDecimal("99999999.99"); // precision 10, scale 2
+    private static final DateTimeFormatter FECHA_LOCAL = DateTimeFormatter.ofPattern("d/M/uuuu")
+            .withResolverStyle(ResolverStyle.STRICT);
+
+    private static final String DESCRIPCION = "descripcion";
+    private static final String PRECIO = "precio";
+    private static final String CANTIDAD = "cantidad";
+    private static final String FECHA = "fechagasto";
+    private static final String CATEGORIA = "categoria";
+    private static final String PROVEEDOR = "proveedor";
+    private static final String OBSERVACIONES = "observaciones";
+
+    @Autowired
+    private CuboGastosService cuboGastosService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${gastos.importacion.tamano-lote:500}")
+    private int tamanoLote;
+
+    /**
+     * Importa las filas válidas en una sola transacción; las inválidas se informan y no se guardan.
+     * El encabezado es obligatorio y debe tener al menos descripcion, precio y fechaGasto (o fecha).
+     * Con separador punto y coma el precio puede usar coma decimal ("1234,50").
+     */
+    @Transactional
+    public ResultadoImportacionDTO importarCsv(Reader reader) throws IOException {
+        long inicio = System.currentTimeMillis();
+        LectorCsv lector = new LectorCsv(reader);
+        Map<String, Integer> columnas = leerEncabezado(lector.leer());
+        boolean comaDecimal = lector.getSeparador() == ';';
+
+        Session session = entityManager.unwrap(Session.class);
+        session.setJdbcBatchSize(tamanoLote);
+
+        ResultadoImportacionDTO resultado = new ResultadoImportacionDTO();
+        int pendientes = 0;
+        while (true) {
+            List<String> campos;
+            try {
+                campos = lector.leer();
+            } catch (LectorCsv.RegistroInvalidoException e) {
+                // Campo demasiado largo o comillas sin cerrar: error de la fila; si no se puede seguir, se corta acá
+                resultado.setFilasLeidas(resultado.getFilasLeidas() + 1);
+                agregarError(resultado, e.getRegistro(), e.getMessage());
+                if (e.isRecuperable()) {
+                    continue;
+                }
+                break;
+            }
+            if (campos == null) {
+                break;
+            }
+            resultado.setFilasLeidas(resultado.getFilasLeidas() + 1);
+            Gasto gasto;
+            try {
+                gasto = convertir(campos, columnas, comaDecimal);
+            } catch (IllegalArgumentException e) {
+                agregarError(resultado, lector.getRegistro(), e.getMessage());
+                continue;
+            }
+            entityManager.persist(gasto);
+            resultado.setGastosImportados(resultado.getGastosImportados() + 1);
+            if (++pendientes == tamanoLote) {
+                entityManager.flush();
+                entityManager.clear();
+                pendientes = 0;
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        // Más simple y barato que registrar miles de gastos uno por uno en el cubo
+        if (resultado.getGastosImportados() > 0) {
+            TransaccionUtil.despuesDelCommit(cuboGastosService::reconstruir);
+        }
+        resultado.setDuracionMs(System.currentTimeMillis() - inicio);
+        return resultado;
+    }
+
+    private static void agregarError(ResultadoImportacionDTO resultado, long registro, String mensaje) {
+        resultado.setFilasConError(resultado.getFilasConError() + 1);
+        if (resultado.getErrores().size() < MAX_ERRORES) {
+            resultado.getErrores().add(new ResultadoImportacionDTO.ErrorFila(registro, mensaje));
+        }
+    }
+
+    private static Map<String, Integer> leerEncabezado(List<String> encabezado) {
+        if (encabezado == null) {
+            throw new IllegalArgumentException("El archivo está vacío");
+        }
+        Map<String, Integer> columnas = new HashMap<>();
+        for (int i = 0; i < encabezado.size(); i++) {
+            String nombre = TextoNormalizador.normalizar(encabezado.get(i)).replace("_", "").replace(" ", "");
+            if (nombre.equals("fecha")) {
+                nombre = FECHA;
+            }
+            columnas.putIfAbsent(nombre, i);
+        }
+        for (String requerida : List.of(DESCRIPCION, PRECIO, FECHA)) {
+            if (!columnas.containsKey(requerida)) {
+                throw new IllegalArgumentException("Falta la columna " + (requerida.equals(FECHA) ? "fechaGasto" : requerida)
+                        + " en el encabezado");
+            }
+        }
+        return columnas;
+    }
+
+    private static Gasto convertir(List<String> campos, Map<String, Integer> columnas, boolean comaDecimal) {
+        String descripcion = texto(campos, columnas, DESCRIPCION);
+        if (descripcion == null) {
+            throw new IllegalArgumentException("La descripción es obligatoria");
+        }
+        return new Gasto(descripcion,
+                precio(texto(campos, columnas, PRECIO), comaDecimal),
+                cantidad(texto(campos, columnas, CANTIDAD)),
+                fecha(texto(campos, columnas, FECHA)),
+                texto(campos, columnas, CATEGORIA),
+                texto(campos, columnas, PROVEEDOR),
+                texto(campos, columnas, OBSERVACIONES));
+    }
+
+    // Valor recortado de la columna; null si la columna no existe, falta en la fila o está vacío
+    private static String texto(List<String> campos, Map<String, Integer> columnas, String columna) {
+        Integer indice = columnas.get(columna);
+        if (indice == null || indice >= campos.size()) {
+            return null;
+        }
+        String valor = campos.get(indice).trim();
+        if (valor.isEmpty()) {
+            return null;
+        }
+        if (valor.length() > LARGO_MAXIMO_TEXTO) {
+            throw new IllegalArgumentException("La columna " + columna + " supera los " + LARGO_MAXIMO_TEXTO + " caracteres");
+        }
+        return valor;
+    }
+
+    private static BigDecimal precio(String valor, boolean comaDecimal) {
+        if (valor == null) {
+            throw new IllegalArgumentException("El precio es obligatorio");
+        }
+        BigDecimal precio;
+        try {
+            precio = new BigDecimal(comaDecimal ? valor.replace(',', '.') : valor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Precio inválido: " + valor);
+        }
+        if (precio.signum() < 0) {
+            throw new IllegalArgumentException("El precio no puede ser negativo");
+        }
+        if (precio.stripTrailingZeros().scale() > 2) {
+            throw new IllegalArgumentException("El precio admite a lo sumo dos decimales: " + valor);
+        }
+        if (precio.compareTo(PRECIO_MAXIMO) > 0) {
+            throw new IllegalArgumentException("El precio supera el máximo permitido: " + valor);
+        }
+        return precio;
+    }
+
+    // Sin cantidad se asume una unidad
+    private static Integer cantidad(String valor) {
+        if (valor == null) {
+            return 1;
+        }
+        int cantidad;
+        try {
+            cantidad = Integer.parseInt(valor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Cantidad inválida: " + valor);
+        }
+        if (cantidad < 1) {
+            throw new IllegalArgumentException("La cantidad debe ser mayor que cero");
+        }
+        return cantidad;
+    }
+
+    // Acepta 2026-10-18 y 18/10/2026, el formato con que Excel exporta fechas en español
+    private static LocalDate fecha(String valor) {
+        if (valor == null) {
+            throw new IllegalArgumentException("La fecha del gasto es obligatoria");
+        }
+        try {
+            return valor.indexOf('/') >= 0 ? LocalDate.parse(valor, FECHA_LOCAL) : LocalDate.parse(valor);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Fecha inválida: " + valor);
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package com.consultorio.odontologia.service;
+
+import com.consultorio.odontologia.dto.ResultadoBusquedaClinicaDTO;
+import com.consultorio.odontologia.entity.Diagnostico;
+import com.consultorio.odontologia.entity.HistoriaClinica;
+import com.consultorio.odontologia.entity.Paciente;
+import com.consultorio.odontologia.entity.Tratamiento;
+import com.consultorio.odontologia.repository.DiagnosticoRepository;
+import com.consultorio.odontologia.repository.HistoriaClinicaRepository;
+import com.consultorio.odontologia.repository.PacienteRepository;
+import com.consultorio.odontologia.repository.TratamientoRepository;
+import com.consultorio.odontologia.service.util.IndiceTextoClinico;
+import com.consultorio.odontologia.service.util.IndiceTextoClinico.Tipo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Búsqueda de texto completo en toda la clínica sobre diagnósticos, historias clínicas y tratamientos
+ * (por ejemplo, todos los pacientes con alergia a la penicilina o que toman bifosfonatos).
+ * El índice vive en memoria: se construye al iniciar y los servicios de cada entidad le aplican
+ * las altas, modificaciones y bajas después del commit, así las búsquedas no recorren las tablas.
+ */
+@Service
+public class IndiceClinicoService {
+
+    private static final int TAMANO_LOTE_CARGA = 1000;
+    private static final int LIMITE_POR_DEFECTO = 20;
+    private static final int LIMITE_MAXIMO = 100;
+
+    // Campos indexados de cada entidad, con el mismo nombre que en la entidad
+    public static final List<String> CAMPOS_DIAGNOSTICO = List.of("diagnostico", "pronostico", "observaciones");
+    public static final List<String> CAMPOS_HISTORIA = List.of(
+            "motivoConsulta", "enfermedadesActuales", "alergias", "medicamentos", "antecedentesFamiliares");
+    public static final List<String> CAMPOS_TRATAMIENTO = List.of("nombre", "descripcion");
+
+    @Autowired
+    private DiagnosticoRepository diagnosticoRepository;
+
+    @Autowired
+    private HistoriaClinicaRepository historiaClinicaRepository;
+
+    @Autowired
+    private TratamientoRepository tratamientoRepository;
+
+    @Autowired
+    private PacienteRepository pacienteRepository;
+
+    @Value("${busqueda.clinica.habilitado:true}")
+    private boolean habilitado;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object reconstruccion = new Object();
+
+    // Protegidos por lock
+    private IndiceTextoClinico indice;
+    private boolean reconstruyendo;
+    private final List<Consumer<IndiceTextoClinico>> cambiosDuranteReconstruccion = new ArrayList<>();
+    private String motivoNoDisponible = "El índice todavía no se construyó";
+    private long duracionUltimaReconstruccionMs;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void construirAlIniciar() {
+        if (habilitado) {
+            reconstruir();
+        } else {
+            motivoNoDisponible = "Índice deshabilitado por configuración";
+        }
+    }
+
+    /**
+     * Reconstruye el índice desde la base de datos sin bloquear las búsquedas en curso.
+     * Los cambios que llegan mientras tanto se guardan y se aplican antes del reemplazo;
+     * también descarta los registros eliminados que el índice anterior solo marcaba.
+     */
+    public void reconstruir() {
+        synchronized (reconstruccion) {
+            long inicio = System.currentTimeMillis();
+            lock.writeLock().lock();
+            try {
+                reconstruyendo = true;
+                cambiosDuranteReconstruccion.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            IndiceTextoClinico nuevo = new IndiceTextoClinico();
+            cargar(nuevo, Tipo.DIAGNOSTICO, diagnosticoRepository::findTextosBusqueda, CAMPOS_DIAGNOSTICO);
+            cargar(nuevo, Tipo.HISTORIA_CLINICA, historiaClinicaRepository::findTextosBusqueda, CAMPOS_HISTORIA);
+            cargar(nuevo, Tipo.TRATAMIENTO, tratamientoRepository::findTextosBusqueda, CAMPOS_TRATAMIENTO);
+
+            lock.writeLock().lock();
+            try {
+                cambiosDuranteReconstruccion.forEach(cambio -> cambio.accept(nuevo));
+                indice = nuevo;
+                motivoNoDisponible = null;
+                reconstruyendo = false;
+                cambiosDuranteReconstruccion.clear();
+                duracionUltimaReconstruccionMs = System.currentTimeMillis() - inicio;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    // Cada fila trae id, paciente, fecha y después los textos en el orden de campos
+    private void cargar(IndiceTextoClinico nuevo, Tipo tipo, BiFunction<Long, Pageable, List<Object[]>> consulta,
+                        List<String> campos) {
+        long cursor = 0L;
+        List<Object[]> lote;
+        do {
+            lote = consulta.apply(cursor, PageRequest.of(0, TAMANO_LOTE_CARGA));
+            for (Object[] fila : lote) {
+                Map<String, String> textos = new HashMap<>();
+                for (int i = 0; i < campos.size(); i++) {
+                    textos.put(campos.get(i), (String) fila[3 + i]);
+                }
+                nuevo.agregar(tipo, (Long) fila[0], (Long) fila[1], fecha(fila[2]), textos);
+            }
+            if (!lote.isEmpty()) {
+                cursor = (Long) lote.get(lote.size() - 1)[0];
+            }
+        } while (lote.size() == TAMANO_LOTE_CARGA);
+    }
+
+    /**
+     * Busca registros que contengan todas las palabras de la consulta, del más relevante al menos.
+     * tipos (diagnostico, historia, tratamiento) y campos acotan dónde buscar; con porPaciente
+     * se devuelve un solo registro, el más relevante, por paciente.
+     */
+    public List<ResultadoBusquedaClinicaDTO> buscar(String consulta, List<String> tipos, Set<String> campos,
+                                                    Long pacienteId, Integer limite, boolean porPaciente) {
+        if (consulta == null || consulta.isBlank()) {
+            throw new IllegalArgumentException("La consulta no puede estar vacía");
+        }
+        int tamano = limite != null ? limite : LIMITE_POR_DEFECTO;
+        if (tamano < 1 || tamano > LIMITE_MAXIMO) {
+            throw new IllegalArgumentException("El límite debe estar entre 1 y " + LIMITE_MAXIMO);
+        }
+        Set<Tipo> filtroTipos = EnumSet.noneOf(Tipo.class);
+        if (tipos != null) {
+            for (String tipo : tipos) {
+                if (!tipo.isBlank()) {
+                    filtroTipos.add(Tipo.desdeClave(tipo));
+                }
+            }
+        }
+        if (campos != null) {
+            for (String campo : campos) {
+                if (!esCampoIndexado(campo)) {
+                    throw new IllegalArgumentException("Campo no indexado: " + campo);
+                }
+            }
+        }
+
+        List<IndiceTextoClinico.Resultado> resultados;
+        lock.readLock().lock();
+        try {
+            if (indice == null) {
+                throw new IllegalStateException(motivoNoDisponible);
+            }
+            resultados = indice.buscar(consulta, filtroTipos, campos, pacienteId, tamano, porPaciente);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Set<Long> idsPacientes = resultados.stream()
+                .map(IndiceTextoClinico.Resultado::getPacienteId)
+                .filter(id -> id != null)
+                .collect(Collectors.toSet());
+        Map<Long, Paciente> pacientes = pacienteRepository.findAllById(idsPacientes).stream()
+                .collect(Collectors.toMap(Paciente::getId, paciente -> paciente));
+
+        List<ResultadoBusquedaClinicaDTO> dtos = new ArrayList<>(resultados.size());
+        for (IndiceTextoClinico.Resultado resultado : resultados) {
+            Paciente paciente = resultado.getPacienteId() != null ? pacientes.get(resultado.getPacienteId()) : null;
+            dtos.add(new ResultadoBusquedaClinicaDTO(resultado.getTipo().getClave(), resultado.getId(),
+                    resultado.getPacienteId(),
+                    paciente != null ? paciente.getName() : null,
+                    paciente != null ? paciente.getLastname() : null,
+                    resultado.getFecha() != null ? resultado.getFecha().toString() : null,
+                    resultado.getPuntaje(), resultado.getCampo(), resultado.getFragmento()));
+        }
+        return dtos;
+    }
+
+    public void indexar(Diagnostico diagnostico) {
+        Map<String, String> textos = new HashMap<>();
+        textos.put("diagnostico", diagnostico.getDiagnostico());
+        textos.put("pronostico", diagnostico.getPronostico());
+        textos.put("observaciones", diagnostico.getObservaciones());
+        Long id = diagnostico.getId();
+        Long pacienteId = diagnostico.getPaciente() != null ? diagnostico.getPaciente().getId() : diagnostico.getPacienteId();
+        LocalDate fecha = diagnostico.getFechaDiagnostico();
+        aplicar(indice -> indice.agregar(Tipo.DIAGNOSTICO, id, pacienteId, fecha, textos));
+    }
+
+    public void indexar(HistoriaClinica historia) {
+        Map<String, String> textos = new HashMap<>();
+        textos.put("motivoConsulta", historia.getMotivoConsulta());
+        textos.put("enfermedadesActuales", historia.getEnfermedadesActuales());
+        textos.put("alergias", historia.getAlergias());
+        textos.put("medicamentos", historia.getMedicamentos());
+        textos.put("antecedentesFamiliares", historia.getAntecedentesFamiliares());
+        Long id = historia.getId();
+        Long pacienteId = historia.getPaciente() != null ? historia.getPaciente().getId() : null;
+        LocalDate fecha = fecha(historia.getFechaCreacion());
+        aplicar(indice -> indice.agregar(Tipo.HISTORIA_CLINICA, id, pacienteId, fecha, textos));
+    }
+
+    public void indexar(Tratamiento tratamiento) {
+        Map<String, String> textos = new HashMap<>();
+        textos.put("nombre", tratamiento.getNombre());
+        textos.put("descripcion", tratamiento.getDescripcion());
+        Long id = tratamiento.getId();
+        Long pacienteId = tratamiento.getPaciente() != null ? tratamiento.getPaciente().getId() : tratamiento.getPacienteId();
+        LocalDate fecha = tratamiento.getFechaInicio();
+        aplicar(indice -> indice.agregar(Tipo.TRATAMIENTO, id, pacienteId, fecha, textos));
+    }
+
+    public void eliminar(Tipo tipo, Long id) {
+        aplicar(indice -> indice.eliminar(tipo, id));
+    }
+
+    public void eliminarPaciente(Long pacienteId) {
+        aplicar(indice -> indice.eliminarPaciente(pacienteId));
+    }
+
+    public Map<String, Object> obtenerEstadisticas() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> estadisticas = new LinkedHashMap<>();
+            estadisticas.put("disponible", indice != null);
+            estadisticas.put("motivoNoDisponible", motivoNoDisponible);
+            estadisticas.put("reconstruyendo", reconstruyendo);
+            if (indice != null) {
+                estadisticas.put("registros", indice.getTotalDocumentos());
+                estadisticas.put("eliminadosPendientes", indice.getTotalEliminados());
+                estadisticas.put("palabras", indice.getTotalPalabras());
+                estadisticas.put("campos", indice.getCampos());
+            }
+            estadisticas.put("duracionUltimaReconstruccionMs", duracionUltimaReconstruccionMs);
+            return estadisticas;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void aplicar(Consumer<IndiceTextoClinico> cambio) {
+        lock.writeLock().lock();
+        try {
+            if (reconstruyendo) {
+                cambiosDuranteReconstruccion.add(cambio);
+            }
+            if (indice != null) {
+                cambio.accept(indice);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static boolean esCampoIndexado(String campo) {
+        String nombre = campo.trim();
+        return CAMPOS_DIAGNOSTICO.stream().anyMatch(nombre::equalsIgnoreCase)
+                || CAMPOS_HISTORIA.stream().anyMatch(nombre::equalsIgnoreCase)
+                || CAMPOS_TRATAMIENTO.stream().anyMatch(nombre::equalsIgnoreCase);
+    }
+
+    private static LocalDate fecha(Object valor) {
+        if (valor instanceof LocalDateTime fechaHora) {
+            return fechaHora.toLocalDate();
+        }
+        return (LocalDate) valor;
+    }
+}
@@ -0,0 +1,195 @@
+package com.consultorio.odontologia.service;
+
+import com.consultorio.odontologia.entity.Paciente;
+import com.consultorio.odontologia.repository.PacienteRepository;
+import com.consultorio.odontologia.service.util.IndiceTrigramas;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Mantiene en memoria el índice de trigramas de pacientes (nombre, apellido y cédula).
+ * Se construye al iniciar y se actualiza desde PacienteService después de cada commit.
+ * Si supera el presupuesto de memoria se desactiva y la búsqueda vuelve a la base de datos.
+ */
+@Service
+public class IndicePacientesService {
+
+    private static final int TAMANO_LOTE_CARGA = 1000;
+
+    @Autowired
+    private PacienteRepository pacienteRepository;
+
+    @Value("${busqueda.trigramas.habilitado:true}")
+    private boolean habilitado;
+
+    @Value("${busqueda.trigramas.memoria-maxima-mb:64}")
+    private long memoriaMaximaMb;
+
+    @Value("${busqueda.trigramas.puntaje-minimo:0.4}")
+    private double puntajeMinimo;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object reconstruccion = new Object();
+
+    // Protegidos por lock
+    private IndiceTrigramas indice;
+    private boolean reconstruyendo;
+    private final List<Consumer<IndiceTrigramas>> cambiosDuranteReconstruccion = new ArrayList<>();
+    private String motivoNoDisponible = "El índice todavía no se construyó";
+    private long duracionUltimaReconstruccionMs;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void construirAlIniciar() {
+        if (habilitado) {
+            reconstruir();
+        } else {
+            motivoNoDisponible = "Índice deshabilitado por configuración";
+        }
+    }
+
+    /**
+     * Reconstruye el índice desde la base de datos sin bloquear las búsquedas en curso.
+     * Los cambios que llegan mientras tanto se guardan y se aplican antes del reemplazo.
+     */
+    public void reconstruir() {
+        synchronized (reconstruccion) {
+            long inicio = System.currentTimeMillis();
+            lock.writeLock().lock();
+            try {
+                reconstruyendo = true;
+                cambiosDuranteReconstruccion.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            IndiceTrigramas nuevo = new IndiceTrigramas();
+            String motivo = null;
+            long cursor = 0L;
+            List<Object[]> lote;
+            do {
+                lote = pacienteRepository.findDatosBusqueda(cursor, PageRequest.of(0, TAMANO_LOTE_CARGA));
+                for (Object[] fila : lote) {
+                    nuevo.agregar((Long) fila[0], (String) fila[1], (String) fila[2], fila[3] != null ? fila[3].toString() : null);
+                }
+                if (!lote.isEmpty()) {
+                    cursor = (Long) lote.get(lote.size() - 1)[0];
+                }
+                if (excedePresupuesto(nuevo)) {
+                    motivo = "El índice supera el presupuesto de " + memoriaMaximaMb + " MB";
+                    break;
+                }
+            } while (lote.size() == TAMANO_LOTE_CARGA);
+
+            lock.writeLock().lock();
+            try {
+                if (motivo == null) {
+                    cambiosDuranteReconstruccion.forEach(cambio -> cambio.accept(nuevo));
+                    indice = nuevo;
+                    motivoNoDisponible = null;
+                } else {
+                    indice = null;
+                    motivoNoDisponible = motivo;
+                }
+                reconstruyendo = false;
+                cambiosDuranteReconstruccion.clear();
+                duracionUltimaReconstruccionMs = System.currentTimeMillis() - inicio;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    public boolean estaDisponible() {
+        lock.readLock().lock();
+        try {
+            return indice != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Devuelve los k pacientes más parecidos, o null si el índice no está disponible
+     */
+    public List<IndiceTrigramas.Resultado> buscar(String consulta, int k) {
+        lock.readLock().lock();
+        try {
+            if (indice == null) {
+                return null;
+            }
+            return indice.buscar(consulta, k, puntajeMinimo);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void indexar(Paciente paciente) {
+        Long id = paciente.getId();
+        String nombre = paciente.getName();
+        String apellido = paciente.getLastname();
+        String cedula = paciente.getCI() != null ? paciente.getCI().toString() : null;
+        aplicar(indice -> indice.agregar(id, nombre, apellido, cedula));
+    }
+
+    public void eliminar(Long id) {
+        aplicar(indice -> indice.eliminar(id));
+    }
+
+    public Map<String, Object> obtenerEstadisticas() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> estadisticas = new LinkedHashMap<>();
+            estadisticas.put("disponible", indice != null);
+            estadisticas.put("motivoNoDisponible", motivoNoDisponible);
+            estadisticas.put("reconstruyendo", reconstruyendo);
+            estadisticas.put("memoriaMaximaMb", memoriaMaximaMb);
+            if (indice != null) {
+                estadisticas.put("pacientes", indice.getTotalDocumentos());
+                estadisticas.put("eliminadosPendientes", indice.getTotalEliminados());
+                estadisticas.put("trigramas", indice.getTotalTrigramas());
+                estadisticas.put("memoriaEstimadaBytes", indice.getMemoriaEstimadaBytes());
+            }
+            estadisticas.put("duracionUltimaReconstruccionMs", duracionUltimaReconstruccionMs);
+            return estadisticas;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void aplicar(Consumer<IndiceTrigramas> cambio) {
+        lock.writeLock().lock();
+        try {
+            if (reconstruyendo) {
+                cambiosDuranteReconstruccion.add(cambio);
+            }
+            if (indice != null) {
+                cambio.accept(indice);
+                // Antes de desactivarlo se descartan los slots eliminados que todavía ocupen memoria
+                if (excedePresupuesto(indice)) {
+                    indice.compactar();
+                }
+                if (excedePresupuesto(indice)) {
+                    indice = null;
+                    motivoNoDisponible = "El índice supera el presupuesto de " + memoriaMaximaMb + " MB";
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean excedePresupuesto(IndiceTrigramas indice) {
+        return indice.getMemoriaEstimadaBytes() > memoriaMaximaMb * 1024 * 1024;
+    }
+}
@@ -0,0 +1,167 @@
+package com.consultorio.odontologia.service;
+
+import com.consultorio.odontologia.entity.MovimientoPresupuesto;
+import com.consultorio.odontologia.entity.Presupuesto;
+import com.consultorio.odontologia.entity.ResumenIngresosDia;
+import com.consultorio.odontologia.entity.TratamientoPresupuesto;
+import com.consultorio.odontologia.repository.MovimientoPresupuestoRepository;
+import com.consultorio.odontologia.repository.PresupuestoRepository;
+import com.consultorio.odontologia.repository.ResumenIngresosDiaRepository;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Libro de ingresos de los presupuestos. Cada cambio de precio o abonado se registra como
+ * MovimientoPresupuesto y se suma en el acto al ResumenIngresosDia de la fecha del presupuesto,
+ * en la misma transacción; los totales por rango salen del resumen en O(días).
+ */
+@Service
+@Transactional
+public class LibroIngresosService implements SmartInitializingSingleton {
+
+    @Autowired
+    private MovimientoPresupuestoRepository movimientoRepository;
+
+    @Autowired
+    private ResumenIngresosDiaRepository resumenRepository;
+
+    @Autowired
+    private PresupuestoRepository presupuestoRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * Precio y abonado totales de un presupuesto, para registrar luego la diferencia con registrarCambio
+     */
+    public static BigDecimal[] totales(Presupuesto presupuesto) {
+        BigDecimal precio = BigDecimal.ZERO;
+        BigDecimal abonado = BigDecimal.ZERO;
+        if (presupuesto.getTratamientos() != null) {
+            for (TratamientoPresupuesto tratamiento : presupuesto.getTratamientos()) {
+                precio = precio.add(tratamiento.getPrecio());
+                abonado = abonado.add(tratamiento.getAbonado());
+            }
+        }
+        return new BigDecimal[] {precio, abonado};
+    }
+
+    public void registrarAlta(Presupuesto presupuesto) {
+        BigDecimal[] totales = totales(presupuesto);
+        registrar(presupuesto, null, presupuesto.getFechaRegistro(), MovimientoPresupuesto.Tipo.ALTA, totales[0], totales[1]);
+    }
+
+    /**
+     * Registra la diferencia con el estado anterior; si cambió la fecha, el total pasa de un día al otro
+     */
+    public void registrarCambio(Presupuesto presupuesto, LocalDate fechaAnterior, BigDecimal[] totalesAnteriores) {
+        BigDecimal[] totales = totales(presupuesto);
+        if (fechaAnterior.equals(presupuesto.getFechaRegistro())) {
+            registrar(presupuesto, null, fechaAnterior, MovimientoPresupuesto.Tipo.MODIFICACION,
+                    totales[0].subtract(totalesAnteriores[0]), totales[1].subtract(totalesAnteriores[1]));
+            return;
+        }
+        registrar(presupuesto, null, fechaAnterior, MovimientoPresupuesto.Tipo.MODIFICACION,
+                totalesAnteriores[0].negate(), totalesAnteriores[1].negate());
+        registrar(presupuesto, null, presupuesto.getFechaRegistro(), MovimientoPresupuesto.Tipo.MODIFICACION,
+                totales[0], totales[1]);
+    }
+
+    public void registrarPago(Presupuesto presupuesto, TratamientoPresupuesto tratamiento, BigDecimal abonadoAnterior) {
+        registrar(presupuesto, tratamiento.getId(), presupuesto.getFechaRegistro(), MovimientoPresupuesto.Tipo.PAGO,
+                BigDecimal.ZERO, tratamiento.getAbonado().subtract(abonadoAnterior));
+    }
+
+    public void registrarBaja(Presupuesto presupuesto) {
+        BigDecimal[] totales = totales(presupuesto);
+        registrar(presupuesto, null, presupuesto.getFechaRegistro(), MovimientoPresupuesto.Tipo.BAJA,
+                totales[0].negate(), totales[1].negate());
+    }
+
+    /**
+     * Da de baja los presupuestos de un paciente que se van a borrar en bloque, con una sola consulta
+     */
+    public void registrarBajasDePaciente(Long pacienteId) {
+        for (Object[] fila : presupuestoRepository.sumarTotalesPorPresupuestoDePaciente(pacienteId)) {
+            guardar(new MovimientoPresupuesto((Long) fila[0], null, (Long) fila[1], (LocalDate) fila[2],
+                    MovimientoPresupuesto.Tipo.BAJA, ((BigDecimal) fila[3]).negate(), ((BigDecimal) fila[4]).negate()));
+        }
+    }
+
+    // Abonado de los presupuestos con fecha en [fechaInicio, fechaFin]
+    @Transactional(readOnly = true)
+    public BigDecimal calcularIngresos(LocalDate fechaInicio, LocalDate fechaFin) {
+        return resumenRepository.sumarAbonado(fechaInicio, fechaFin);
+    }
+
+    // Precio no abonado de los presupuestos con fecha en [fechaInicio, fechaFin]
+    @Transactional(readOnly = true)
+    public BigDecimal calcularPendientes(LocalDate fechaInicio, LocalDate fechaFin) {
+        return resumenRepository.sumarPendiente(fechaInicio, fechaFin);
+    }
+
+    @Transactional(readOnly = true)
+    public List<ResumenIngresosDia> obtenerResumenDiario(LocalDate fechaInicio, LocalDate fechaFin) {
+        return resumenRepository.findByFechaBetweenOrderByFecha(fechaInicio, fechaFin);
+    }
+
+    /**
+     * Se llama al terminar de crear los beans, antes de que arranque Tomcat: ningún presupuesto puede
+     * registrar su alta mientras se abre el libro y quedar contado dos veces (en la apertura y en su ALTA)
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        // Llamada directa al bean, sin pasar por el proxy transaccional
+        transactionTemplate.executeWithoutResult(estado -> abrirLibro());
+    }
+
+    /**
+     * Abre el libro con un movimiento por presupuesto ya existente, la primera vez que arranca con esta tabla
+     */
+    public void abrirLibro() {
+        if (movimientoRepository.existsBy()) {
+            return;
+        }
+        List<MovimientoPresupuesto> apertura = new ArrayList<>();
+        for (Object[] fila : presupuestoRepository.sumarTotalesPorPresupuesto()) {
+            apertura.add(new MovimientoPresupuesto((Long) fila[0], null, (Long) fila[1], (LocalDate) fila[2],
+                    MovimientoPresupuesto.Tipo.APERTURA, (BigDecimal) fila[3], (BigDecimal) fila[4]));
+        }
+        movimientoRepository.saveAll(apertura);
+        reconstruirResumen();
+    }
+
+    /**
+     * Vuelve a calcular ResumenIngresosDia desde los movimientos
+     */
+    public void reconstruirResumen() {
+        resumenRepository.eliminarTodos();
+        List<ResumenIngresosDia> dias = new ArrayList<>();
+        for (Object[] fila : movimientoRepository.sumarPorDia()) {
+            dias.add(new ResumenIngresosDia((LocalDate) fila[0], (BigDecimal) fila[1], (BigDecimal) fila[2]));
+        }
+        resumenRepository.saveAll(dias);
+    }
+
+    private void registrar(Presupuesto presupuesto, Long tratamientoId, LocalDate fecha, MovimientoPresupuesto.Tipo tipo,
+                           BigDecimal diferenciaPrecio, BigDecimal diferenciaAbonado) {
+        if (diferenciaPrecio.signum() == 0 && diferenciaAbonado.signum() == 0 && tipo != MovimientoPresupuesto.Tipo.ALTA) {
+            return;
+        }
+        guardar(new MovimientoPresupuesto(presupuesto.getId(), tratamientoId, presupuesto.getPaciente().getId(), fecha,
+                tipo, diferenciaPrecio, diferenciaAbonado));
+    }
+
+    private void guardar(MovimientoPresupuesto movimiento) {
+        movimientoRepository.save(movimiento);
+        resumenRepository.sumar(movimiento.getFecha(), movimiento.getDiferenciaPrecio(), movimiento.getDiferenciaAbonado());
+    }
+}
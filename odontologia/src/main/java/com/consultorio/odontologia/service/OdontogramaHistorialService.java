@@ -0,0 +1,188 @@
+package com.consultorio.odontologia.service;
+
+import com.consultorio.odontologia.dto.DiferenciaDienteDTO;
+import com.consultorio.odontologia.entity.MapaDental;
+import com.consultorio.odontologia.entity.Odontograma;
+import com.consultorio.odontologia.entity.OdontogramaCambio;
+import com.consultorio.odontologia.entity.OdontogramaCheckpoint;
+import com.consultorio.odontologia.entity.Paciente;
+import com.consultorio.odontologia.repository.OdontogramaCambioRepository;
+import com.consultorio.odontologia.repository.OdontogramaCheckpointRepository;
+import com.consultorio.odontologia.repository.OdontogramaRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Historial de cambios del odontograma de cada paciente.
+ * Cada visita agrega solo las caras que cambiaron; cada cierta cantidad de cambios se guarda
+ * un checkpoint con el estado completo, así reconstruir una fecha cuesta un checkpoint
+ * más los cambios posteriores a él.
+ */
+@Service
+@Transactional
+public class OdontogramaHistorialService {
+
+    @Autowired
+    private OdontogramaCambioRepository cambioRepository;
+
+    @Autowired
+    private OdontogramaCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private OdontogramaRepository odontogramaRepository;
+
+    @Value("${odontograma.cambios-por-checkpoint:50}")
+    private int cambiosPorCheckpoint;
+
+    /**
+     * Registra las caras que difieren entre dos estados; nuevo debe ser el estado completo resultante
+     */
+    public List<OdontogramaCambio> registrarCambios(Paciente paciente, Long odontogramaId, LocalDateTime fecha,
+                                                    MapaDental anterior, MapaDental nuevo) {
+        List<OdontogramaCambio> cambios = new ArrayList<>();
+        for (int diente : MapaDental.DIENTES) {
+            for (MapaDental.Superficie superficie : MapaDental.Superficie.values()) {
+                MapaDental.Estado estado = nuevo.estado(diente, superficie);
+                if (anterior.estado(diente, superficie) != estado) {
+                    cambios.add(new OdontogramaCambio(paciente, odontogramaId, fecha, diente, superficie, estado));
+                }
+            }
+        }
+        if (cambios.isEmpty()) {
+            return cambios;
+        }
+        cambios = cambioRepository.saveAll(cambios);
+
+        Long desdeId = checkpointRepository.findFirstByPacienteIdOrderByHastaCambioIdDesc(paciente.getId())
+                .map(OdontogramaCheckpoint::getHastaCambioId)
+                .orElse(0L);
+        if (cambioRepository.countByPacienteIdAndIdGreaterThan(paciente.getId(), desdeId) >= cambiosPorCheckpoint) {
+            Long hastaId = cambios.get(cambios.size() - 1).getId();
+            checkpointRepository.save(new OdontogramaCheckpoint(paciente, fecha, hastaId, nuevo));
+        }
+        return cambios;
+    }
+
+    /**
+     * Estado del odontograma de un paciente en una fecha
+     */
+    @Transactional(readOnly = true)
+    public MapaDental obtenerEstadoAl(Long pacienteId, LocalDateTime fecha) {
+        Optional<OdontogramaCheckpoint> checkpoint =
+                checkpointRepository.findFirstByPacienteIdAndFechaLessThanEqualOrderByHastaCambioIdDesc(pacienteId, fecha);
+        MapaDental base = checkpoint.map(OdontogramaCheckpoint::getMapaDental).orElseGet(MapaDental::vacio);
+        Long desdeId = checkpoint.map(OdontogramaCheckpoint::getHastaCambioId).orElse(0L);
+        return base.conCambios(cambioRepository.findCambiosHasta(pacienteId, desdeId, fecha));
+    }
+
+    /**
+     * Caras que cambiaron entre dos fechas: se reconstruye la primera y se aplican solo los cambios intermedios
+     */
+    @Transactional(readOnly = true)
+    public List<DiferenciaDienteDTO> obtenerDiferenciasEntre(Long pacienteId, LocalDateTime desde, LocalDateTime hasta) {
+        if (hasta.isBefore(desde)) {
+            throw new IllegalArgumentException("La fecha final no puede ser anterior a la inicial");
+        }
+        MapaDental antes = obtenerEstadoAl(pacienteId, desde);
+        MapaDental despues = antes.conCambios(cambioRepository.findCambiosEntre(pacienteId, desde, hasta));
+        return comparar(antes, despues);
+    }
+
+    /**
+     * Completa el mapa de los odontogramas que no lo guardan, con una sola lectura del historial por paciente
+     */
+    @Transactional(readOnly = true)
+    public void reconstruir(List<Odontograma> odontogramas) {
+        Map<Long, List<Odontograma>> pendientesPorPaciente = new LinkedHashMap<>();
+        for (Odontograma odontograma : odontogramas) {
+            if (odontograma.getMapaVigente() == null && odontograma.getDatosDientesOriginales() == null
+                    && odontograma.getFechaCreacion() != null) {
+                pendientesPorPaciente.computeIfAbsent(odontograma.getPaciente().getId(), k -> new ArrayList<>())
+                        .add(odontograma);
+            }
+        }
+        pendientesPorPaciente.forEach((pacienteId, pendientes) -> {
+            if (pendientes.size() == 1) {
+                Odontograma odontograma = pendientes.get(0);
+                odontograma.setMapaReconstruido(obtenerEstadoAl(pacienteId, odontograma.getFechaCreacion()));
+                return;
+            }
+            // Los cambios se registran con la fecha de su visita, que nunca es anterior a la del cambio previo
+            List<OdontogramaCambio> cambios = cambioRepository.findByPacienteIdOrderById(pacienteId);
+            pendientes.sort(Comparator.comparing(Odontograma::getFechaCreacion));
+            MapaDental mapa = MapaDental.vacio();
+            int siguiente = 0;
+            for (Odontograma odontograma : pendientes) {
+                int desde = siguiente;
+                while (siguiente < cambios.size()
+                        && !cambios.get(siguiente).getFecha().isAfter(odontograma.getFechaCreacion())) {
+                    siguiente++;
+                }
+                mapa = mapa.conCambios(cambios.subList(desde, siguiente));
+                odontograma.setMapaReconstruido(mapa);
+            }
+        });
+    }
+
+    /**
+     * Quita del historial los cambios de la visita más reciente al eliminarla
+     */
+    public void descartarVisita(Long pacienteId, Long odontogramaId, LocalDateTime fecha) {
+        cambioRepository.eliminarPorOdontogramaId(odontogramaId);
+        checkpointRepository.eliminarDesde(pacienteId, fecha);
+    }
+
+    /**
+     * Convierte los odontogramas guardados como foto completa en historial de cambios.
+     * El más reciente conserva su mapa; los anteriores quedan sin él y se reconstruyen al leerlos.
+     */
+    public void migrarPaciente(Long pacienteId) {
+        if (cambioRepository.existsByPacienteId(pacienteId)) {
+            return;
+        }
+        List<Odontograma> odontogramas = odontogramaRepository.findByPacienteIdOrderByFechaCreacionAscIdAsc(pacienteId);
+        MapaDental anterior = MapaDental.vacio();
+        for (int i = 0; i < odontogramas.size(); i++) {
+            Odontograma odontograma = odontogramas.get(i);
+            // Sin fecha o sin mapa (JSON que no se pudo convertir) no se pueden ubicar en el historial
+            if (odontograma.getFechaCreacion() == null || odontograma.getMapaDental() == null) {
+                continue;
+            }
+            MapaDental mapa = odontograma.getMapaDental();
+            registrarCambios(odontograma.getPaciente(), odontograma.getId(), odontograma.getFechaCreacion(), anterior, mapa);
+            anterior = mapa;
+            if (i < odontogramas.size() - 1) {
+                odontograma.setMapaDental(null);
+            }
+        }
+    }
+
+    /**
+     * Caras cuyo estado difiere entre dos mapas, en el orden de MapaDental.DIENTES
+     */
+    public static List<DiferenciaDienteDTO> comparar(MapaDental antes, MapaDental despues) {
+        List<DiferenciaDienteDTO> diferencias = new ArrayList<>();
+        for (int diente : MapaDental.DIENTES) {
+            for (MapaDental.Superficie superficie : MapaDental.Superficie.values()) {
+                MapaDental.Estado estadoAntes = antes.estado(diente, superficie);
+                MapaDental.Estado estadoDespues = despues.estado(diente, superficie);
+                if (estadoAntes != estadoDespues) {
+                    diferencias.add(new DiferenciaDienteDTO(diente, superficie.getClave(),
+                            estadoAntes != null ? estadoAntes.getClave() : null,
+                            estadoDespues != null ? estadoDespues.getClave() : null));
+                }
+            }
+        }
+        return diferencias;
+    }
+}
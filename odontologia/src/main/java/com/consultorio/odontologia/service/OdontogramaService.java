@@ -1,81 +1,180 @@
 package com.consultorio.odontologia.service;
 
+import com.consultorio.odontologia.dto.DiferenciaDienteDTO;
+import com.consultorio.odontologia.entity.MapaDental;
 import com.consultorio.odontologia.entity.Odontograma;
 import com.consultorio.odontologia.entity.Paciente;
 import com.consultorio.odontologia.repository.OdontogramaRepository;
 import com.consultorio.odontologia.repository.PacienteRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @Service
 public class OdontogramaService {
     
+    private static final int TAMANO_LOTE_MIGRACION = 200;
+    
     @Autowired
     private OdontogramaRepository odontogramaRepository;
     
+    @Autowired
+    private ObjectMapper objectMapper;
+    
     @Autowired
     private PacienteRepository pacienteRepository;
     
+    @Autowired
+    private OdontogramaHistorialService historialService;
+    
     /**
-     * Guardar un nuevo odontograma
+     * Guardar un nuevo odontograma.
+     * Pasa a ser el único del paciente con el mapa completo; del anterior solo quedan los cambios en el historial.
      */
+    @Transactional
     public Odontograma guardarOdontograma(Odontograma odontograma) {
         if (odontograma.getFechaCreacion() == null) {
             odontograma.setFechaCreacion(LocalDateTime.now());
         }
         
-        return odontogramaRepository.save(odontograma);
+        MapaDental nuevo = odontograma.getMapaDental() != null
+                ? odontograma.getMapaDental()
+                : convertirDatosDientes(odontograma.getDatosDientesOriginales());
+        Long pacienteId = odontograma.getPaciente().getId();
+        bloquearPaciente(pacienteId);
+        historialService.migrarPaciente(pacienteId);
+        
+        MapaDental anterior = MapaDental.vacio();
+        Optional<Odontograma> masReciente = odontogramaRepository.findFirstByPacienteIdOrderByFechaCreacionDescIdDesc(pacienteId);
+        if (masReciente.isPresent()) {
+            Odontograma previo = masReciente.get();
+            if (previo.getFechaCreacion() != null && odontograma.getFechaCreacion().isBefore(previo.getFechaCreacion())) {
+                throw new IllegalArgumentException("La fecha del odontograma no puede ser anterior a la del último registrado");
+            }
+            anterior = estadoActual(previo);
+            previo.setMapaDental(null);
+        }
+        
+        odontograma.setMapaDental(nuevo);
+        odontograma.setDatosDientes(null);
+        Odontograma guardado = odontogramaRepository.save(odontograma);
+        historialService.registrarCambios(guardado.getPaciente(), guardado.getId(), guardado.getFechaCreacion(), anterior, nuevo);
+        return guardado;
     }
     
     /**
      * Obtener todos los odontogramas de un paciente ordenados por fecha
      */
     public List<Odontograma> obtenerOdontogramasPaciente(Long pacienteId) {
-        return odontogramaRepository.findByPacienteIdOrderByFechaCreacionDesc(pacienteId);
+        List<Odontograma> odontogramas = odontogramaRepository.findByPacienteIdOrderByFechaCreacionDesc(pacienteId);
+        historialService.reconstruir(odontogramas);
+        return odontogramas;
     }
     
     /**
      * Obtener un odontograma específico por ID
      */
     public Odontograma obtenerOdontogramaPorId(Long id) {
-        return odontogramaRepository.findById(id)
+        Odontograma odontograma = odontogramaRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("Odontograma no encontrado con ID: " + id));
+        historialService.reconstruir(List.of(odontograma));
+        return odontograma;
     }
     
     /**
      * Obtener el odontograma más reciente de un paciente
      */
     public Optional<Odontograma> obtenerOdontogramaMasReciente(Long pacienteId) {
-        List<Odontograma> odontogramas = odontogramaRepository.findByPacienteIdOrderByFechaCreacionDesc(pacienteId);
-        return odontogramas.isEmpty() ? Optional.empty() : Optional.of(odontogramas.get(0));
+        Optional<Odontograma> odontograma = odontogramaRepository.findFirstByPacienteIdOrderByFechaCreacionDescIdDesc(pacienteId);
+        odontograma.ifPresent(o -> historialService.reconstruir(List.of(o)));
+        return odontograma;
     }
     
     /**
-     * Actualizar un odontograma existente
+     * Actualizar un odontograma existente.
+     * Solo el más reciente: los anteriores son parte del historial del que se reconstruyen los siguientes.
      */
+    @Transactional
     public Odontograma actualizarOdontograma(Long id, Odontograma odontogramaActualizado) {
+        // Se bloquea antes de leer el odontograma para no diferenciar contra un estado ya reemplazado
+        Long pacienteId = odontogramaRepository.findPacienteIdById(id)
+            .orElseThrow(() -> new RuntimeException("Odontograma no encontrado con ID: " + id));
+        bloquearPaciente(pacienteId);
         Odontograma odontogramaExistente = obtenerOdontogramaPorId(id);
+        historialService.migrarPaciente(pacienteId);
+        
+        Long masRecienteId = odontogramaRepository.findFirstByPacienteIdOrderByFechaCreacionDescIdDesc(pacienteId)
+            .map(Odontograma::getId)
+            .orElse(null);
+        if (!odontogramaExistente.getId().equals(masRecienteId)) {
+            throw new IllegalStateException("Solo se puede modificar el odontograma más reciente del paciente");
+        }
+        
+        MapaDental anterior = estadoActual(odontogramaExistente);
+        MapaDental nuevo = convertirDatosDientes(odontogramaActualizado.getDatosDientesOriginales());
         
         odontogramaExistente.setTipoDenticion(odontogramaActualizado.getTipoDenticion());
-        odontogramaExistente.setDatosDientes(odontogramaActualizado.getDatosDientes());
+        odontogramaExistente.setMapaDental(nuevo);
+        odontogramaExistente.setDatosDientes(null);
         odontogramaExistente.setObservaciones(odontogramaActualizado.getObservaciones());
         
-        return odontogramaRepository.save(odontogramaExistente);
+        Odontograma guardado = odontogramaRepository.save(odontogramaExistente);
+        // Con la fecha de la visita, para que sigan contando al reconstruirla si deja de ser la más reciente
+        historialService.registrarCambios(guardado.getPaciente(), guardado.getId(), guardado.getFechaCreacion(), anterior, nuevo);
+        return guardado;
     }
     
     /**
-     * Eliminar un odontograma
+     * Eliminar un odontograma.
+     * Si es el más reciente se descartan sus cambios y el anterior vuelve a guardar el mapa completo;
+     * si es uno anterior sus cambios quedan en el historial porque los siguientes se construyeron sobre ellos.
      */
+    @Transactional
     public void eliminarOdontograma(Long id) {
-        if (!odontogramaRepository.existsById(id)) {
-            throw new RuntimeException("Odontograma no encontrado con ID: " + id);
-        }
+        Long pacienteId = odontogramaRepository.findPacienteIdById(id)
+            .orElseThrow(() -> new RuntimeException("Odontograma no encontrado con ID: " + id));
+        bloquearPaciente(pacienteId);
+        Odontograma odontograma = odontogramaRepository.findById(id)
+            .orElseThrow(() -> new RuntimeException("Odontograma no encontrado con ID: " + id));
+        boolean eraMasReciente = odontogramaRepository.findFirstByPacienteIdOrderByFechaCreacionDescIdDesc(pacienteId)
+            .map(o -> o.getId().equals(id))
+            .orElse(false);
         
-        odontogramaRepository.deleteById(id);
+        odontogramaRepository.delete(odontograma);
+        if (eraMasReciente && odontograma.getFechaCreacion() != null) {
+            historialService.descartarVisita(pacienteId, id, odontograma.getFechaCreacion());
+            odontogramaRepository.findFirstByPacienteIdOrderByFechaCreacionDescIdDesc(pacienteId)
+                .filter(previo -> previo.getMapaDental() == null && previo.getDatosDientesOriginales() == null)
+                .ifPresent(previo -> previo.setMapaDental(historialService.obtenerEstadoAl(pacienteId, previo.getFechaCreacion())));
+        }
+    }
+    
+    /**
+     * Los cambios al odontograma de un paciente se aplican de a uno: dos guardados simultáneos leerían
+     * el mismo más reciente y dejarían dos filas con mapa_dental y el historial intercalado.
+     * Se bloquea la fila del paciente porque el primer odontograma todavía no tiene fila propia que bloquear.
+     */
+    private void bloquearPaciente(Long pacienteId) {
+        pacienteRepository.bloquearPorId(pacienteId)
+            .orElseThrow(() -> new RuntimeException("Paciente no encontrado con ID: " + pacienteId));
     }
     
     /**
@@ -91,4 +190,134 @@ public class OdontogramaService {
     public boolean pacienteExiste(Long pacienteId) {
         return pacienteRepository.existsById(pacienteId);
     }
-} 
\ No newline at end of file
+    
+    /**
+     * Dientes con al menos una cara en el estado indicado, según un odontograma
+     */
+    public List<Integer> obtenerDientesConEstado(Long id, String estado) {
+        MapaDental mapa = obtenerMapa(obtenerOdontogramaPorId(id));
+        return mapa.dientesCon(MapaDental.Estado.desdeClave(estado));
+    }
+    
+    /**
+     * Para cada diente (FDI), cuántos pacientes lo tienen en el estado indicado en su odontograma más reciente.
+     * Recorre solo la columna binaria; no se parsea JSON.
+     */
+    @Transactional(readOnly = true)
+    public Map<Integer, Long> contarPacientesPorDiente(String estado) {
+        MapaDental.Estado buscado = MapaDental.Estado.desdeClave(estado);
+        long[] cantidades = new long[MapaDental.DIENTES.length];
+        Set<Long> pacientesContados = new HashSet<>();
+        try (Stream<Object[]> filas = odontogramaRepository.streamMapasMasRecientes()) {
+            filas.forEach(fila -> {
+                // Si dos odontogramas comparten la fecha más reciente se cuenta uno solo
+                if (!pacientesContados.add((Long) fila[0])) {
+                    return;
+                }
+                MapaDental mapa = (MapaDental) fila[1];
+                for (int i = 0; i < MapaDental.DIENTES.length; i++) {
+                    if (mapa.tieneEstado(MapaDental.DIENTES[i], buscado)) {
+                        cantidades[i]++;
+                    }
+                }
+            });
+        }
+        Map<Integer, Long> resultado = new LinkedHashMap<>();
+        for (int i = 0; i < MapaDental.DIENTES.length; i++) {
+            if (cantidades[i] > 0) {
+                resultado.put(MapaDental.DIENTES[i], cantidades[i]);
+            }
+        }
+        return resultado;
+    }
+    
+    /**
+     * Caras que cambiaron entre dos odontogramas
+     */
+    public List<DiferenciaDienteDTO> obtenerDiferencias(Long anteriorId, Long posteriorId) {
+        MapaDental anterior = obtenerMapa(obtenerOdontogramaPorId(anteriorId));
+        MapaDental posterior = obtenerMapa(obtenerOdontogramaPorId(posteriorId));
+        return OdontogramaHistorialService.comparar(anterior, posterior);
+    }
+    
+    /**
+     * Estado del odontograma de un paciente al final del día indicado
+     */
+    public MapaDental obtenerEstadoAl(Long pacienteId, LocalDate fecha) {
+        return historialService.obtenerEstadoAl(pacienteId, fecha.atTime(LocalTime.MAX));
+    }
+    
+    /**
+     * Caras que cambiaron entre el final de un día y el final de otro
+     */
+    public List<DiferenciaDienteDTO> obtenerDiferenciasEntreFechas(Long pacienteId, LocalDate desde, LocalDate hasta) {
+        return historialService.obtenerDiferenciasEntre(pacienteId, desde.atTime(LocalTime.MAX), hasta.atTime(LocalTime.MAX));
+    }
+    
+    /**
+     * Pasa a mapa_dental los odontogramas guardados como JSON antes de que existiera la columna.
+     * Los que tienen valores que el formato binario no representa quedan como JSON.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrarDatosDientes() {
+        long cursor = 0L;
+        List<Odontograma> pendientes;
+        do {
+            pendientes = odontogramaRepository.findPendientesDeMigrar(cursor, PageRequest.of(0, TAMANO_LOTE_MIGRACION));
+            if (pendientes.isEmpty()) {
+                break;
+            }
+            List<Odontograma> migrados = new ArrayList<>();
+            for (Odontograma odontograma : pendientes) {
+                try {
+                    odontograma.setMapaDental(convertirDatosDientes(odontograma.getDatosDientesOriginales()));
+                    odontograma.setDatosDientes(null);
+                    migrados.add(odontograma);
+                } catch (RuntimeException e) {
+                    // Se mantiene el JSON original
+                }
+            }
+            odontogramaRepository.saveAll(migrados);
+            cursor = pendientes.get(pendientes.size() - 1).getId();
+        } while (pendientes.size() == TAMANO_LOTE_MIGRACION);
+        
+        // Después de tener el mapa binario, las fotos completas pasan al historial de cambios
+        for (Long pacienteId : odontogramaRepository.findPacientesSinHistorial()) {
+            try {
+                historialService.migrarPaciente(pacienteId);
+            } catch (RuntimeException e) {
+                // El paciente se vuelve a intentar en el próximo inicio o al guardar su próximo odontograma
+            }
+        }
+    }
+    
+    private MapaDental convertirDatosDientes(String json) {
+        if (json == null || json.isBlank()) {
+            return MapaDental.vacio();
+        }
+        try {
+            Map<String, Object> dientes = objectMapper.readValue(json, new TypeReference<Map<String, Object>>() {});
+            return MapaDental.desdeMapa(dientes);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Datos de dientes inválidos: " + e.getOriginalMessage());
+        }
+    }
+    
+    // Los odontogramas todavía sin migrar se convierten en memoria
+    private MapaDental obtenerMapa(Odontograma odontograma) {
+        return odontograma.getMapaVigente() != null
+                ? odontograma.getMapaVigente()
+                : convertirDatosDientes(odontograma.getDatosDientesOriginales());
+    }
+    
+    // Estado sobre el que se calculan los cambios de una nueva visita
+    private MapaDental estadoActual(Odontograma masReciente) {
+        if (masReciente.getMapaDental() != null) {
+            return masReciente.getMapaDental();
+        }
+        if (masReciente.getFechaCreacion() == null) {
+            return MapaDental.vacio();
+        }
+        return historialService.obtenerEstadoAl(masReciente.getPaciente().getId(), masReciente.getFechaCreacion());
+    }
+}
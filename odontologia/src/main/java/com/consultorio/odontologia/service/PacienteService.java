@@ -1,22 +1,105 @@
 package com.consultorio.odontologia.service;
 
 import com.consultorio.odontologia.dto.PacienteDTO;
+import com.consultorio.odontologia.dto.PaginaDTO;
+import com.consultorio.odontologia.dto.SugerenciaPacienteDTO;
 import com.consultorio.odontologia.entity.Paciente;
+import com.consultorio.odontologia.repository.CitaRepository;
+import com.consultorio.odontologia.repository.DiagnosticoRepository;
+import com.consultorio.odontologia.repository.HistoriaClinicaRepository;
+import com.consultorio.odontologia.repository.HistoriaClinicaVersionRepository;
+import com.consultorio.odontologia.repository.OdontogramaCambioRepository;
+import com.consultorio.odontologia.repository.OdontogramaCheckpointRepository;
+import com.consultorio.odontologia.repository.OdontogramaRepository;
 import com.consultorio.odontologia.repository.PacienteRepository;
+import com.consultorio.odontologia.repository.PeriodonciaRepository;
+import com.consultorio.odontologia.repository.PeriodontogramaRepository;
+import com.consultorio.odontologia.repository.PresupuestoRepository;
+import com.consultorio.odontologia.repository.TratamientoRepository;
+import com.consultorio.odontologia.service.util.IndiceTrigramas;
+import com.consultorio.odontologia.service.util.Paginacion;
+import com.consultorio.odontologia.service.util.TextoNormalizador;
+import com.consultorio.odontologia.service.util.TransaccionUtil;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Service
 public class PacienteService {
 
+    private static final int LIMITE_BUSQUEDA_POR_DEFECTO = 50;
+    private static final int LIMITE_BUSQUEDA_MAXIMO = 200;
+    private static final int LIMITE_SUGERENCIAS_POR_DEFECTO = 10;
+    private static final int TAMANO_LOTE_NORMALIZACION = 500;
+
     @Autowired
     private PacienteRepository pacienteRepository;
 
+    @Autowired
+    private IndicePacientesService indicePacientesService;
+
+    @Autowired
+    private IndiceClinicoService indiceClinicoService;
+
+    @Autowired
+    private DisponibilidadService disponibilidadService;
+
+    @Autowired
+    private CitaRepository citaRepository;
+
+    @Autowired
+    private HistoriaClinicaRepository historiaClinicaRepository;
+
+    @Autowired
+    private HistoriaClinicaVersionRepository historiaClinicaVersionRepository;
+
+    @Autowired
+    private OdontogramaRepository odontogramaRepository;
+
+    @Autowired
+    private OdontogramaCambioRepository odontogramaCambioRepository;
+
+    @Autowired
+    private OdontogramaCheckpointRepository odontogramaCheckpointRepository;
+
+    @Autowired
+    private PeriodonciaRepository periodonciaRepository;
+
+    @Autowired
+    private PeriodontogramaRepository periodontogramaRepository;
+
+    @Autowired
+    private PresupuestoRepository presupuestoRepository;
+
+    @Autowired
+    private TratamientoRepository tratamientoRepository;
+
+    @Autowired
+    private LibroIngresosService libroIngresosService;
+
+    @Autowired
+    private DiagnosticoRepository diagnosticoRepository;
+
+    @Autowired
+    private ResumenDiagnosticosService resumenDiagnosticosService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     public Paciente registrarPaciente(PacienteDTO pacienteDTO) {
         Paciente paciente = new Paciente();
         
@@ -56,38 +139,108 @@ public class PacienteService {
         paciente.setEdad(pacienteDTO.getEdad());
         paciente.setMedication("");
         paciente.setDentalHistory("");
-        return pacienteRepository.save(paciente);
+        Paciente guardado = pacienteRepository.save(paciente);
+        TransaccionUtil.despuesDelCommit(() -> indicePacientesService.indexar(guardado));
+        return guardado;
     }
 
     public List<Paciente> obtenerTodosLosPacientes() {
         return pacienteRepository.findAll();
     }
 
+    public PaginaDTO<Paciente> obtenerPaginaPacientes(Long despuesDeId, Integer tamano) {
+        Slice<Paciente> slice = pacienteRepository.findPaginaDespuesDe(Paginacion.cursorInicial(despuesDeId), Paginacion.primeraPagina(tamano));
+        return Paginacion.desdeSlice(slice, p -> p, Paciente::getId);
+    }
+
+    @Transactional(readOnly = true)
+    public void exportarPacientes(Consumer<Paciente> destino) {
+        Paginacion.recorrerEnLotes(pacienteRepository.streamTodos(), entityManager, destino);
+    }
+
     public Paciente obtenerPacientePorId(Long id) {
         return pacienteRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Paciente no encontrado"));
     }
 
-    public List<Paciente> buscarPacientes(String nombre, String apellido, String cedula) {
-        List<Paciente> todosLosPacientes = pacienteRepository.findAll();
-        
-        return todosLosPacientes.stream()
-            .filter(paciente -> {
-                boolean coincideNombre = nombre != null && !nombre.isEmpty() && 
-                                         (paciente.getName() != null && paciente.getName().toLowerCase().contains(nombre.toLowerCase()));
-                boolean coincideApellido = apellido != null && !apellido.isEmpty() && 
-                                          (paciente.getLastname() != null && paciente.getLastname().toLowerCase().contains(apellido.toLowerCase()));
-                boolean coincideCedula = cedula != null && !cedula.isEmpty() && 
-                                        (paciente.getCI() != null && paciente.getCI().toString().contains(cedula));
-
-                // Si no se proporciona ningún término de búsqueda, mostrar todos los pacientes.
-                // Si se proporciona, que coincida en al menos uno de los campos.
-                return (nombre == null || nombre.isEmpty()) && (apellido == null || apellido.isEmpty()) && (cedula == null || cedula.isEmpty()) || 
-                       coincideNombre || coincideApellido || coincideCedula;
-            })
+    public List<Paciente> buscarPacientes(String nombre, String apellido, String cedula, Long despuesDeId, Integer limite) {
+        long cursor = despuesDeId != null ? despuesDeId : 0L;
+        int tamano = limite == null || limite <= 0 ? LIMITE_BUSQUEDA_POR_DEFECTO : Math.min(limite, LIMITE_BUSQUEDA_MAXIMO);
+        Pageable pagina = PageRequest.of(0, tamano);
+
+        String prefijoNombre = prefijoNormalizado(nombre);
+        String prefijoApellido = prefijoNormalizado(apellido);
+        String prefijoCedula = cedula != null ? TextoNormalizador.soloDigitos(cedula) : null;
+
+        // Si no se proporciona ningún término de búsqueda, se devuelve la siguiente página de pacientes
+        if (prefijoNombre == null && prefijoApellido == null && (prefijoCedula == null || prefijoCedula.isEmpty())) {
+            return pacienteRepository.findByIdGreaterThanOrderByIdAsc(cursor, pagina);
+        }
+
+        // Cada término usa su propio índice; se unen los resultados (OR) ordenados por id.
+        // Todas las páginas siguen el mismo orden por id para que despuesDeId sea un cursor válido;
+        // el ranking tolerante a errores del índice en memoria está en sugerirPacientes (/buscar/sugerencias)
+        Map<Long, Paciente> coincidencias = new TreeMap<>();
+        if (prefijoNombre != null) {
+            pacienteRepository.buscarPorPrefijoNombre(prefijoNombre, cursor, pagina)
+                .forEach(p -> coincidencias.put(p.getId(), p));
+        }
+        if (prefijoApellido != null) {
+            pacienteRepository.buscarPorPrefijoApellido(prefijoApellido, cursor, pagina)
+                .forEach(p -> coincidencias.put(p.getId(), p));
+        }
+        if (prefijoCedula != null && !prefijoCedula.isEmpty()) {
+            pacienteRepository.buscarPorPrefijoCedula(prefijoCedula + "%", cursor, pagina)
+                .forEach(p -> coincidencias.put(p.getId(), p));
+        }
+
+        return coincidencias.values().stream()
+            .limit(tamano)
             .collect(Collectors.toList());
     }
 
+    public List<SugerenciaPacienteDTO> sugerirPacientes(String consulta, Integer limite) {
+        int tamano = limite == null || limite <= 0 ? LIMITE_SUGERENCIAS_POR_DEFECTO : Math.min(limite, LIMITE_BUSQUEDA_MAXIMO);
+        List<IndiceTrigramas.Resultado> resultados = indicePacientesService.buscar(consulta, tamano);
+        if (resultados == null) {
+            throw new RuntimeException("El índice de búsqueda no está disponible");
+        }
+        return resultados.stream()
+            .map(r -> new SugerenciaPacienteDTO(r.getId(), r.getNombre(), r.getApellido(), r.getCedula(), r.getPuntaje()))
+            .collect(Collectors.toList());
+    }
+
+    private String prefijoNormalizado(String termino) {
+        if (termino == null || termino.trim().isEmpty()) {
+            return null;
+        }
+        return TextoNormalizador.escaparLike(TextoNormalizador.normalizar(termino)) + "%";
+    }
+
+    // Completa las columnas normalizadas de los pacientes cargados antes de que existieran,
+    // por lotes de id y con UPDATE directo, en una sola transacción
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void normalizarPacientesExistentes() {
+        long cursor = 0L;
+        List<Object[]> pendientes;
+        do {
+            pendientes = pacienteRepository.findPendientesDeNormalizar(cursor, PageRequest.of(0, TAMANO_LOTE_NORMALIZACION));
+            for (Object[] fila : pendientes) {
+                Long cedula = (Long) fila[3];
+                pacienteRepository.actualizarCamposBusqueda((Long) fila[0], TextoNormalizador.normalizar((String) fila[1]),
+                        TextoNormalizador.normalizar((String) fila[2]), cedula != null ? cedula.toString() : null);
+            }
+            if (!pendientes.isEmpty()) {
+                cursor = (Long) pendientes.get(pendientes.size() - 1)[0];
+            }
+        } while (pendientes.size() == TAMANO_LOTE_NORMALIZACION);
+    }
+
+    /**
+     * Elimina el paciente y todo su historial con DELETE por conjunto, en orden de dependencias,
+     * sin cargar las colecciones del paciente (antes se emitía un DELETE por fila hija)
+     */
     @Transactional
     public void eliminarPaciente(Long id) {
         try {
@@ -95,10 +248,33 @@ public class PacienteService {
                 throw new IllegalArgumentException("El ID del paciente no puede ser nulo");
             }
 
-            Paciente paciente = pacienteRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Paciente no encontrado"));
+            if (!pacienteRepository.existsById(id)) {
+                throw new RuntimeException("Paciente no encontrado");
+            }
+
+            List<Long> citas = citaRepository.findIdsByPacienteId(id);
+
+            libroIngresosService.registrarBajasDePaciente(id);
+            presupuestoRepository.eliminarTratamientosPorPacienteId(id);
+            presupuestoRepository.eliminarPorPacienteId(id);
+            historiaClinicaVersionRepository.eliminarPorPacienteId(id);
+            historiaClinicaRepository.eliminarPorPacienteId(id);
+            citaRepository.eliminarPorPacienteId(id);
+            odontogramaRepository.eliminarPorPacienteId(id);
+            odontogramaCambioRepository.eliminarPorPacienteId(id);
+            odontogramaCheckpointRepository.eliminarPorPacienteId(id);
+            periodonciaRepository.eliminarPorPacienteId(id);
+            periodontogramaRepository.eliminarPorPacienteId(id);
+            tratamientoRepository.eliminarPorPacienteId(id);
+            resumenDiagnosticosService.eliminarPaciente(id);
+            diagnosticoRepository.eliminarPorPacienteId(id);
+            pacienteRepository.eliminarPorId(id);
 
-            pacienteRepository.delete(paciente);
+            TransaccionUtil.despuesDelCommit(() -> {
+                indicePacientesService.eliminar(id);
+                indiceClinicoService.eliminarPaciente(id);
+                citas.forEach(disponibilidadService::liberar);
+            });
         } catch (Exception e) {
             throw new RuntimeException("Error al eliminar el paciente: " + e.getMessage());
         }
@@ -137,7 +313,10 @@ public class PacienteService {
         if (pacienteDTO.getFecha() != null) paciente.setReleaseSummary(pacienteDTO.getFecha());
         if (pacienteDTO.getEdad() != null) paciente.setEdad(pacienteDTO.getEdad());
 
-        return pacienteRepository.save(paciente);
+        Paciente actualizado = pacienteRepository.save(paciente);
+        resumenDiagnosticosService.actualizarPaciente(actualizado);
+        TransaccionUtil.despuesDelCommit(() -> indicePacientesService.indexar(actualizado));
+        return actualizado;
     }
 
     public Optional<Paciente> findById(Long id) {
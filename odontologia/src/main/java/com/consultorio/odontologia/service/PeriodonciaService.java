@@ -1,24 +1,39 @@
 package com.consultorio.odontologia.service;
 
 import com.consultorio.odontologia.dto.PeriodonciaDTO;
-import com.consultorio.odontologia.entity.Periodoncia;
+import com.consultorio.odontologia.dto.PromedioIndicesMesDTO;
+import com.consultorio.odontologia.dto.UltimoRegistroDTO;
 import com.consultorio.odontologia.entity.Paciente;
-import com.consultorio.odontologia.repository.PeriodonciaRepository;
+import com.consultorio.odontologia.entity.Periodoncia;
 import com.consultorio.odontologia.repository.PacienteRepository;
+import com.consultorio.odontologia.repository.PeriodonciaRepository;
+import com.consultorio.odontologia.service.util.CacheLru;
+import com.consultorio.odontologia.service.util.IndicesPeriodoncia;
+import com.consultorio.odontologia.service.util.PanelIndicesPeriodoncia;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
 public class PeriodonciaService {
     
+    private static final int TAMANO_LOTE_BITS = 500;
+    
     @Autowired
     private PeriodonciaRepository periodonciaRepository;
     
@@ -27,6 +42,53 @@ public class PeriodonciaService {
     
     @Autowired
     private ObjectMapper objectMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Value("${periodoncia.cache-indices.max-entradas:1000}")
+    private int maxEntradasCache;
+    
+    // Índices ya interpretados por ficha; evita volver a parsear el JSON en cada lectura
+    private CacheLru<ClaveIndices, IndicesPeriodoncia> cacheIndices;
+    
+    // id + fechaModificacion; el largo y hash del JSON distinguen dos modificaciones del mismo día
+    private static final class ClaveIndices {
+        private final Long id;
+        private final LocalDate fechaModificacion;
+        private final long huellaPlaca;
+        private final long huellaSarro;
+        
+        ClaveIndices(Periodoncia periodoncia) {
+            this.id = periodoncia.getId();
+            this.fechaModificacion = periodoncia.getFechaModificacion();
+            this.huellaPlaca = huella(periodoncia.getIndicePlaca());
+            this.huellaSarro = huella(periodoncia.getIndiceSarro());
+        }
+        
+        private static long huella(String json) {
+            return json == null ? -1L : ((long) json.length() << 32) | (json.hashCode() & 0xFFFFFFFFL);
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ClaveIndices)) return false;
+            ClaveIndices otra = (ClaveIndices) o;
+            return Objects.equals(id, otra.id) && Objects.equals(fechaModificacion, otra.fechaModificacion)
+                    && huellaPlaca == otra.huellaPlaca && huellaSarro == otra.huellaSarro;
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(id, fechaModificacion, huellaPlaca, huellaSarro);
+        }
+    }
+    
+    @PostConstruct
+    public void iniciarCache() {
+        cacheIndices = new CacheLru<>(maxEntradasCache);
+    }
     
     // Guardar nueva periodoncia
     public PeriodonciaDTO guardarPeriodoncia(PeriodonciaDTO dto) throws Exception {
@@ -48,9 +110,8 @@ public class PeriodonciaService {
             periodoncia.setIndiceSarro(objectMapper.writeValueAsString(dto.getIndiceSarro()));
         }
         
-        // Calcular porcentajes
-        periodoncia.setPorcentajePlaca(calcularPorcentajePlaca(dto.getIndicePlaca()));
-        periodoncia.setPorcentajeSarro(calcularPorcentajeSarro(dto.getIndiceSarro()));
+        // Calcular porcentajes y bits
+        aplicarIndices(periodoncia, dto);
         
         Periodoncia saved = periodonciaRepository.save(periodoncia);
         return new PeriodonciaDTO(saved);
@@ -74,11 +135,11 @@ public class PeriodonciaService {
             periodoncia.setIndiceSarro(objectMapper.writeValueAsString(dto.getIndiceSarro()));
         }
         
-        // Calcular porcentajes
-        periodoncia.setPorcentajePlaca(calcularPorcentajePlaca(dto.getIndicePlaca()));
-        periodoncia.setPorcentajeSarro(calcularPorcentajeSarro(dto.getIndiceSarro()));
+        // Calcular porcentajes y bits
+        aplicarIndices(periodoncia, dto);
         
         Periodoncia updated = periodonciaRepository.save(periodoncia);
+        cacheIndices.invalidarSi(clave -> id.equals(clave.id));
         return new PeriodonciaDTO(updated);
     }
     
@@ -87,17 +148,7 @@ public class PeriodonciaService {
         Periodoncia periodoncia = periodonciaRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Periodoncia no encontrada"));
         
-        PeriodonciaDTO dto = new PeriodonciaDTO(periodoncia);
-        
-        // Convertir JSON a Map
-        if (periodoncia.getIndicePlaca() != null) {
-            dto.setIndicePlaca(objectMapper.readValue(periodoncia.getIndicePlaca(), Map.class));
-        }
-        if (periodoncia.getIndiceSarro() != null) {
-            dto.setIndiceSarro(objectMapper.readValue(periodoncia.getIndiceSarro(), Map.class));
-        }
-        
-        return dto;
+        return aDTO(periodoncia);
     }
     
     // Obtener periodoncia por paciente y fecha
@@ -105,35 +156,29 @@ public class PeriodonciaService {
         Periodoncia periodoncia = periodonciaRepository.findByPacienteIdAndFechaRegistro(pacienteId, fecha)
                 .orElseThrow(() -> new RuntimeException("Periodoncia no encontrada"));
         
-        PeriodonciaDTO dto = new PeriodonciaDTO(periodoncia);
-        
-        // Convertir JSON a Map
-        if (periodoncia.getIndicePlaca() != null) {
-            dto.setIndicePlaca(objectMapper.readValue(periodoncia.getIndicePlaca(), Map.class));
-        }
-        if (periodoncia.getIndiceSarro() != null) {
-            dto.setIndiceSarro(objectMapper.readValue(periodoncia.getIndiceSarro(), Map.class));
-        }
-        
-        return dto;
+        return aDTO(periodoncia);
     }
     
     // Obtener periodoncia más reciente de un paciente
     public PeriodonciaDTO obtenerMasReciente(Long pacienteId) throws Exception {
-        Periodoncia periodoncia = periodonciaRepository.findMostRecentByPacienteId(pacienteId)
+        return buscarMasReciente(pacienteId)
                 .orElseThrow(() -> new RuntimeException("No se encontraron periodoncias para este paciente"));
-        
-        PeriodonciaDTO dto = new PeriodonciaDTO(periodoncia);
-        
-        // Convertir JSON a Map
-        if (periodoncia.getIndicePlaca() != null) {
-            dto.setIndicePlaca(objectMapper.readValue(periodoncia.getIndicePlaca(), Map.class));
-        }
-        if (periodoncia.getIndiceSarro() != null) {
-            dto.setIndiceSarro(objectMapper.readValue(periodoncia.getIndiceSarro(), Map.class));
+    }
+    
+    // Igual que obtenerMasReciente, pero vacío si el paciente no tiene registros
+    public Optional<PeriodonciaDTO> buscarMasReciente(Long pacienteId) throws Exception {
+        Optional<Periodoncia> encontrado = periodonciaRepository.findFirstByPacienteIdOrderByFechaRegistroDescIdDesc(pacienteId);
+        if (encontrado.isEmpty()) {
+            return Optional.empty();
         }
+        Periodoncia periodoncia = encontrado.get();
         
-        return dto;
+        return Optional.of(aDTO(periodoncia));
+    }
+    
+    // Id y fechas de la más reciente, para saber si existe sin traer los índices
+    public Optional<UltimoRegistroDTO> obtenerUltimoRegistro(Long pacienteId) {
+        return periodonciaRepository.findUltimoRegistro(pacienteId, PageRequest.of(0, 1)).stream().findFirst();
     }
     
     // Obtener todas las fechas disponibles para un paciente
@@ -152,24 +197,89 @@ public class PeriodonciaService {
         
         return periodoncias.stream().map(periodoncia -> {
             try {
-                PeriodonciaDTO dto = new PeriodonciaDTO(periodoncia);
-                
-                // Convertir JSON a Map
-                if (periodoncia.getIndicePlaca() != null) {
-                    dto.setIndicePlaca(objectMapper.readValue(periodoncia.getIndicePlaca(), Map.class));
-                }
-                if (periodoncia.getIndiceSarro() != null) {
-                    dto.setIndiceSarro(objectMapper.readValue(periodoncia.getIndiceSarro(), Map.class));
-                }
-                
-                return dto;
+                return aDTO(periodoncia);
             } catch (Exception e) {
                 throw new RuntimeException("Error al procesar periodoncia", e);
             }
         }).collect(Collectors.toList());
     }
     
-    // Calcular porcentaje de placa
+    /**
+     * Promedio de los índices de placa y sarro de todas las fichas, por mes, entre dos fechas inclusive
+     */
+    public List<PromedioIndicesMesDTO> obtenerPromediosMensuales(LocalDate desde, LocalDate hasta) {
+        if (hasta.isBefore(desde)) {
+            throw new IllegalArgumentException("La fecha final no puede ser anterior a la inicial");
+        }
+        PanelIndicesPeriodoncia panel = new PanelIndicesPeriodoncia();
+        for (Object[] fila : periodonciaRepository.findBitsEntreFechas(desde, hasta.plusDays(1))) {
+            panel.agregar((LocalDate) fila[0], (Long) fila[1], (Long) fila[2], (Long) fila[3]);
+        }
+        return panel.promediosPorMes();
+    }
+    
+    /**
+     * Calcula los bits de las fichas guardadas antes de que existieran las columnas.
+     * Cada lote va en su propia transacción: si el arranque se corta, los lotes ya hechos quedan completos
+     * y el siguiente arranque sigue con los que faltan.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void completarBitsIndices() {
+        Long cursor = 0L;
+        do {
+            long desde = cursor;
+            cursor = transactionTemplate.execute(estado -> completarLoteBits(desde));
+        } while (cursor != null);
+    }
+
+    // Devuelve el último id del lote, o null si no quedan más
+    private Long completarLoteBits(long cursor) {
+        List<Periodoncia> pendientes = periodonciaRepository.findSinBits(cursor, PageRequest.of(0, TAMANO_LOTE_BITS));
+        List<Long> fueraDeFicha = new ArrayList<>();
+        for (Periodoncia periodoncia : pendientes) {
+            IndicesPeriodoncia indices = interpretar(periodoncia);
+            // Las que no entran en la ficha quedan sin bits y fuera de los agregados
+            if (indices != null) {
+                periodonciaRepository.actualizarBits(periodoncia.getId(),
+                        indices.getPlacaSuperior(), indices.getPlacaInferior(), indices.getSarro(),
+                        indices.porcentajePlaca(), indices.porcentajeSarro());
+            } else {
+                fueraDeFicha.add(periodoncia.getId());
+            }
+        }
+        if (!fueraDeFicha.isEmpty()) {
+            periodonciaRepository.marcarIndicesFueraDeFicha(fueraDeFicha);
+        }
+        return pendientes.size() == TAMANO_LOTE_BITS ? pendientes.get(pendientes.size() - 1).getId() : null;
+    }
+    
+    // Bits y porcentajes de los índices recibidos; los que no entran en la ficha se calculan sobre el mapa
+    private void aplicarIndices(Periodoncia periodoncia, PeriodonciaDTO dto) {
+        IndicesPeriodoncia indices;
+        try {
+            indices = IndicesPeriodoncia.desdeMapas(dto.getIndicePlaca(), dto.getIndiceSarro());
+        } catch (IllegalArgumentException e) {
+            periodoncia.setPorcentajePlaca(calcularPorcentajePlaca(dto.getIndicePlaca()));
+            periodoncia.setPorcentajeSarro(calcularPorcentajeSarro(dto.getIndiceSarro()));
+            periodoncia.setPlacaBitsSuperior(null);
+            periodoncia.setPlacaBitsInferior(null);
+            periodoncia.setSarroBits(null);
+            periodoncia.setIndicesFueraDeFicha(true);
+            return;
+        }
+        periodoncia.setIndicesFueraDeFicha(false);
+        periodoncia.setPorcentajePlaca(indices.porcentajePlaca());
+        periodoncia.setPorcentajeSarro(indices.porcentajeSarro());
+        if (dto.getIndicePlaca() != null) {
+            periodoncia.setPlacaBitsSuperior(indices.getPlacaSuperior());
+            periodoncia.setPlacaBitsInferior(indices.getPlacaInferior());
+        }
+        if (dto.getIndiceSarro() != null) {
+            periodoncia.setSarroBits(indices.getSarro());
+        }
+    }
+    
+    // Calcular porcentaje de placa (índices con dientes fuera de la ficha)
     private Integer calcularPorcentajePlaca(Map<String, Object> indicePlaca) {
         if (indicePlaca == null || indicePlaca.isEmpty()) {
             return 0;
@@ -183,7 +293,7 @@ public class PeriodonciaService {
         return totalSectores > 0 ? (int) Math.round((double) sectoresSeleccionados / totalSectores * 100) : 0;
     }
     
-    // Calcular porcentaje de sarro
+    // Calcular porcentaje de sarro (índices con dientes fuera de la ficha)
     private Integer calcularPorcentajeSarro(Map<String, Object> indiceSarro) {
         if (indiceSarro == null || indiceSarro.isEmpty()) {
             return 0;
@@ -204,4 +314,48 @@ public class PeriodonciaService {
         
         return totalSectores > 0 ? (int) Math.round((double) sectoresConSarro / totalSectores * 100) : 0;
     }
-} 
\ No newline at end of file
+    
+    // Aciertos, fallos y desalojos de la caché de índices
+    public Map<String, Object> obtenerEstadisticasCache() {
+        return cacheIndices.obtenerEstadisticas();
+    }
+    
+    public void reiniciarEstadisticasCache() {
+        cacheIndices.reiniciarEstadisticas();
+    }
+    
+    private PeriodonciaDTO aDTO(Periodoncia periodoncia) throws Exception {
+        PeriodonciaDTO dto = new PeriodonciaDTO(periodoncia);
+        if (periodoncia.getIndicePlaca() == null && periodoncia.getIndiceSarro() == null) {
+            return dto;
+        }
+        
+        IndicesPeriodoncia indices = cacheIndices.obtener(new ClaveIndices(periodoncia), () -> interpretar(periodoncia));
+        if (indices != null) {
+            dto.setIndicePlaca(indices.aMapaPlaca());
+            dto.setIndiceSarro(indices.aMapaSarro());
+        } else {
+            // Fichas con dientes o sectores que la ficha actual no tiene: se devuelven tal cual, sin caché
+            if (periodoncia.getIndicePlaca() != null) {
+                dto.setIndicePlaca(objectMapper.readValue(periodoncia.getIndicePlaca(), Map.class));
+            }
+            if (periodoncia.getIndiceSarro() != null) {
+                dto.setIndiceSarro(objectMapper.readValue(periodoncia.getIndiceSarro(), Map.class));
+            }
+        }
+        return dto;
+    }
+    
+    // null si el JSON no se puede representar en IndicesPeriodoncia
+    private IndicesPeriodoncia interpretar(Periodoncia periodoncia) {
+        try {
+            Map<?, ?> placa = periodoncia.getIndicePlaca() != null
+                    ? objectMapper.readValue(periodoncia.getIndicePlaca(), Map.class) : null;
+            Map<?, ?> sarro = periodoncia.getIndiceSarro() != null
+                    ? objectMapper.readValue(periodoncia.getIndiceSarro(), Map.class) : null;
+            return IndicesPeriodoncia.desdeMapas(placa, sarro);
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
\ No newline at end of file
@@ -1,13 +1,18 @@
 package com.consultorio.odontologia.service;
 
 import com.consultorio.odontologia.dto.PeriodontogramaDTO;
-import com.consultorio.odontologia.entity.Periodontograma;
+import com.consultorio.odontologia.dto.UltimoRegistroDTO;
+import com.consultorio.odontologia.entity.MedicionesPeriodontales;
 import com.consultorio.odontologia.entity.Paciente;
-import com.consultorio.odontologia.repository.PeriodontogramaRepository;
+import com.consultorio.odontologia.entity.Periodontograma;
 import com.consultorio.odontologia.repository.PacienteRepository;
+import com.consultorio.odontologia.repository.PeriodontogramaRepository;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -28,6 +33,8 @@ public class PeriodontogramaService {
     @Autowired
     private ObjectMapper objectMapper;
     
+    private static final int TAMANO_LOTE_MEDICIONES = 200;
+    
     // Guardar nuevo periodontograma (o actualizar si ya existe)
     public PeriodontogramaDTO guardarPeriodontograma(PeriodontogramaDTO dto) throws Exception {
         Paciente paciente = pacienteRepository.findById(dto.getPacienteId())
@@ -37,12 +44,8 @@ public class PeriodontogramaService {
         Periodontograma periodontograma;
         boolean esNuevo = false;
         
-        try {
-            periodontograma = periodontogramaRepository.findMostRecentByPacienteId(dto.getPacienteId())
-                    .orElse(null);
-        } catch (Exception e) {
-            periodontograma = null;
-        }
+        periodontograma = periodontogramaRepository.findFirstByPacienteIdOrderByFechaModificacionDescIdDesc(dto.getPacienteId())
+                .orElse(null);
         
         if (periodontograma != null) {
             // Actualizar el existente
@@ -56,6 +59,7 @@ public class PeriodontogramaService {
             periodontograma.setFechaRegistro(dto.getFechaRegistro());
             periodontograma.setObservaciones(dto.getObservaciones());
             periodontograma.setFechaCreacion(LocalDateTime.now());
+            periodontograma.setFechaModificacion(periodontograma.getFechaCreacion());
             esNuevo = true;
         }
         
@@ -63,6 +67,7 @@ public class PeriodontogramaService {
         if (dto.getDatosPeriodontograma() != null) {
             String jsonData = objectMapper.writeValueAsString(dto.getDatosPeriodontograma());
             periodontograma.setDatosPeriodontograma(jsonData);
+            periodontograma.setMediciones(extraerMediciones(dto.getDatosPeriodontograma()));
         }
         
         Periodontograma saved = periodontogramaRepository.save(periodontograma);
@@ -91,6 +96,7 @@ public class PeriodontogramaService {
         if (dto.getDatosPeriodontograma() != null) {
             String jsonData = objectMapper.writeValueAsString(dto.getDatosPeriodontograma());
             periodontograma.setDatosPeriodontograma(jsonData);
+            periodontograma.setMediciones(extraerMediciones(dto.getDatosPeriodontograma()));
         }
         
         Periodontograma updated = periodontogramaRepository.save(periodontograma);
@@ -138,8 +144,17 @@ public class PeriodontogramaService {
     
     // Obtener periodontograma más reciente de un paciente
     public PeriodontogramaDTO obtenerMasReciente(Long pacienteId) throws Exception {
-        Periodontograma periodontograma = periodontogramaRepository.findMostRecentByPacienteId(pacienteId)
+        return buscarMasReciente(pacienteId)
                 .orElseThrow(() -> new RuntimeException("No se encontraron periodontogramas para este paciente"));
+    }
+    
+    // Igual que obtenerMasReciente, pero vacío si el paciente no tiene registros
+    public Optional<PeriodontogramaDTO> buscarMasReciente(Long pacienteId) throws Exception {
+        Optional<Periodontograma> encontrado = periodontogramaRepository.findFirstByPacienteIdOrderByFechaModificacionDescIdDesc(pacienteId);
+        if (encontrado.isEmpty()) {
+            return Optional.empty();
+        }
+        Periodontograma periodontograma = encontrado.get();
         
         PeriodontogramaDTO dto = new PeriodontogramaDTO(periodontograma);
         
@@ -148,7 +163,12 @@ public class PeriodontogramaService {
             dto.setDatosPeriodontograma(objectMapper.readValue(periodontograma.getDatosPeriodontograma(), Map.class));
         }
         
-        return dto;
+        return Optional.of(dto);
+    }
+    
+    // Id y fechas del más reciente, para saber si existe sin traer los datos
+    public Optional<UltimoRegistroDTO> obtenerUltimoRegistro(Long pacienteId) {
+        return periodontogramaRepository.findUltimoRegistro(pacienteId, PageRequest.of(0, 1)).stream().findFirst();
     }
     
     // Obtener todas las fechas disponibles para un paciente
@@ -181,6 +201,49 @@ public class PeriodontogramaService {
         }).collect(Collectors.toList());
     }
     
+    /**
+     * Copia la fecha de creación en la de modificación de los registros que no la tienen
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void completarFechasModificacion() {
+        periodontogramaRepository.completarFechaModificacion();
+    }
+    
+    /**
+     * Extrae las mediciones de los registros guardados antes de que existiera la columna
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void completarMediciones() {
+        long cursor = 0L;
+        List<Periodontograma> pendientes;
+        do {
+            pendientes = periodontogramaRepository.findSinMediciones(cursor, PageRequest.of(0, TAMANO_LOTE_MEDICIONES));
+            for (Periodontograma periodontograma : pendientes) {
+                try {
+                    Map<?, ?> datos = objectMapper.readValue(periodontograma.getDatosPeriodontograma(), Map.class);
+                    MedicionesPeriodontales mediciones = extraerMediciones(datos);
+                    if (mediciones != null) {
+                        periodontogramaRepository.actualizarMediciones(periodontograma.getId(), mediciones);
+                    }
+                } catch (JsonProcessingException e) {
+                    // JSON ilegible: queda sin mediciones y fuera de los análisis
+                }
+            }
+            if (!pendientes.isEmpty()) {
+                cursor = pendientes.get(pendientes.size() - 1).getId();
+            }
+        } while (pendientes.size() == TAMANO_LOTE_MEDICIONES);
+    }
+    
+    // null si los datos no entran en el periodontograma; el registro se guarda igual, sin análisis
+    private MedicionesPeriodontales extraerMediciones(Map<?, ?> datos) {
+        try {
+            return MedicionesPeriodontales.desdeMapa(datos);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+    
     // Eliminar periodontograma
     public void eliminarPeriodontograma(Long id) {
         if (!periodontogramaRepository.existsById(id)) {
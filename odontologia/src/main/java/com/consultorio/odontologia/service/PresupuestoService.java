@@ -9,12 +9,19 @@ import com.consultorio.odontologia.repository.PacienteRepository;
 import com.consultorio.odontologia.repository.PresupuestoRepository;
 import com.consultorio.odontologia.service.util.DTOConverter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -27,6 +34,9 @@ public class PresupuestoService {
     @Autowired
     private PacienteRepository pacienteRepository;
 
+    @Autowired
+    private LibroIngresosService libroIngresosService;
+
     // Crear nuevo presupuesto
     public PresupuestoDTO crearPresupuesto(PresupuestoDTO presupuestoDTO) {
         Paciente paciente = pacienteRepository.findById(presupuestoDTO.getPacienteId())
@@ -48,42 +58,96 @@ public class PresupuestoService {
         }
 
         Presupuesto presupuestoGuardado = presupuestoRepository.save(presupuesto);
+        libroIngresosService.registrarAlta(presupuestoGuardado);
         return convertirADTO(presupuestoGuardado);
     }
 
-    // Actualizar presupuesto existente
+    // Actualizar presupuesto existente: solo se escriben las líneas que cambiaron
     public PresupuestoDTO actualizarPresupuesto(Long id, PresupuestoDTO presupuestoDTO) {
-        Presupuesto presupuesto = presupuestoRepository.findById(id)
+        Presupuesto presupuesto = presupuestoRepository.findDetalleById(id)
                 .orElseThrow(() -> new RuntimeException("Presupuesto no encontrado"));
+        verificarVersion(presupuesto, presupuestoDTO.getVersion());
+        LocalDate fechaAnterior = presupuesto.getFechaRegistro();
+        BigDecimal[] totalesAnteriores = LibroIngresosService.totales(presupuesto);
+
+        boolean modificado = false;
 
         // Actualizar fecha si es diferente
         if (!presupuesto.getFechaRegistro().equals(presupuestoDTO.getFechaRegistro())) {
             presupuesto.setFechaRegistro(presupuestoDTO.getFechaRegistro());
+            modificado = true;
         }
 
-        // Actualizar tratamientos existentes o crear nuevos
         if (presupuestoDTO.getTratamientos() != null) {
-            // Limpiar tratamientos existentes
-            presupuesto.getTratamientos().clear();
-            
-            for (TratamientoPresupuestoDTO tratamientoDTO : presupuestoDTO.getTratamientos()) {
-                TratamientoPresupuesto tratamiento = new TratamientoPresupuesto(
+            modificado |= combinarTratamientos(presupuesto, presupuestoDTO.getTratamientos());
+        }
+
+        if (!modificado) {
+            return convertirADTO(presupuesto);
+        }
+        presupuesto.setFechaUltimaActualizacion(LocalDateTime.now());
+
+        // Flush aquí para que un conflicto de versión llegue como ObjectOptimisticLockingFailureException
+        // y el DTO devuelto lleve la versión nueva
+        Presupuesto presupuestoActualizado = presupuestoRepository.saveAndFlush(presupuesto);
+        libroIngresosService.registrarCambio(presupuestoActualizado, fechaAnterior, totalesAnteriores);
+        return convertirADTO(presupuestoActualizado);
+    }
+
+    /**
+     * Combina las líneas recibidas con las guardadas por id: actualiza las que cambiaron, agrega las que
+     * no existen en el presupuesto (el frontend les asigna un id temporal) y quita las que ya no vienen.
+     * Devuelve true si hubo algún cambio.
+     */
+    private boolean combinarTratamientos(Presupuesto presupuesto, List<TratamientoPresupuestoDTO> tratamientosDTO) {
+        Map<Long, TratamientoPresupuesto> existentes = new HashMap<>();
+        for (TratamientoPresupuesto tratamiento : presupuesto.getTratamientos()) {
+            existentes.put(tratamiento.getId(), tratamiento);
+        }
+
+        boolean modificado = false;
+        List<TratamientoPresupuesto> nuevos = new ArrayList<>();
+        for (TratamientoPresupuestoDTO tratamientoDTO : tratamientosDTO) {
+            TratamientoPresupuesto existente = tratamientoDTO.getId() != null
+                    ? existentes.remove(tratamientoDTO.getId())
+                    : null;
+            if (existente != null) {
+                modificado |= existente.actualizarDatos(tratamientoDTO.getNombre(), tratamientoDTO.getPrecio(),
+                        tratamientoDTO.getAbonado(), tratamientoDTO.getPagado());
+            } else {
+                nuevos.add(new TratamientoPresupuesto(
                     tratamientoDTO.getNombre(),
                     tratamientoDTO.getPrecio(),
                     tratamientoDTO.getAbonado(),
                     tratamientoDTO.getPagado()
-                );
-                presupuesto.addTratamiento(tratamiento);
+                ));
             }
         }
 
-        Presupuesto presupuestoActualizado = presupuestoRepository.save(presupuesto);
-        return convertirADTO(presupuestoActualizado);
+        // Lo que quedó en existentes no vino en el pedido: orphanRemoval lo borra
+        for (TratamientoPresupuesto eliminado : existentes.values()) {
+            presupuesto.removeTratamiento(eliminado);
+        }
+        for (TratamientoPresupuesto nuevo : nuevos) {
+            presupuesto.addTratamiento(nuevo);
+        }
+        return modificado || !existentes.isEmpty() || !nuevos.isEmpty();
+    }
+
+    // Rechaza la edición si otra terminal guardó el presupuesto después de que el cliente lo leyó.
+    // Sin versión no hay forma de saberlo, así que tampoco se acepta (evita que el último en guardar pise al otro)
+    private static void verificarVersion(Presupuesto presupuesto, Long versionCliente) {
+        if (versionCliente == null) {
+            throw new IllegalArgumentException("Falta la versión del presupuesto: vuelva a cargarlo antes de guardar");
+        }
+        if (!versionCliente.equals(presupuesto.getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(Presupuesto.class, presupuesto.getId());
+        }
     }
 
     // Obtener presupuesto por ID
     public PresupuestoDTO obtenerPresupuestoPorId(Long id) {
-        Presupuesto presupuesto = presupuestoRepository.findById(id)
+        Presupuesto presupuesto = presupuestoRepository.findDetalleById(id)
                 .orElseThrow(() -> new RuntimeException("Presupuesto no encontrado"));
         return convertirADTO(presupuesto);
     }
@@ -112,7 +176,7 @@ public class PresupuestoService {
 
     // Actualizar pago de un tratamiento específico
     public PresupuestoDTO actualizarPagoTratamiento(Long presupuestoId, Long tratamientoId, BigDecimal nuevoAbonado) {
-        Presupuesto presupuesto = presupuestoRepository.findById(presupuestoId)
+        Presupuesto presupuesto = presupuestoRepository.findDetalleById(presupuestoId)
                 .orElseThrow(() -> new RuntimeException("Presupuesto no encontrado"));
         
         TratamientoPresupuesto tratamiento = presupuesto.getTratamientos().stream()
@@ -120,9 +184,12 @@ public class PresupuestoService {
                 .findFirst()
                 .orElseThrow(() -> new RuntimeException("Tratamiento no encontrado"));
         
+        BigDecimal abonadoAnterior = tratamiento.getAbonado();
         tratamiento.actualizarPago(nuevoAbonado);
+        presupuesto.setFechaUltimaActualizacion(LocalDateTime.now());
         
-        Presupuesto presupuestoActualizado = presupuestoRepository.save(presupuesto);
+        Presupuesto presupuestoActualizado = presupuestoRepository.saveAndFlush(presupuesto);
+        libroIngresosService.registrarPago(presupuestoActualizado, tratamiento, abonadoAnterior);
         return convertirADTO(presupuestoActualizado);
     }
 
@@ -133,10 +200,18 @@ public class PresupuestoService {
 
     // Eliminar presupuesto
     public void eliminarPresupuesto(Long id) {
-        if (!presupuestoRepository.existsById(id)) {
-            throw new RuntimeException("Presupuesto no encontrado");
-        }
-        presupuestoRepository.deleteById(id);
+        Presupuesto presupuesto = presupuestoRepository.findDetalleById(id)
+                .orElseThrow(() -> new RuntimeException("Presupuesto no encontrado"));
+        libroIngresosService.registrarBaja(presupuesto);
+        presupuestoRepository.delete(presupuesto);
+    }
+
+    /**
+     * Inicializa la versión de los presupuestos guardados antes del bloqueo optimista
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void completarVersiones() {
+        presupuestoRepository.completarVersion();
     }
 
     // Convertir entidad a DTO
@@ -147,6 +222,7 @@ public class PresupuestoService {
         dto.setPacienteNombre(presupuesto.getPaciente().getName());
         dto.setPacienteApellido(presupuesto.getPaciente().getLastname());
         dto.setFechaRegistro(presupuesto.getFechaRegistro());
+        dto.setVersion(presupuesto.getVersion());
         
         if (presupuesto.getTratamientos() != null) {
             List<TratamientoPresupuestoDTO> tratamientosDTO = presupuesto.getTratamientos().stream()
@@ -172,22 +248,14 @@ public class PresupuestoService {
         return dto;
     }
 
-    // Calcular total de ingresos por rango de fechas
+    // Calcular total de ingresos por rango de fechas (desde el resumen diario del libro de ingresos)
     public BigDecimal calcularTotalIngresosPorFecha(LocalDate fechaInicio, LocalDate fechaFin) {
-        List<Presupuesto> presupuestos = presupuestoRepository.findByFechaRegistroBetween(fechaInicio, fechaFin);
-        return presupuestos.stream()
-                .flatMap(p -> p.getTratamientos().stream())
-                .map(TratamientoPresupuesto::getAbonado)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return libroIngresosService.calcularIngresos(fechaInicio, fechaFin);
     }
 
     // Calcular total de ingresos pendientes por rango de fechas
     public BigDecimal calcularTotalIngresosPendientesPorFecha(LocalDate fechaInicio, LocalDate fechaFin) {
-        List<Presupuesto> presupuestos = presupuestoRepository.findByFechaRegistroBetween(fechaInicio, fechaFin);
-        return presupuestos.stream()
-                .flatMap(p -> p.getTratamientos().stream())
-                .map(tratamiento -> tratamiento.getPrecio().subtract(tratamiento.getAbonado()))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return libroIngresosService.calcularPendientes(fechaInicio, fechaFin);
     }
 
     // Obtener presupuestos por rango de fechas
@@ -0,0 +1,74 @@
+package com.consultorio.odontologia.service;
+
+import com.consultorio.odontologia.dto.BalanceMesDTO;
+import com.consultorio.odontologia.dto.ReporteFinancieroDTO;
+import com.consultorio.odontologia.entity.ResumenIngresosDia;
+import com.consultorio.odontologia.repository.GastoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Ingresos (libro de ingresos de presupuestos) contra gastos. Lee una fila por día con
+ * movimientos en cada lado, nunca los presupuestos ni los gastos uno por uno.
+ */
+@Service
+@Transactional(readOnly = true)
+public class ReporteFinancieroService {
+
+    @Autowired
+    private LibroIngresosService libroIngresosService;
+
+    @Autowired
+    private GastoRepository gastoRepository;
+
+    public ReporteFinancieroDTO obtenerReporte(LocalDate fechaInicio, LocalDate fechaFin) {
+        if (fechaFin.isBefore(fechaInicio)) {
+            throw new IllegalArgumentException("La fecha final no puede ser anterior a la inicial");
+        }
+        // Todos los meses del rango, aunque no tengan movimientos
+        Map<YearMonth, BigDecimal[]> meses = new TreeMap<>();
+        for (YearMonth mes = YearMonth.from(fechaInicio); !mes.isAfter(YearMonth.from(fechaFin)); mes = mes.plusMonths(1)) {
+            meses.put(mes, new BigDecimal[] {BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO});
+        }
+        for (ResumenIngresosDia dia : libroIngresosService.obtenerResumenDiario(fechaInicio, fechaFin)) {
+            BigDecimal[] mes = meses.get(YearMonth.from(dia.getFecha()));
+            mes[0] = mes[0].add(dia.getAbonado());
+            mes[1] = mes[1].add(dia.getPrecio().subtract(dia.getAbonado()));
+        }
+        for (Object[] fila : gastoRepository.sumarPorDia(fechaInicio, fechaFin)) {
+            BigDecimal[] mes = meses.get(YearMonth.from((LocalDate) fila[0]));
+            mes[2] = mes[2].add((BigDecimal) fila[1]);
+        }
+
+        ReporteFinancieroDTO reporte = new ReporteFinancieroDTO();
+        reporte.setFechaInicio(fechaInicio);
+        reporte.setFechaFin(fechaFin);
+        BigDecimal ingresos = BigDecimal.ZERO;
+        BigDecimal pendientes = BigDecimal.ZERO;
+        BigDecimal gastos = BigDecimal.ZERO;
+        for (Map.Entry<YearMonth, BigDecimal[]> mes : meses.entrySet()) {
+            BigDecimal[] totales = mes.getValue();
+            reporte.getMeses().add(new BalanceMesDTO(mes.getKey().toString(), totales[0], totales[1], totales[2],
+                    totales[0].subtract(totales[2])));
+            ingresos = ingresos.add(totales[0]);
+            pendientes = pendientes.add(totales[1]);
+            gastos = gastos.add(totales[2]);
+        }
+        reporte.setTotalIngresos(ingresos);
+        reporte.setTotalPendientes(pendientes);
+        reporte.setTotalGastos(gastos);
+        reporte.setBalance(ingresos.subtract(gastos));
+        return reporte;
+    }
+
+    public ReporteFinancieroDTO obtenerReporteAnual(int anio) {
+        return obtenerReporte(LocalDate.of(anio, 1, 1), LocalDate.of(anio, 12, 31));
+    }
+}
@@ -0,0 +1,221 @@
+package com.consultorio.odontologia.service;
+
+import com.consultorio.odontologia.dto.DiagnosticoResumenDTO;
+import com.consultorio.odontologia.dto.PaginaDTO;
+import com.consultorio.odontologia.entity.Diagnostico;
+import com.consultorio.odontologia.entity.DiagnosticoResumen;
+import com.consultorio.odontologia.entity.Paciente;
+import com.consultorio.odontologia.entity.Usuario;
+import com.consultorio.odontologia.repository.DiagnosticoRepository;
+import com.consultorio.odontologia.repository.DiagnosticoResumenRepository;
+import com.consultorio.odontologia.repository.UsuarioRepository;
+import com.consultorio.odontologia.service.util.Paginacion;
+import com.consultorio.odontologia.service.util.TextoNormalizador;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Listado de diagnósticos de toda la clínica sobre DiagnosticoResumen. DiagnosticoService y PacienteService
+ * actualizan el resumen en la misma transacción que el cambio, así que nunca queda atrás de los diagnósticos;
+ * las consultas no leen las columnas TEXT de diagnosticos salvo que se pida el detalle de la página.
+ */
+@Service
+@Transactional
+public class ResumenDiagnosticosService {
+
+    private static final int TAMANO_LOTE_COMPLETAR = 500;
+
+    @Autowired
+    private DiagnosticoResumenRepository resumenRepository;
+
+    @Autowired
+    private DiagnosticoRepository diagnosticoRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Crea o reemplaza la fila del diagnóstico (debe estar guardado y tener paciente)
+     */
+    public void registrar(Diagnostico diagnostico) {
+        resumenRepository.save(convertir(diagnostico));
+    }
+
+    public void eliminar(Long diagnosticoId) {
+        resumenRepository.findById(diagnosticoId).ifPresent(resumenRepository::delete);
+    }
+
+    public void actualizarPaciente(Paciente paciente) {
+        resumenRepository.actualizarPaciente(paciente.getId(), paciente.getName(), paciente.getLastname());
+    }
+
+    public void eliminarPaciente(Long pacienteId) {
+        resumenRepository.eliminarPorPacienteId(pacienteId);
+    }
+
+    /**
+     * Diagnósticos de toda la clínica, del más reciente al más antiguo. El texto debe aparecer tal cual
+     * (sin distinguir tildes ni mayúsculas) en los primeros LARGO_TEXTO_BUSQUEDA caracteres del diagnóstico,
+     * pronóstico y observaciones; para buscar por palabras en todo el texto está /api/busqueda/clinica.
+     * El cursor tiene la forma "fecha_id" y lo devuelve la página anterior.
+     */
+    @Transactional(readOnly = true)
+    public PaginaDTO<DiagnosticoResumenDTO> buscar(LocalDate desde, LocalDate hasta, Long usuarioId, Long pacienteId,
+                                                  String texto, String cursor, Integer tamano, boolean detalle) {
+        if (desde != null && hasta != null && desde.isAfter(hasta)) {
+            throw new IllegalArgumentException("La fecha desde no puede ser posterior a la fecha hasta");
+        }
+        LocalDate cursorFecha = null;
+        Long cursorId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] partes = cursor.split("_", 2);
+            try {
+                cursorFecha = LocalDate.parse(partes[0]);
+                cursorId = Long.parseLong(partes[1]);
+            } catch (DateTimeParseException | NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Cursor inválido: " + cursor);
+            }
+        }
+        String patron = null;
+        if (texto != null && !texto.isBlank()) {
+            patron = "%" + TextoNormalizador.escaparLike(TextoNormalizador.normalizar(texto)) + "%";
+        }
+
+        Slice<DiagnosticoResumen> slice = resumenRepository.buscar(desde, hasta, usuarioId, pacienteId, patron,
+                cursorFecha, cursorId, Paginacion.primeraPagina(tamano));
+        List<DiagnosticoResumen> filas = slice.getContent();
+        List<DiagnosticoResumenDTO> contenido = filas.stream().map(this::convertirDTO).collect(Collectors.toList());
+        completarUsuarios(contenido);
+        if (detalle && !contenido.isEmpty()) {
+            completarDetalle(contenido);
+        }
+        String siguienteCursor = null;
+        if (slice.hasNext() && !filas.isEmpty()) {
+            DiagnosticoResumen ultima = filas.get(filas.size() - 1);
+            siguienteCursor = ultima.getFechaDiagnostico() + "_" + ultima.getId();
+        }
+        return new PaginaDTO<>(contenido, siguienteCursor, slice.hasNext());
+    }
+
+    /**
+     * Total de diagnósticos de la clínica y cantidad por odontólogo en el rango
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> estadisticas(LocalDate desde, LocalDate hasta) {
+        if (desde != null && hasta != null && desde.isAfter(hasta)) {
+            throw new IllegalArgumentException("La fecha desde no puede ser posterior a la fecha hasta");
+        }
+        long total = 0;
+        List<Map<String, Object>> porUsuario = new ArrayList<>();
+        for (Object[] fila : resumenRepository.contarPorUsuario(desde, hasta)) {
+            Map<String, Object> usuario = new LinkedHashMap<>();
+            usuario.put("usuarioId", fila[0]);
+            usuario.put("usuarioNombre", fila[1]);
+            usuario.put("cantidad", fila[2]);
+            porUsuario.add(usuario);
+            total += (Long) fila[2];
+        }
+        Map<String, Object> estadisticas = new HashMap<>();
+        estadisticas.put("desde", desde);
+        estadisticas.put("hasta", hasta);
+        estadisticas.put("totalDiagnosticos", total);
+        estadisticas.put("porUsuario", porUsuario);
+        return estadisticas;
+    }
+
+    /**
+     * Al arrancar crea las filas que falten (diagnósticos anteriores al resumen), por lotes
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void completarResumen() {
+        long cursor = 0L;
+        List<Diagnostico> pendientes;
+        do {
+            pendientes = diagnosticoRepository.findSinResumen(cursor, PageRequest.of(0, TAMANO_LOTE_COMPLETAR));
+            if (!pendientes.isEmpty()) {
+                resumenRepository.saveAll(pendientes.stream().map(ResumenDiagnosticosService::convertir).collect(Collectors.toList()));
+                cursor = pendientes.get(pendientes.size() - 1).getId();
+                entityManager.flush();
+                entityManager.clear();
+            }
+        } while (pendientes.size() == TAMANO_LOTE_COMPLETAR);
+    }
+
+    // Nombre actual de cada odontólogo de la página; Usuario está en la caché de segundo nivel
+    private void completarUsuarios(List<DiagnosticoResumenDTO> contenido) {
+        Map<Long, String> nombres = new HashMap<>();
+        for (DiagnosticoResumenDTO dto : contenido) {
+            if (dto.getUsuarioId() != null) {
+                dto.setUsuarioNombre(nombres.computeIfAbsent(dto.getUsuarioId(),
+                        id -> usuarioRepository.findById(id).map(Usuario::getName).orElse(null)));
+            }
+        }
+    }
+
+    // Solo aquí se leen las columnas TEXT, para los diagnósticos de la página
+    private void completarDetalle(List<DiagnosticoResumenDTO> contenido) {
+        List<Long> ids = contenido.stream().map(DiagnosticoResumenDTO::getId).collect(Collectors.toList());
+        Map<Long, Diagnostico> diagnosticos = diagnosticoRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Diagnostico::getId, Function.identity()));
+        for (DiagnosticoResumenDTO dto : contenido) {
+            Diagnostico diagnostico = diagnosticos.get(dto.getId());
+            if (diagnostico != null) {
+                dto.setDiagnostico(diagnostico.getDiagnostico());
+                dto.setPronostico(diagnostico.getPronostico());
+                dto.setObservaciones(diagnostico.getObservaciones());
+            }
+        }
+    }
+
+    private static DiagnosticoResumen convertir(Diagnostico diagnostico) {
+        Paciente paciente = diagnostico.getPaciente();
+        Usuario usuario = diagnostico.getUsuario();
+        String texto = TextoNormalizador.normalizar(String.join(" ",
+                valor(diagnostico.getDiagnostico()), valor(diagnostico.getPronostico()), valor(diagnostico.getObservaciones())));
+        return new DiagnosticoResumen(diagnostico.getId(), paciente.getId(), paciente.getName(), paciente.getLastname(),
+                usuario != null ? usuario.getId() : null,
+                diagnostico.getFechaDiagnostico(),
+                recortar(valor(diagnostico.getDiagnostico()).trim(), DiagnosticoResumen.LARGO_EXTRACTO),
+                recortar(texto, DiagnosticoResumen.LARGO_TEXTO_BUSQUEDA));
+    }
+
+    private DiagnosticoResumenDTO convertirDTO(DiagnosticoResumen resumen) {
+        DiagnosticoResumenDTO dto = new DiagnosticoResumenDTO();
+        dto.setId(resumen.getId());
+        dto.setPacienteId(resumen.getPacienteId());
+        dto.setPacienteNombre(resumen.getPacienteNombre());
+        dto.setPacienteApellido(resumen.getPacienteApellido());
+        dto.setUsuarioId(resumen.getUsuarioId());
+        dto.setFechaDiagnostico(resumen.getFechaDiagnostico());
+        dto.setExtracto(resumen.getExtracto());
+        return dto;
+    }
+
+    private static String valor(String texto) {
+        return texto != null ? texto : "";
+    }
+
+    private static String recortar(String texto, int largo) {
+        return texto.length() <= largo ? texto : texto.substring(0, largo);
+    }
+}
@@ -0,0 +1,177 @@
+package com.consultorio.odontologia.service;
+
+import com.consultorio.odontologia.dto.HistoriaClinicaDTO;
+import com.consultorio.odontologia.dto.PeriodonciaDTO;
+import com.consultorio.odontologia.dto.PeriodontogramaDTO;
+import com.consultorio.odontologia.dto.PresupuestoDTO;
+import com.consultorio.odontologia.dto.ResumenPacienteDTO;
+import com.consultorio.odontologia.entity.Diagnostico;
+import com.consultorio.odontologia.entity.Odontograma;
+import com.consultorio.odontologia.entity.Paciente;
+import com.consultorio.odontologia.entity.Tratamiento;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Arma el resumen clínico de un paciente consultando cada sección en paralelo.
+ * Cada sección corre en el ejecutor "ejecutorResumenPaciente" con su propia transacción
+ * (la de cada servicio); una sección que falla no impide devolver las demás.
+ */
+@Service
+public class ResumenPacienteService {
+
+    @Autowired
+    private PacienteService pacienteService;
+
+    @Autowired
+    private OdontogramaService odontogramaService;
+
+    @Autowired
+    private HistoriaClinicaService historiaClinicaService;
+
+    @Autowired
+    private PeriodontogramaService periodontogramaService;
+
+    @Autowired
+    private PeriodonciaService periodonciaService;
+
+    @Autowired
+    private DiagnosticoService diagnosticoService;
+
+    @Autowired
+    private TratamientoService tratamientoService;
+
+    @Autowired
+    private PresupuestoService presupuestoService;
+
+    @Autowired
+    @Qualifier("ejecutorResumenPaciente")
+    private Executor ejecutor;
+
+    @Value("${resumen.paciente.timeout-ms:5000}")
+    private long timeoutMs;
+
+    @FunctionalInterface
+    private interface Seccion<T> {
+        T obtener() throws Exception;
+    }
+
+    public ResumenPacienteDTO obtenerResumen(Long pacienteId) {
+        if (pacienteId == null) {
+            throw new IllegalArgumentException("El ID del paciente no puede ser nulo");
+        }
+        long inicio = System.nanoTime();
+        Map<String, Double> tiempos = new ConcurrentHashMap<>();
+        Map<String, CompletableFuture<?>> secciones = new LinkedHashMap<>();
+
+        CompletableFuture<Paciente> paciente = iniciar("paciente", secciones, tiempos,
+                () -> pacienteService.obtenerPacientePorId(pacienteId));
+        CompletableFuture<Odontograma> odontograma = iniciar("odontograma", secciones, tiempos,
+                () -> odontogramaService.obtenerOdontogramaMasReciente(pacienteId).orElse(null));
+        CompletableFuture<HistoriaClinicaDTO> historia = iniciar("historiaClinica", secciones, tiempos,
+                () -> historiaClinicaService.obtenerMasReciente(pacienteId).map(HistoriaClinicaDTO::new).orElse(null));
+        CompletableFuture<List<String>> fechasHistoria = iniciar("historiaClinicaFechas", secciones, tiempos,
+                () -> historiaClinicaService.obtenerFechasDisponibles(pacienteId));
+        CompletableFuture<PeriodontogramaDTO> periodontograma = iniciar("periodontograma", secciones, tiempos,
+                () -> periodontogramaService.buscarMasReciente(pacienteId).orElse(null));
+        CompletableFuture<List<String>> fechasPeriodontograma = iniciar("periodontogramaFechas", secciones, tiempos,
+                () -> periodontogramaService.obtenerFechasDisponibles(pacienteId));
+        CompletableFuture<PeriodonciaDTO> periodoncia = iniciar("periodoncia", secciones, tiempos,
+                () -> periodonciaService.buscarMasReciente(pacienteId).orElse(null));
+        CompletableFuture<List<LocalDate>> fechasPeriodoncia = iniciar("periodonciaFechas", secciones, tiempos,
+                () -> periodonciaService.obtenerFechasDisponibles(pacienteId));
+        CompletableFuture<List<Diagnostico>> diagnosticos = iniciar("diagnosticos", secciones, tiempos,
+                () -> diagnosticoService.obtenerDiagnosticosPorPaciente(pacienteId));
+        CompletableFuture<List<Tratamiento>> tratamientos = iniciar("tratamientos", secciones, tiempos,
+                () -> tratamientoService.obtenerTratamientosPorPaciente(pacienteId));
+        CompletableFuture<List<PresupuestoDTO>> presupuestos = iniciar("presupuestos", secciones, tiempos,
+                () -> presupuestoService.obtenerPresupuestosPorPaciente(pacienteId));
+        CompletableFuture<List<LocalDate>> fechasPresupuesto = iniciar("presupuestoFechas", secciones, tiempos,
+                () -> presupuestoService.obtenerFechasDisponiblesPorPaciente(pacienteId));
+
+        try {
+            CompletableFuture.allOf(secciones.values().toArray(new CompletableFuture[0]))
+                    .get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            // Se informa sección por sección en "errores"
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        ResumenPacienteDTO resumen = new ResumenPacienteDTO();
+        Map<String, String> errores = resumen.getErrores();
+        resumen.setPaciente(resultado("paciente", paciente, errores));
+        if (resumen.getPaciente() == null) {
+            throw new IllegalArgumentException(errores.getOrDefault("paciente", "Paciente no encontrado"));
+        }
+        resumen.setOdontogramaReciente(resultado("odontograma", odontograma, errores));
+        resumen.setHistoriaClinicaReciente(resultado("historiaClinica", historia, errores));
+        resumen.setFechasHistoriaClinica(resultado("historiaClinicaFechas", fechasHistoria, errores));
+        resumen.setPeriodontogramaReciente(resultado("periodontograma", periodontograma, errores));
+        resumen.setFechasPeriodontograma(resultado("periodontogramaFechas", fechasPeriodontograma, errores));
+        resumen.setPeriodonciaReciente(resultado("periodoncia", periodoncia, errores));
+        resumen.setFechasPeriodoncia(resultado("periodonciaFechas", fechasPeriodoncia, errores));
+        resumen.setDiagnosticos(resultado("diagnosticos", diagnosticos, errores));
+        resumen.setTratamientos(resultado("tratamientos", tratamientos, errores));
+        resumen.setPresupuestos(resultado("presupuestos", presupuestos, errores));
+        resumen.setFechasPresupuesto(resultado("presupuestoFechas", fechasPresupuesto, errores));
+
+        // En el orden de las secciones; las que no terminaron no tienen duración
+        for (String nombre : secciones.keySet()) {
+            Double duracion = tiempos.get(nombre);
+            if (duracion != null) {
+                resumen.getTiemposMs().put(nombre, duracion);
+            }
+        }
+        resumen.getTiemposMs().put("total", (System.nanoTime() - inicio) / 1_000_000.0);
+        return resumen;
+    }
+
+    private <T> CompletableFuture<T> iniciar(String nombre, Map<String, CompletableFuture<?>> secciones,
+                                             Map<String, Double> tiempos, Seccion<T> seccion) {
+        CompletableFuture<T> futuro = CompletableFuture.supplyAsync(() -> {
+            long inicio = System.nanoTime();
+            try {
+                return seccion.obtener();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            } finally {
+                tiempos.put(nombre, (System.nanoTime() - inicio) / 1_000_000.0);
+            }
+        }, ejecutor);
+        secciones.put(nombre, futuro);
+        return futuro;
+    }
+
+    private <T> T resultado(String nombre, CompletableFuture<T> futuro, Map<String, String> errores) {
+        if (!futuro.isDone()) {
+            futuro.cancel(false);
+            errores.put(nombre, "La sección no respondió en " + timeoutMs + " ms");
+            return null;
+        }
+        try {
+            return futuro.join();
+        } catch (CompletionException | CancellationException e) {
+            Throwable causa = e.getCause() != null ? e.getCause() : e;
+            errores.put(nombre, causa.getMessage());
+            return null;
+        }
+    }
+}
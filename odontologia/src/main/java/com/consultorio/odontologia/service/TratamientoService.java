@@ -5,6 +5,8 @@ import com.consultorio.odontologia.entity.Paciente;
 import com.consultorio.odontologia.entity.Tratamiento;
 import com.consultorio.odontologia.repository.PacienteRepository;
 import com.consultorio.odontologia.repository.TratamientoRepository;
+import com.consultorio.odontologia.service.util.IndiceTextoClinico;
+import com.consultorio.odontologia.service.util.TransaccionUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -24,6 +26,9 @@ public class TratamientoService {
     @Autowired
     private PacienteRepository pacienteRepository;
 
+    @Autowired
+    private IndiceClinicoService indiceClinicoService;
+
     // Crear nuevo tratamiento
     public Tratamiento crearTratamiento(TratamientoDTO tratamientoDTO) {
         // Verificar que el paciente existe
@@ -43,6 +48,7 @@ public class TratamientoService {
 
         // Guardar y retornar
         Tratamiento tratamientoGuardado = tratamientoRepository.save(tratamiento);
+        TransaccionUtil.despuesDelCommit(() -> indiceClinicoService.indexar(tratamientoGuardado));
         return tratamientoGuardado;
     }
 
@@ -91,6 +97,7 @@ public class TratamientoService {
 
         // Guardar y retornar
         Tratamiento tratamientoActualizado = tratamientoRepository.save(tratamientoExistente);
+        TransaccionUtil.despuesDelCommit(() -> indiceClinicoService.indexar(tratamientoActualizado));
         return tratamientoActualizado;
     }
 
@@ -114,6 +121,7 @@ public class TratamientoService {
             throw new RuntimeException("Tratamiento no encontrado");
         }
         tratamientoRepository.deleteById(id);
+        TransaccionUtil.despuesDelCommit(() -> indiceClinicoService.eliminar(IndiceTextoClinico.Tipo.TRATAMIENTO, id));
     }
 
     // Buscar tratamientos por nombre
@@ -0,0 +1,83 @@
+package com.consultorio.odontologia.service.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Caché en memoria con tamaño máximo que desaloja la entrada usada hace más tiempo.
+ * Cuenta aciertos, fallos y desalojos. El valor se calcula fuera del lock:
+ * dos hilos que fallan a la vez sobre la misma clave pueden calcularlo los dos.
+ */
+public class CacheLru<K, V> {
+
+    private final int capacidad;
+    private final LinkedHashMap<K, V> entradas;
+
+    // Protegidos por this
+    private long aciertos;
+    private long fallos;
+    private long desalojos;
+
+    public CacheLru(int capacidad) {
+        if (capacidad <= 0) {
+            throw new IllegalArgumentException("La capacidad de la caché debe ser mayor a cero");
+        }
+        this.capacidad = capacidad;
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> masAntigua) {
+                if (size() > CacheLru.this.capacidad) {
+                    desalojos++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public V obtener(K clave, Supplier<V> cargar) {
+        synchronized (this) {
+            V valor = entradas.get(clave);
+            if (valor != null) {
+                aciertos++;
+                return valor;
+            }
+            fallos++;
+        }
+        V valor = cargar.get();
+        if (valor != null) {
+            synchronized (this) {
+                entradas.put(clave, valor);
+            }
+        }
+        return valor;
+    }
+
+    public synchronized void invalidarSi(Predicate<K> condicion) {
+        entradas.keySet().removeIf(condicion);
+    }
+
+    public synchronized void limpiar() {
+        entradas.clear();
+    }
+
+    public synchronized Map<String, Object> obtenerEstadisticas() {
+        Map<String, Object> estadisticas = new LinkedHashMap<>();
+        estadisticas.put("entradas", entradas.size());
+        estadisticas.put("capacidad", capacidad);
+        estadisticas.put("aciertos", aciertos);
+        estadisticas.put("fallos", fallos);
+        estadisticas.put("desalojos", desalojos);
+        long total = aciertos + fallos;
+        estadisticas.put("tasaAciertos", total > 0 ? (double) aciertos / total : 0.0);
+        return estadisticas;
+    }
+
+    public synchronized void reiniciarEstadisticas() {
+        aciertos = 0;
+        fallos = 0;
+        desalojos = 0;
+    }
+}
@@ -0,0 +1,285 @@
+package com.consultorio.odontologia.service.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Cubo de gastos por categoría × proveedor × mes. Cada celda guarda el total en centavos y la cantidad
+ * de gastos; categorías y proveedores se codifican como enteros y la celda se ubica con una clave long.
+ * Además recuerda lo que aporta cada gasto, así modificarlo o eliminarlo solo toca sus celdas.
+ * Las consultas agrupan por cualquier subconjunto de dimensiones recorriendo solo las celdas
+ * (a lo sumo categorías × proveedores × meses, no los gastos).
+ * No es thread-safe: el acceso concurrente lo controla CuboGastosService.
+ */
+public class CuboGastos {
+
+    public enum Dimension {
+        CATEGORIA, PROVEEDOR, MES;
+
+        public static Dimension desdeClave(String clave) {
+            for (Dimension dimension : values()) {
+                if (dimension.name().equalsIgnoreCase(clave.trim())) {
+                    return dimension;
+                }
+            }
+            throw new IllegalArgumentException("Dimensión desconocida: " + clave + " (categoria, proveedor o mes)");
+        }
+    }
+
+    // 21 bits por dimensión: hasta dos millones de categorías o proveedores distintos y meses hasta el año 174000
+    private static final int BITS = 21;
+    private static final long MASCARA = (1L << BITS) - 1;
+
+    // Orden por categoría, proveedor y mes, para series mes a mes
+    public static final Comparator<Fila> POR_DIMENSIONES = Comparator
+            .comparing(Fila::getCategoria, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+            .thenComparing(Fila::getProveedor, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+            .thenComparing(Fila::getMes, Comparator.nullsFirst(Comparator.<YearMonth>naturalOrder()));
+
+    // Mayor total primero, para rankings (proveedores o categorías con más gasto)
+    public static final Comparator<Fila> POR_TOTAL = Comparator
+            .comparingLong((Fila fila) -> fila.centavos).reversed()
+            .thenComparing(POR_DIMENSIONES);
+
+    private final Map<String, Integer> codigoCategoria = new HashMap<>();
+    private final List<String> categorias = new ArrayList<>();
+    private final Map<String, Integer> codigoProveedor = new HashMap<>();
+    private final List<String> proveedores = new ArrayList<>();
+
+    private final Map<Long, Celda> celdas = new HashMap<>();
+
+    // Celda y centavos de cada gasto, para descontarlo al modificarlo o eliminarlo
+    private final Map<Long, long[]> aportePorGasto = new HashMap<>();
+
+    private static final class Celda {
+        long centavos;
+        int gastos;
+    }
+
+    /**
+     * Fila de una consulta: las dimensiones que no se agruparon quedan en null
+     */
+    public static final class Fila {
+        private final String categoria;
+        private final String proveedor;
+        private final YearMonth mes;
+        private final long centavos;
+        private final int gastos;
+        private final Long centavosMesAnterior;
+
+        Fila(String categoria, String proveedor, YearMonth mes, long centavos, int gastos, Long centavosMesAnterior) {
+            this.categoria = categoria;
+            this.proveedor = proveedor;
+            this.mes = mes;
+            this.centavos = centavos;
+            this.gastos = gastos;
+            this.centavosMesAnterior = centavosMesAnterior;
+        }
+
+        public String getCategoria() {
+            return categoria;
+        }
+
+        public String getProveedor() {
+            return proveedor;
+        }
+
+        public YearMonth getMes() {
+            return mes;
+        }
+
+        public BigDecimal getTotal() {
+            return BigDecimal.valueOf(centavos, 2);
+        }
+
+        public int getGastos() {
+            return gastos;
+        }
+
+        // Total del mes anterior con las mismas categoría/proveedor; null si no se agrupó por mes
+        public BigDecimal getTotalMesAnterior() {
+            return centavosMesAnterior != null ? BigDecimal.valueOf(centavosMesAnterior, 2) : null;
+        }
+    }
+
+    /**
+     * Ubica el gasto en su celda; si ya estaba en el cubo primero descuenta lo que aportaba.
+     * Es idempotente: aplicar dos veces el mismo estado de un gasto no lo cuenta doble.
+     */
+    public void actualizar(long id, String categoria, String proveedor, YearMonth mes, BigDecimal total) {
+        long clave = clave(codificar(codigoCategoria, categorias, normalizar(categoria)),
+                codificar(codigoProveedor, proveedores, normalizar(proveedor)), mes);
+        long centavos = centavos(total);
+        long[] anterior = aportePorGasto.put(id, new long[] {clave, centavos});
+        if (anterior != null) {
+            descontar(anterior[0], anterior[1]);
+        }
+        Celda celda = celdas.computeIfAbsent(clave, k -> new Celda());
+        celda.centavos += centavos;
+        celda.gastos++;
+    }
+
+    public void eliminar(long id) {
+        long[] anterior = aportePorGasto.remove(id);
+        if (anterior != null) {
+            descontar(anterior[0], anterior[1]);
+        }
+    }
+
+    private void descontar(long clave, long centavos) {
+        Celda celda = celdas.get(clave);
+        celda.centavos -= centavos;
+        if (--celda.gastos == 0) {
+            celdas.remove(clave);
+        }
+    }
+
+    /**
+     * Agrupa las celdas que pasan los filtros por las dimensiones pedidas.
+     * Filtros null no filtran; desde y hasta son meses inclusivos.
+     */
+    public List<Fila> consultar(Set<Dimension> agrupar, Set<String> filtroCategorias, Set<String> filtroProveedores,
+                                YearMonth desde, YearMonth hasta) {
+        boolean porCategoria = agrupar.contains(Dimension.CATEGORIA);
+        boolean porProveedor = agrupar.contains(Dimension.PROVEEDOR);
+        boolean porMes = agrupar.contains(Dimension.MES);
+        int mesDesde = desde != null ? mes(desde) : Integer.MIN_VALUE;
+        int mesHasta = hasta != null ? mes(hasta) : Integer.MAX_VALUE;
+        // El mes anterior al rango también se acumula para calcular la variación del primer mes
+        int mesLectura = porMes && desde != null ? mesDesde - 1 : mesDesde;
+
+        boolean[] categoriaPermitida = permitidos(codigoCategoria, categorias.size(), filtroCategorias);
+        boolean[] proveedorPermitido = permitidos(codigoProveedor, proveedores.size(), filtroProveedores);
+
+        Map<Long, Celda> grupos = new HashMap<>();
+        for (Map.Entry<Long, Celda> entrada : celdas.entrySet()) {
+            long clave = entrada.getKey();
+            int categoria = (int) (clave >>> (2 * BITS));
+            int proveedor = (int) ((clave >>> BITS) & MASCARA);
+            int mes = (int) (clave & MASCARA);
+            if (mes < mesLectura || mes > mesHasta
+                    || (categoriaPermitida != null && !categoriaPermitida[categoria])
+                    || (proveedorPermitido != null && !proveedorPermitido[proveedor])) {
+                continue;
+            }
+            long grupo = ((porCategoria ? (long) categoria : 0L) << (2 * BITS))
+                    | ((porProveedor ? (long) proveedor : 0L) << BITS)
+                    | (porMes ? mes : 0L);
+            Celda acumulado = grupos.computeIfAbsent(grupo, k -> new Celda());
+            acumulado.centavos += entrada.getValue().centavos;
+            acumulado.gastos += entrada.getValue().gastos;
+        }
+
+        List<Fila> filas = new ArrayList<>();
+        for (Map.Entry<Long, Celda> grupo : grupos.entrySet()) {
+            long clave = grupo.getKey();
+            int mes = (int) (clave & MASCARA);
+            if (porMes && mes < mesDesde) {
+                continue;
+            }
+            Long mesAnterior = null;
+            if (porMes) {
+                Celda anterior = grupos.get(clave - 1);
+                mesAnterior = anterior != null ? anterior.centavos : 0L;
+            }
+            filas.add(new Fila(
+                    porCategoria ? categorias.get((int) (clave >>> (2 * BITS))) : null,
+                    porProveedor ? proveedores.get((int) ((clave >>> BITS) & MASCARA)) : null,
+                    porMes ? mes(mes) : null,
+                    grupo.getValue().centavos, grupo.getValue().gastos, mesAnterior));
+        }
+        return filas;
+    }
+
+    public int getTotalGastos() {
+        return aportePorGasto.size();
+    }
+
+    public int getTotalCeldas() {
+        return celdas.size();
+    }
+
+    public int getTotalCategorias() {
+        return categorias.size();
+    }
+
+    public int getTotalProveedores() {
+        return proveedores.size();
+    }
+
+    public static EnumSet<Dimension> dimensiones(List<String> claves) {
+        EnumSet<Dimension> dimensiones = EnumSet.noneOf(Dimension.class);
+        if (claves != null) {
+            for (String clave : claves) {
+                if (!clave.isBlank()) {
+                    dimensiones.add(Dimension.desdeClave(clave));
+                }
+            }
+        }
+        return dimensiones;
+    }
+
+    // Vacío o solo espacios cuenta como "sin categoría/proveedor"
+    private static String normalizar(String valor) {
+        if (valor == null) {
+            return null;
+        }
+        String recortado = valor.trim();
+        return recortado.isEmpty() ? null : recortado;
+    }
+
+    // Mayúsculas y tildes no distinguen valores, igual que la intercalación de MySQL; se muestra la primera escritura
+    private static int codificar(Map<String, Integer> codigos, List<String> valores, String valor) {
+        String clave = TextoNormalizador.normalizar(valor);
+        Integer codigo = codigos.get(clave);
+        if (codigo == null) {
+            codigo = valores.size();
+            if (codigo > MASCARA) {
+                throw new IllegalStateException("Demasiados valores distintos para el cubo de gastos");
+            }
+            codigos.put(clave, codigo);
+            valores.add(valor);
+        }
+        return codigo;
+    }
+
+    private static boolean[] permitidos(Map<String, Integer> codigos, int total, Set<String> filtro) {
+        if (filtro == null || filtro.isEmpty()) {
+            return null;
+        }
+        boolean[] permitidos = new boolean[total];
+        for (String valor : filtro) {
+            Integer codigo = codigos.get(TextoNormalizador.normalizar(normalizar(valor)));
+            if (codigo != null) {
+                permitidos[codigo] = true;
+            }
+        }
+        return permitidos;
+    }
+
+    private static long clave(int categoria, int proveedor, YearMonth mes) {
+        return ((long) categoria << (2 * BITS)) | ((long) proveedor << BITS) | mes(mes);
+    }
+
+    // Meses desde el año 0, así mes - 1 es siempre el mes anterior
+    private static int mes(YearMonth mes) {
+        return mes.getYear() * 12 + mes.getMonthValue() - 1;
+    }
+
+    private static YearMonth mes(int mes) {
+        return YearMonth.of(mes / 12, mes % 12 + 1);
+    }
+
+    private static long centavos(BigDecimal total) {
+        return Objects.requireNonNull(total, "total").setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+}
@@ -81,6 +81,7 @@ public class DTOConverter {
         dto.setId(presupuesto.getId());
         dto.setPacienteId(presupuesto.getPaciente().getId());
         dto.setFechaRegistro(presupuesto.getFechaRegistro());
+        dto.setVersion(presupuesto.getVersion());
         
         // Convertir tratamientos
         if (presupuesto.getTratamientos() != null) {
@@ -0,0 +1,272 @@
+package com.consultorio.odontologia.service.util;
+
+import com.consultorio.odontologia.entity.HistoriaClinica;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Diferencias entre dos estados de una historia clínica, en binario comprimido.
+ * <p>
+ * Cada campo se identifica por su posición en CAMPOS, que también es su bit en la máscara de campos cambiados;
+ * por eso a la lista solo se le agregan campos al final. Los datos son, por campo: posición (1 byte),
+ * marca (0 = null, 1 = false, 2 = true, 3 = texto) y, para texto, largo en varint y bytes UTF-8.
+ * Se comprimen con Deflate usando un diccionario compartido con palabras frecuentes de estos campos,
+ * que rinde aun con diferencias de pocos bytes; el primer byte indica el formato, así un diccionario nuevo
+ * se agrega con otro número sin dejar ilegibles los datos ya guardados.
+ */
+public final class DiferenciaHistoriaClinica {
+
+    private static final byte SIN_COMPRIMIR = 0;
+    private static final byte DEFLATE_DICCIONARIO_1 = 1;
+
+    private static final byte NULO = 0;
+    private static final byte FALSO = 1;
+    private static final byte VERDADERO = 2;
+    private static final byte TEXTO = 3;
+
+    // Lo más frecuente va al final: Deflate alcanza con distancias más cortas el final del diccionario
+    private static final byte[] DICCIONARIO_1 = ("observaciones detalle antecedentes tratamiento medicacion "
+            + "hipertension diabetes asma cardiopatia tiroides embarazo anticoagulantes aspirina ibuprofeno "
+            + "amoxicilina penicilina latex anestesia sangrado bruxismo halitosis sensibilidad dolor caries "
+            + "gingivitis periodontitis protesis ortodoncia implante extraccion limpieza control consulta "
+            + "mucosa lengua labios paladar encias ganglios atm conservado sin particularidades normal "
+            + "una vez al dia dos veces al dia tres veces al dia despues de cada comida a veces nunca "
+            + "ninguno ninguna no refiere no si").getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Campos versionados de la historia clínica (todos menos el encabezado de paciente, usuario y fechas)
+     */
+    public static final List<Campo> CAMPOS = List.of(
+            new Campo("motivoConsulta", HistoriaClinica::getMotivoConsulta, (h, v) -> h.setMotivoConsulta((String) v)),
+            new Campo("cepilladoDental", HistoriaClinica::getCepilladoDental, (h, v) -> h.setCepilladoDental((String) v)),
+            new Campo("cepilladoEncias", HistoriaClinica::getCepilladoEncias, (h, v) -> h.setCepilladoEncias((String) v)),
+            new Campo("cepilladoLingual", HistoriaClinica::getCepilladoLingual, (h, v) -> h.setCepilladoLingual((String) v)),
+            new Campo("observacionesHigienicas", HistoriaClinica::getObservacionesHigienicas, (h, v) -> h.setObservacionesHigienicas((String) v)),
+            new Campo("usaHiloDental", HistoriaClinica::getUsaHiloDental, (h, v) -> h.setUsaHiloDental((Boolean) v)),
+            new Campo("higieneProtesica", HistoriaClinica::getHigieneProtesica, (h, v) -> h.setHigieneProtesica((Boolean) v)),
+            new Campo("fumador", HistoriaClinica::getFumador, (h, v) -> h.setFumador((Boolean) v)),
+            new Campo("consumeCafe", HistoriaClinica::getConsumeCafe, (h, v) -> h.setConsumeCafe((Boolean) v)),
+            new Campo("consumeTe", HistoriaClinica::getConsumeTe, (h, v) -> h.setConsumeTe((Boolean) v)),
+            new Campo("consumeMate", HistoriaClinica::getConsumeMate, (h, v) -> h.setConsumeMate((Boolean) v)),
+            new Campo("consumeAlcohol", HistoriaClinica::getConsumeAlcohol, (h, v) -> h.setConsumeAlcohol((Boolean) v)),
+            new Campo("consumeDrogas", HistoriaClinica::getConsumeDrogas, (h, v) -> h.setConsumeDrogas((Boolean) v)),
+            new Campo("enfermedadesActuales", HistoriaClinica::getEnfermedadesActuales, (h, v) -> h.setEnfermedadesActuales((String) v)),
+            new Campo("medicamentos", HistoriaClinica::getMedicamentos, (h, v) -> h.setMedicamentos((String) v)),
+            new Campo("alergias", HistoriaClinica::getAlergias, (h, v) -> h.setAlergias((String) v)),
+            new Campo("posologia", HistoriaClinica::getPosologia, (h, v) -> h.setPosologia((String) v)),
+            new Campo("antecedentesFamiliares", HistoriaClinica::getAntecedentesFamiliares, (h, v) -> h.setAntecedentesFamiliares((String) v)),
+            new Campo("enTratamiento", HistoriaClinica::getEnTratamiento, (h, v) -> h.setEnTratamiento((Boolean) v)),
+            new Campo("tomaBifosfonatos", HistoriaClinica::getTomaBifosfonatos, (h, v) -> h.setTomaBifosfonatos((Boolean) v)),
+            new Campo("apreciacionGeneral", HistoriaClinica::getApreciacionGeneral, (h, v) -> h.setApreciacionGeneral((String) v)),
+            new Campo("apreciacionGeneralDetalle", HistoriaClinica::getApreciacionGeneralDetalle, (h, v) -> h.setApreciacionGeneralDetalle((String) v)),
+            new Campo("examenRegional", HistoriaClinica::getExamenRegional, (h, v) -> h.setExamenRegional((String) v)),
+            new Campo("examenRegionalDetalle", HistoriaClinica::getExamenRegionalDetalle, (h, v) -> h.setExamenRegionalDetalle((String) v)),
+            new Campo("examenRegionalDetalles", HistoriaClinica::getExamenRegionalDetalles, (h, v) -> h.setExamenRegionalDetalles((String) v)),
+            new Campo("examenLocal", HistoriaClinica::getExamenLocal, (h, v) -> h.setExamenLocal((String) v)),
+            new Campo("examenLocalDetalle", HistoriaClinica::getExamenLocalDetalle, (h, v) -> h.setExamenLocalDetalle((String) v)),
+            new Campo("continenteDetalles", HistoriaClinica::getContinenteDetalles, (h, v) -> h.setContinenteDetalles((String) v))
+    );
+
+    private static final Map<String, Integer> POSICIONES;
+
+    static {
+        Map<String, Integer> posiciones = new LinkedHashMap<>();
+        for (int i = 0; i < CAMPOS.size(); i++) {
+            posiciones.put(CAMPOS.get(i).getNombre(), i);
+        }
+        POSICIONES = Collections.unmodifiableMap(posiciones);
+    }
+
+    private DiferenciaHistoriaClinica() {
+    }
+
+    public static final class Campo {
+        private final String nombre;
+        private final Function<HistoriaClinica, Object> lector;
+        private final BiConsumer<HistoriaClinica, Object> escritor;
+
+        private Campo(String nombre, Function<HistoriaClinica, Object> lector, BiConsumer<HistoriaClinica, Object> escritor) {
+            this.nombre = nombre;
+            this.lector = lector;
+            this.escritor = escritor;
+        }
+
+        public String getNombre() {
+            return nombre;
+        }
+    }
+
+    /**
+     * Posición (y bit) del campo; IllegalArgumentException si no es un campo versionado
+     */
+    public static int posicion(String campo) {
+        Integer posicion = POSICIONES.get(campo);
+        if (posicion == null) {
+            throw new IllegalArgumentException("Campo desconocido: " + campo + " (válidos: " + String.join(", ", POSICIONES.keySet()) + ")");
+        }
+        return posicion;
+    }
+
+    // Valores de los campos versionados, en el orden de CAMPOS
+    public static Object[] leer(HistoriaClinica historia) {
+        Object[] valores = new Object[CAMPOS.size()];
+        for (int i = 0; i < valores.length; i++) {
+            valores[i] = CAMPOS.get(i).lector.apply(historia);
+        }
+        return valores;
+    }
+
+    public static void escribir(HistoriaClinica historia, Object[] valores) {
+        for (int i = 0; i < valores.length; i++) {
+            CAMPOS.get(i).escritor.accept(historia, valores[i]);
+        }
+    }
+
+    // Máscara con un bit por campo distinto entre los dos estados
+    public static long camposCambiados(Object[] antes, Object[] despues) {
+        long mascara = 0L;
+        for (int i = 0; i < antes.length; i++) {
+            if (!Objects.equals(antes[i], despues[i])) {
+                mascara |= 1L << i;
+            }
+        }
+        return mascara;
+    }
+
+    public static List<String> nombres(long mascara) {
+        List<String> nombres = new ArrayList<>();
+        for (int i = 0; i < CAMPOS.size(); i++) {
+            if ((mascara & (1L << i)) != 0) {
+                nombres.add(CAMPOS.get(i).getNombre());
+            }
+        }
+        return nombres;
+    }
+
+    /**
+     * Codifica los valores de los campos de la máscara y los comprime si así ocupan menos
+     */
+    public static byte[] codificar(Object[] valores, long mascara) {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        for (int i = 0; i < valores.length; i++) {
+            if ((mascara & (1L << i)) == 0) {
+                continue;
+            }
+            salida.write(i);
+            Object valor = valores[i];
+            if (valor == null) {
+                salida.write(NULO);
+            } else if (valor instanceof Boolean) {
+                salida.write((Boolean) valor ? VERDADERO : FALSO);
+            } else {
+                byte[] texto = ((String) valor).getBytes(StandardCharsets.UTF_8);
+                salida.write(TEXTO);
+                escribirVarint(salida, texto.length);
+                salida.write(texto, 0, texto.length);
+            }
+        }
+        byte[] plano = salida.toByteArray();
+
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+        try {
+            deflater.setDictionary(DICCIONARIO_1);
+            deflater.setInput(plano);
+            deflater.finish();
+            ByteArrayOutputStream comprimido = new ByteArrayOutputStream(plano.length + 16);
+            comprimido.write(DEFLATE_DICCIONARIO_1);
+            byte[] bloque = new byte[512];
+            while (!deflater.finished()) {
+                comprimido.write(bloque, 0, deflater.deflate(bloque));
+            }
+            if (comprimido.size() < plano.length + 1) {
+                return comprimido.toByteArray();
+            }
+        } finally {
+            deflater.end();
+        }
+        byte[] sinComprimir = new byte[plano.length + 1];
+        sinComprimir[0] = SIN_COMPRIMIR;
+        System.arraycopy(plano, 0, sinComprimir, 1, plano.length);
+        return sinComprimir;
+    }
+
+    /**
+     * Valores guardados por codificar, por posición de campo
+     */
+    public static Map<Integer, Object> decodificar(byte[] datos) {
+        byte[] plano = switch (datos[0]) {
+            case SIN_COMPRIMIR -> Arrays.copyOfRange(datos, 1, datos.length);
+            case DEFLATE_DICCIONARIO_1 -> descomprimir(datos, DICCIONARIO_1);
+            default -> throw new IllegalStateException("Formato de diferencia desconocido: " + datos[0]);
+        };
+        Map<Integer, Object> valores = new TreeMap<>();
+        int i = 0;
+        while (i < plano.length) {
+            int posicion = plano[i++];
+            byte marca = plano[i++];
+            switch (marca) {
+                case NULO -> valores.put(posicion, null);
+                case FALSO -> valores.put(posicion, Boolean.FALSE);
+                case VERDADERO -> valores.put(posicion, Boolean.TRUE);
+                case TEXTO -> {
+                    int largo = 0;
+                    int desplazamiento = 0;
+                    byte b;
+                    do {
+                        b = plano[i++];
+                        largo |= (b & 0x7F) << desplazamiento;
+                        desplazamiento += 7;
+                    } while ((b & 0x80) != 0);
+                    valores.put(posicion, new String(plano, i, largo, StandardCharsets.UTF_8));
+                    i += largo;
+                }
+                default -> throw new IllegalStateException("Marca de valor desconocida: " + marca);
+            }
+        }
+        return valores;
+    }
+
+    private static byte[] descomprimir(byte[] datos, byte[] diccionario) {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setDictionary(diccionario);
+            inflater.setInput(datos, 1, datos.length - 1);
+            ByteArrayOutputStream salida = new ByteArrayOutputStream(datos.length * 4);
+            byte[] bloque = new byte[512];
+            while (!inflater.finished()) {
+                int leidos = inflater.inflate(bloque);
+                if (leidos == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("Diferencia comprimida incompleta");
+                }
+                salida.write(bloque, 0, leidos);
+            }
+            return salida.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Diferencia comprimida inválida", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static void escribirVarint(ByteArrayOutputStream salida, int valor) {
+        while ((valor & ~0x7F) != 0) {
+            salida.write((valor & 0x7F) | 0x80);
+            valor >>>= 7;
+        }
+        salida.write(valor);
+    }
+}
@@ -0,0 +1,662 @@
+package com.consultorio.odontologia.service.util;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Índice invertido de palabras sobre los textos clínicos (diagnósticos, historias clínicas y tratamientos).
+ * Cada registro ocupa un "slot"; cada palabra normalizada guarda los slots que la contienen, con su
+ * frecuencia y en qué campos aparece, así se puede filtrar por campo ("alergias") sin otro índice.
+ * Las palabras están ordenadas, lo que permite buscar por prefijo ("penicil" encuentra "penicilina").
+ * El puntaje es BM25 y los fragmentos se arman solo para los resultados devueltos.
+ * No es thread-safe: el acceso concurrente lo controla IndiceClinicoService.
+ */
+public class IndiceTextoClinico {
+
+    public enum Tipo {
+        DIAGNOSTICO("diagnostico"), HISTORIA_CLINICA("historia"), TRATAMIENTO("tratamiento");
+
+        private final String clave;
+
+        Tipo(String clave) {
+            this.clave = clave;
+        }
+
+        public String getClave() {
+            return clave;
+        }
+
+        public static Tipo desdeClave(String clave) {
+            for (Tipo tipo : values()) {
+                if (tipo.clave.equalsIgnoreCase(clave.trim())) {
+                    return tipo;
+                }
+            }
+            throw new IllegalArgumentException("Tipo desconocido: " + clave + " (diagnostico, historia o tratamiento)");
+        }
+    }
+
+    // Parámetros habituales de BM25
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // Las palabras más cortas solo coinciden enteras; con prefijos de 1 a 3 letras casi todo coincide
+    private static final int LARGO_MINIMO_PREFIJO = 4;
+
+    private static final int LARGO_FRAGMENTO = 160;
+
+    // Con más eliminados que esta fracción de los vigentes (y al menos el mínimo) se compacta el índice
+    private static final int MINIMO_ELIMINADOS_COMPACTAR = 256;
+    private static final double FRACCION_ELIMINADOS_COMPACTAR = 0.25;
+
+    private static final Set<String> PALABRAS_VACIAS = Set.of(
+            "de", "la", "el", "en", "y", "los", "las", "del", "con", "por", "para", "un", "una",
+            "que", "se", "al", "lo", "le", "su", "sus", "es", "o", "u", "e", "a");
+
+    private long[] ids = new long[1024];
+    private Long[] pacientes = new Long[1024];
+    private byte[] tipos = new byte[1024];
+    private LocalDate[] fechas = new LocalDate[1024];
+    private String[][] textos = new String[1024][];
+    private int[] largos = new int[1024];
+    private int totalSlots;
+    private long largoTotal;
+
+    private BitSet eliminados = new BitSet();
+    private int totalEliminados;
+
+    private Map<String, Integer> slotPorClave = new HashMap<>();
+    private NavigableMap<String, Postings> postings = new TreeMap<>();
+
+    // Nombre de cada campo; su posición es el bit que lo representa en las postings
+    private final List<String> campos = new ArrayList<>();
+    private final Map<String, Integer> codigoCampo = new HashMap<>();
+
+    /**
+     * Registro encontrado, con el campo que mejor coincide y un fragmento con las palabras marcadas
+     */
+    public static final class Resultado {
+        private final Tipo tipo;
+        private final long id;
+        private final Long pacienteId;
+        private final LocalDate fecha;
+        private final double puntaje;
+        private final String campo;
+        private final String fragmento;
+
+        Resultado(Tipo tipo, long id, Long pacienteId, LocalDate fecha, double puntaje, String campo, String fragmento) {
+            this.tipo = tipo;
+            this.id = id;
+            this.pacienteId = pacienteId;
+            this.fecha = fecha;
+            this.puntaje = puntaje;
+            this.campo = campo;
+            this.fragmento = fragmento;
+        }
+
+        public Tipo getTipo() {
+            return tipo;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public Long getPacienteId() {
+            return pacienteId;
+        }
+
+        public LocalDate getFecha() {
+            return fecha;
+        }
+
+        public double getPuntaje() {
+            return puntaje;
+        }
+
+        public String getCampo() {
+            return campo;
+        }
+
+        public String getFragmento() {
+            return fragmento;
+        }
+    }
+
+    // Slots crecientes con la frecuencia de la palabra y la máscara de campos donde aparece.
+    // vivos cuenta solo los slots no eliminados: es la frecuencia de documento que usa el idf
+    private static final class Postings {
+        private int[] slots = new int[2];
+        private int[] frecuencias = new int[2];
+        private int[] mascaras = new int[2];
+        private int tamano;
+        private int vivos;
+
+        void agregar(int slot, int frecuencia, int mascara) {
+            if (tamano == slots.length) {
+                slots = Arrays.copyOf(slots, tamano * 2);
+                frecuencias = Arrays.copyOf(frecuencias, tamano * 2);
+                mascaras = Arrays.copyOf(mascaras, tamano * 2);
+            }
+            slots[tamano] = slot;
+            frecuencias[tamano] = frecuencia;
+            mascaras[tamano] = mascara;
+            tamano++;
+            vivos++;
+        }
+    }
+
+    private static final ThreadLocal<Acumuladores> ACUMULADORES = ThreadLocal.withInitial(Acumuladores::new);
+
+    // Reutilizados entre búsquedas del mismo hilo; solo se limpian los slots tocados
+    private static final class Acumuladores {
+        private int[] coincidencias = new int[0];
+        private double[] puntajes = new double[0];
+        private double[] puntajesPalabra = new double[0];
+        private int[] tocados = new int[1024];
+
+        void asegurar(int totalSlots) {
+            if (coincidencias.length < totalSlots) {
+                int capacidad = Math.max(totalSlots, coincidencias.length * 2);
+                coincidencias = new int[capacidad];
+                puntajes = new double[capacidad];
+                puntajesPalabra = new double[capacidad];
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface VisitantePalabra {
+        void visitar(String palabra, int inicio, int fin);
+    }
+
+    /**
+     * Agrega (o reemplaza) un registro. Los campos vacíos no se indexan.
+     */
+    public void agregar(Tipo tipo, long id, Long pacienteId, LocalDate fecha, Map<String, String> textosPorCampo) {
+        eliminar(tipo, id);
+
+        int slot = totalSlots++;
+        asegurarCapacidad(totalSlots);
+        Map<String, int[]> frecuenciaYMascara = new HashMap<>();
+        String[] textosSlot = new String[0];
+        int largo = 0;
+        for (Map.Entry<String, String> entrada : textosPorCampo.entrySet()) {
+            String texto = entrada.getValue();
+            if (texto == null || texto.isBlank()) {
+                continue;
+            }
+            int campo = codificarCampo(entrada.getKey());
+            if (textosSlot.length <= campo) {
+                textosSlot = Arrays.copyOf(textosSlot, campo + 1);
+            }
+            textosSlot[campo] = texto;
+            int[] contadorLargo = new int[1];
+            recorrerPalabras(texto, (palabra, inicio, fin) -> {
+                int[] datos = frecuenciaYMascara.computeIfAbsent(palabra, p -> new int[2]);
+                datos[0]++;
+                datos[1] |= 1 << campo;
+                contadorLargo[0]++;
+            });
+            largo += contadorLargo[0];
+        }
+
+        ids[slot] = id;
+        pacientes[slot] = pacienteId;
+        tipos[slot] = (byte) tipo.ordinal();
+        fechas[slot] = fecha;
+        textos[slot] = textosSlot;
+        largos[slot] = largo;
+        largoTotal += largo;
+        slotPorClave.put(clave(tipo, id), slot);
+
+        for (Map.Entry<String, int[]> entrada : frecuenciaYMascara.entrySet()) {
+            postings.computeIfAbsent(entrada.getKey(), p -> new Postings())
+                    .agregar(slot, entrada.getValue()[0], entrada.getValue()[1]);
+        }
+    }
+
+    /**
+     * Marca un registro como eliminado; cuando los eliminados pasan el umbral se compacta el índice.
+     * Las actualizaciones también pasan por aquí (agregar reemplaza el slot anterior).
+     */
+    public boolean eliminar(Tipo tipo, long id) {
+        Integer slot = slotPorClave.remove(clave(tipo, id));
+        if (slot == null) {
+            return false;
+        }
+        marcarEliminado(slot);
+        compactarSiCorresponde();
+        return true;
+    }
+
+    /**
+     * Elimina todos los registros de un paciente (recorre los slots, se usa solo al borrar pacientes)
+     */
+    public int eliminarPaciente(long pacienteId) {
+        int eliminadosAhora = 0;
+        for (int slot = 0; slot < totalSlots; slot++) {
+            if (!eliminados.get(slot) && pacientes[slot] != null && pacientes[slot] == pacienteId) {
+                slotPorClave.remove(clave(Tipo.values()[tipos[slot]], ids[slot]));
+                marcarEliminado(slot);
+                eliminadosAhora++;
+            }
+        }
+        compactarSiCorresponde();
+        return eliminadosAhora;
+    }
+
+    /**
+     * Vuelve a armar el índice solo con los slots vigentes, en el mismo orden, sin consultar la base
+     */
+    public void compactar() {
+        if (totalEliminados == 0) {
+            return;
+        }
+        IndiceTextoClinico compacto = new IndiceTextoClinico();
+        // Mismos códigos de campo, así las máscaras no cambian de significado
+        compacto.campos.addAll(campos);
+        compacto.codigoCampo.putAll(codigoCampo);
+        for (int slot = 0; slot < totalSlots; slot++) {
+            if (eliminados.get(slot)) {
+                continue;
+            }
+            Map<String, String> textosPorCampo = new HashMap<>();
+            String[] textosSlot = textos[slot];
+            for (int campo = 0; campo < textosSlot.length; campo++) {
+                if (textosSlot[campo] != null) {
+                    textosPorCampo.put(campos.get(campo), textosSlot[campo]);
+                }
+            }
+            compacto.agregar(Tipo.values()[tipos[slot]], ids[slot], pacientes[slot], fechas[slot], textosPorCampo);
+        }
+        ids = compacto.ids;
+        pacientes = compacto.pacientes;
+        tipos = compacto.tipos;
+        fechas = compacto.fechas;
+        textos = compacto.textos;
+        largos = compacto.largos;
+        totalSlots = compacto.totalSlots;
+        largoTotal = compacto.largoTotal;
+        eliminados = compacto.eliminados;
+        totalEliminados = 0;
+        slotPorClave = compacto.slotPorClave;
+        postings = compacto.postings;
+    }
+
+    /**
+     * Registros que contienen todas las palabras de la consulta (las de 4 letras o más también como prefijo),
+     * ordenados por puntaje. Filtros null no filtran; con porPaciente se devuelve el mejor registro de cada paciente.
+     */
+    public List<Resultado> buscar(String consulta, Set<Tipo> filtroTipos, Set<String> filtroCampos, Long filtroPaciente,
+                                  int k, boolean porPaciente) {
+        List<String> palabras = new ArrayList<>();
+        recorrerPalabras(consulta, (palabra, inicio, fin) -> {
+            if (!palabras.contains(palabra)) {
+                palabras.add(palabra);
+            }
+        });
+        if (palabras.isEmpty() || k <= 0) {
+            return new ArrayList<>();
+        }
+        int mascaraCampos = mascaraCampos(filtroCampos);
+        if (mascaraCampos == 0) {
+            return new ArrayList<>();
+        }
+        int mascaraTipos = 0;
+        for (Tipo tipo : filtroTipos != null && !filtroTipos.isEmpty() ? filtroTipos : Set.of(Tipo.values())) {
+            mascaraTipos |= 1 << tipo.ordinal();
+        }
+
+        // Palabras con menos coincidencias primero: la primera genera los candidatos y las demás solo los filtran
+        List<List<Postings>> listasPorPalabra = new ArrayList<>();
+        for (String palabra : palabras) {
+            listasPorPalabra.add(listasDe(palabra));
+        }
+        listasPorPalabra.sort(Comparator.comparingLong(IndiceTextoClinico::totalPostings));
+        if (totalPostings(listasPorPalabra.get(0)) == 0) {
+            return new ArrayList<>();
+        }
+
+        int documentosVivos = totalSlots - totalEliminados;
+        double largoPromedio = documentosVivos > 0 ? Math.max(1.0, (double) largoTotal / documentosVivos) : 1.0;
+
+        Acumuladores acumuladores = ACUMULADORES.get();
+        acumuladores.asegurar(totalSlots);
+        int[] coincidencias = acumuladores.coincidencias;
+        double[] puntajes = acumuladores.puntajes;
+        double[] puntajesPalabra = acumuladores.puntajesPalabra;
+        int[] tocados = acumuladores.tocados;
+        int totalTocados = 0;
+
+        for (int p = 0; p < listasPorPalabra.size(); p++) {
+            for (Postings lista : listasPorPalabra.get(p)) {
+                double idf = Math.log(1 + (documentosVivos - lista.vivos + 0.5) / (lista.vivos + 0.5));
+                for (int i = 0; i < lista.tamano; i++) {
+                    int slot = lista.slots[i];
+                    if (p == 0) {
+                        if ((lista.mascaras[i] & mascaraCampos) == 0 || eliminados.get(slot)
+                                || (mascaraTipos & (1 << tipos[slot])) == 0
+                                || (filtroPaciente != null && !filtroPaciente.equals(pacientes[slot]))) {
+                            continue;
+                        }
+                    } else if (coincidencias[slot] < p || (lista.mascaras[i] & mascaraCampos) == 0) {
+                        continue;
+                    }
+                    double frecuencia = lista.frecuencias[i];
+                    double puntaje = idf * frecuencia * (K1 + 1)
+                            / (frecuencia + K1 * (1 - B + B * largos[slot] / largoPromedio));
+                    if (coincidencias[slot] == p) {
+                        // Primera coincidencia de esta palabra en el registro
+                        if (p == 0) {
+                            if (totalTocados == tocados.length) {
+                                tocados = Arrays.copyOf(tocados, totalTocados * 2);
+                                acumuladores.tocados = tocados;
+                            }
+                            tocados[totalTocados++] = slot;
+                        }
+                        coincidencias[slot] = p + 1;
+                        puntajesPalabra[slot] = puntaje;
+                        puntajes[slot] += puntaje;
+                    } else if (puntaje > puntajesPalabra[slot]) {
+                        // Otra palabra del mismo prefijo: cuenta la que mejor puntúa
+                        puntajes[slot] += puntaje - puntajesPalabra[slot];
+                        puntajesPalabra[slot] = puntaje;
+                    }
+                }
+            }
+        }
+
+        int requeridas = listasPorPalabra.size();
+        Map<Long, Integer> mejorPorPaciente = porPaciente ? new HashMap<>() : null;
+        Comparator<Integer> porPuntaje = Comparator.<Integer>comparingDouble(slot -> puntajes[slot])
+                .thenComparing(slot -> fechas[slot], Comparator.nullsFirst(Comparator.<LocalDate>naturalOrder()));
+        PriorityQueue<Integer> mejores = new PriorityQueue<>(k + 1, porPuntaje);
+        for (int i = 0; i < totalTocados; i++) {
+            int slot = tocados[i];
+            if (coincidencias[slot] != requeridas) {
+                continue;
+            }
+            if (porPaciente && pacientes[slot] != null) {
+                Integer anterior = mejorPorPaciente.get(pacientes[slot]);
+                if (anterior == null || porPuntaje.compare(slot, anterior) > 0) {
+                    mejorPorPaciente.put(pacientes[slot], slot);
+                }
+                continue;
+            }
+            agregarAMejores(mejores, slot, k, porPuntaje);
+        }
+        if (porPaciente) {
+            for (int slot : mejorPorPaciente.values()) {
+                agregarAMejores(mejores, slot, k, porPuntaje);
+            }
+        }
+
+        List<Integer> elegidos = new ArrayList<>(mejores);
+        elegidos.sort(porPuntaje.reversed());
+        List<Resultado> resultado = new ArrayList<>(elegidos.size());
+        for (int slot : elegidos) {
+            resultado.add(armarResultado(slot, puntajes[slot], palabras, mascaraCampos));
+        }
+
+        for (int i = 0; i < totalTocados; i++) {
+            int slot = tocados[i];
+            coincidencias[slot] = 0;
+            puntajes[slot] = 0;
+            puntajesPalabra[slot] = 0;
+        }
+        return resultado;
+    }
+
+    public int getTotalDocumentos() {
+        return slotPorClave.size();
+    }
+
+    public int getTotalEliminados() {
+        return totalEliminados;
+    }
+
+    public int getTotalPalabras() {
+        return postings.size();
+    }
+
+    public List<String> getCampos() {
+        return new ArrayList<>(campos);
+    }
+
+    private static void agregarAMejores(PriorityQueue<Integer> mejores, int slot, int k, Comparator<Integer> porPuntaje) {
+        if (mejores.size() < k) {
+            mejores.add(slot);
+        } else if (porPuntaje.compare(slot, mejores.peek()) > 0) {
+            mejores.poll();
+            mejores.add(slot);
+        }
+    }
+
+    private List<Postings> listasDe(String palabra) {
+        if (palabra.length() < LARGO_MINIMO_PREFIJO) {
+            Postings lista = postings.get(palabra);
+            return lista != null ? List.of(lista) : List.of();
+        }
+        return new ArrayList<>(postings.subMap(palabra, true, palabra + Character.MAX_VALUE, false).values());
+    }
+
+    private static long totalPostings(List<Postings> listas) {
+        long total = 0;
+        for (Postings lista : listas) {
+            total += lista.tamano;
+        }
+        return total;
+    }
+
+    private int mascaraCampos(Set<String> filtroCampos) {
+        if (filtroCampos == null || filtroCampos.isEmpty()) {
+            return -1;
+        }
+        int mascara = 0;
+        for (String campo : filtroCampos) {
+            for (int i = 0; i < campos.size(); i++) {
+                if (campos.get(i).equalsIgnoreCase(campo.trim())) {
+                    mascara |= 1 << i;
+                }
+            }
+        }
+        return mascara;
+    }
+
+    // Elige el campo con más palabras de la consulta y recorta un fragmento alrededor de la primera
+    private Resultado armarResultado(int slot, double puntaje, List<String> palabras, int mascaraCampos) {
+        String[] textosSlot = textos[slot];
+        int mejorCampo = -1;
+        List<int[]> mejoresMarcas = null;
+        int mejorCantidad = 0;
+        for (int campo = 0; campo < textosSlot.length; campo++) {
+            if (textosSlot[campo] == null || (mascaraCampos & (1 << campo)) == 0) {
+                continue;
+            }
+            List<int[]> marcas = new ArrayList<>();
+            Set<String> distintas = new HashSet<>();
+            recorrerPalabras(textosSlot[campo], (palabra, inicio, fin) -> {
+                String coincidente = coincidencia(palabra, palabras);
+                if (coincidente != null) {
+                    marcas.add(new int[] {inicio, fin});
+                    distintas.add(coincidente);
+                }
+            });
+            if (distintas.size() > mejorCantidad) {
+                mejorCantidad = distintas.size();
+                mejorCampo = campo;
+                mejoresMarcas = marcas;
+            }
+        }
+        String campo = mejorCampo >= 0 ? campos.get(mejorCampo) : null;
+        String fragmento = mejorCampo >= 0 ? fragmento(textosSlot[mejorCampo], mejoresMarcas) : null;
+        return new Resultado(Tipo.values()[tipos[slot]], ids[slot], pacientes[slot], fechas[slot],
+                Math.round(puntaje * 1000) / 1000.0, campo, fragmento);
+    }
+
+    private static String coincidencia(String palabraTexto, List<String> palabrasConsulta) {
+        for (String palabra : palabrasConsulta) {
+            if (palabraTexto.equals(palabra)
+                    || (palabra.length() >= LARGO_MINIMO_PREFIJO && palabraTexto.startsWith(palabra))) {
+                return palabra;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Fragmento de hasta LARGO_FRAGMENTO caracteres alrededor de la primera coincidencia,
+     * con el texto escapado para HTML y las coincidencias entre &lt;mark&gt;
+     */
+    static String fragmento(String texto, List<int[]> marcas) {
+        int primera = marcas.isEmpty() ? 0 : marcas.get(0)[0];
+        int inicio = Math.max(0, primera - LARGO_FRAGMENTO / 3);
+        int fin = Math.min(texto.length(), inicio + LARGO_FRAGMENTO);
+        inicio = Math.max(0, Math.min(inicio, fin - LARGO_FRAGMENTO));
+        // No cortar palabras a la mitad
+        while (inicio > 0 && Character.isLetterOrDigit(texto.charAt(inicio - 1))) {
+            inicio--;
+        }
+        while (fin < texto.length() && Character.isLetterOrDigit(texto.charAt(fin))) {
+            fin++;
+        }
+
+        StringBuilder resultado = new StringBuilder(fin - inicio + 32);
+        if (inicio > 0) {
+            resultado.append('…');
+        }
+        int posicion = inicio;
+        for (int[] marca : marcas) {
+            if (marca[1] <= inicio) {
+                continue;
+            }
+            if (marca[0] >= fin) {
+                break;
+            }
+            escapar(texto, posicion, Math.max(posicion, marca[0]), resultado);
+            resultado.append("<mark>");
+            escapar(texto, Math.max(posicion, marca[0]), Math.min(fin, marca[1]), resultado);
+            resultado.append("</mark>");
+            posicion = Math.min(fin, marca[1]);
+        }
+        escapar(texto, posicion, fin, resultado);
+        if (fin < texto.length()) {
+            resultado.append('…');
+        }
+        return resultado.toString().replaceAll("\\s+", " ").trim();
+    }
+
+    private static void escapar(String texto, int desde, int hasta, StringBuilder destino) {
+        for (int i = desde; i < hasta; i++) {
+            char c = texto.charAt(i);
+            switch (c) {
+                case '<' -> destino.append("&lt;");
+                case '>' -> destino.append("&gt;");
+                case '&' -> destino.append("&amp;");
+                case '"' -> destino.append("&quot;");
+                default -> destino.append(c);
+            }
+        }
+    }
+
+    /**
+     * Recorre las palabras del texto (letras y dígitos) ya normalizadas, con su posición en el texto original.
+     * Se omiten las palabras vacías y las de una sola letra.
+     */
+    private static void recorrerPalabras(String texto, VisitantePalabra visitante) {
+        if (texto == null) {
+            return;
+        }
+        int i = 0;
+        int largo = texto.length();
+        while (i < largo) {
+            while (i < largo && !Character.isLetterOrDigit(texto.charAt(i))) {
+                i++;
+            }
+            int inicio = i;
+            boolean soloAscii = true;
+            while (i < largo && (Character.isLetterOrDigit(texto.charAt(i))
+                    || Character.getType(texto.charAt(i)) == Character.NON_SPACING_MARK)) {
+                soloAscii &= texto.charAt(i) < 128;
+                i++;
+            }
+            if (i == inicio) {
+                continue;
+            }
+            String original = texto.substring(inicio, i);
+            String palabra = soloAscii ? original.toLowerCase(Locale.ROOT) : TextoNormalizador.normalizar(original);
+            if ((palabra.length() > 1 || Character.isDigit(palabra.charAt(0))) && !PALABRAS_VACIAS.contains(palabra)) {
+                visitante.visitar(palabra, inicio, i);
+            }
+        }
+    }
+
+    private int codificarCampo(String campo) {
+        Integer codigo = codigoCampo.get(campo);
+        if (codigo == null) {
+            codigo = campos.size();
+            if (codigo >= Integer.SIZE) {
+                throw new IllegalStateException("Demasiados campos distintos en el índice clínico");
+            }
+            codigoCampo.put(campo, codigo);
+            campos.add(campo);
+        }
+        return codigo;
+    }
+
+    // Descuenta el slot de la frecuencia de documento de cada palabra suya; las palabras sin
+    // registros vigentes salen del índice para que no sigan apareciendo en las búsquedas por prefijo
+    private void marcarEliminado(int slot) {
+        Set<String> palabras = new HashSet<>();
+        for (String texto : textos[slot]) {
+            recorrerPalabras(texto, (palabra, inicio, fin) -> palabras.add(palabra));
+        }
+        for (String palabra : palabras) {
+            Postings lista = postings.get(palabra);
+            if (lista != null && --lista.vivos == 0) {
+                postings.remove(palabra);
+            }
+        }
+        eliminados.set(slot);
+        totalEliminados++;
+        largoTotal -= largos[slot];
+        textos[slot] = null;
+    }
+
+    private void compactarSiCorresponde() {
+        if (totalEliminados >= MINIMO_ELIMINADOS_COMPACTAR
+                && totalEliminados > FRACCION_ELIMINADOS_COMPACTAR * slotPorClave.size()) {
+            compactar();
+        }
+    }
+
+    private static String clave(Tipo tipo, long id) {
+        return tipo.ordinal() + ":" + id;
+    }
+
+    private void asegurarCapacidad(int capacidad) {
+        if (capacidad <= ids.length) {
+            return;
+        }
+        int nuevaCapacidad = Math.max(capacidad, ids.length * 2);
+        ids = Arrays.copyOf(ids, nuevaCapacidad);
+        pacientes = Arrays.copyOf(pacientes, nuevaCapacidad);
+        tipos = Arrays.copyOf(tipos, nuevaCapacidad);
+        fechas = Arrays.copyOf(fechas, nuevaCapacidad);
+        textos = Arrays.copyOf(textos, nuevaCapacidad);
+        largos = Arrays.copyOf(largos, nuevaCapacidad);
+    }
+}
@@ -0,0 +1,335 @@
+package com.consultorio.odontologia.service.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Índice invertido de trigramas para búsqueda tolerante a errores de tipeo
+ * Cada paciente ocupa un "slot"; cada trigrama guarda la lista ordenada de slots que lo contienen.
+ * No es thread-safe: el acceso concurrente lo controla IndicePacientesService.
+ */
+public class IndiceTrigramas {
+
+    // Estimaciones aproximadas de memoria por estructura (JVM de 64 bits con oops comprimidos)
+    private static final long BYTES_POR_TRIGRAMA = 96;
+    private static final long BYTES_POR_DOCUMENTO = 120;
+
+    // Con más eliminados que esta fracción de los vigentes (y al menos el mínimo) se compacta el índice
+    private static final int MINIMO_ELIMINADOS_COMPACTAR = 256;
+    private static final double FRACCION_ELIMINADOS_COMPACTAR = 0.25;
+
+    private long[] ids = new long[1024];
+    private String[] nombres = new String[1024];
+    private String[] apellidos = new String[1024];
+    private String[] cedulas = new String[1024];
+    private int[] trigramasPorSlot = new int[1024];
+    private int totalSlots;
+
+    private BitSet eliminados = new BitSet();
+    private int totalEliminados;
+
+    private Map<Long, Integer> slotPorId = new HashMap<>();
+    private Map<String, Postings> postings = new HashMap<>();
+
+    private long memoriaEstimadaBytes;
+
+    /**
+     * Resultado de una búsqueda, con los datos mínimos para mostrar la sugerencia
+     */
+    public static final class Resultado {
+        private final long id;
+        private final double puntaje;
+        private final String nombre;
+        private final String apellido;
+        private final String cedula;
+
+        Resultado(long id, double puntaje, String nombre, String apellido, String cedula) {
+            this.id = id;
+            this.puntaje = puntaje;
+            this.nombre = nombre;
+            this.apellido = apellido;
+            this.cedula = cedula;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public double getPuntaje() {
+            return puntaje;
+        }
+
+        public String getNombre() {
+            return nombre;
+        }
+
+        public String getApellido() {
+            return apellido;
+        }
+
+        public String getCedula() {
+            return cedula;
+        }
+    }
+
+    private static final Postings VACIA = new Postings();
+
+    private static final ThreadLocal<Contadores> CONTADORES = ThreadLocal.withInitial(Contadores::new);
+
+    private static final class Contadores {
+        private int[] comunes = new int[0];
+        private int[] tocados = new int[1024];
+
+        int[] comunes(int totalSlots) {
+            if (comunes.length < totalSlots) {
+                comunes = new int[Math.max(totalSlots, comunes.length * 2)];
+            }
+            return comunes;
+        }
+    }
+
+    // Lista de slots creciente; como los slots se asignan en orden, queda ordenada sin esfuerzo
+    private static final class Postings {
+        private int[] slots = new int[4];
+        private int tamano;
+
+        void agregar(int slot) {
+            if (tamano == slots.length) {
+                slots = Arrays.copyOf(slots, tamano * 2);
+            }
+            slots[tamano++] = slot;
+        }
+    }
+
+    /**
+     * Agrega (o reemplaza) un paciente en el índice
+     */
+    public void agregar(long id, String nombre, String apellido, String cedula) {
+        eliminar(id);
+
+        Set<String> trigramas = new LinkedHashSet<>();
+        agregarTrigramas(nombre, trigramas);
+        agregarTrigramas(apellido, trigramas);
+        agregarTrigramas(cedula, trigramas);
+
+        int slot = totalSlots++;
+        asegurarCapacidad(totalSlots);
+        ids[slot] = id;
+        nombres[slot] = nombre;
+        apellidos[slot] = apellido;
+        cedulas[slot] = cedula;
+        trigramasPorSlot[slot] = trigramas.size();
+        slotPorId.put(id, slot);
+
+        for (String trigrama : trigramas) {
+            Postings lista = postings.get(trigrama);
+            if (lista == null) {
+                lista = new Postings();
+                postings.put(trigrama, lista);
+                memoriaEstimadaBytes += BYTES_POR_TRIGRAMA;
+            }
+            int capacidadAnterior = lista.slots.length;
+            lista.agregar(slot);
+            memoriaEstimadaBytes += 4L * (lista.slots.length - capacidadAnterior);
+        }
+        memoriaEstimadaBytes += BYTES_POR_DOCUMENTO + 2L * (largo(nombre) + largo(apellido) + largo(cedula));
+    }
+
+    /**
+     * Marca un paciente como eliminado; cuando los eliminados pasan el umbral se compacta el índice.
+     * Las actualizaciones también pasan por aquí (agregar reemplaza el slot anterior).
+     */
+    public boolean eliminar(long id) {
+        Integer slot = slotPorId.remove(id);
+        if (slot == null) {
+            return false;
+        }
+        eliminados.set(slot);
+        totalEliminados++;
+        nombres[slot] = null;
+        apellidos[slot] = null;
+        cedulas[slot] = null;
+        if (totalEliminados >= MINIMO_ELIMINADOS_COMPACTAR
+                && totalEliminados > FRACCION_ELIMINADOS_COMPACTAR * slotPorId.size()) {
+            compactar();
+        }
+        return true;
+    }
+
+    /**
+     * Vuelve a armar el índice solo con los slots vigentes, en el mismo orden, sin consultar la base
+     */
+    public void compactar() {
+        if (totalEliminados == 0) {
+            return;
+        }
+        IndiceTrigramas compacto = new IndiceTrigramas();
+        for (int slot = 0; slot < totalSlots; slot++) {
+            if (!eliminados.get(slot)) {
+                compacto.agregar(ids[slot], nombres[slot], apellidos[slot], cedulas[slot]);
+            }
+        }
+        ids = compacto.ids;
+        nombres = compacto.nombres;
+        apellidos = compacto.apellidos;
+        cedulas = compacto.cedulas;
+        trigramasPorSlot = compacto.trigramasPorSlot;
+        totalSlots = compacto.totalSlots;
+        eliminados = compacto.eliminados;
+        totalEliminados = 0;
+        slotPorId = compacto.slotPorId;
+        postings = compacto.postings;
+        memoriaEstimadaBytes = compacto.memoriaEstimadaBytes;
+    }
+
+    /**
+     * Devuelve los k pacientes más parecidos a la consulta.
+     * El puntaje combina la fracción de trigramas de la consulta presentes en el paciente
+     * (cobertura) con el coeficiente de Dice, que desempata a favor de textos más cortos.
+     */
+    public List<Resultado> buscar(String consulta, int k, double puntajeMinimo) {
+        Set<String> trigramasConsulta = new LinkedHashSet<>();
+        agregarTrigramas(consulta, trigramasConsulta);
+        if (trigramasConsulta.isEmpty() || k <= 0) {
+            return new ArrayList<>();
+        }
+
+        // Listas de la consulta de la más corta a la más larga
+        int tamanoConsulta = trigramasConsulta.size();
+        List<Postings> listas = new ArrayList<>(tamanoConsulta);
+        for (String trigrama : trigramasConsulta) {
+            listas.add(postings.getOrDefault(trigrama, VACIA));
+        }
+        listas.sort(Comparator.comparingInt(lista -> lista.tamano));
+
+        // Filtro por prefijo: un paciente que alcance la cobertura mínima tiene que aparecer
+        // en alguna de las (|Q| - requeridos + 1) listas más cortas; solo esas generan candidatos
+        int requeridos = Math.max(1, (int) Math.ceil(puntajeMinimo * tamanoConsulta - 1e-9));
+        int listasGeneradoras = tamanoConsulta - requeridos + 1;
+
+        // Los contadores se reutilizan entre búsquedas del mismo hilo; solo se limpian los slots tocados
+        Contadores contadores = CONTADORES.get();
+        int[] comunes = contadores.comunes(totalSlots);
+        int[] tocados = contadores.tocados;
+        int totalTocados = 0;
+        for (int l = 0; l < listasGeneradoras; l++) {
+            Postings lista = listas.get(l);
+            for (int i = 0; i < lista.tamano; i++) {
+                int slot = lista.slots[i];
+                if (comunes[slot]++ == 0) {
+                    if (totalTocados == tocados.length) {
+                        tocados = Arrays.copyOf(tocados, totalTocados * 2);
+                        contadores.tocados = tocados;
+                    }
+                    tocados[totalTocados++] = slot;
+                }
+            }
+        }
+
+        // Las listas largas solo suman a los candidatos ya encontrados: búsqueda binaria si hay pocos
+        for (int l = listasGeneradoras; l < tamanoConsulta; l++) {
+            Postings lista = listas.get(l);
+            if ((long) totalTocados * (32 - Integer.numberOfLeadingZeros(lista.tamano + 1)) < lista.tamano) {
+                for (int i = 0; i < totalTocados; i++) {
+                    if (Arrays.binarySearch(lista.slots, 0, lista.tamano, tocados[i]) >= 0) {
+                        comunes[tocados[i]]++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < lista.tamano; i++) {
+                    int slot = lista.slots[i];
+                    if (comunes[slot] > 0) {
+                        comunes[slot]++;
+                    }
+                }
+            }
+        }
+
+        Comparator<Resultado> porPuntaje = Comparator.comparingDouble(Resultado::getPuntaje);
+        PriorityQueue<Resultado> mejores = new PriorityQueue<>(k + 1, porPuntaje);
+        for (int i = 0; i < totalTocados; i++) {
+            int slot = tocados[i];
+            int enComun = comunes[slot];
+            comunes[slot] = 0;
+            if (eliminados.get(slot)) {
+                continue;
+            }
+            double cobertura = (double) enComun / tamanoConsulta;
+            if (cobertura < puntajeMinimo) {
+                continue;
+            }
+            double dice = 2.0 * enComun / (tamanoConsulta + trigramasPorSlot[slot]);
+            double puntaje = 0.8 * cobertura + 0.2 * dice;
+            if (mejores.size() < k) {
+                mejores.add(new Resultado(ids[slot], puntaje, nombres[slot], apellidos[slot], cedulas[slot]));
+            } else if (puntaje > mejores.peek().getPuntaje()) {
+                mejores.poll();
+                mejores.add(new Resultado(ids[slot], puntaje, nombres[slot], apellidos[slot], cedulas[slot]));
+            }
+        }
+
+        List<Resultado> resultado = new ArrayList<>(mejores);
+        resultado.sort(porPuntaje.reversed().thenComparingLong(Resultado::getId));
+        return resultado;
+    }
+
+    public int getTotalDocumentos() {
+        return slotPorId.size();
+    }
+
+    public int getTotalEliminados() {
+        return totalEliminados;
+    }
+
+    public int getTotalTrigramas() {
+        return postings.size();
+    }
+
+    public long getMemoriaEstimadaBytes() {
+        return memoriaEstimadaBytes + 12L * (ids.length + nombres.length * 3L) + 4L * trigramasPorSlot.length;
+    }
+
+    /**
+     * Trigramas de cada palabra normalizada, con un espacio de relleno a cada lado
+     * para que el comienzo y el final de la palabra pesen en la similitud
+     */
+    static void agregarTrigramas(String texto, Set<String> destino) {
+        String normalizado = TextoNormalizador.normalizar(texto);
+        if (normalizado == null || normalizado.isEmpty()) {
+            return;
+        }
+        for (String palabra : normalizado.split("[^\\p{L}\\p{N}]+")) {
+            if (palabra.isEmpty()) {
+                continue;
+            }
+            String relleno = " " + palabra + " ";
+            for (int i = 0; i + 3 <= relleno.length(); i++) {
+                destino.add(relleno.substring(i, i + 3));
+            }
+        }
+    }
+
+    private void asegurarCapacidad(int capacidad) {
+        if (capacidad <= ids.length) {
+            return;
+        }
+        int nuevaCapacidad = Math.max(capacidad, ids.length * 2);
+        ids = Arrays.copyOf(ids, nuevaCapacidad);
+        nombres = Arrays.copyOf(nombres, nuevaCapacidad);
+        apellidos = Arrays.copyOf(apellidos, nuevaCapacidad);
+        cedulas = Arrays.copyOf(cedulas, nuevaCapacidad);
+        trigramasPorSlot = Arrays.copyOf(trigramasPorSlot, nuevaCapacidad);
+    }
+
+    private static int largo(String texto) {
+        return texto != null ? texto.length() : 0;
+    }
+}
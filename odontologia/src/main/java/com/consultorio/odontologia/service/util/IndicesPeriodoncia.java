@@ -0,0 +1,250 @@
+package com.consultorio.odontologia.service.util;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Índices de placa y sarro (estilo O'Leary) de una ficha de periodoncia ya interpretados.
+ * Cada sector es una máscara de 32 bits, un bit por diente en el orden de DIENTES:
+ * la placa ocupa dos long (sectores superiores e inferiores) y el sarro uno.
+ * Los porcentajes salen de Long.bitCount. Es inmutable, así que una misma instancia
+ * se comparte entre lecturas desde la caché.
+ */
+public final class IndicesPeriodoncia {
+
+    // Mismo orden que la ficha del frontend: arcada superior y luego inferior
+    public static final int[] DIENTES = {
+        18, 17, 16, 15, 14, 13, 12, 11, 21, 22, 23, 24, 25, 26, 27, 28,
+        48, 47, 46, 45, 44, 43, 42, 41, 31, 32, 33, 34, 35, 36, 37, 38
+    };
+
+    public enum SectorPlaca {
+        SUPERIOR_IZQUIERDO, SUPERIOR_DERECHO, INFERIOR_IZQUIERDO, INFERIOR_DERECHO;
+
+        // "superior-izquierdo", como en las claves "18-superior-izquierdo"
+        public String getClave() {
+            return name().toLowerCase().replace('_', '-');
+        }
+    }
+
+    public enum SectorSarro {
+        SUPERIOR, INFERIOR;
+
+        public String getClave() {
+            return name().toLowerCase();
+        }
+    }
+
+    public static final int SECTORES_PLACA = DIENTES.length * 4;
+    public static final int SECTORES_SARRO = DIENTES.length * 2;
+
+    private static final int[] POSICION = new int[100];
+
+    static {
+        Arrays.fill(POSICION, -1);
+        for (int i = 0; i < DIENTES.length; i++) {
+            POSICION[DIENTES[i]] = i;
+        }
+    }
+
+    // null cuando la ficha no tiene ese índice cargado
+    private final Long placaSuperior;
+    private final Long placaInferior;
+    private final Long sarro;
+
+    private IndicesPeriodoncia(Long placaSuperior, Long placaInferior, Long sarro) {
+        this.placaSuperior = placaSuperior;
+        this.placaInferior = placaInferior;
+        this.sarro = sarro;
+    }
+
+    /**
+     * Desde los bits guardados en la ficha; la placa necesita las dos mitades
+     */
+    public static IndicesPeriodoncia desdeBits(Long placaSuperior, Long placaInferior, Long sarro) {
+        if ((placaSuperior == null) != (placaInferior == null)) {
+            throw new IllegalArgumentException("Faltan bits de placa");
+        }
+        return new IndicesPeriodoncia(placaSuperior, placaInferior, sarro);
+    }
+
+    /**
+     * Interpreta el formato del frontend:
+     * placa { "18-superior-izquierdo": true, ... } y sarro { "18": { "superior": true }, ... }.
+     * Lanza IllegalArgumentException ante dientes o sectores que no existen en la ficha.
+     */
+    public static IndicesPeriodoncia desdeMapas(Map<?, ?> indicePlaca, Map<?, ?> indiceSarro) {
+        long[] placa = null;
+        if (indicePlaca != null) {
+            placa = new long[2];
+            for (Map.Entry<?, ?> entrada : indicePlaca.entrySet()) {
+                String clave = String.valueOf(entrada.getKey());
+                int separador = clave.indexOf('-');
+                if (separador < 0) {
+                    throw new IllegalArgumentException("Clave de placa inválida: " + clave);
+                }
+                int posicion = posicion(clave.substring(0, separador));
+                SectorPlaca sector = sectorPlaca(clave.substring(separador + 1));
+                if (Boolean.TRUE.equals(entrada.getValue())) {
+                    placa[sector.ordinal() >>> 1] |= 1L << bitPlaca(sector, posicion);
+                }
+            }
+        }
+
+        Long sarro = null;
+        if (indiceSarro != null) {
+            long bits = 0L;
+            for (Map.Entry<?, ?> diente : indiceSarro.entrySet()) {
+                int posicion = posicion(String.valueOf(diente.getKey()));
+                if (diente.getValue() == null) {
+                    continue;
+                }
+                if (!(diente.getValue() instanceof Map<?, ?> sectores)) {
+                    throw new IllegalArgumentException("Sarro inválido para el diente " + diente.getKey());
+                }
+                for (Map.Entry<?, ?> sector : sectores.entrySet()) {
+                    SectorSarro sectorSarro = sectorSarro(String.valueOf(sector.getKey()));
+                    if (Boolean.TRUE.equals(sector.getValue())) {
+                        bits |= 1L << bitSarro(sectorSarro, posicion);
+                    }
+                }
+            }
+            sarro = bits;
+        }
+        return placa != null
+                ? new IndicesPeriodoncia(placa[0], placa[1], sarro)
+                : new IndicesPeriodoncia(null, null, sarro);
+    }
+
+    public Long getPlacaSuperior() {
+        return placaSuperior;
+    }
+
+    public Long getPlacaInferior() {
+        return placaInferior;
+    }
+
+    public Long getSarro() {
+        return sarro;
+    }
+
+    public boolean tienePlaca(int diente, SectorPlaca sector) {
+        return placaSuperior != null && (mitadPlaca(sector) & (1L << bitPlaca(sector, posicion(diente)))) != 0;
+    }
+
+    public boolean tieneSarro(int diente, SectorSarro sector) {
+        return sarro != null && (sarro & (1L << bitSarro(sector, posicion(diente)))) != 0;
+    }
+
+    public int sectoresConPlaca() {
+        return placaSuperior != null ? Long.bitCount(placaSuperior) + Long.bitCount(placaInferior) : 0;
+    }
+
+    public int sectoresConSarro() {
+        return sarro != null ? Long.bitCount(sarro) : 0;
+    }
+
+    /**
+     * Porcentaje de sectores con placa sobre los 128 de la ficha; 0 si no hay índice
+     */
+    public int porcentajePlaca() {
+        return (int) Math.round(sectoresConPlaca() * 100.0 / SECTORES_PLACA);
+    }
+
+    /**
+     * Porcentaje de sectores con sarro sobre los 64 de la ficha; 0 si no hay índice
+     */
+    public int porcentajeSarro() {
+        return (int) Math.round(sectoresConSarro() * 100.0 / SECTORES_SARRO);
+    }
+
+    /**
+     * Vuelve al formato del frontend con los sectores marcados; null si no hay índice de placa
+     */
+    public Map<String, Object> aMapaPlaca() {
+        if (placaSuperior == null) {
+            return null;
+        }
+        Map<String, Object> mapa = new LinkedHashMap<>();
+        for (int i = 0; i < DIENTES.length; i++) {
+            for (SectorPlaca sector : SectorPlaca.values()) {
+                if ((mitadPlaca(sector) & (1L << bitPlaca(sector, i))) != 0) {
+                    mapa.put(DIENTES[i] + "-" + sector.getClave(), Boolean.TRUE);
+                }
+            }
+        }
+        return mapa;
+    }
+
+    /**
+     * Vuelve al formato del frontend con los sectores marcados; null si no hay índice de sarro
+     */
+    public Map<String, Object> aMapaSarro() {
+        if (sarro == null) {
+            return null;
+        }
+        Map<String, Object> mapa = new LinkedHashMap<>();
+        for (int i = 0; i < DIENTES.length; i++) {
+            Map<String, Object> sectores = null;
+            for (SectorSarro sector : SectorSarro.values()) {
+                if ((sarro & (1L << bitSarro(sector, i))) != 0) {
+                    if (sectores == null) {
+                        sectores = new LinkedHashMap<>();
+                    }
+                    sectores.put(sector.getClave(), Boolean.TRUE);
+                }
+            }
+            if (sectores != null) {
+                mapa.put(String.valueOf(DIENTES[i]), sectores);
+            }
+        }
+        return mapa;
+    }
+
+    // Cada long de placa guarda dos sectores: bits 0-31 el primero y 32-63 el segundo
+    private static int bitPlaca(SectorPlaca sector, int posicion) {
+        return (sector.ordinal() & 1) * 32 + posicion;
+    }
+
+    private static int bitSarro(SectorSarro sector, int posicion) {
+        return sector.ordinal() * 32 + posicion;
+    }
+
+    private long mitadPlaca(SectorPlaca sector) {
+        return sector.ordinal() < 2 ? placaSuperior : placaInferior;
+    }
+
+    private static SectorPlaca sectorPlaca(String clave) {
+        for (SectorPlaca sector : SectorPlaca.values()) {
+            if (sector.getClave().equals(clave)) {
+                return sector;
+            }
+        }
+        throw new IllegalArgumentException("Sector de placa desconocido: " + clave);
+    }
+
+    private static SectorSarro sectorSarro(String clave) {
+        for (SectorSarro sector : SectorSarro.values()) {
+            if (sector.getClave().equals(clave)) {
+                return sector;
+            }
+        }
+        throw new IllegalArgumentException("Sector de sarro desconocido: " + clave);
+    }
+
+    private static int posicion(String diente) {
+        try {
+            return posicion(Integer.parseInt(diente.trim()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Número de diente inválido: " + diente);
+        }
+    }
+
+    private static int posicion(int diente) {
+        if (diente < 0 || diente >= POSICION.length || POSICION[diente] < 0) {
+            throw new IllegalArgumentException("Diente fuera de la ficha de periodoncia: " + diente);
+        }
+        return POSICION[diente];
+    }
+}
@@ -0,0 +1,184 @@
+package com.consultorio.odontologia.service.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lector de CSV registro por registro, sin cargar el archivo completo.
+ * Acepta campos entre comillas (con comillas dobles escapadas y saltos de línea dentro)
+ * y separador coma o punto y coma; Excel en español exporta con punto y coma.
+ * Campos y registros tienen un largo máximo, así una comilla sin cerrar no junta el resto del archivo en memoria.
+ */
+public class LectorCsv {
+
+    // Los textos de un gasto tienen a lo sumo 255 caracteres; los límites solo frenan archivos rotos
+    public static final int LARGO_MAXIMO_CAMPO = 4_096;
+    public static final int LARGO_MAXIMO_REGISTRO = 65_536;
+
+    /**
+     * Registro que no se pudo leer. Si es recuperable el lector ya pasó al registro siguiente;
+     * si no (comillas sin cerrar), no se sabe dónde termina y el lector no devuelve más registros.
+     */
+    public static class RegistroInvalidoException extends IOException {
+        private final long registro;
+        private final boolean recuperable;
+
+        RegistroInvalidoException(String mensaje, long registro, boolean recuperable) {
+            super(mensaje);
+            this.registro = registro;
+            this.recuperable = recuperable;
+        }
+
+        public long getRegistro() {
+            return registro;
+        }
+
+        public boolean isRecuperable() {
+            return recuperable;
+        }
+    }
+
+    private final Reader reader;
+    private final int largoMaximoCampo;
+    private final int largoMaximoRegistro;
+    private char separador;
+    private int siguiente = -2; // -2: todavía no se leyó el primer carácter
+    private long registro;
+    private boolean detenido;
+
+    /**
+     * El separador se deduce del primer registro (el encabezado) al leerlo
+     */
+    public LectorCsv(Reader reader) {
+        this(reader, LARGO_MAXIMO_CAMPO, LARGO_MAXIMO_REGISTRO);
+    }
+
+    LectorCsv(Reader reader, int largoMaximoCampo, int largoMaximoRegistro) {
+        this.reader = reader;
+        this.largoMaximoCampo = largoMaximoCampo;
+        this.largoMaximoRegistro = largoMaximoRegistro;
+    }
+
+    public char getSeparador() {
+        return separador;
+    }
+
+    // Número del último registro leído, empezando en 1 (el encabezado)
+    public long getRegistro() {
+        return registro;
+    }
+
+    /**
+     * Devuelve los campos del próximo registro, o null al final del archivo.
+     * Las líneas en blanco se saltean. Lanza RegistroInvalidoException si el registro no se puede leer.
+     */
+    public List<String> leer() throws IOException {
+        if (detenido) {
+            return null;
+        }
+        if (siguiente == -2) {
+            siguiente = reader.read();
+            // BOM que agrega Excel al guardar como "CSV UTF-8"
+            if (siguiente == '\uFEFF') {
+                siguiente = reader.read();
+            }
+        }
+        while (siguiente == '\r' || siguiente == '\n') {
+            siguiente = reader.read();
+        }
+        if (siguiente == -1) {
+            return null;
+        }
+        if (separador == 0) {
+            return leerEncabezado();
+        }
+
+        registro++;
+        List<String> campos = new ArrayList<>();
+        StringBuilder campo = new StringBuilder();
+        boolean entreComillas = false;
+        int largoRegistro = 0;
+        while (true) {
+            int c = siguiente;
+            if (c == -1) {
+                if (entreComillas) {
+                    detenido = true;
+                    throw new RegistroInvalidoException("Comillas sin cerrar en el registro " + registro, registro, false);
+                }
+                campos.add(campo.toString());
+                return campos;
+            }
+            if (campo.length() >= largoMaximoCampo || ++largoRegistro > largoMaximoRegistro) {
+                throw demasiadoLargo(campo.length() >= largoMaximoCampo, entreComillas);
+            }
+            siguiente = reader.read();
+            if (entreComillas) {
+                if (c == '"') {
+                    if (siguiente == '"') {
+                        campo.append('"');
+                        siguiente = reader.read();
+                    } else {
+                        entreComillas = false;
+                    }
+                } else {
+                    campo.append((char) c);
+                }
+            } else if (c == '"' && campo.length() == 0) {
+                entreComillas = true;
+            } else if (c == separador) {
+                campos.add(campo.toString());
+                campo.setLength(0);
+            } else if (c == '\r' || c == '\n') {
+                if (c == '\r' && siguiente == '\n') {
+                    siguiente = reader.read();
+                }
+                campos.add(campo.toString());
+                return campos;
+            } else {
+                campo.append((char) c);
+            }
+        }
+    }
+
+    // Fuera de comillas se descarta el resto de la línea sin guardarlo y se sigue con el registro siguiente;
+    // dentro de comillas el registro no tiene fin conocido y se deja de leer
+    private RegistroInvalidoException demasiadoLargo(boolean campoLargo, boolean entreComillas) throws IOException {
+        String mensaje = campoLargo
+                ? "Un campo del registro " + registro + " supera los " + largoMaximoCampo + " caracteres"
+                : "El registro " + registro + " supera los " + largoMaximoRegistro + " caracteres";
+        if (entreComillas) {
+            detenido = true;
+            return new RegistroInvalidoException(mensaje + " (¿comillas sin cerrar?); no se leyó el resto del archivo",
+                    registro, false);
+        }
+        while (siguiente != -1 && siguiente != '\r' && siguiente != '\n') {
+            siguiente = reader.read();
+        }
+        return new RegistroInvalidoException(mensaje, registro, true);
+    }
+
+    // El encabezado no lleva comillas con separadores dentro: se lee la línea y se elige el separador más frecuente
+    private List<String> leerEncabezado() throws IOException {
+        StringBuilder linea = new StringBuilder();
+        while (siguiente != -1 && siguiente != '\r' && siguiente != '\n') {
+            if (linea.length() >= largoMaximoRegistro) {
+                detenido = true;
+                throw new RegistroInvalidoException("El encabezado supera los " + largoMaximoRegistro + " caracteres", 1, false);
+            }
+            linea.append((char) siguiente);
+            siguiente = reader.read();
+        }
+        long comas = linea.chars().filter(c -> c == ',').count();
+        long puntosYComa = linea.chars().filter(c -> c == ';').count();
+        separador = puntosYComa > comas ? ';' : ',';
+        registro++;
+
+        List<String> campos = new ArrayList<>();
+        for (String campo : linea.toString().split(String.valueOf(separador), -1)) {
+            campos.add(campo.replace("\"", "").trim());
+        }
+        return campos;
+    }
+}
@@ -0,0 +1,30 @@
+package com.consultorio.odontologia.service.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Escribe objetos como JSON delimitado por saltos de línea (NDJSON), uno por línea
+ */
+public final class NdjsonEscritor {
+
+    public static final String MEDIA_TYPE = "application/x-ndjson";
+
+    private NdjsonEscritor() {
+    }
+
+    public static <T> Consumer<T> lineas(OutputStream salida, ObjectMapper objectMapper) {
+        return objeto -> {
+            try {
+                salida.write(objectMapper.writeValueAsBytes(objeto));
+                salida.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error al escribir la respuesta: " + e.getMessage(), e);
+            }
+        };
+    }
+}
@@ -0,0 +1,68 @@
+package com.consultorio.odontologia.service.util;
+
+import com.consultorio.odontologia.dto.PaginaDTO;
+import jakarta.persistence.EntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Clase utilitaria para los listados paginados por cursor y los exportes en streaming
+ */
+public final class Paginacion {
+
+    public static final int TAMANO_POR_DEFECTO = 50;
+    public static final int TAMANO_MAXIMO = 500;
+
+    // Debe coincidir con el fetch size de las consultas Stream de los repositorios
+    public static final int TAMANO_LOTE_STREAM = 500;
+
+    private Paginacion() {
+    }
+
+    public static Pageable primeraPagina(Integer tamano) {
+        int tamanoValido = tamano == null || tamano <= 0 ? TAMANO_POR_DEFECTO : Math.min(tamano, TAMANO_MAXIMO);
+        return PageRequest.of(0, tamanoValido);
+    }
+
+    public static long cursorInicial(Long despuesDeId) {
+        return despuesDeId != null ? despuesDeId : 0L;
+    }
+
+    /**
+     * Convierte un Slice ordenado por id en una página con el id del último elemento como cursor
+     */
+    public static <E, T> PaginaDTO<T> desdeSlice(Slice<E> slice, Function<E, T> convertir, Function<E, Long> id) {
+        List<E> elementos = slice.getContent();
+        List<T> contenido = elementos.stream().map(convertir).collect(Collectors.toList());
+        String siguienteCursor = slice.hasNext() && !elementos.isEmpty()
+            ? String.valueOf(id.apply(elementos.get(elementos.size() - 1)))
+            : null;
+        return new PaginaDTO<>(contenido, siguienteCursor, slice.hasNext());
+    }
+
+    /**
+     * Recorre un Stream de JPA entregando cada entidad al destino y vaciando el contexto
+     * de persistencia cada TAMANO_LOTE_STREAM filas, para que la memoria no crezca con la tabla.
+     * Debe llamarse dentro de una transacción de solo lectura.
+     */
+    public static <E> void recorrerEnLotes(Stream<E> stream, EntityManager entityManager, Consumer<E> destino) {
+        try (stream) {
+            Iterator<E> iterador = stream.iterator();
+            int procesadas = 0;
+            while (iterador.hasNext()) {
+                destino.accept(iterador.next());
+                if (++procesadas % TAMANO_LOTE_STREAM == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.consultorio.odontologia.service.util;
+
+import com.consultorio.odontologia.dto.PromedioIndicesMesDTO;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Índices de muchas fichas en columnas de primitivos (mes y bits de cada índice)
+ * para agregarlos en una sola pasada sin crear objetos por ficha
+ */
+public final class PanelIndicesPeriodoncia {
+
+    // Bits de "presentes"
+    private static final byte CON_PLACA = 1;
+    private static final byte CON_SARRO = 2;
+
+    private int[] meses = new int[256]; // año * 12 + (mes - 1)
+    private long[] placaSuperior = new long[256];
+    private long[] placaInferior = new long[256];
+    private long[] sarro = new long[256];
+    private byte[] presentes = new byte[256];
+    private int tamano;
+    private int mesMinimo = Integer.MAX_VALUE;
+    private int mesMaximo = Integer.MIN_VALUE;
+
+    /**
+     * Agrega una ficha; los índices en null no cuentan para su promedio
+     */
+    public void agregar(LocalDate fecha, Long placaSuperior, Long placaInferior, Long sarro) {
+        if (tamano == meses.length) {
+            int capacidad = tamano * 2;
+            meses = Arrays.copyOf(meses, capacidad);
+            this.placaSuperior = Arrays.copyOf(this.placaSuperior, capacidad);
+            this.placaInferior = Arrays.copyOf(this.placaInferior, capacidad);
+            this.sarro = Arrays.copyOf(this.sarro, capacidad);
+            presentes = Arrays.copyOf(presentes, capacidad);
+        }
+        int mes = fecha.getYear() * 12 + fecha.getMonthValue() - 1;
+        byte flags = 0;
+        if (placaSuperior != null && placaInferior != null) {
+            this.placaSuperior[tamano] = placaSuperior;
+            this.placaInferior[tamano] = placaInferior;
+            flags |= CON_PLACA;
+        }
+        if (sarro != null) {
+            this.sarro[tamano] = sarro;
+            flags |= CON_SARRO;
+        }
+        meses[tamano] = mes;
+        presentes[tamano] = flags;
+        tamano++;
+        mesMinimo = Math.min(mesMinimo, mes);
+        mesMaximo = Math.max(mesMaximo, mes);
+    }
+
+    public int getTamano() {
+        return tamano;
+    }
+
+    /**
+     * Promedio mensual de los porcentajes de placa y sarro, en orden cronológico.
+     * Como cada ficha tiene la misma cantidad de sectores, el promedio de porcentajes
+     * es el total de sectores marcados sobre el total de sectores del mes.
+     */
+    public List<PromedioIndicesMesDTO> promediosPorMes() {
+        List<PromedioIndicesMesDTO> resultado = new ArrayList<>();
+        if (tamano == 0) {
+            return resultado;
+        }
+        int cantidadMeses = mesMaximo - mesMinimo + 1;
+        int[] fichasPlaca = new int[cantidadMeses];
+        long[] sectoresPlaca = new long[cantidadMeses];
+        int[] fichasSarro = new int[cantidadMeses];
+        long[] sectoresSarro = new long[cantidadMeses];
+
+        for (int i = 0; i < tamano; i++) {
+            int mes = meses[i] - mesMinimo;
+            byte flags = presentes[i];
+            if ((flags & CON_PLACA) != 0) {
+                fichasPlaca[mes]++;
+                sectoresPlaca[mes] += Long.bitCount(placaSuperior[i]) + Long.bitCount(placaInferior[i]);
+            }
+            if ((flags & CON_SARRO) != 0) {
+                fichasSarro[mes]++;
+                sectoresSarro[mes] += Long.bitCount(sarro[i]);
+            }
+        }
+
+        for (int mes = 0; mes < cantidadMeses; mes++) {
+            if (fichasPlaca[mes] == 0 && fichasSarro[mes] == 0) {
+                continue;
+            }
+            int valor = mes + mesMinimo;
+            resultado.add(new PromedioIndicesMesDTO(
+                    YearMonth.of(valor / 12, valor % 12 + 1).toString(),
+                    fichasPlaca[mes],
+                    promedio(sectoresPlaca[mes], fichasPlaca[mes], IndicesPeriodoncia.SECTORES_PLACA),
+                    fichasSarro[mes],
+                    promedio(sectoresSarro[mes], fichasSarro[mes], IndicesPeriodoncia.SECTORES_SARRO)));
+        }
+        return resultado;
+    }
+
+    private static Double promedio(long sectoresMarcados, int fichas, int sectoresPorFicha) {
+        if (fichas == 0) {
+            return null;
+        }
+        double porcentaje = sectoresMarcados * 100.0 / ((long) fichas * sectoresPorFicha);
+        return Math.round(porcentaje * 100) / 100.0;
+    }
+}
@@ -0,0 +1,47 @@
+package com.consultorio.odontologia.service.util;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Clase utilitaria para normalizar textos de búsqueda
+ * Pasa a minúsculas y quita tildes para que "Pérez" y "perez" coincidan
+ */
+public final class TextoNormalizador {
+
+    private static final Pattern MARCAS_DIACRITICAS = Pattern.compile("\\p{M}+");
+    private static final Pattern NO_DIGITOS = Pattern.compile("\\D+");
+
+    private TextoNormalizador() {
+    }
+
+    /**
+     * Normaliza un texto libre (nombre, apellido, etc.)
+     */
+    public static String normalizar(String texto) {
+        if (texto == null) {
+            return null;
+        }
+        String sinTildes = MARCAS_DIACRITICAS.matcher(Normalizer.normalize(texto.trim(), Normalizer.Form.NFD)).replaceAll("");
+        return sinTildes.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Deja solo los dígitos de una cédula ("1.234.567-8" -> "12345678")
+     */
+    public static String soloDigitos(String texto) {
+        if (texto == null) {
+            return null;
+        }
+        return NO_DIGITOS.matcher(texto).replaceAll("");
+    }
+
+    /**
+     * Escapa los comodines de LIKE (con '!' como carácter de escape) para usar el texto como prefijo literal.
+     * Se evita '\\' porque MySQL lo interpreta dentro de los literales.
+     */
+    public static String escaparLike(String texto) {
+        return texto.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+}
@@ -0,0 +1,30 @@
+package com.consultorio.odontologia.service.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Clase utilitaria para ejecutar acciones cuando la transacción actual se confirma
+ * Se usa para mantener estructuras en memoria sin reflejar cambios que luego se revierten
+ */
+public final class TransaccionUtil {
+
+    private TransaccionUtil() {
+    }
+
+    /**
+     * Ejecuta la acción tras el commit; si no hay transacción activa la ejecuta en el momento
+     */
+    public static void despuesDelCommit(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accion.run();
+                }
+            });
+        } else {
+            accion.run();
+        }
+    }
+}
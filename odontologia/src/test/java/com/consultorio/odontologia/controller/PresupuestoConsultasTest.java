@@ -0,0 +1,135 @@
+package com.consultorio.odontologia.controller;
+
+import com.consultorio.odontologia.entity.Paciente;
+import com.consultorio.odontologia.entity.Presupuesto;
+import com.consultorio.odontologia.entity.TratamientoPresupuesto;
+import com.consultorio.odontologia.repository.PacienteRepository;
+import com.consultorio.odontologia.repository.PresupuestoRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Cantidad de sentencias SQL por endpoint de presupuestos, medida con las estadísticas de Hibernate.
+ * Cada listado debe cargar presupuestos, paciente y tratamientos en a lo sumo dos consultas,
+ * sin importar cuántos presupuestos devuelva.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+@WithMockUser
+class PresupuestoConsultasTest {
+
+    private static final int PRESUPUESTOS = 6;
+    private static final int TRATAMIENTOS_POR_PRESUPUESTO = 3;
+    private static final LocalDate DESDE = LocalDate.of(2025, 3, 1);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PacienteRepository pacienteRepository;
+
+    @Autowired
+    private PresupuestoRepository presupuestoRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Paciente paciente;
+    private Presupuesto primero;
+
+    @BeforeEach
+    void cargarDatos() {
+        presupuestoRepository.deleteAll();
+        pacienteRepository.deleteAll();
+
+        paciente = new Paciente();
+        paciente.setCI(12345L);
+        paciente.setName("Ana");
+        paciente.setLastname("Perez");
+        paciente = pacienteRepository.save(paciente);
+
+        for (int i = 0; i < PRESUPUESTOS; i++) {
+            Presupuesto presupuesto = new Presupuesto(paciente, DESDE.plusDays(i));
+            for (int j = 0; j < TRATAMIENTOS_POR_PRESUPUESTO; j++) {
+                presupuesto.addTratamiento(new TratamientoPresupuesto("Tratamiento " + j,
+                        BigDecimal.valueOf(100), BigDecimal.valueOf(40), false));
+            }
+            presupuesto = presupuestoRepository.save(presupuesto);
+            if (i == 0) {
+                primero = presupuesto;
+            }
+        }
+    }
+
+    @Test
+    void listadoPorPacienteNoCargaCadaPresupuestoPorSeparado() throws Exception {
+        long consultas = contarConsultas(() -> mockMvc.perform(get("/api/presupuesto/paciente/{id}", paciente.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(PRESUPUESTOS))
+                .andExpect(jsonPath("$[0].pacienteNombre").value("Ana"))
+                .andExpect(jsonPath("$[0].tratamientos.length()").value(TRATAMIENTOS_POR_PRESUPUESTO)));
+        assertThat(consultas).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void listadoPorFechaNoCargaCadaPresupuestoPorSeparado() throws Exception {
+        long consultas = contarConsultas(() -> mockMvc.perform(get("/api/presupuesto/por-fecha")
+                        .param("fechaInicio", DESDE.toString())
+                        .param("fechaFin", DESDE.plusDays(PRESUPUESTOS).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(PRESUPUESTOS))
+                .andExpect(jsonPath("$[0].pacienteApellido").value("Perez"))
+                .andExpect(jsonPath("$[0].tratamientos.length()").value(TRATAMIENTOS_POR_PRESUPUESTO)));
+        assertThat(consultas).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void presupuestoPorIdEnUnaConsulta() throws Exception {
+        long consultas = contarConsultas(() -> mockMvc.perform(get("/api/presupuesto/{id}", primero.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.pacienteNombre").value("Ana"))
+                .andExpect(jsonPath("$.tratamientos.length()").value(TRATAMIENTOS_POR_PRESUPUESTO)));
+        assertThat(consultas).isEqualTo(1);
+    }
+
+    @Test
+    void presupuestoPorPacienteYFechaEnUnaConsulta() throws Exception {
+        long consultas = contarConsultas(() -> mockMvc.perform(get("/api/presupuesto/paciente/{id}/fecha/{fecha}",
+                        paciente.getId(), DESDE))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tratamientos.length()").value(TRATAMIENTOS_POR_PRESUPUESTO)));
+        assertThat(consultas).isEqualTo(1);
+    }
+
+    // Sentencias preparadas durante la petición, con la caché de segundo nivel vacía (Paciente está cacheado)
+    private long contarConsultas(Peticion peticion) throws Exception {
+        entityManagerFactory.getCache().evictAll();
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+        peticion.ejecutar();
+        return estadisticas.getPrepareStatementCount();
+    }
+
+    @FunctionalInterface
+    private interface Peticion {
+        void ejecutar() throws Exception;
+    }
+}
@@ -0,0 +1,95 @@
+package com.consultorio.odontologia.entity;
+
+import com.consultorio.odontologia.entity.MapaDental.Estado;
+import com.consultorio.odontologia.entity.MapaDental.Superficie;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Ida y vuelta del mapa dental entre el formato del frontend, el layout binario y el JSON
+ */
+class MapaDentalTest {
+
+    @Test
+    void mapaDelFrontendVuelveIgualDesdeLosBytes() {
+        Map<String, Map<String, String>> dientes = new LinkedHashMap<>();
+        dientes.put("18", Map.of("oclusal", "caries"));
+        dientes.put("11", Map.of("vestibular", "obturado", "mesial", "sano"));
+        dientes.put("36", Map.of("oclusal", "tratamiento", "lingual", "corona"));
+        dientes.put("75", Map.of("distal", "implante"));
+        dientes.put("85", Map.of("palatal", "extraido"));
+
+        MapaDental mapa = MapaDental.desdeMapa(dientes);
+        byte[] bytes = mapa.aBytes();
+        MapaDental leido = MapaDental.desdeBytes(bytes);
+
+        assertThat(bytes).hasSize(MapaDental.BYTES);
+        assertThat(leido).isEqualTo(mapa);
+        assertThat(leido.aMapa()).isEqualTo(dientes);
+        assertThat(leido.estado(36, Superficie.LINGUAL)).isEqualTo(Estado.CORONA);
+        assertThat(leido.estado(36, Superficie.MESIAL)).isNull();
+    }
+
+    @Test
+    void cadaCaraDeCadaDienteSeGuardaSinPisarALasVecinas() {
+        // Llena todos los nibbles con estados distintos a los de la posición de al lado
+        MapaDental mapa = MapaDental.vacio();
+        Estado[] estados = Estado.values();
+        int n = 0;
+        for (int diente : MapaDental.DIENTES) {
+            for (Superficie superficie : Superficie.values()) {
+                mapa = mapa.con(diente, superficie, estados[n++ % estados.length]);
+            }
+        }
+
+        MapaDental leido = MapaDental.desdeBytes(mapa.aBytes());
+        n = 0;
+        for (int diente : MapaDental.DIENTES) {
+            for (Superficie superficie : Superficie.values()) {
+                assertThat(leido.estado(diente, superficie)).isEqualTo(estados[n++ % estados.length]);
+            }
+        }
+        assertThat(MapaDental.desdeMapa(leido.aMapa())).isEqualTo(leido);
+    }
+
+    @Test
+    void conNoModificaElOriginalYNullBorraLaCara() {
+        MapaDental original = MapaDental.vacio().con(16, Superficie.OCLUSAL, Estado.CARIES);
+        MapaDental obturado = original.con(16, Superficie.OCLUSAL, Estado.OBTURADO);
+        MapaDental borrado = obturado.con(16, Superficie.OCLUSAL, null);
+
+        assertThat(original.estado(16, Superficie.OCLUSAL)).isEqualTo(Estado.CARIES);
+        assertThat(obturado.estado(16, Superficie.OCLUSAL)).isEqualTo(Estado.OBTURADO);
+        assertThat(borrado).isEqualTo(MapaDental.vacio());
+        assertThat(borrado.aMapa()).isEmpty();
+        assertThat(obturado.dientesCon(Estado.OBTURADO)).isEqualTo(List.of(16));
+    }
+
+    @Test
+    void jsonEquivaleAlMapa() {
+        MapaDental mapa = MapaDental.vacio()
+                .con(21, Superficie.MESIAL, Estado.CARIES)
+                .con(21, Superficie.DISTAL, Estado.SANO)
+                .con(46, Superficie.OCLUSAL, Estado.CORONA);
+
+        assertThat(mapa.aJson())
+                .isEqualTo("{\"21\":{\"mesial\":\"caries\",\"distal\":\"sano\"},\"46\":{\"oclusal\":\"corona\"}}");
+        assertThat(MapaDental.vacio().aJson()).isEqualTo("{}");
+    }
+
+    @Test
+    void rechazaDientesEstadosYLargosInvalidos() {
+        assertThatThrownBy(() -> MapaDental.desdeMapa(Map.of("19", Map.of("oclusal", "caries"))))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> MapaDental.desdeMapa(Map.of("16", Map.of("oclusal", "rota"))))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> MapaDental.desdeBytes(new byte[MapaDental.BYTES - 1]))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,123 @@
+package com.consultorio.odontologia.entity;
+
+import com.consultorio.odontologia.entity.MedicionesPeriodontales.Indicadores;
+import com.consultorio.odontologia.entity.MedicionesPeriodontales.Sitio;
+import com.consultorio.odontologia.entity.MedicionesPeriodontales.Vista;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Lectura del JSON del periodontograma, ida y vuelta por el binario e indicadores
+ */
+class MedicionesPeriodontalesTest {
+
+    private static Map<String, Object> periodontograma() {
+        Map<String, Object> diente16 = Map.of(
+                "profundidadSondaje", Map.of(
+                        "vestibular", Map.of("mesial", 3, "vestibular", 5, "distal", "4", "lingual", 2),
+                        "palatina", Map.of("mesial", 2, "palatino", 6, "distal", 1, "lingual", 3)),
+                "migracionGingival", Map.of(
+                        "vestibular", Map.of("mesial", 1, "vestibular", -1, "distal", 0, "lingual", ""),
+                        "palatina", Map.of("mesial", 0, "palatino", 2, "distal", 0, "lingual", 0)),
+                "sangrado", Map.of("mesial", "rojo", "vestibular", "amarillo", "distal", true),
+                "movilidad", 2);
+        // Estructura vieja: los mismos sitios para las dos vistas
+        Map<String, Object> diente36 = Map.of(
+                "profundidadSondaje", Map.of("mesial", 4, "vestibular", 3, "distal", 2, "lingual", 1));
+        return Map.of(
+                "dientes", Map.of("16", diente16, "36", diente36, "11", Map.of("ausente", true)),
+                "dientesAusentes", List.of("48"));
+    }
+
+    @Test
+    void leeLasDosVistasYLaEstructuraVieja() {
+        MedicionesPeriodontales mediciones = MedicionesPeriodontales.desdeMapa(periodontograma());
+
+        int central = MedicionesPeriodontales.indiceSondaje(16, Vista.VESTIBULAR, Sitio.CENTRAL);
+        assertThat(mediciones.profundidad(central)).isEqualTo((short) 5);
+        assertThat(mediciones.margen(central)).isEqualTo((short) -1);
+        assertThat(mediciones.insercion(central)).isEqualTo(4);
+        assertThat(mediciones.profundidad(MedicionesPeriodontales.indiceSondaje(16, Vista.PALATINA, Sitio.CENTRAL)))
+                .isEqualTo((short) 6);
+        assertThat(mediciones.profundidad(MedicionesPeriodontales.indiceSondaje(16, Vista.VESTIBULAR, Sitio.DISTAL)))
+                .isEqualTo((short) 4);
+        // El 16 es el tercer diente: sus sitios de sangrado empiezan en 2 * 4
+        assertThat(mediciones.sangrado(2 * 4 + Sitio.MESIAL.ordinal())).isEqualTo(MedicionesPeriodontales.SANGRADO_ACTIVO);
+        assertThat(mediciones.sangrado(2 * 4 + Sitio.CENTRAL.ordinal())).isEqualTo(MedicionesPeriodontales.SANGRADO_LEVE);
+        assertThat(mediciones.sangrado(2 * 4 + Sitio.DISTAL.ordinal())).isEqualTo(MedicionesPeriodontales.SANGRADO_ACTIVO);
+        assertThat(mediciones.sangrado(2 * 4 + Sitio.LINGUAL.ordinal())).isEqualTo(MedicionesPeriodontales.SIN_SANGRADO);
+        assertThat(mediciones.movilidad(16)).isEqualTo((short) 2);
+
+        // En la estructura vieja la vista palatina no tiene sitio central
+        assertThat(mediciones.profundidad(MedicionesPeriodontales.indiceSondaje(36, Vista.PALATINA, Sitio.MESIAL)))
+                .isEqualTo((short) 4);
+        assertThat(mediciones.profundidad(MedicionesPeriodontales.indiceSondaje(36, Vista.PALATINA, Sitio.CENTRAL)))
+                .isZero();
+
+        assertThat(mediciones.estaAusente(11)).isTrue();
+        assertThat(mediciones.estaAusente(48)).isTrue();
+        assertThat(mediciones.estaAusente(16)).isFalse();
+    }
+
+    @Test
+    void losBytesVuelvenALasMismasMediciones() {
+        MedicionesPeriodontales mediciones = MedicionesPeriodontales.desdeMapa(periodontograma());
+
+        byte[] bytes = mediciones.aBytes();
+        MedicionesPeriodontales leidas = MedicionesPeriodontales.desdeBytes(bytes);
+
+        assertThat(bytes).hasSize(MedicionesPeriodontales.BYTES);
+        assertThat(leidas).isEqualTo(mediciones);
+        assertThat(leidas.hashCode()).isEqualTo(mediciones.hashCode());
+        assertThat(leidas.aBytes()).isEqualTo(bytes);
+        for (int i = 0; i < MedicionesPeriodontales.SITIOS_SONDAJE; i++) {
+            assertThat(leidas.profundidad(i)).isEqualTo(mediciones.profundidad(i));
+            assertThat(leidas.margen(i)).isEqualTo(mediciones.margen(i));
+        }
+        assertThat(MedicionesPeriodontales.desdeBytes(MedicionesPeriodontales.desdeMapa(null).aBytes()))
+                .isEqualTo(MedicionesPeriodontales.desdeMapa(Map.of()));
+    }
+
+    @Test
+    void indiceDeSondajeSeDescomponeEnDienteVistaYSitio() {
+        for (int diente : MedicionesPeriodontales.DIENTES) {
+            for (Vista vista : Vista.values()) {
+                for (Sitio sitio : Sitio.values()) {
+                    int indice = MedicionesPeriodontales.indiceSondaje(diente, vista, sitio);
+                    assertThat(MedicionesPeriodontales.dienteDeSondaje(indice)).isEqualTo(diente);
+                    assertThat(MedicionesPeriodontales.vistaDeSondaje(indice)).isEqualTo(vista);
+                    assertThat(MedicionesPeriodontales.sitioDeSondaje(indice)).isEqualTo(sitio);
+                }
+            }
+        }
+    }
+
+    @Test
+    void indicadoresCuentanSoloDientesPresentesYSitiosSondeados() {
+        Indicadores indicadores = MedicionesPeriodontales.desdeMapa(periodontograma()).calcularIndicadores(4);
+
+        assertThat(indicadores.dientesPresentes).isEqualTo(MedicionesPeriodontales.DIENTES.length - 2);
+        // Diente 16: 8 sitios; diente 36: 4 vestibulares y 3 palatinos
+        assertThat(indicadores.sitiosMedidos).isEqualTo(15);
+        assertThat(indicadores.sitiosConBolsa).isEqualTo(5);
+        assertThat(indicadores.sumaProfundidad).isEqualTo(26 + 10 + 7);
+        assertThat(indicadores.sumaInsercion).isEqualTo(26 + 10 + 7 + 2);
+        assertThat(indicadores.sitiosSangrado).isEqualTo((MedicionesPeriodontales.DIENTES.length - 2) * 4);
+        assertThat(indicadores.sitiosConSangrado).isEqualTo(3);
+    }
+
+    @Test
+    void rechazaDientesYValoresInvalidos() {
+        assertThatThrownBy(() -> MedicionesPeriodontales.desdeMapa(Map.of("dientes", Map.of("55", Map.of()))))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> MedicionesPeriodontales.desdeMapa(Map.of("dientes", Map.of("16", Map.of("movilidad", "x")))))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> MedicionesPeriodontales.desdeBytes(new byte[10]))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,118 @@
+package com.consultorio.odontologia.repository;
+
+import com.consultorio.odontologia.entity.HistoriaClinica;
+import com.consultorio.odontologia.entity.Paciente;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Las consultas por día de HistoriaClinicaRepository deben resolverse sobre el índice (paciente_id, fecha_creacion)
+ * con el rango de fechas como condición del índice. Se revisa el plan de H2 en modo MySQL con EXPLAIN y se comprueban
+ * los bordes del rango semiabierto.
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+class HistoriaClinicaPlanesTest {
+
+    private static final String INDICE = "idx_historia_clinica_paciente_fecha";
+    private static final LocalDate DIA = LocalDate.of(2026, 3, 10);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PacienteRepository pacienteRepository;
+
+    @Autowired
+    private HistoriaClinicaRepository historiaClinicaRepository;
+
+    private Paciente paciente;
+    private final List<Long> historias = new ArrayList<>();
+
+    @BeforeEach
+    void cargarDatos() {
+        paciente = new Paciente();
+        paciente.setName("Ana");
+        paciente.setLastname("Pérez");
+        paciente = pacienteRepository.save(paciente);
+        // Una historia al final del día anterior, dos dentro del día y una a la medianoche siguiente
+        guardar(DIA.minusDays(1).atTime(23, 59, 59, 999_000_000));
+        guardar(DIA.atStartOfDay());
+        guardar(DIA.atTime(18, 30));
+        guardar(DIA.plusDays(1).atStartOfDay());
+    }
+
+    @AfterEach
+    void borrarDatos() {
+        historiaClinicaRepository.deleteAllById(historias);
+        pacienteRepository.deleteById(paciente.getId());
+    }
+
+    @Test
+    void buscarPorDiaUsaElIndiceConElRango() {
+        String plan = explicar(HistoriaClinicaRepository.SQL_ID_POR_DIA);
+        assertThat(plan).contains(INDICE);
+        assertThat(condicionDelIndice(plan)).contains("paciente_id =").contains("fecha_creacion >=").contains("fecha_creacion <");
+    }
+
+    @Test
+    void existePorDiaUsaElIndiceConElRango() {
+        String plan = explicar(HistoriaClinicaRepository.SQL_EXISTE_POR_DIA);
+        assertThat(plan).contains(INDICE);
+        assertThat(condicionDelIndice(plan)).contains("fecha_creacion >=").contains("fecha_creacion <");
+    }
+
+    @Test
+    void fechasDisponiblesRecorrenSoloElTramoDelPaciente() {
+        String plan = explicar(HistoriaClinicaRepository.SQL_FECHAS);
+        assertThat(plan).contains(INDICE);
+        assertThat(condicionDelIndice(plan)).contains("paciente_id =");
+    }
+
+    @Test
+    void elRangoSemiabiertoRespetaLosBordesDelDia() {
+        LocalDateTime inicio = DIA.atStartOfDay();
+        LocalDateTime fin = DIA.plusDays(1).atStartOfDay();
+
+        assertThat(historiaClinicaRepository.findIdByPacienteIdAndDia(paciente.getId(), inicio, fin)).contains(historias.get(2));
+        assertThat(historiaClinicaRepository.existsByPacienteIdAndDia(paciente.getId(), inicio, fin)).isTrue();
+        assertThat(historiaClinicaRepository.existsByPacienteIdAndDia(paciente.getId(), fin.plusDays(1), fin.plusDays(2))).isFalse();
+        assertThat(historiaClinicaRepository.findFechasDisponiblesByPacienteId(paciente.getId()))
+                .containsExactly(DIA.plusDays(1).toString(), DIA.toString(), DIA.minusDays(1).toString());
+    }
+
+    private void guardar(LocalDateTime fechaCreacion) {
+        HistoriaClinica historia = new HistoriaClinica();
+        historia.setPaciente(paciente);
+        historia = historiaClinicaRepository.save(historia);
+        // @CreationTimestamp pisa la fecha al insertar
+        jdbcTemplate.update("UPDATE historia_clinica SET fecha_creacion = ? WHERE id = ?", fechaCreacion, historia.getId());
+        historias.add(historia.getId());
+    }
+
+    // Reemplaza los parámetros con nombre por valores, como los enviaría el driver
+    private String explicar(String sql) {
+        String consulta = sql.replace(":pacienteId", String.valueOf(paciente.getId()))
+                .replace(":inicio", "TIMESTAMP '" + DIA + " 00:00:00'")
+                .replace(":fin", "TIMESTAMP '" + DIA.plusDays(1) + " 00:00:00'");
+        return jdbcTemplate.queryForObject("EXPLAIN " + consulta, String.class).toLowerCase();
+    }
+
+    // H2 escribe el índice elegido y las condiciones que resuelve con él en un comentario: /* indice: condiciones */
+    private static String condicionDelIndice(String plan) {
+        int desde = plan.indexOf(INDICE);
+        return plan.substring(desde, plan.indexOf("*/", desde));
+    }
+}
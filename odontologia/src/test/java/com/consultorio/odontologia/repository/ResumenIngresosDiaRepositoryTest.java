@@ -0,0 +1,91 @@
+package com.consultorio.odontologia.repository;
+
+import com.consultorio.odontologia.entity.ResumenIngresosDia;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * ResumenIngresosDiaRepository.sumar es un upsert: el primer movimiento del día crea la fila y los demás suman
+ * sobre ella, aunque lleguen a la vez desde varias transacciones
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+class ResumenIngresosDiaRepositoryTest {
+
+    private static final LocalDate DIA = LocalDate.of(2032, 6, 1);
+    private static final LocalDate DIA_CONCURRENTE = LocalDate.of(2032, 6, 2);
+    private static final int HILOS = 16;
+
+    @Autowired
+    private ResumenIngresosDiaRepository resumenRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void borrarDatos() {
+        jdbcTemplate.update("DELETE FROM resumen_ingresos_dia WHERE fecha IN (?, ?)", DIA, DIA_CONCURRENTE);
+    }
+
+    @Test
+    void creaLaFilaDelDiaYDespuesSumaSobreElla() {
+        sumar(DIA, "100.00", "20.00");
+        sumar(DIA, "-30.50", "5.25");
+
+        ResumenIngresosDia dia = resumenRepository.findById(DIA).orElseThrow();
+        assertThat(dia.getPrecio()).isEqualByComparingTo("69.50");
+        assertThat(dia.getAbonado()).isEqualByComparingTo("25.25");
+        assertThat(resumenRepository.sumarPendiente(DIA, DIA)).isEqualByComparingTo("44.25");
+    }
+
+    @Test
+    void primerosMovimientosSimultaneosDelMismoDiaNoChocanEnLaClave() throws Exception {
+        ExecutorService hilos = Executors.newFixedThreadPool(HILOS);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<?>> resultados = new ArrayList<>();
+        try {
+            for (int i = 0; i < HILOS; i++) {
+                resultados.add(hilos.submit(() -> {
+                    largada.await();
+                    sumar(DIA_CONCURRENTE, "10.00", "1.00");
+                    return null;
+                }));
+            }
+            largada.countDown();
+            // get() relanza la excepción si alguna transacción falló por clave duplicada
+            for (Future<?> resultado : resultados) {
+                resultado.get();
+            }
+        } finally {
+            hilos.shutdown();
+        }
+
+        ResumenIngresosDia dia = resumenRepository.findById(DIA_CONCURRENTE).orElseThrow();
+        assertThat(dia.getPrecio()).isEqualByComparingTo(BigDecimal.valueOf(10L * HILOS));
+        assertThat(dia.getAbonado()).isEqualByComparingTo(BigDecimal.valueOf(HILOS));
+    }
+
+    private void sumar(LocalDate fecha, String precio, String abonado) {
+        transactionTemplate.executeWithoutResult(estado ->
+                resumenRepository.sumar(fecha, new BigDecimal(precio), new BigDecimal(abonado)));
+    }
+}
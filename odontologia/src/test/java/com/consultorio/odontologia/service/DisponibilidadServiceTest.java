@@ -0,0 +1,148 @@
+package com.consultorio.odontologia.service;
+
+import com.consultorio.odontologia.dto.CitaDTO;
+import com.consultorio.odontologia.entity.Cita;
+import com.consultorio.odontologia.entity.Paciente;
+import com.consultorio.odontologia.entity.Usuario;
+import com.consultorio.odontologia.repository.CitaRepository;
+import com.consultorio.odontologia.repository.PacienteRepository;
+import com.consultorio.odontologia.repository.UsuarioRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Días de agenda que DisponibilidadService carga de la base con las proyecciones (id, hora) de CitaRepository.
+ * Las fechas quedan fuera de la ventana precargada, así cada día se lee recién al consultarlo.
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+class DisponibilidadServiceTest {
+
+    private static final LocalDate DIA_FUTURO = LocalDate.of(2034, 5, 10);
+    private static final LocalDate DIA_RANGO = LocalDate.of(2034, 5, 11);
+    private static final LocalDate DIA_PASADO = LocalDate.of(2020, 3, 2);
+
+    @Autowired
+    private DisponibilidadService disponibilidadService;
+
+    @Autowired
+    private CitaService citaService;
+
+    @Autowired
+    private PacienteService pacienteService;
+
+    @Autowired
+    private CitaRepository citaRepository;
+
+    @Autowired
+    private PacienteRepository pacienteRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    private Paciente paciente;
+    private Usuario odontologo;
+    private Usuario otroOdontologo;
+
+    @BeforeEach
+    void crearDatos() {
+        paciente = new Paciente();
+        paciente.setName("Ana");
+        paciente.setLastname("Agenda");
+        paciente = pacienteRepository.save(paciente);
+        odontologo = guardarUsuario("agenda.uno@consultorio.test");
+        otroOdontologo = guardarUsuario("agenda.dos@consultorio.test");
+    }
+
+    @AfterEach
+    void borrarDatos() {
+        // Borra las citas del paciente y libera sus horarios
+        pacienteService.eliminarPaciente(paciente.getId());
+        usuarioRepository.deleteById(odontologo.getId());
+        usuarioRepository.deleteById(otroOdontologo.getId());
+    }
+
+    @Test
+    void lasProyeccionesTraenSoloLasCitasPedidas() {
+        Cita diez = guardarCita(odontologo, DIA_FUTURO, "10:00");
+        guardarCita(otroOdontologo, DIA_FUTURO, "14:00");
+        Cita rango = guardarCita(otroOdontologo, DIA_RANGO, "09:00");
+        guardarCita(odontologo, DIA_RANGO.plusDays(1), "09:00");
+
+        assertThat(citaRepository.findHorariosPorUsuarioYFecha(odontologo.getId(), DIA_FUTURO))
+                .singleElement()
+                .satisfies(fila -> assertThat(fila).containsExactly(diez.getId(), LocalTime.of(10, 0)));
+        assertThat(citaRepository.findHorariosEntreFechas(DIA_FUTURO, DIA_RANGO))
+                .hasSize(3)
+                .anySatisfy(fila -> assertThat(fila)
+                        .containsExactly(rango.getId(), otroOdontologo.getId(), DIA_RANGO, LocalTime.of(9, 0)));
+    }
+
+    @Test
+    void unDiaSinCargarSeLeeDeLaBaseConLasCitasDelOdontologo() {
+        // Guardadas sin pasar por CitaService: el servicio solo las conoce por la consulta
+        guardarCita(odontologo, DIA_FUTURO, "10:00");
+        guardarCita(otroOdontologo, DIA_FUTURO, "14:00");
+
+        assertThat(disponibilidadService.estaLibre(odontologo.getId(), DIA_FUTURO, LocalTime.of(10, 15))).isFalse();
+        assertThat(disponibilidadService.estaLibre(odontologo.getId(), DIA_FUTURO, LocalTime.of(14, 0))).isTrue();
+        List<String> libres = disponibilidadService.obtenerHorariosLibres(odontologo.getId(), DIA_FUTURO);
+        assertThat(libres).contains("09:30", "10:30", "14:00").doesNotContain("10:00");
+        assertThat(disponibilidadService.obtenerHorariosLibres(otroOdontologo.getId(), DIA_FUTURO))
+                .contains("10:00").doesNotContain("14:00");
+    }
+
+    @Test
+    void crearCitaRechazaSuperposicionesTambienEnDiasPasados() {
+        guardarCita(odontologo, DIA_PASADO, "09:00");
+
+        assertThatThrownBy(() -> citaService.crearCita(cita(odontologo, DIA_PASADO, "09:20")))
+                .isInstanceOf(IllegalStateException.class);
+        Cita siguiente = citaService.crearCita(cita(odontologo, DIA_PASADO, "09:30"));
+        citaService.crearCita(cita(otroOdontologo, DIA_PASADO, "09:20"));
+
+        assertThat(citaRepository.findHorariosPorUsuarioYFecha(odontologo.getId(), DIA_PASADO)).hasSize(2);
+        assertThat(disponibilidadService.estaLibre(odontologo.getId(), DIA_PASADO, LocalTime.of(9, 45))).isFalse();
+        citaService.eliminarCita(siguiente.getId());
+        assertThat(disponibilidadService.estaLibre(odontologo.getId(), DIA_PASADO, LocalTime.of(9, 45))).isTrue();
+    }
+
+    private Usuario guardarUsuario(String email) {
+        Usuario usuario = new Usuario();
+        usuario.setEmail(email);
+        usuario.setPassword("clave");
+        usuario.setName(email);
+        return usuarioRepository.save(usuario);
+    }
+
+    private Cita guardarCita(Usuario usuario, LocalDate fecha, String hora) {
+        Cita cita = new Cita();
+        cita.setPaciente(paciente);
+        cita.setUsuario(usuario);
+        cita.setFecha(fecha);
+        cita.setHora(LocalTime.parse(hora));
+        cita.setMotivo("Control");
+        return citaRepository.save(cita);
+    }
+
+    private CitaDTO cita(Usuario usuario, LocalDate fecha, String hora) {
+        CitaDTO cita = new CitaDTO();
+        cita.setPaciente(paciente);
+        cita.setUsuarioId(usuario.getId());
+        cita.setFecha(fecha.toString());
+        cita.setHora(hora);
+        cita.setMotivo("Control");
+        return cita;
+    }
+}
@@ -0,0 +1,189 @@
+package com.consultorio.odontologia.service;
+
+import com.consultorio.odontologia.dto.PresupuestoDTO;
+import com.consultorio.odontologia.dto.TratamientoPresupuestoDTO;
+import com.consultorio.odontologia.entity.Paciente;
+import com.consultorio.odontologia.entity.ResumenIngresosDia;
+import com.consultorio.odontologia.repository.PacienteRepository;
+import com.consultorio.odontologia.repository.ResumenIngresosDiaRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Movimientos y resumen diario que escribe LibroIngresosService al crear, modificar y borrar presupuestos.
+ * Son los totales que ReporteFinancieroService informa como ingresos; cada prueba usa días propios.
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+class LibroIngresosServiceTest {
+
+    private static final LocalDate ENERO = LocalDate.of(2031, 1, 15);
+    private static final LocalDate FEBRERO = LocalDate.of(2031, 2, 20);
+    private static final LocalDate MARZO = LocalDate.of(2031, 3, 10);
+
+    @Autowired
+    private PresupuestoService presupuestoService;
+
+    @Autowired
+    private PacienteService pacienteService;
+
+    @Autowired
+    private LibroIngresosService libroIngresosService;
+
+    @Autowired
+    private PacienteRepository pacienteRepository;
+
+    @Autowired
+    private ResumenIngresosDiaRepository resumenRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Long> pacientes = new ArrayList<>();
+
+    @BeforeEach
+    void crearPacientes() {
+        pacientes.add(guardarPaciente("Ana"));
+        pacientes.add(guardarPaciente("Luis"));
+    }
+
+    @AfterEach
+    void borrarDatos() {
+        for (Long pacienteId : pacientes) {
+            if (pacienteRepository.existsById(pacienteId)) {
+                pacienteService.eliminarPaciente(pacienteId);
+            }
+        }
+        jdbcTemplate.update("DELETE FROM movimientos_presupuesto WHERE fecha IN (?, ?, ?)", ENERO, FEBRERO, MARZO);
+        jdbcTemplate.update("DELETE FROM resumen_ingresos_dia WHERE fecha IN (?, ?, ?)", ENERO, FEBRERO, MARZO);
+    }
+
+    @Test
+    void cambiarLaFechaPasaElTotalDeUnDiaAlOtro() {
+        PresupuestoDTO creado = presupuestoService.crearPresupuesto(presupuesto(pacientes.get(0), ENERO,
+                tratamiento(null, "100.00", "20.00")));
+        assertThat(totales(ENERO)).containsExactly(new BigDecimal("100.00"), new BigDecimal("20.00"));
+
+        PresupuestoDTO cambio = presupuesto(pacientes.get(0), FEBRERO,
+                tratamiento(creado.getTratamientos().get(0).getId(), "150.00", "50.00"));
+        cambio.setVersion(creado.getVersion());
+        presupuestoService.actualizarPresupuesto(creado.getId(), cambio);
+
+        assertThat(totales(ENERO)).containsExactly(new BigDecimal("0.00"), new BigDecimal("0.00"));
+        assertThat(totales(FEBRERO)).containsExactly(new BigDecimal("150.00"), new BigDecimal("50.00"));
+        // El día viejo pierde lo que tenía y el nuevo recibe el total actual, no la diferencia
+        assertThat(movimientos(creado.getId())).containsExactly(
+                "ALTA " + ENERO + " 100.00 20.00",
+                "MODIFICACION " + ENERO + " -100.00 -20.00",
+                "MODIFICACION " + FEBRERO + " 150.00 50.00");
+    }
+
+    @Test
+    void cambiarSinMoverLaFechaRegistraSoloLaDiferencia() {
+        PresupuestoDTO creado = presupuestoService.crearPresupuesto(presupuesto(pacientes.get(0), ENERO,
+                tratamiento(null, "100.00", "20.00")));
+
+        PresupuestoDTO cambio = presupuesto(pacientes.get(0), ENERO,
+                tratamiento(creado.getTratamientos().get(0).getId(), "100.00", "70.00"),
+                tratamiento(null, "40.00", "0.00"));
+        cambio.setVersion(creado.getVersion());
+        presupuestoService.actualizarPresupuesto(creado.getId(), cambio);
+
+        assertThat(totales(ENERO)).containsExactly(new BigDecimal("140.00"), new BigDecimal("70.00"));
+        assertThat(movimientos(creado.getId())).containsExactly(
+                "ALTA " + ENERO + " 100.00 20.00",
+                "MODIFICACION " + ENERO + " 40.00 50.00");
+    }
+
+    @Test
+    void borrarUnPacienteDescuentaTodosSusPresupuestos() {
+        PresupuestoDTO enero = presupuestoService.crearPresupuesto(presupuesto(pacientes.get(0), ENERO,
+                tratamiento(null, "100.00", "20.00"), tratamiento(null, "50.00", "50.00")));
+        PresupuestoDTO marzo = presupuestoService.crearPresupuesto(presupuesto(pacientes.get(0), MARZO,
+                tratamiento(null, "300.00", "0.00")));
+        // Otro paciente el mismo día: no se toca
+        presupuestoService.crearPresupuesto(presupuesto(pacientes.get(1), ENERO, tratamiento(null, "80.00", "30.00")));
+
+        pacienteService.eliminarPaciente(pacientes.get(0));
+
+        assertThat(totales(ENERO)).containsExactly(new BigDecimal("80.00"), new BigDecimal("30.00"));
+        assertThat(totales(MARZO)).containsExactly(new BigDecimal("0.00"), new BigDecimal("0.00"));
+        assertThat(movimientos(enero.getId())).containsExactly(
+                "ALTA " + ENERO + " 150.00 70.00",
+                "BAJA " + ENERO + " -150.00 -70.00");
+        assertThat(movimientos(marzo.getId())).containsExactly(
+                "ALTA " + MARZO + " 300.00 0.00",
+                "BAJA " + MARZO + " -300.00 0.00");
+    }
+
+    @Test
+    void reconstruirDesdeLosMovimientosDaLoMismoQueElResumenIncremental() {
+        PresupuestoDTO creado = presupuestoService.crearPresupuesto(presupuesto(pacientes.get(0), ENERO,
+                tratamiento(null, "100.00", "20.00")));
+        presupuestoService.actualizarPagoTratamiento(creado.getId(), creado.getTratamientos().get(0).getId(),
+                new BigDecimal("60.00"));
+        presupuestoService.crearPresupuesto(presupuesto(pacientes.get(1), FEBRERO, tratamiento(null, "90.00", "90.00")));
+        List<BigDecimal> eneroAntes = totales(ENERO);
+        List<BigDecimal> febreroAntes = totales(FEBRERO);
+
+        libroIngresosService.reconstruirResumen();
+
+        assertThat(eneroAntes).containsExactly(new BigDecimal("100.00"), new BigDecimal("60.00"));
+        assertThat(totales(ENERO)).isEqualTo(eneroAntes);
+        assertThat(totales(FEBRERO)).isEqualTo(febreroAntes);
+    }
+
+    private Long guardarPaciente(String nombre) {
+        Paciente paciente = new Paciente();
+        paciente.setName(nombre);
+        paciente.setLastname("Libro");
+        return pacienteRepository.save(paciente).getId();
+    }
+
+    private static PresupuestoDTO presupuesto(Long pacienteId, LocalDate fecha, TratamientoPresupuestoDTO... tratamientos) {
+        PresupuestoDTO presupuesto = new PresupuestoDTO();
+        presupuesto.setPacienteId(pacienteId);
+        presupuesto.setFechaRegistro(fecha);
+        presupuesto.setTratamientos(new ArrayList<>(List.of(tratamientos)));
+        return presupuesto;
+    }
+
+    private static TratamientoPresupuestoDTO tratamiento(Long id, String precio, String abonado) {
+        TratamientoPresupuestoDTO tratamiento = new TratamientoPresupuestoDTO();
+        tratamiento.setId(id);
+        tratamiento.setNombre("Limpieza");
+        tratamiento.setPrecio(new BigDecimal(precio));
+        tratamiento.setAbonado(new BigDecimal(abonado));
+        tratamiento.setPagado(false);
+        return tratamiento;
+    }
+
+    // Precio y abonado del resumen del día
+    private List<BigDecimal> totales(LocalDate fecha) {
+        ResumenIngresosDia dia = resumenRepository.findById(fecha).orElseThrow();
+        return List.of(dia.getPrecio(), dia.getAbonado());
+    }
+
+    private List<String> movimientos(Long presupuestoId) {
+        List<String> movimientos = new ArrayList<>();
+        for (Map<String, Object> fila : jdbcTemplate.queryForList("SELECT tipo, fecha, diferencia_precio, diferencia_abonado "
+                + "FROM movimientos_presupuesto WHERE presupuesto_id = ? ORDER BY id", presupuestoId)) {
+            movimientos.add(fila.get("tipo") + " " + fila.get("fecha") + " " + fila.get("diferencia_precio") + " "
+                    + fila.get("diferencia_abonado"));
+        }
+        return movimientos;
+    }
+}
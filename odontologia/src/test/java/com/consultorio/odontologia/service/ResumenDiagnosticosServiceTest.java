@@ -0,0 +1,103 @@
+package com.consultorio.odontologia.service;
+
+import com.consultorio.odontologia.dto.DiagnosticoDTO;
+import com.consultorio.odontologia.dto.DiagnosticoResumenDTO;
+import com.consultorio.odontologia.dto.PaginaDTO;
+import com.consultorio.odontologia.entity.Paciente;
+import com.consultorio.odontologia.entity.Usuario;
+import com.consultorio.odontologia.repository.PacienteRepository;
+import com.consultorio.odontologia.repository.UsuarioRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * El listado y las estadísticas de diagnósticos muestran el nombre actual del odontólogo, no el que tenía
+ * cuando se escribió el resumen
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+class ResumenDiagnosticosServiceTest {
+
+    private static final LocalDate DIA = LocalDate.of(2033, 4, 5);
+
+    @Autowired
+    private ResumenDiagnosticosService resumenDiagnosticosService;
+
+    @Autowired
+    private DiagnosticoService diagnosticoService;
+
+    @Autowired
+    private PacienteService pacienteService;
+
+    @Autowired
+    private PacienteRepository pacienteRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    private Usuario usuario;
+    private Long pacienteId;
+
+    @BeforeEach
+    void crearDatos() {
+        usuario = new Usuario();
+        usuario.setEmail("resumen.diagnosticos@consultorio.test");
+        usuario.setPassword("clave");
+        usuario.setName("Dra. Gómez");
+        usuario = usuarioRepository.save(usuario);
+
+        Paciente paciente = new Paciente();
+        paciente.setName("Ana");
+        paciente.setLastname("Resumen");
+        pacienteId = pacienteRepository.save(paciente).getId();
+    }
+
+    @AfterEach
+    void borrarDatos() {
+        // Borra también sus diagnósticos y las filas del resumen
+        pacienteService.eliminarPaciente(pacienteId);
+        usuarioRepository.deleteById(usuario.getId());
+    }
+
+    @Test
+    void unCambioDeNombreDelOdontologoSeVeEnElListadoYEnLasEstadisticas() {
+        diagnosticoService.crearDiagnostico(diagnostico("Caries en 36"));
+        diagnosticoService.crearDiagnostico(diagnostico("Gingivitis marginal"));
+
+        usuario.setName("Dra. Gómez Paz");
+        usuarioRepository.save(usuario);
+
+        PaginaDTO<DiagnosticoResumenDTO> pagina = resumenDiagnosticosService.buscar(DIA, DIA, usuario.getId(), null,
+                null, null, null, false);
+        assertThat(pagina.getContenido()).extracting(DiagnosticoResumenDTO::getUsuarioNombre)
+                .containsExactly("Dra. Gómez Paz", "Dra. Gómez Paz");
+
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> porUsuario = (List<Map<String, Object>>) resumenDiagnosticosService
+                .estadisticas(DIA, DIA).get("porUsuario");
+        assertThat(porUsuario).singleElement().satisfies(fila -> {
+            assertThat(fila.get("usuarioNombre")).isEqualTo("Dra. Gómez Paz");
+            assertThat(fila.get("cantidad")).isEqualTo(2L);
+        });
+    }
+
+    private DiagnosticoDTO diagnostico(String texto) {
+        DiagnosticoDTO diagnostico = new DiagnosticoDTO();
+        diagnostico.setPacienteId(pacienteId);
+        diagnostico.setUsuarioId(usuario.getId());
+        diagnostico.setFechaDiagnostico(DIA);
+        diagnostico.setDiagnostico(texto);
+        diagnostico.setPronostico("Favorable");
+        return diagnostico;
+    }
+}
@@ -0,0 +1,105 @@
+package com.consultorio.odontologia.service.util;
+
+import com.consultorio.odontologia.service.util.CuboGastos.Dimension;
+import com.consultorio.odontologia.service.util.CuboGastos.Fila;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Altas, modificaciones y bajas de gastos en el cubo, y las consultas agrupadas con su mes anterior
+ */
+class CuboGastosTest {
+
+    private static final YearMonth ENERO = YearMonth.of(2025, 1);
+    private static final YearMonth FEBRERO = YearMonth.of(2025, 2);
+    private static final YearMonth MARZO = YearMonth.of(2025, 3);
+
+    private CuboGastos cubo;
+
+    @BeforeEach
+    void cargarGastos() {
+        cubo = new CuboGastos();
+        cubo.actualizar(1, "Insumos", "Dental Sur", ENERO, new BigDecimal("100.00"));
+        cubo.actualizar(2, "Insumos", "Dental Sur", FEBRERO, new BigDecimal("150.50"));
+        cubo.actualizar(3, "insumos ", "Odontomed", FEBRERO, new BigDecimal("49.50"));
+        cubo.actualizar(4, "Alquiler", null, FEBRERO, new BigDecimal("800"));
+        cubo.actualizar(5, "Insumos", "Dental Sur", MARZO, new BigDecimal("80.00"));
+    }
+
+    @Test
+    void aplicarDosVecesElMismoGastoNoLoCuentaDoble() {
+        List<Fila> antes = consultar(EnumSet.allOf(Dimension.class));
+
+        cubo.actualizar(2, "Insumos", "Dental Sur", FEBRERO, new BigDecimal("150.50"));
+        cubo.actualizar(2, "Insumos", "Dental Sur", FEBRERO, new BigDecimal("150.50"));
+
+        assertThat(cubo.getTotalGastos()).isEqualTo(5);
+        assertThat(consultar(EnumSet.allOf(Dimension.class)))
+                .usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyElementsOf(antes);
+    }
+
+    @Test
+    void modificarMueveElGastoDeCeldaYEliminarLoDescuenta() {
+        cubo.actualizar(4, "Alquiler", null, MARZO, new BigDecimal("850"));
+        cubo.eliminar(3);
+        cubo.eliminar(3);
+
+        List<Fila> porMes = consultar(EnumSet.of(Dimension.MES));
+        assertThat(porMes).extracting(Fila::getMes).containsExactly(ENERO, FEBRERO, MARZO);
+        assertThat(porMes).extracting(Fila::getTotal)
+                .containsExactly(new BigDecimal("100.00"), new BigDecimal("150.50"), new BigDecimal("930.00"));
+        assertThat(porMes).extracting(Fila::getGastos).containsExactly(1, 1, 2);
+        // La celda de Odontomed quedó vacía y se liberó
+        assertThat(cubo.getTotalCeldas()).isEqualTo(4);
+    }
+
+    @Test
+    void cadaMesTraeElTotalDelMesAnterior() {
+        List<Fila> insumos = cubo.consultar(EnumSet.of(Dimension.CATEGORIA, Dimension.MES), Set.of("INSUMOS"), null,
+                null, null);
+        insumos.sort(CuboGastos.POR_DIMENSIONES);
+
+        // Mayúsculas y espacios no separan categorías; se muestra la primera escritura
+        assertThat(insumos).extracting(Fila::getCategoria).containsOnly("Insumos");
+        assertThat(insumos).extracting(Fila::getTotal)
+                .containsExactly(new BigDecimal("100.00"), new BigDecimal("200.00"), new BigDecimal("80.00"));
+        assertThat(insumos).extracting(Fila::getTotalMesAnterior)
+                .containsExactly(new BigDecimal("0.00"), new BigDecimal("100.00"), new BigDecimal("200.00"));
+    }
+
+    @Test
+    void elPrimerMesDelRangoTambienTraeSuMesAnterior() {
+        List<Fila> filas = cubo.consultar(EnumSet.of(Dimension.MES), null, null, FEBRERO, MARZO);
+        filas.sort(CuboGastos.POR_DIMENSIONES);
+
+        assertThat(filas).extracting(Fila::getMes).containsExactly(FEBRERO, MARZO);
+        assertThat(filas).extracting(Fila::getTotalMesAnterior)
+                .containsExactly(new BigDecimal("100.00"), new BigDecimal("1000.00"));
+    }
+
+    @Test
+    void sinAgruparPorMesNoHayMesAnteriorYSeOrdenaPorTotal() {
+        List<Fila> porProveedor = consultar(EnumSet.of(Dimension.PROVEEDOR));
+        porProveedor.sort(CuboGastos.POR_TOTAL);
+
+        assertThat(porProveedor).extracting(Fila::getProveedor).containsExactly(null, "Dental Sur", "Odontomed");
+        assertThat(porProveedor).extracting(Fila::getTotal)
+                .containsExactly(new BigDecimal("800.00"), new BigDecimal("330.50"), new BigDecimal("49.50"));
+        assertThat(porProveedor).extracting(Fila::getTotalMesAnterior).containsOnlyNulls();
+    }
+
+    private List<Fila> consultar(Set<Dimension> agrupar) {
+        List<Fila> filas = cubo.consultar(agrupar, null, null, null, null);
+        filas.sort(CuboGastos.POR_DIMENSIONES);
+        return filas;
+    }
+}
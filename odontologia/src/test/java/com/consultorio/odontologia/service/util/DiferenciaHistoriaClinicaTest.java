@@ -0,0 +1,117 @@
+package com.consultorio.odontologia.service.util;
+
+import com.consultorio.odontologia.entity.HistoriaClinica;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Detección de campos cambiados y codificación comprimida de las diferencias de una historia clínica
+ */
+class DiferenciaHistoriaClinicaTest {
+
+    private static HistoriaClinica historia() {
+        HistoriaClinica historia = new HistoriaClinica();
+        historia.setMotivoConsulta("Dolor en molar inferior");
+        historia.setCepilladoDental("dos veces al dia");
+        historia.setUsaHiloDental(false);
+        historia.setFumador(true);
+        historia.setAlergias("Penicilina");
+        historia.setMedicamentos("Ibuprofeno 400 mg");
+        return historia;
+    }
+
+    @Test
+    void camposCambiadosMarcaSoloLosDistintos() {
+        HistoriaClinica antes = historia();
+        HistoriaClinica despues = historia();
+        despues.setMotivoConsulta("Control");
+        despues.setFumador(false);
+        despues.setAlergias(null);
+        despues.setConsumeMate(true);
+
+        long mascara = DiferenciaHistoriaClinica.camposCambiados(
+                DiferenciaHistoriaClinica.leer(antes), DiferenciaHistoriaClinica.leer(despues));
+
+        assertThat(DiferenciaHistoriaClinica.nombres(mascara))
+                .containsExactly("motivoConsulta", "fumador", "consumeMate", "alergias");
+        assertThat(mascara & (1L << DiferenciaHistoriaClinica.posicion("fumador"))).isNotZero();
+        assertThat(DiferenciaHistoriaClinica.camposCambiados(
+                DiferenciaHistoriaClinica.leer(antes), DiferenciaHistoriaClinica.leer(historia()))).isZero();
+    }
+
+    @Test
+    void codificarYDecodificarDevuelveLosMismosValores() {
+        HistoriaClinica historia = historia();
+        historia.setAlergias(null);
+        historia.setObservacionesHigienicas("Sangrado al cepillado, ñandú y acentos: á é í ó ú");
+        Object[] valores = DiferenciaHistoriaClinica.leer(historia);
+        long mascara = bits("motivoConsulta", "observacionesHigienicas", "usaHiloDental", "fumador", "alergias");
+
+        Map<Integer, Object> decodificados = DiferenciaHistoriaClinica.decodificar(
+                DiferenciaHistoriaClinica.codificar(valores, mascara));
+
+        assertThat(decodificados).containsOnlyKeys(posiciones("motivoConsulta", "observacionesHigienicas",
+                "usaHiloDental", "fumador", "alergias"));
+        for (Map.Entry<Integer, Object> entrada : decodificados.entrySet()) {
+            assertThat(entrada.getValue()).isEqualTo(valores[entrada.getKey()]);
+        }
+        assertThat(decodificados.get(DiferenciaHistoriaClinica.posicion("alergias"))).isNull();
+        assertThat(decodificados.get(DiferenciaHistoriaClinica.posicion("usaHiloDental"))).isEqualTo(Boolean.FALSE);
+    }
+
+    @Test
+    void textosLargosSeComprimenYLosCortosPuedenQuedarSinComprimir() {
+        HistoriaClinica historia = new HistoriaClinica();
+        // Más de 127 bytes: el largo ocupa dos bytes de varint
+        historia.setEnfermedadesActuales("hipertension controlada, diabetes tipo 2 ".repeat(20));
+        historia.setFumador(true);
+        Object[] valores = DiferenciaHistoriaClinica.leer(historia);
+
+        byte[] largo = DiferenciaHistoriaClinica.codificar(valores, bits("enfermedadesActuales"));
+        byte[] corto = DiferenciaHistoriaClinica.codificar(valores, bits("fumador"));
+
+        // El primer byte es el formato: 1 = Deflate con diccionario, 0 = sin comprimir
+        assertThat(largo[0]).isEqualTo((byte) 1);
+        assertThat(largo.length).isLessThan(historia.getEnfermedadesActuales().length() / 4);
+        assertThat(corto).containsExactly(0, DiferenciaHistoriaClinica.posicion("fumador"), 2);
+        assertThat(DiferenciaHistoriaClinica.decodificar(largo))
+                .containsExactly(Map.entry(DiferenciaHistoriaClinica.posicion("enfermedadesActuales"),
+                        historia.getEnfermedadesActuales()));
+        assertThat(DiferenciaHistoriaClinica.decodificar(corto))
+                .containsExactly(Map.entry(DiferenciaHistoriaClinica.posicion("fumador"), Boolean.TRUE));
+    }
+
+    @Test
+    void escribirAplicaLosValoresLeidosSobreOtraHistoria() {
+        HistoriaClinica copia = new HistoriaClinica();
+
+        DiferenciaHistoriaClinica.escribir(copia, DiferenciaHistoriaClinica.leer(historia()));
+
+        assertThat(DiferenciaHistoriaClinica.leer(copia)).containsExactly(DiferenciaHistoriaClinica.leer(historia()));
+    }
+
+    @Test
+    void rechazaCamposYFormatosDesconocidos() {
+        assertThatThrownBy(() -> DiferenciaHistoriaClinica.posicion("paciente"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> DiferenciaHistoriaClinica.decodificar(new byte[] {9, 0}))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private static long bits(String... campos) {
+        long mascara = 0L;
+        for (String campo : campos) {
+            mascara |= 1L << DiferenciaHistoriaClinica.posicion(campo);
+        }
+        return mascara;
+    }
+
+    private static Integer[] posiciones(String... campos) {
+        return List.of(campos).stream().map(DiferenciaHistoriaClinica::posicion).toArray(Integer[]::new);
+    }
+}
@@ -0,0 +1,173 @@
+package com.consultorio.odontologia.service.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Lectura de los CSV de gastos que exportan Excel y las planillas: comillas, separadores, BOM y registros rotos
+ */
+class LectorCsvTest {
+
+    @Test
+    void camposEntreComillasConSaltosDeLineaYComillasEscapadas() throws IOException {
+        String csv = "fechaGasto,descripcion,precio,observaciones\r\n"
+                + "2025-03-01,Guantes,1200.50,\"Caja de 100.\r\nTalle M\"\r\n"
+                + "2025-03-02,\"Anestesia, carpules\",830,\"Marca \"\"Septanest\"\"\"\n";
+
+        LectorCsv lector = new LectorCsv(new StringReader(csv));
+
+        assertThat(lector.leer()).containsExactly("fechaGasto", "descripcion", "precio", "observaciones");
+        assertThat(lector.leer()).containsExactly("2025-03-01", "Guantes", "1200.50", "Caja de 100.\r\nTalle M");
+        assertThat(lector.getRegistro()).isEqualTo(2);
+        assertThat(lector.leer()).containsExactly("2025-03-02", "Anestesia, carpules", "830", "Marca \"Septanest\"");
+        assertThat(lector.getRegistro()).isEqualTo(3);
+        assertThat(lector.leer()).isNull();
+    }
+
+    @Test
+    void deduceElPuntoYComaDelEncabezado() throws IOException {
+        String csv = "\"fecha\";\"descripcion\";\"precio\";\"categoria\";\"proveedor\"\n"
+                + "01/03/2025;Guantes;1.234,50;Insumos;Dental Sur\n"
+                + "\n"
+                + "02/03/2025;\"Alquiler; marzo\";800;;\n";
+
+        LectorCsv lector = new LectorCsv(new StringReader(csv));
+
+        assertThat(lector.leer()).containsExactly("fecha", "descripcion", "precio", "categoria", "proveedor");
+        assertThat(lector.getSeparador()).isEqualTo(';');
+        // La coma decimal no corta el campo y las líneas en blanco se saltean
+        assertThat(lector.leer()).containsExactly("01/03/2025", "Guantes", "1.234,50", "Insumos", "Dental Sur");
+        assertThat(lector.leer()).containsExactly("02/03/2025", "Alquiler; marzo", "800", "", "");
+        assertThat(lector.leer()).isNull();
+    }
+
+    @Test
+    void ignoraElBomDeExcel() throws IOException {
+        LectorCsv lector = new LectorCsv(new StringReader("\uFEFFdescripcion,precio,fechaGasto\nGuantes,1200,2025-03-01"));
+
+        assertThat(leerTodo(lector)).containsExactly(List.of("descripcion", "precio", "fechaGasto"),
+                List.of("Guantes", "1200", "2025-03-01"));
+        assertThat(lector.getSeparador()).isEqualTo(',');
+    }
+
+    @Test
+    void archivoVacioYComillasSinCerrar() throws IOException {
+        assertThat(new LectorCsv(new StringReader("")).leer()).isNull();
+        assertThat(new LectorCsv(new StringReader("\uFEFF\r\n")).leer()).isNull();
+
+        LectorCsv lector = new LectorCsv(new StringReader("descripcion,precio,fechaGasto\n\"Guantes,1200,2025-03-01\n"));
+        lector.leer();
+        assertThatThrownBy(lector::leer).isInstanceOfSatisfying(LectorCsv.RegistroInvalidoException.class, e -> {
+            assertThat(e.getRegistro()).isEqualTo(2);
+            assertThat(e.isRecuperable()).isFalse();
+        });
+        assertThat(lector.leer()).isNull();
+    }
+
+    @Test
+    void unCampoDemasiadoLargoSinComillasSeSalteaYSigueConElRegistroSiguiente() throws IOException {
+        String csv = "descripcion,precio,fechaGasto\n"
+                + "x".repeat(50) + ",1200,2025-03-01\n"
+                + "Guantes,1200,2025-03-02\n";
+        LectorCsv lector = new LectorCsv(new StringReader(csv), 20, 100);
+        lector.leer();
+
+        assertThatThrownBy(lector::leer).isInstanceOfSatisfying(LectorCsv.RegistroInvalidoException.class, e -> {
+            assertThat(e.getRegistro()).isEqualTo(2);
+            assertThat(e.isRecuperable()).isTrue();
+            assertThat(e.getMessage()).contains("20 caracteres");
+        });
+        assertThat(lector.leer()).containsExactly("Guantes", "1200", "2025-03-02");
+        assertThat(lector.getRegistro()).isEqualTo(3);
+        assertThat(lector.leer()).isNull();
+    }
+
+    @Test
+    void muchosCamposCortosTambienCuentanParaElLargoDelRegistro() throws IOException {
+        String csv = "descripcion,precio,fechaGasto\n"
+                + "Guantes,1200,2025-03-01" + ",a".repeat(60) + "\n"
+                + "Barbijos,300,2025-03-02\n";
+        LectorCsv lector = new LectorCsv(new StringReader(csv), 20, 100);
+        lector.leer();
+
+        assertThatThrownBy(lector::leer).isInstanceOfSatisfying(LectorCsv.RegistroInvalidoException.class,
+                e -> assertThat(e.isRecuperable()).isTrue());
+        assertThat(lector.leer()).containsExactly("Barbijos", "300", "2025-03-02");
+    }
+
+    @Test
+    void unaComillaSinCerrarSeCortaEnElLimiteSinLeerElRestoDelArchivo() throws IOException {
+        ContadorReader reader = new ContadorReader("descripcion,precio,fechaGasto\n"
+                + "Guantes,1200,2025-03-01\n"
+                + "\"Barbijos,300,2025-03-02\n"
+                + "Gasas,150,2025-03-03\n".repeat(10_000));
+        LectorCsv lector = new LectorCsv(reader, 20, 100);
+        lector.leer();
+        assertThat(lector.leer()).containsExactly("Guantes", "1200", "2025-03-01");
+
+        assertThatThrownBy(lector::leer).isInstanceOfSatisfying(LectorCsv.RegistroInvalidoException.class, e -> {
+            assertThat(e.getRegistro()).isEqualTo(3);
+            assertThat(e.isRecuperable()).isFalse();
+        });
+        assertThat(reader.leidos).isLessThan(200);
+        assertThat(lector.leer()).isNull();
+    }
+
+    @Test
+    void unEncabezadoDemasiadoLargoNoSeLee() {
+        LectorCsv lector = new LectorCsv(new StringReader("descripcion".repeat(20) + "\nGuantes"), 20, 100);
+
+        assertThatThrownBy(lector::leer).isInstanceOf(LectorCsv.RegistroInvalidoException.class)
+                .hasMessageContaining("encabezado");
+    }
+
+    private static List<List<String>> leerTodo(LectorCsv lector) throws IOException {
+        List<List<String>> registros = new ArrayList<>();
+        List<String> campos;
+        while ((campos = lector.leer()) != null) {
+            registros.add(campos);
+        }
+        return registros;
+    }
+
+    // Cuenta los caracteres que el lector pidió, para ver que no recorre el archivo entero
+    private static class ContadorReader extends Reader {
+        private final StringReader reader;
+        private long leidos;
+
+        ContadorReader(String texto) {
+            this.reader = new StringReader(texto);
+        }
+
+        @Override
+        public int read(char[] destino, int desde, int largo) throws IOException {
+            int n = reader.read(destino, desde, largo);
+            if (n > 0) {
+                leidos += n;
+            }
+            return n;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int c = reader.read();
+            if (c != -1) {
+                leidos++;
+            }
+            return c;
+        }
+
+        @Override
+        public void close() {
+            reader.close();
+        }
+    }
+}